@@ -0,0 +1,69 @@
+/**
+ * Represents the boundary class that converts the database files between formats.
+ * By default every database file is rewritten in the binary format of RecordCodec.
+ * With --legacy every database file is written back with Java serialization,
+ * so an older copy of the program can read them again.
+ * Usage: java Boundary.ConverterAppUI [--legacy]
+ * @author Lim Boon Leng
+ * @version 1.0
+ * @since 2017-04-17
+ */
+
+package Boundary;
+
+import java.io.File;
+import java.util.List;
+
+import Objects.RecordCodec;
+import Objects.RecordFile;
+
+public class ConverterAppUI {
+	/**
+	 * The names of the database files, in the same order as RECORD_TYPES.
+	 */
+	private static final String[] FILE_NAMES = { "students.dat", "courses.dat", "indexGrps.dat", "waitlists.dat", "admins.dat", "ballots.dat", "swapRequests.dat" };
+
+	/**
+	 * The record types of the database files, in the same order as FILE_NAMES.
+	 */
+	private static final byte[] RECORD_TYPES = { RecordCodec.STUDENT, RecordCodec.COURSE, RecordCodec.INDEX_GROUP, RecordCodec.WAITLIST, RecordCodec.ADMIN, RecordCodec.BALLOT, RecordCodec.SWAP_REQUEST };
+
+	/**
+	 * Converts every database file and prints its size before and after.
+	 * @param args --legacy to convert back to Java serialization, optional.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static void main(String[] args) {
+		boolean legacy = args.length > 0 && args[0].equals("--legacy");
+		long totalBefore = 0;
+		long totalAfter = 0;
+
+		for (int i = 0; i < FILE_NAMES.length; i++) {
+			String fileName = System.getProperty("user.dir") + "\\Databases\\" + FILE_NAMES[i];
+			long before = new File(fileName).length();
+			List list = RecordFile.read(fileName, RECORD_TYPES[i]);
+
+			if (list == null) {
+				System.out.println("Unable to read " + FILE_NAMES[i] + ", it is left unchanged.");
+				continue;
+			}
+
+			boolean success;
+			if (legacy) {
+				success = RecordFile.writeSerialized(fileName, list);
+			} else {
+				success = RecordFile.write(fileName, RECORD_TYPES[i], list);
+			}
+
+			if (!success) {
+				System.out.println("Unable to write " + FILE_NAMES[i] + ", it is left unchanged.");
+				continue;
+			}
+			long after = new File(fileName).length();
+			totalBefore += before;
+			totalAfter += after;
+			System.out.println(FILE_NAMES[i] + ": " + list.size() + " records, " + before + " bytes -> " + after + " bytes");
+		}
+		System.out.println("Total: " + totalBefore + " bytes -> " + totalAfter + " bytes");
+	}
+}
@@ -0,0 +1,40 @@
+/**
+ * Represents the boundary class that adds many index groups, courses and students from a file.
+ * See ImportController for the format of the file.
+ * Usage: java Boundary.ImportAppUI file
+ * @author Lim Boon Leng
+ * @version 1.0
+ * @since 2017-04-18
+ */
+
+package Boundary;
+
+import Control.ImportController;
+import Objects.Database;
+
+public class ImportAppUI {
+	/**
+	 * Imports the file given and prints the number of records added and how fast.
+	 * @param args The path of the file to import.
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Usage: java Boundary.ImportAppUI file");
+			return;
+		}
+
+		Database.loadAll();
+		ImportController.Result result = ImportController.importFile(args[0]);
+
+		if (result == null) {
+			System.out.println("Unable to read " + args[0] + "!");
+			return;
+		}
+
+		System.out.println(result.getNumOfRecords() + " records added, " + result.getNumOfRejected() + " rows rejected in "
+				+ result.getElapsedTime() + " ms (" + Math.round(result.getRecordsPerSecond()) + " records per second)");
+		if (!result.isWritten()) {
+			System.out.println("The database files could not all be written. The records are kept in the journal.");
+		}
+	}
+}
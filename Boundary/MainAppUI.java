@@ -1,38 +1,68 @@
 /**
  * Represents the main boundary class for users to access the program.
  * @author Lim Boon Leng
- * @version 1.8
+ * @version 2.5
  * @since 2017-04-12
  */
 
 package Boundary;
 import java.io.Console;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.InputMismatchException;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Queue;
 import java.util.Scanner;
 
+import Control.AdmissionController;
+import Control.BallotController;
 import Control.CourseMgmtController;
+import Control.NotificationController;
 import Control.PasswordHashController;
+import Control.RegistrationEngine;
+import Control.SessionController;
 import Control.StudentMgmtController;
+import Control.SwapController;
+import Control.TimetablePlanner;
+import Control.VacancyFeedController;
+import Interface.VacancyListener;
 import Objects.Admin;
+import Objects.Ballot;
 import Objects.Course;
+import Objects.Database;
 import Objects.IndexGroup;
 import Objects.Lesson;
 import Objects.Schedule;
+import Objects.Snapshot;
 import Objects.Student;
+import Objects.VacancyEvent;
+import Objects.SwapRequest;
 import Objects.Waitlist;
 
 public class MainAppUI {
+	/**
+	 * The number of milliseconds between updates to a student in the waiting room.
+	 */
+	private static final long WAITING_ROOM_REFRESH = 5000;
+
+	/**
+	 * The largest number of timetables shown by the timetable planner.
+	 */
+	private static final int MAX_PLANS = 5;
+
 	/**
 	 * Initialise the main menu for users to use.
 	 * @param args The arguments to invoke.
 	 */
 	public static void main(String[] args) {
+		Database.loadAll();
+		Database.startCompactor();
+		NotificationController.start();
 		mainMenu();
 	}
 
@@ -40,31 +70,46 @@ public class MainAppUI {
 	 * Allows users to login.
 	 */
 	public static void mainMenu() {
-		Console cons = System.console();
+		loginMenu(new Scanner(System.in));
+	}
+
+	/**
+	 * Allows users to login, reading their input from the given scanner.
+	 * Used by the console and by every session of the server.
+	 * @param sc The scanner that reads in input from the user.
+	 */
+	public static void loginMenu(Scanner sc) {
 		Admin admin = new Admin();
 		Student student = new Student();
-		Scanner sc = new Scanner(System.in);
 
 		while (admin.getAdminID() == null|| student.getStudentID() == null) {
 			System.out.println("WELCOME TO NTU STARS SYSTEM (CONSOLE)");
 			System.out.println("Please enter your userID: ");
 			String userID = sc.nextLine();
 
-			char[] password = cons.readPassword("Please enter your password: ");
-			String passString = new String(password);
+			String passwordHash = PasswordHashController.hash(readPassword("Please enter your password: ", sc));
+			String token = SessionController.login(userID, passwordHash);
 
-			if (admin.login(userID, PasswordHashController.hash(passString))) {
-				admin = new Admin(userID, PasswordHashController.hash(passString));
+			if (token == null) {
+				System.out.println("Invalid userID or password!\n");
+			} else if (SessionController.isAdmin(token)) {
+				admin = new Admin(userID, passwordHash);
 				adminMenu(admin, sc);
-			} else if (student.login(userID, PasswordHashController.hash(passString))) {
-				student = student.retrieveStudentObject(userID);
-				studentTimeout(student);
-				studentMenu(student, sc);
 			} else {
-				System.out.println("Invalid userID or password!\n");
+				student = student.retrieveStudentObject(userID);
+				if (studentTimeout(student)) {
+					try {
+						waitingRoom(token, student);
+						studentMenu(student, sc);
+					} finally {
+						VacancyFeedController.unwatch(userID);
+						AdmissionController.leave(token);
+					}
+				}
 			}
+			SessionController.logout(token);
 			admin.setAdminID(null);
-			student.setStudentID(null);
+			student = new Student();
 		}
 	}
 
@@ -89,7 +134,10 @@ public class MainAppUI {
 			System.out.println("6) Edit student access periods");
 			System.out.println("7) Print list of students by index group number");
 			System.out.println("8) Print list of students by course");
-			System.out.println("9) Logout");
+			System.out.println("9) Run the ballot");
+			System.out.println("10) Change the capacity of an index group");
+			System.out.println("11) Promote students from waitlists");
+			System.out.println("12) Logout");
 
 			do {
 				try {
@@ -129,11 +177,20 @@ public class MainAppUI {
 			case 8:
 				adminPrintStudByCourseMenu(sc);
 				break;
+			case 9:
+				adminRunBallotMenu();
+				break;
+			case 10:
+				adminChangeCapacityMenu(sc);
+				break;
+			case 11:
+				adminPromoteWaitlistsMenu();
+				break;
 			default:
 				System.out.println("");
 				break;
 			}
-		} while (choice > 0 && choice < 9);
+		} while (choice > 0 && choice < 12);
 	}
 
 	/**
@@ -156,7 +213,12 @@ public class MainAppUI {
 			System.out.println("5) Change index group number of course");
 			System.out.println("6) Swap index group number with another student");
 			System.out.println("7) Select Notification Mode");
-			System.out.println("8) Logout");
+			System.out.println("8) Plan a clash-free timetable");
+			System.out.println("9) Submit a ballot");
+			System.out.println("10) Post a swap request");
+			System.out.println("11) View or cancel swap requests");
+			System.out.println("12) Watch vacancies of index groups");
+			System.out.println("13) Logout");
 			
 			do {
 				try {
@@ -174,43 +236,88 @@ public class MainAppUI {
 
 			switch (choice) {
 			case 1:
-				studentTimeout(stud);
+				if (!studentTimeout(stud)) {
+					return;
+				}
 				studentRegistCourseMenu(stud, sc);
 				stud = stud.retrieveStudentObject(stud.getStudentID());
 				break;
 			case 2:
-				studentTimeout(stud);
+				if (!studentTimeout(stud)) {
+					return;
+				}
 				studentDropCourseMenu(stud, sc);
 				stud = stud.retrieveStudentObject(stud.getStudentID());
 				break;
 			case 3:
-				studentTimeout(stud);
+				if (!studentTimeout(stud)) {
+					return;
+				}
 				studentPrintCoursesMenu(stud);
 				break;
 			case 4:
-				studentTimeout(stud);
+				if (!studentTimeout(stud)) {
+					return;
+				}
 				studentCheckVacancyMenu(stud, sc);
 				break;
 			case 5:
-				studentTimeout(stud);
+				if (!studentTimeout(stud)) {
+					return;
+				}
 				studentChangeIndexGroupMenu(stud, sc);
 				stud = stud.retrieveStudentObject(stud.getStudentID());
 				break;
 			case 6:
-				studentTimeout(stud);
+				if (!studentTimeout(stud)) {
+					return;
+				}
 				studentSwapIndexGroupMenu(stud, sc);
 				stud = stud.retrieveStudentObject(stud.getStudentID());
 				break;
 			case 7:
-				studentTimeout(stud);
+				if (!studentTimeout(stud)) {
+					return;
+				}
 				studentSelectNotifMenu(stud, sc);
 				stud = stud.retrieveStudentObject(stud.getStudentID());
 				break;
+			case 8:
+				if (!studentTimeout(stud)) {
+					return;
+				}
+				studentPlanTimetableMenu(stud, sc);
+				break;
+			case 9:
+				if (!studentTimeout(stud)) {
+					return;
+				}
+				studentSubmitBallotMenu(stud, sc);
+				break;
+			case 10:
+				if (!studentTimeout(stud)) {
+					return;
+				}
+				studentPostSwapRequestMenu(stud, sc);
+				stud = stud.retrieveStudentObject(stud.getStudentID());
+				break;
+			case 11:
+				if (!studentTimeout(stud)) {
+					return;
+				}
+				studentSwapRequestsMenu(stud, sc);
+				break;
+			case 12:
+				if (!studentTimeout(stud)) {
+					return;
+				}
+				studentWatchVacanciesMenu(stud, sc);
+				break;
 			default:
 				System.out.println("");
 				break;
 			}
-		} while (choice > 0 && choice < 8);
+		} while (choice > 0 && choice < 13);
 	}
 
 	/**
@@ -399,12 +506,11 @@ public class MainAppUI {
 			lessonList.add(l1);
 		}
 		
-		boolean flag = false;
-		int waitListID = 0;
-		
-		while (!flag) {
-			flag = !(wl.checkWaitListExists(waitListID));
-			waitListID++;
+		int waitListID = Database.waitlistIDs.nextID();
+
+		if (waitListID < 0) {
+			System.out.println("Unable to create a waitlist for the index group! Returning to main menu.\n");
+			return;
 		}
 		
 		wl = new Waitlist(waitListID, indexGroupID, studentQueueList);	
@@ -610,7 +716,12 @@ public class MainAppUI {
 		} while (!validInput);
 		validInput = false;
 
-		tempGrp = tempGrp.retrieveIndexGroupObject(indexGrp);
+		Snapshot snapshot = Database.snapshot();
+		try {
+			tempGrp = snapshot.getIndexGroup(indexGrp);
+		} finally {
+			snapshot.close();
+		}
 		if (tempGrp != null) {
 			System.out.println("Vacancy of Index Group " + indexGrp + ": " + tempGrp.calculateVacancy());
 			System.out.println("Current number of students: " + tempGrp.getCurrentNumOfStudents());
@@ -920,13 +1031,11 @@ public class MainAppUI {
 		int ownIndexNumber = 0;
 		int peerIndexNumber = 0;
 		boolean validInput = false;
-		Console cons = System.console();
 
 		System.out.println("Enter the peer's username: ");
 		peerUsername = sc.nextLine();
 
-		char[] password = cons.readPassword("Enter the peer's password: ");
-		peerPassword = new String(password);
+		peerPassword = readPassword("Enter the peer's password: ", sc);
 		
 		System.out.println("Enter the index group number you want to swap: ");
 		do {
@@ -1028,7 +1137,12 @@ public class MainAppUI {
 		} while (!validInput);
 		validInput = false;
 
-		tempGrp = tempGrp.retrieveIndexGroupObject(indexGrp);
+		Snapshot snapshot = Database.snapshot();
+		try {
+			tempGrp = snapshot.getIndexGroup(indexGrp);
+		} finally {
+			snapshot.close();
+		}
 		if (tempGrp != null) {
 			System.out.println("Number of vacancies: " + tempGrp.calculateVacancy());
 			System.out.println("Number of students: " + tempGrp.getCurrentNumOfStudents() + "/" + tempGrp.getMaxNumOfStudents() + "\n");
@@ -1037,6 +1151,290 @@ public class MainAppUI {
 		}
 	}
 
+	/**
+	 * Provides a form for an admin that is logged in to change the maximum number of students of an index group.
+	 * Students in its waitlist are promoted if the capacity is raised.
+	 * @param sc The scanner that reads in input from the admin.
+	 */
+	private static void adminChangeCapacityMenu(Scanner sc) {
+		Integer indexGrp = null;
+		Integer maxNumOfStudents = null;
+		boolean validInput = false;
+
+		System.out.println("Enter the index group number: ");
+		do {
+			try {
+				indexGrp = sc.nextInt();
+				if (indexGrp >= 1) {
+					validInput = true;
+					sc.nextLine();
+				}
+			} catch (InputMismatchException e) {
+				System.out.println("Enter a valid integer!");
+				sc.nextLine();
+			}
+		} while (!validInput);
+		validInput = false;
+
+		IndexGroup tempGrp = Database.indexGroups.get(indexGrp);
+		if (tempGrp == null) {
+			System.out.println("Index group does not exist!");
+			return;
+		}
+		System.out.println("Current number of students: " + tempGrp.getCurrentNumOfStudents() + "/" + tempGrp.getMaxNumOfStudents());
+
+		System.out.println("Enter the new maximum number of students: ");
+		do {
+			try {
+				maxNumOfStudents = sc.nextInt();
+				if (maxNumOfStudents >= 1) {
+					validInput = true;
+					sc.nextLine();
+				}
+			} catch (InputMismatchException e) {
+				System.out.println("Enter a valid integer!");
+				sc.nextLine();
+			}
+		} while (!validInput);
+
+		int numOfPromoted = CourseMgmtController.changeCapacity(indexGrp, maxNumOfStudents);
+		if (numOfPromoted < 0) {
+			System.out.println("The maximum number of students cannot be less than the number of students registered!\n");
+		} else {
+			System.out.println("Capacity successfully changed! " + numOfPromoted + " student(s) promoted from the waitlist.\n");
+		}
+	}
+
+	/**
+	 * Promotes students from the waitlists of every index group with vacancies, for an admin that is logged in.
+	 */
+	private static void adminPromoteWaitlistsMenu() {
+		System.out.println(RegistrationEngine.promoteFromWaitlists() + " student(s) promoted from waitlists.\n");
+	}
+
+	/**
+	 * Runs the ballot for an admin that is logged in, once the ballot window has closed.
+	 */
+	private static void adminRunBallotMenu() {
+		BallotController.Result result = BallotController.runBallot();
+
+		if (result == null) {
+			SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yy HH:mm:ss", Locale.ENGLISH);
+			System.out.println("The ballot is open until " + sdf.format(BallotController.getBallotEnd().getTime()) + "!\n");
+			return;
+		}
+
+		System.out.println(result.getNumOfBallots() + " ballots allocated in " + result.getNumOfRounds() + " rounds and "
+				+ result.getElapsedTime() + " ms");
+		System.out.println("Courses registered: " + result.getNumOfRegistered() + ", waitlisted: " + result.getNumOfWaitlisted()
+				+ ", unplaced: " + result.getNumOfUnplaced());
+		if (!result.isWritten()) {
+			System.out.println("The database files could not all be written. The changes are kept in the journal.");
+		}
+		System.out.println("");
+	}
+
+	/**
+	 * Provides a form for a student that is logged in to submit index groups ranked for the ballot.
+	 * @param stud The current student in session.
+	 * @param sc The scanner that reads in input from the student.
+	 */
+	private static void studentSubmitBallotMenu(Student stud, Scanner sc) {
+		ArrayList<Integer> indexGroupIDs = new ArrayList<Integer>();
+
+		if (!BallotController.isBallotOpen()) {
+			System.out.println("The ballot is not open.\n");
+			return;
+		}
+
+		Ballot ballot = Database.ballots.get(stud.getStudentID());
+		if (ballot != null && !ballot.isAllocated()) {
+			System.out.println("Your ballot: " + ballot.getIndexGroupList());
+		}
+
+		System.out.println("Enter the index group numbers you want, most wanted first: etc.(10101;10201;10102...) ");
+		Scanner s = new Scanner(sc.nextLine()).useDelimiter(";");
+		try {
+			while (s.hasNext()) {
+				indexGroupIDs.add(Integer.parseInt(s.next().trim()));
+			}
+		} catch (NumberFormatException e) {
+			System.out.println("Enter valid index group numbers!\n");
+			return;
+		} finally {
+			s.close();
+		}
+
+		String error = BallotController.submitBallot(stud.getStudentID(), indexGroupIDs);
+		if (error == null) {
+			System.out.println("Your ballot has been submitted.\n");
+		} else {
+			System.out.println(error + "\n");
+		}
+	}
+
+	/**
+	 * Provides a form for a student that is logged in to post the index group they have and the index groups
+	 * of the same course they would swap it for. The student is swapped at once if a swap can be found,
+	 * otherwise whenever another student's request completes one.
+	 * @param stud The student that is logged in.
+	 * @param sc The scanner that reads in input from the student.
+	 */
+	private static void studentPostSwapRequestMenu(Student stud, Scanner sc) {
+		ArrayList<Integer> wantIndexGroupIDs = new ArrayList<Integer>();
+		Integer haveIndexGroupID;
+
+		System.out.println("Enter your current index group number: ");
+		try {
+			haveIndexGroupID = Integer.parseInt(sc.nextLine().trim());
+		} catch (NumberFormatException e) {
+			System.out.println("Enter a valid index group number!\n");
+			return;
+		}
+
+		System.out.println("Enter the index group numbers you would swap for: etc.(10101;10201;10102...) ");
+		Scanner s = new Scanner(sc.nextLine()).useDelimiter(";");
+		try {
+			while (s.hasNext()) {
+				wantIndexGroupIDs.add(Integer.parseInt(s.next().trim()));
+			}
+		} catch (NumberFormatException e) {
+			System.out.println("Enter valid index group numbers!\n");
+			return;
+		} finally {
+			s.close();
+		}
+
+		System.out.println(SwapController.postSwapRequest(stud.getStudentID(), haveIndexGroupID, wantIndexGroupIDs).getMessage() + "\n");
+	}
+
+	/**
+	 * Prints the swap requests of a student that is logged in, and lets the student cancel an open one.
+	 * @param stud The student that is logged in.
+	 * @param sc The scanner that reads in input from the student.
+	 */
+	private static void studentSwapRequestsMenu(Student stud, Scanner sc) {
+		List<SwapRequest> swapRequests = SwapController.getSwapRequests(stud.getStudentID());
+		boolean hasOpen = false;
+
+		if (swapRequests.isEmpty()) {
+			System.out.println("You have no swap requests.\n");
+			return;
+		}
+
+		for (int i = 0; i < swapRequests.size(); i++) {
+			SwapRequest swapRequest = swapRequests.get(i);
+			String status;
+
+			if (swapRequest.isOpen()) {
+				status = "Open";
+				hasOpen = true;
+			} else if (swapRequest.getSwappedIndexGroupID() != null) {
+				status = "Swapped to " + swapRequest.getSwappedIndexGroupID();
+			} else {
+				status = "Closed";
+			}
+			System.out.println(swapRequest.getCourseID() + ": " + swapRequest.getHaveIndexGroupID() + " for "
+					+ swapRequest.getWantIndexGroupList() + " - " + status);
+		}
+
+		if (!hasOpen) {
+			System.out.println("");
+			return;
+		}
+		System.out.println("Enter the course code of the request to cancel, or press Enter to go back: ");
+		String courseID = sc.nextLine().trim().toUpperCase();
+		if (!courseID.isEmpty()) {
+			System.out.println(SwapController.cancelSwapRequest(stud.getStudentID(), courseID).getMessage() + "\n");
+		}
+	}
+
+	/**
+	 * Provides a form for a student that is logged in to watch the vacancies of index groups.
+	 * The vacancies are printed at once, then again whenever they change, until the student logs out.
+	 * @param stud The student that is logged in.
+	 * @param sc The scanner that reads in input from the student.
+	 */
+	private static void studentWatchVacanciesMenu(Student stud, Scanner sc) {
+		ArrayList<Integer> indexGroupIDs = new ArrayList<Integer>();
+		final PrintStream out = SessionOutput.current();
+
+		List<Integer> watched = VacancyFeedController.getWatched(stud.getStudentID());
+		if (!watched.isEmpty()) {
+			System.out.println("You are watching: " + watched);
+		}
+
+		System.out.println("Enter the index group numbers to watch, or press Enter to stop watching: etc.(10101;10201;10102...) ");
+		Scanner s = new Scanner(sc.nextLine()).useDelimiter(";");
+		try {
+			while (s.hasNext()) {
+				indexGroupIDs.add(Integer.parseInt(s.next().trim()));
+			}
+		} catch (NumberFormatException e) {
+			System.out.println("Enter valid index group numbers!\n");
+			return;
+		} finally {
+			s.close();
+		}
+
+		if (indexGroupIDs.isEmpty()) {
+			VacancyFeedController.unwatch(stud.getStudentID());
+			System.out.println("You are no longer watching any index group.\n");
+			return;
+		}
+
+		int numOfWatched = VacancyFeedController.watch(stud.getStudentID(), indexGroupIDs, new VacancyListener() {
+			public void vacancyChanged(VacancyEvent event) throws IOException {
+				out.println("[Vacancy] Index group " + event.getIndexGroupID() + ": " + event.getVacancy() + " vacancies, "
+						+ event.getCurrentNumOfStudents() + "/" + event.getMaxNumOfStudents() + " students, "
+						+ event.getWaitlistLength() + " in waitlist");
+				if (out.checkError()) {
+					throw new IOException("The session can no longer be reached");
+				}
+			}
+		});
+		if (numOfWatched == 0) {
+			System.out.println("Index group does not exist!\n");
+		} else {
+			System.out.println("Watching " + numOfWatched + " index group(s). Changes will be shown until you log out.\n");
+		}
+	}
+
+	/**
+	 * Provides a form for a student that is logged in to find clash-free index groups for a list of courses.
+	 * @param stud The current student in session.
+	 * @param sc The scanner that reads in input from the student.
+	 */
+	private static void studentPlanTimetableMenu(Student stud, Scanner sc) {
+		ArrayList<String> courseIDs = new ArrayList<String>();
+
+		System.out.println("Enter the course codes to plan: etc.(CZ2001;CZ2002;CZ2003...) ");
+		Scanner s = new Scanner(sc.nextLine()).useDelimiter(";");
+		while (s.hasNext()) {
+			courseIDs.add(s.next());
+		}
+		s.close();
+
+		List<TimetablePlanner.Plan> plans = TimetablePlanner.plan(stud.getStudentID(), courseIDs, MAX_PLANS);
+
+		if (plans == null) {
+			System.out.println("A course does not exist!\n");
+		} else if (plans.isEmpty()) {
+			System.out.println("No clash-free combination of index groups was found for these courses.\n");
+		} else {
+			for (int i = 0; i < plans.size(); i++) {
+				TimetablePlanner.Plan plan = plans.get(i);
+
+				System.out.println("Plan " + (i + 1) + (plan.getNumOfFullGroups() == 0 ? "" : " (" + plan.getNumOfFullGroups() + " index group(s) full, waitlist needed)"));
+				for (int j = 0; j < plan.getCourseIDs().size(); j++) {
+					IndexGroup temp = Database.indexGroups.get(plan.getIndexGroupIDs().get(j));
+					System.out.println("  " + plan.getCourseIDs().get(j) + ": " + temp.getIndexGroupID() + " (" + temp.getCurrentNumOfStudents() + "/" + temp.getMaxNumOfStudents() + ")");
+				}
+			}
+			System.out.println("");
+		}
+	}
+
 	/**
 	 * Displays the courses registered for a student that is logged in.
 	 * @param stud The current student in session.
@@ -1133,21 +1531,60 @@ public class MainAppUI {
 		}
 	}
 
+	/**
+	 * Reads a password without showing it on the console.
+	 * Sessions of the server have no console, so their password is read from the scanner.
+	 * @param prompt The message asking for the password.
+	 * @param sc The scanner that reads in input from the user.
+	 * @return the password entered.
+	 */
+	private static String readPassword(String prompt, Scanner sc) {
+		Console cons = System.console();
+
+		if (cons == null || SessionOutput.isAttached()) {
+			System.out.print(prompt);
+			return sc.nextLine();
+		}
+		return new String(cons.readPassword(prompt));
+	}
+
+	/**
+	 * Keeps a student that is logged in in the waiting room until they are admitted to the student menu,
+	 * showing their place in the waiting room every few seconds.
+	 * @param token The session token of the student.
+	 * @param stud The current student in session.
+	 */
+	private static void waitingRoom(String token, Student stud) {
+		AdmissionController.enter(token, stud.getStartTime());
+
+		while (!AdmissionController.awaitAdmission(token, WAITING_ROOM_REFRESH)) {
+			int position = AdmissionController.getPosition(token);
+
+			if (position < 0) {
+				System.out.println("You are in the waiting room. Your place in the queue will be drawn once the entry window closes.");
+			} else {
+				System.out.println("You are in the waiting room. Your place in the queue: " + position);
+			}
+		}
+	}
+
 	/**
 	 * Validates if the student that is logged in is allowed access to MySTARS
 	 * @param stud The current student in session.
+	 * @return boolean (true / false)
 	 */
-	private static void studentTimeout(Student stud) {
+	private static boolean studentTimeout(Student stud) {
 		// SimpleDateFormat sdf = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
 		Calendar currentTime = Calendar.getInstance();
 		// System.out.println(sdf.format(currentTime.getTime()));
 
 		if (currentTime.compareTo(stud.getStartTime()) < 0) {
 			System.out.println("You are not allowed to access yet!! Try again in the stipulated period\n");
-			mainMenu();
+			return false;
 		} else if (currentTime.compareTo(stud.getEndTime()) > 0) {
 			System.out.println("Your access period is over! Please contact the system administrator\n");
-			mainMenu();
+			return false;
 		}
+		return true;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+/**
+ * Represents the boundary class that serves many users at the same time over the network.
+ * Every session runs the same menus as the console on its own thread,
+ * and all sessions share the databases loaded in memory.
+ * Each session prints to a PrintStream of its own over its socket, so a client that stops reading holds up no other session.
+ * Usage: java Boundary.ServerAppUI [port]
+ * @author Lim Boon Leng
+ * @version 1.0
+ * @since 2017-04-16
+ */
+
+package Boundary;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import Control.NotificationController;
+import Objects.Database;
+
+public class ServerAppUI {
+	/**
+	 * The port the server listens on if none is given.
+	 */
+	private static final int DEFAULT_PORT = 5000;
+
+	/**
+	 * Starts the server and accepts sessions until the program is stopped.
+	 * @param args The port to listen on, optional.
+	 */
+	public static void main(String[] args) {
+		int port = DEFAULT_PORT;
+		ServerSocket serverSocket = null;
+		ExecutorService sessions = Executors.newCachedThreadPool();
+
+		if (args.length > 0) {
+			port = Integer.parseInt(args[0]);
+		}
+
+		Database.loadAll();
+		Database.startCompactor();
+		NotificationController.start();
+		SessionOutput.install();
+
+		try {
+			serverSocket = new ServerSocket(port);
+			System.out.println("NTU STARS server listening on port " + port);
+
+			while (true) {
+				final Socket socket = serverSocket.accept();
+				sessions.execute(new Runnable() {
+					public void run() {
+						runSession(socket);
+					}
+				});
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			sessions.shutdown();
+			try {
+				if (serverSocket != null) {
+					serverSocket.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Runs the login menu for one user until they disconnect.
+	 * @param socket The connection of the user.
+	 */
+	private static void runSession(Socket socket) {
+		try {
+			SessionOutput.attach(new PrintStream(socket.getOutputStream(), true));
+			MainAppUI.loginMenu(new Scanner(socket.getInputStream()));
+		} catch (NoSuchElementException e) {
+			// The user has disconnected
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			SessionOutput.detach();
+			try {
+				socket.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
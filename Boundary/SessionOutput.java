@@ -0,0 +1,229 @@
+/**
+ * Represents the standard output of the program when it runs as a server.
+ * Every menu prints to System.out, so output is sent to the PrintStream of the
+ * session running on the current thread, or to the console if there is none.
+ * Each session has a PrintStream of its own over its socket, and System.out only passes each call on to it
+ * without taking any lock of its own, so a session whose client stops reading only ever holds up itself.
+ * Output pushed to a session from another thread, such as the vacancies it watches,
+ * is printed to the PrintStream given by current(), whose lock is taken by each print,
+ * so a line pushed never lands inside a line printed.
+ * @author Lim Boon Leng
+ * @version 1.3
+ * @since 2017-04-16
+ */
+
+package Boundary;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Locale;
+
+public class SessionOutput extends PrintStream {
+	/**
+	 * The PrintStream of the session running on the current thread, if any.
+	 */
+	private static final ThreadLocal<PrintStream> session = new ThreadLocal<PrintStream>();
+
+	/**
+	 * The PrintStream of the console.
+	 */
+	private final PrintStream console;
+
+	/**
+	 * Creates a new SessionOutput that falls back to the given console.
+	 * @param console The PrintStream of the console.
+	 */
+	private SessionOutput(PrintStream console) {
+		super(console, true);
+		this.console = console;
+	}
+
+	/**
+	 * Replaces System.out so that output is sent to the session of the current thread.
+	 */
+	public static void install() {
+		System.setOut(new SessionOutput(System.out));
+	}
+
+	/**
+	 * Sends the output of the current thread to the given session.
+	 * @param out The PrintStream of the session, over its socket.
+	 */
+	public static void attach(PrintStream out) {
+		session.set(out);
+	}
+
+	/**
+	 * Sends the output of the current thread back to the console.
+	 */
+	public static void detach() {
+		session.remove();
+	}
+
+	/**
+	 * Checks if the current thread is running a session of the server.
+	 * @return boolean (true / false)
+	 */
+	public static boolean isAttached() {
+		return session.get() != null;
+	}
+
+	/**
+	 * Gets the PrintStream of the session running on the current thread, to print to from other threads.
+	 * @return the PrintStream of the session, or System.out if there is none.
+	 */
+	public static PrintStream current() {
+		PrintStream out = session.get();
+		if (out == null) {
+			return System.out;
+		}
+		return out;
+	}
+
+	/**
+	 * Gets the PrintStream of the current thread.
+	 * @return the PrintStream of the session, or of the console if there is none.
+	 */
+	private PrintStream target() {
+		PrintStream out = session.get();
+		if (out == null) {
+			return console;
+		}
+		return out;
+	}
+
+	public void write(int b) {
+		target().write(b);
+	}
+
+	public void write(byte[] b) throws IOException {
+		target().write(b);
+	}
+
+	public void write(byte[] b, int off, int len) {
+		target().write(b, off, len);
+	}
+
+	public void flush() {
+		target().flush();
+	}
+
+	public void close() {
+		target().close();
+	}
+
+	public boolean checkError() {
+		return target().checkError();
+	}
+
+	public void print(boolean b) {
+		target().print(b);
+	}
+
+	public void print(char c) {
+		target().print(c);
+	}
+
+	public void print(int i) {
+		target().print(i);
+	}
+
+	public void print(long l) {
+		target().print(l);
+	}
+
+	public void print(float f) {
+		target().print(f);
+	}
+
+	public void print(double d) {
+		target().print(d);
+	}
+
+	public void print(char[] s) {
+		target().print(s);
+	}
+
+	public void print(String s) {
+		target().print(s);
+	}
+
+	public void print(Object obj) {
+		target().print(obj);
+	}
+
+	public void println() {
+		target().println();
+	}
+
+	public void println(boolean x) {
+		target().println(x);
+	}
+
+	public void println(char x) {
+		target().println(x);
+	}
+
+	public void println(int x) {
+		target().println(x);
+	}
+
+	public void println(long x) {
+		target().println(x);
+	}
+
+	public void println(float x) {
+		target().println(x);
+	}
+
+	public void println(double x) {
+		target().println(x);
+	}
+
+	public void println(char[] x) {
+		target().println(x);
+	}
+
+	public void println(String x) {
+		target().println(x);
+	}
+
+	public void println(Object x) {
+		target().println(x);
+	}
+
+	public PrintStream printf(String format, Object... args) {
+		target().printf(format, args);
+		return this;
+	}
+
+	public PrintStream printf(Locale l, String format, Object... args) {
+		target().printf(l, format, args);
+		return this;
+	}
+
+	public PrintStream format(String format, Object... args) {
+		target().format(format, args);
+		return this;
+	}
+
+	public PrintStream format(Locale l, String format, Object... args) {
+		target().format(l, format, args);
+		return this;
+	}
+
+	public PrintStream append(CharSequence csq) {
+		target().append(csq);
+		return this;
+	}
+
+	public PrintStream append(CharSequence csq, int start, int end) {
+		target().append(csq, start, end);
+		return this;
+	}
+
+	public PrintStream append(char c) {
+		target().append(c);
+		return this;
+	}
+}
@@ -0,0 +1,402 @@
+/**
+	Represents a control class for the waiting room in front of the student menus.
+	Only a limited number of students may use the menus at once, set by the system property
+	stars.maxActiveSessions. Other students wait in the waiting room and are admitted one at a time
+	as sessions end.
+	Students who log in shortly after their access period opens, within stars.cohortWindow seconds,
+	form a cohort. Nobody in a cohort is admitted until its window has closed, and the cohort is then
+	queued all at once in a random order, so logging in a moment earlier than the others at the opening
+	does not put a student ahead. Students arriving later are queued in the order they arrive,
+	after the cohorts that opened before them.
+	Each student queued is given the next sequence number, so the place of a student is their sequence number
+	less the number of students before them who have been admitted or left, which is kept in a rank index,
+	and is found without walking the queue.
+
+	@author Lim Boon Leng
+	@version 1.1
+	@since 2017-04-18
+*/
+
+package Control;
+
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class AdmissionController {
+	/**
+	 * The largest number of students allowed to use the menus at once.
+	 */
+	private static int maxActiveSessions = Integer.parseInt(System.getProperty("stars.maxActiveSessions", "100"));
+
+	/**
+	 * The number of milliseconds after an access period opens within which arriving students form a cohort.
+	 */
+	private static final long COHORT_WINDOW = Long.parseLong(System.getProperty("stars.cohortWindow", "60")) * 1000;
+
+	/**
+	 * The source of the random order within a cohort.
+	 */
+	private static final SecureRandom random = new SecureRandom();
+
+	/**
+	 * The lock guarding the waiting room and the number of active sessions.
+	 */
+	private static final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * The students waiting for the window of their cohort, or of a cohort ahead of them, to close,
+	 * the next to be queued at the head.
+	 */
+	private static final PriorityQueue<Ticket> drawing = new PriorityQueue<Ticket>();
+
+	/**
+	 * The students queued, in the order they are admitted, including those who have left since.
+	 */
+	private static final ArrayDeque<Ticket> waitingRoom = new ArrayDeque<Ticket>();
+
+	/**
+	 * The number of students admitted or left among those queued, by sequence number.
+	 */
+	private static final RankIndex gone = new RankIndex();
+
+	/**
+	 * The opening times of the cohorts whose window has not been closed yet.
+	 */
+	private static final Set<Long> openCohorts = new HashSet<Long>();
+
+	/**
+	 * The thread that closes the window of each cohort.
+	 */
+	private static final ScheduledExecutorService closer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "admission-closer");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * The ticket of every student waiting or admitted, keyed by session token.
+	 */
+	private static final Map<String, Ticket> tickets = new HashMap<String, Ticket>();
+
+	/**
+	 * The number of students admitted and not left yet.
+	 */
+	private static int numOfActiveSessions;
+
+	/**
+	 * The number of tickets handed out, used to keep arrival order.
+	 */
+	private static long numOfArrivals;
+
+	/**
+	 * The sequence number of the last student queued, counted from 1 since the waiting room was last empty.
+	 */
+	private static int numOfQueued;
+
+	/**
+	 * Represents the place of one student in the waiting room.
+	 */
+	private static class Ticket implements Comparable<Ticket> {
+		/**
+		 * The time the cohort of the student opened, or the time the student arrived if outside a cohort.
+		 */
+		final long cohortTime;
+
+		/**
+		 * The random order of the student within the cohort, or 0 if outside a cohort.
+		 */
+		final long draw;
+
+		/**
+		 * The order the student arrived in.
+		 */
+		final long arrival;
+
+		/**
+		 * Signalled when the student is admitted.
+		 */
+		final Condition admission = lock.newCondition();
+
+		/**
+		 * The place of the student in the order of admission, or 0 if not queued yet.
+		 */
+		int sequence;
+
+		/**
+		 * Whether the student has been admitted.
+		 */
+		boolean admitted;
+
+		/**
+		 * Whether the student left after being queued and before being admitted.
+		 */
+		boolean left;
+
+		/**
+		 * Creates a new Ticket.
+		 * @param cohortTime The time the cohort opened.
+		 * @param draw The random order within the cohort.
+		 * @param arrival The order the student arrived in.
+		 */
+		Ticket(long cohortTime, long draw, long arrival) {
+			this.cohortTime = cohortTime;
+			this.draw = draw;
+			this.arrival = arrival;
+		}
+
+		public int compareTo(Ticket other) {
+			if (cohortTime != other.cohortTime) {
+				return cohortTime < other.cohortTime ? -1 : 1;
+			}
+			if (draw != other.draw) {
+				return draw < other.draw ? -1 : 1;
+			}
+			return arrival < other.arrival ? -1 : (arrival == other.arrival ? 0 : 1);
+		}
+	}
+
+	/**
+	 * Represents the number of students gone from the queue before each sequence number, as a Fenwick tree,
+	 * so marking a student gone and counting those gone before a student both take logarithmic time.
+	 */
+	private static class RankIndex {
+		/**
+		 * The partial counts, indexed from 1.
+		 */
+		private int[] tree = new int[1024];
+
+		/**
+		 * Counts one more student gone.
+		 * @param sequence The sequence number of the student.
+		 */
+		void add(int sequence) {
+			while (sequence >= tree.length) {
+				int[] grown = new int[tree.length * 2];
+				for (int i = 1; i < tree.length; i++) {
+					grown[i] = tree[i];
+				}
+				for (int i = tree.length - 1; i > 0; i--) {
+					int parent = i + (i & -i);
+					if (parent >= tree.length && parent < grown.length) {
+						grown[parent] += grown[i];
+					}
+				}
+				tree = grown;
+			}
+			for (int i = sequence; i < tree.length; i += i & -i) {
+				tree[i]++;
+			}
+		}
+
+		/**
+		 * Counts the students gone with a sequence number up to the given one.
+		 * @param sequence The sequence number.
+		 * @return the number of students gone.
+		 */
+		int count(int sequence) {
+			int total = 0;
+
+			for (int i = Math.min(sequence, tree.length - 1); i > 0; i -= i & -i) {
+				total += tree[i];
+			}
+			return total;
+		}
+
+		/**
+		 * Forgets every student, once the queue is empty.
+		 */
+		void clear() {
+			tree = new int[1024];
+		}
+	}
+
+	/**
+	* Puts a student that is logged in into the waiting room, admitting them straight away if there is room,
+	* nobody is waiting and the student is not in a cohort whose window is still open
+	* @param token The session token of the student
+	* @param startTime The start of the student's access period
+	*/
+	public static void enter(String token, Calendar startTime) {
+		long now = System.currentTimeMillis();
+		long opening = startTime == null ? now : startTime.getTimeInMillis();
+		long cohortTime = now;
+		long draw = 0;
+
+		if (opening <= now && now - opening < COHORT_WINDOW) {
+			cohortTime = opening;
+			draw = random.nextLong() & Long.MAX_VALUE;
+		}
+
+		lock.lock();
+		try {
+			if (tickets.containsKey(token)) {
+				return;
+			}
+			Ticket ticket = new Ticket(cohortTime, draw, numOfArrivals++);
+			tickets.put(token, ticket);
+			drawing.add(ticket);
+			if (draw != 0 && openCohorts.add(cohortTime)) {
+				closeCohort(cohortTime, cohortTime + COHORT_WINDOW - now);
+			}
+			admitNext();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	* Waits until a student in the waiting room is admitted
+	* @param token The session token of the student
+	* @param timeout The longest time to wait, in milliseconds
+	* @return boolean (true if the student has been admitted / false if still waiting or not in the waiting room)
+	*/
+	public static boolean awaitAdmission(String token, long timeout) {
+		lock.lock();
+		try {
+			Ticket ticket = tickets.get(token);
+			long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+
+			while (ticket != null && !ticket.admitted && nanos > 0) {
+				nanos = ticket.admission.awaitNanos(nanos);
+			}
+			return ticket != null && ticket.admitted;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	* Gets the place of a student in the waiting room, counting the next to be admitted as 1
+	* @param token The session token of the student
+	* @return the place of the student, 0 if the student has been admitted or is not in the waiting room,
+	* or -1 if the student is waiting for the window of a cohort to close and has no place yet
+	*/
+	public static int getPosition(String token) {
+		lock.lock();
+		try {
+			Ticket ticket = tickets.get(token);
+
+			if (ticket == null || ticket.admitted) {
+				return 0;
+			}
+			if (ticket.sequence == 0) {
+				return -1;
+			}
+			return ticket.sequence - gone.count(ticket.sequence);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	* Takes a student out of the waiting room or ends their session, admitting the next student waiting
+	* @param token The session token of the student
+	*/
+	public static void leave(String token) {
+		lock.lock();
+		try {
+			Ticket ticket = token == null ? null : tickets.remove(token);
+
+			if (ticket == null) {
+				return;
+			}
+			if (ticket.admitted) {
+				numOfActiveSessions--;
+			} else if (ticket.sequence == 0) {
+				drawing.remove(ticket);
+			} else {
+				ticket.left = true;
+				gone.add(ticket.sequence);
+			}
+			admitNext();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	* Changes the largest number of students allowed to use the menus at once
+	* @param max The number of students, at least 1
+	*/
+	public static void setMaxActiveSessions(int max) {
+		lock.lock();
+		try {
+			maxActiveSessions = Math.max(1, max);
+			admitNext();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	* Closes the window of a cohort once it has passed, then admits the students queued
+	* @param cohortTime The time the cohort opened
+	* @param delay The time left before the window closes, in milliseconds
+	*/
+	private static void closeCohort(final long cohortTime, long delay) {
+		closer.schedule(new Runnable() {
+			public void run() {
+				lock.lock();
+				try {
+					openCohorts.remove(cohortTime);
+					admitNext();
+				} finally {
+					lock.unlock();
+				}
+			}
+		}, Math.max(0, delay), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	* Queues the students at the head of the drawing until one is in a cohort whose window is still open,
+	* giving each the next sequence number. A cohort is therefore queued all at once, in the order drawn.
+	* Must be called while holding the lock.
+	*/
+	private static void queueDrawn() {
+		while (!drawing.isEmpty() && (drawing.peek().draw == 0 || !openCohorts.contains(drawing.peek().cohortTime))) {
+			Ticket ticket = drawing.poll();
+
+			if (waitingRoom.isEmpty()) {
+				numOfQueued = 0;
+				gone.clear();
+			}
+			ticket.sequence = ++numOfQueued;
+			waitingRoom.add(ticket);
+		}
+	}
+
+	/**
+	* Admits the students at the head of the waiting room while there is room, waking only those admitted.
+	* Must be called while holding the lock.
+	*/
+	private static void admitNext() {
+		queueDrawn();
+		while (numOfActiveSessions < maxActiveSessions && !waitingRoom.isEmpty()) {
+			Ticket ticket = waitingRoom.poll();
+
+			if (!ticket.left) {
+				ticket.admitted = true;
+				gone.add(ticket.sequence);
+				numOfActiveSessions++;
+				ticket.admission.signal();
+			}
+		}
+	}
+}
@@ -0,0 +1,876 @@
+/**
+	Represents a control class for allocating index groups by ballot instead of first come, first served.
+	During the ballot window, set by -Dstars.ballotStart and -Dstars.ballotEnd as dd/MM/yy HH:mm:ss, students
+	submit their index groups ranked from most to least wanted. Once the window has closed, the admin runs the
+	ballot, which allocates every ballot not yet allocated in one pass.
+	Students are put in a random order drawn from -Dstars.ballotSeed, so the same ballots and seed always give
+	the same allocation. The allocation then goes in rounds. In each round, every student asks for their most wanted
+	index group of each course still unallocated that has seats left and does not clash with the index groups
+	given to them so far, and every index group gives its seats left to the students asking, earliest in the
+	order first. A student turned away asks for their next index group in the next round. Students are handled
+	in parallel within a round, and so are index groups, on the common fork-join pool.
+	A course for which every index group wanted is full goes onto the waitlist of the most wanted index group
+	that does not clash. The allocation is registered through the RegistrationEngine in the same order, in
+	small batches each logged as one transaction, so waitlists are joined in the order of the ballot. Each batch locks only
+	its students, the index groups they ranked and those of the waitlists they are in, and holds them until it has committed,
+	so no session sees a record the batch has not committed and other sessions wait only if they touch the same records.
+	Each student is registered from a savepoint, so a student that fails is rolled back on their own and keeps their ballot.
+
+	@author Lim Boon Leng
+	@version 1.1
+	@since 2017-04-18
+*/
+
+package Control;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import Objects.Ballot;
+import Objects.Course;
+import Objects.Database;
+import Objects.IndexGroup;
+import Objects.StripedLock;
+import Objects.Student;
+import Objects.TimetableMask;
+import Objects.Transaction;
+import Objects.Waitlist;
+
+public class BallotController {
+	/**
+	 * The largest number of index groups a ballot may rank.
+	 */
+	public static final int MAX_NUM_OF_CHOICES = 20;
+
+	/**
+	 * The number of students registered and logged together.
+	 */
+	private static final int BATCH_SIZE = 32;
+
+	/**
+	 * The number of students or index groups handled by one task. Larger ranges are split in half.
+	 */
+	private static final int SPLIT_SIZE = 512;
+
+	/**
+	 * The format of the start and end of the ballot window.
+	 */
+	private static final String TIME_FORMAT = "dd/MM/yy HH:mm:ss";
+
+	/**
+	 * The start of the ballot window, or null if no window is set.
+	 */
+	private static volatile Calendar startTime = parseTime(System.getProperty("stars.ballotStart"));
+
+	/**
+	 * The end of the ballot window, or null if no window is set.
+	 */
+	private static volatile Calendar endTime = parseTime(System.getProperty("stars.ballotEnd"));
+
+	/**
+	 * Represents the outcome of a ballot run.
+	 */
+	public static class Result {
+		/**
+		 * The number of ballots allocated.
+		 */
+		private int numOfBallots;
+
+		/**
+		 * The number of courses registered.
+		 */
+		private int numOfRegistered;
+
+		/**
+		 * The number of courses put onto a waitlist.
+		 */
+		private int numOfWaitlisted;
+
+		/**
+		 * The number of courses that could be neither registered nor waitlisted.
+		 */
+		private int numOfUnplaced;
+
+		/**
+		 * The number of rounds the allocation took.
+		 */
+		private int numOfRounds;
+
+		/**
+		 * The time the run took, in milliseconds.
+		 */
+		private long elapsedTime;
+
+		/**
+		 * Whether every database file was written when the run ended.
+		 */
+		private boolean written;
+
+		/**
+		 * Gets the number of ballots allocated.
+		 * @return the number of ballots.
+		 */
+		public int getNumOfBallots() {
+			return numOfBallots;
+		}
+
+		/**
+		 * Gets the number of courses registered.
+		 * @return the number of courses.
+		 */
+		public int getNumOfRegistered() {
+			return numOfRegistered;
+		}
+
+		/**
+		 * Gets the number of courses put onto a waitlist.
+		 * @return the number of courses.
+		 */
+		public int getNumOfWaitlisted() {
+			return numOfWaitlisted;
+		}
+
+		/**
+		 * Gets the number of courses that could be neither registered nor waitlisted,
+		 * because every index group wanted clashes with the student's timetable.
+		 * @return the number of courses.
+		 */
+		public int getNumOfUnplaced() {
+			return numOfUnplaced;
+		}
+
+		/**
+		 * Gets the number of rounds the allocation took.
+		 * @return the number of rounds.
+		 */
+		public int getNumOfRounds() {
+			return numOfRounds;
+		}
+
+		/**
+		 * Gets the time the run took.
+		 * @return the time in milliseconds.
+		 */
+		public long getElapsedTime() {
+			return elapsedTime;
+		}
+
+		/**
+		 * Checks if every database file was written when the run ended.
+		 * If not, the changes are still in the journal and are written at the next compaction.
+		 * @return boolean (true / false)
+		 */
+		public boolean isWritten() {
+			return written;
+		}
+	}
+
+	/**
+	* Changes the ballot window
+	* @param start The start of the window, or null for no window
+	* @param end The end of the window, or null for no window
+	*/
+	public static void setBallotWindow(Calendar start, Calendar end) {
+		startTime = start;
+		endTime = end;
+	}
+
+	/**
+	* Checks if ballots can be submitted now
+	* @return boolean (true / false)
+	*/
+	public static boolean isBallotOpen() {
+		Calendar start = startTime;
+		Calendar end = endTime;
+		Calendar now = Calendar.getInstance(Locale.ENGLISH);
+
+		return start != null && end != null && !now.before(start) && !now.after(end);
+	}
+
+	/**
+	* Gets the end of the ballot window
+	* @return the end of the window, or null if no window is set
+	*/
+	public static Calendar getBallotEnd() {
+		return endTime;
+	}
+
+	/**
+	* Submits the ballot of a student, replacing any ballot the student submitted before
+	* @param studentID The ID of the student
+	* @param indexGroupIDs The IDs of the index groups wanted, most wanted first
+	* @return the reason the ballot is rejected, or null if it is submitted
+	*/
+	public static String submitBallot(String studentID, List<Integer> indexGroupIDs) {
+		if (!isBallotOpen()) {
+			return "The ballot is not open.";
+		}
+
+		Student student = Database.students.get(studentID);
+		if (student == null) {
+			return "The student does not exist.";
+		}
+		if (indexGroupIDs.isEmpty()) {
+			return "Choose at least one index group.";
+		}
+		if (indexGroupIDs.size() > MAX_NUM_OF_CHOICES) {
+			return "Choose at most " + MAX_NUM_OF_CHOICES + " index groups.";
+		}
+
+		ArrayList<Integer> indexGroupList = new ArrayList<Integer>();
+		for (int i = 0; i < indexGroupIDs.size(); i++) {
+			Integer indexGroupID = indexGroupIDs.get(i);
+			Course course = Database.courses.retrieveByIndexGroup(indexGroupID);
+
+			if (!Database.indexGroups.contains(indexGroupID) || course == null) {
+				return "Index group " + indexGroupID + " does not exist.";
+			}
+			if (indexGroupList.contains(indexGroupID)) {
+				return "Index group " + indexGroupID + " is chosen more than once.";
+			}
+			if (course.getCourseType().equals("CORE") && !student.getSchool().contains(course.getSchool())) {
+				return "You are not eligible for " + course.getCourseID() + ".";
+			}
+			indexGroupList.add(indexGroupID);
+		}
+
+		Database.ballots.put(new Ballot(studentID, indexGroupList, false));
+		return null;
+	}
+
+	/**
+	* Allocates every ballot not yet allocated, with the order of students drawn from -Dstars.ballotSeed
+	* @return the outcome of the run, or null if the ballot window is still open
+	*/
+	public static Result runBallot() {
+		return runBallot(Long.getLong("stars.ballotSeed", 0L));
+	}
+
+	/**
+	* Allocates every ballot not yet allocated
+	* @param seed The seed the order of students is drawn from
+	* @return the outcome of the run, or null if the ballot window is still open
+	*/
+	public static synchronized Result runBallot(long seed) {
+		if (isBallotOpen()) {
+			return null;
+		}
+
+		Result result = new Result();
+		long start = System.currentTimeMillis();
+
+		List<Ballot> ballots = Database.ballots.getAll();
+		List<Entry> pending = new ArrayList<Entry>();
+		for (int i = 0; i < ballots.size(); i++) {
+			if (!ballots.get(i).isAllocated()) {
+				pending.add(new Entry(ballots.get(i), seed));
+			}
+		}
+
+		final Allocation allocation = new Allocation(pending.toArray(new Entry[pending.size()]));
+		Arrays.sort(allocation.entries, new Comparator<Entry>() {
+			public int compare(Entry e1, Entry e2) {
+				if (e1.priority != e2.priority) {
+					return Long.compare(e1.priority, e2.priority);
+				}
+				return e1.ballot.getStudentID().compareTo(e2.ballot.getStudentID());
+			}
+		});
+
+		allocation.addIndexGroups();
+		allocation.runPhase(Allocation.PREPARE, allocation.entries.length);
+		while (allocation.collectRequests()) {
+			allocation.runPhase(Allocation.GRANT, allocation.indexGroupIDs.length);
+			allocation.runPhase(Allocation.SETTLE, allocation.entries.length);
+			result.numOfRounds++;
+			allocation.runPhase(Allocation.REQUEST, allocation.entries.length);
+		}
+
+		for (int i = 0; i < allocation.entries.length; i += BATCH_SIZE) {
+			int end = Math.min(i + BATCH_SIZE, allocation.entries.length);
+			StripedLock.Held held = lockBatch(allocation, i, end);
+			Transaction transaction = Transaction.begin();
+			try {
+				for (int j = i; j < end; j++) {
+					Transaction.begin();
+					try {
+						register(allocation, allocation.entries[j], result);
+						transaction.commit();
+					} catch (Exception e) {
+						e.printStackTrace();
+						transaction.abort();
+					}
+				}
+			} finally {
+				transaction.commit();
+				held.unlock();
+			}
+		}
+
+		result.numOfBallots = allocation.entries.length;
+		result.written = Database.compactAll();
+		result.elapsedTime = System.currentTimeMillis() - start;
+		return result;
+	}
+
+	/**
+	* Locks the students of a batch, the index groups they ranked and those of the waitlists they are in,
+	* which are all the keys RegistrationEngine locks when registering them. The keys are read again once locked,
+	* and everything is locked again if a student joined another waitlist in the meantime
+	* @param allocation The allocation
+	* @param start The position of the first entry of the batch
+	* @param end The position after the last entry of the batch
+	* @return the locks held, to be unlocked once the batch has committed
+	*/
+	private static StripedLock.Held lockBatch(Allocation allocation, int start, int end) {
+		List<Object> keys = batchKeys(allocation, start, end);
+
+		while (true) {
+			StripedLock.Held held = Database.locks.lock(keys);
+			List<Object> lockedKeys = batchKeys(allocation, start, end);
+
+			if (new HashSet<Object>(keys).containsAll(lockedKeys)) {
+				return held;
+			}
+			held.unlock();
+			keys.addAll(lockedKeys);
+		}
+	}
+
+	/**
+	* Gets the keys to lock before a batch of students is registered
+	* @param allocation The allocation
+	* @param start The position of the first entry of the batch
+	* @param end The position after the last entry of the batch
+	* @return list of keys to lock
+	*/
+	private static List<Object> batchKeys(Allocation allocation, int start, int end) {
+		List<Object> keys = new ArrayList<Object>();
+
+		for (int i = start; i < end; i++) {
+			Entry entry = allocation.entries[i];
+			Student student = Database.students.get(entry.ballot.getStudentID());
+
+			keys.add(entry.ballot.getStudentID());
+			for (int j = 0; j < entry.choices.length; j++) {
+				for (int k = 0; k < entry.choices[j].length; k++) {
+					keys.add(allocation.indexGroupIDs[entry.choices[j][k]]);
+				}
+			}
+			for (int j = 0; student != null && j < student.getWaitListIDList().size(); j++) {
+				Waitlist waitlist = Database.waitlists.get(student.getWaitListIDList().get(j));
+
+				if (waitlist != null) {
+					keys.add(waitlist.getIndexGroupNumber());
+				}
+			}
+		}
+		return keys;
+	}
+
+	/**
+	* Registers the index groups allocated to a student, puts the courses left over onto waitlists,
+	* and marks the ballot allocated
+	* @param allocation The allocation
+	* @param entry The student's entry in the allocation
+	* @param result The outcome to add to
+	*/
+	private static void register(Allocation allocation, Entry entry, Result result) {
+		String studentID = entry.ballot.getStudentID();
+
+		for (int i = 0; i < entry.choices.length; i++) {
+			RegistrationOutcome outcome = null;
+
+			if (entry.allocated[i] >= 0) {
+				Integer indexGroupID = allocation.indexGroupIDs[entry.allocated[i]];
+
+				// A seat taken by a student registering outside the ballot since the allocation sends the course to the waitlist
+				outcome = RegistrationEngine.register(studentID, indexGroupID, false);
+				if (outcome == RegistrationOutcome.FULL) {
+					outcome = RegistrationEngine.register(studentID, indexGroupID, true);
+				}
+			} else {
+				for (int j = 0; j < entry.choices[i].length; j++) {
+					if (!Allocation.clashes(allocation.words[entry.choices[i][j]], entry.taken)) {
+						outcome = RegistrationEngine.register(studentID, allocation.indexGroupIDs[entry.choices[i][j]], true);
+						break;
+					}
+				}
+			}
+
+			if (outcome == RegistrationOutcome.REGISTERED) {
+				result.numOfRegistered++;
+			} else if (outcome == RegistrationOutcome.WAITLISTED || outcome == RegistrationOutcome.ALREADY_WAITLISTED) {
+				result.numOfWaitlisted++;
+			} else {
+				result.numOfUnplaced++;
+			}
+		}
+
+		entry.ballot.setAllocated(true);
+		Database.ballots.put(entry.ballot);
+	}
+
+	/**
+	* Parses a time of the ballot window
+	* @param time The time as dd/MM/yy HH:mm:ss, or null
+	* @return the time, or null if it is not given or cannot be parsed
+	*/
+	private static Calendar parseTime(String time) {
+		if (time == null) {
+			return null;
+		}
+
+		SimpleDateFormat sdf = new SimpleDateFormat(TIME_FORMAT, Locale.ENGLISH);
+		sdf.setLenient(false);
+		Calendar calendar = Calendar.getInstance(Locale.ENGLISH);
+
+		try {
+			calendar.setTime(sdf.parse(time));
+			return calendar;
+		} catch (ParseException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Represents a ballot being allocated.
+	 */
+	private static class Entry {
+		/**
+		 * The ballot.
+		 */
+		final Ballot ballot;
+
+		/**
+		 * The place of the student in the order of the ballot, lowest first.
+		 */
+		final long priority;
+
+		/**
+		 * The positions of the index groups wanted for each course, most wanted first,
+		 * leaving out those that clash with the student's timetable.
+		 */
+		int[][] choices;
+
+		/**
+		 * The position in choices of the index group to ask for next, for each course.
+		 */
+		int[] next;
+
+		/**
+		 * The index group asked for in this round for each course, or -1.
+		 */
+		int[] requested;
+
+		/**
+		 * Whether the index group asked for in this round is given, for each course.
+		 */
+		boolean[] granted;
+
+		/**
+		 * The index group given for each course, or -1.
+		 */
+		int[] allocated;
+
+		/**
+		 * The packed periods of the index groups given.
+		 */
+		final long[] taken = new long[TimetableMask.NUM_OF_WORDS];
+
+		/**
+		 * Creates a new Entry.
+		 * @param ballot The ballot.
+		 * @param seed The seed the order of students is drawn from.
+		 */
+		Entry(Ballot ballot, long seed) {
+			this.ballot = ballot;
+			this.priority = mix(seed + ballot.getStudentID().hashCode());
+		}
+
+		/**
+		 * Scrambles a number, so the order of students looks random but is the same for the same seed.
+		 * @param z The number to scramble.
+		 * @return the scrambled number.
+		 */
+		private static long mix(long z) {
+			z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+			z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+			return z ^ (z >>> 31);
+		}
+	}
+
+	/**
+	 * Represents the state of one ballot run, shared by the tasks of each phase.
+	 * Index groups are kept by position, with their IDs, packed periods and seats left in arrays.
+	 */
+	private static class Allocation {
+		/**
+		 * The phase that finds the index groups each student can be given, and makes the first requests.
+		 */
+		static final int PREPARE = 0;
+
+		/**
+		 * The phase in which every index group gives its seats left to the students asking.
+		 */
+		static final int GRANT = 1;
+
+		/**
+		 * The phase in which every student takes the index groups given, and moves on from those turned away.
+		 */
+		static final int SETTLE = 2;
+
+		/**
+		 * The phase in which every student asks for the next index group of each course.
+		 */
+		static final int REQUEST = 3;
+
+		/**
+		 * The ballots being allocated, in the order of the ballot.
+		 */
+		final Entry[] entries;
+
+		/**
+		 * The positions of the index groups, keyed by index group ID.
+		 */
+		final Map<Integer, Integer> positions = new HashMap<Integer, Integer>();
+
+		/**
+		 * The IDs of the index groups wanted by any ballot.
+		 */
+		Integer[] indexGroupIDs;
+
+		/**
+		 * The packed periods of the index groups.
+		 */
+		long[][] words;
+
+		/**
+		 * The seats left in the index groups.
+		 */
+		int[] seatsLeft;
+
+		/**
+		 * The students asking for each index group in this round, as positions in entries, in the order of the ballot.
+		 * The students asking for the index group at position p are from requestStart[p] to requestStart[p + 1].
+		 */
+		int[] requestEntries;
+
+		/**
+		 * The course each student in requestEntries asks for the index group for, as a position in the student's choices.
+		 */
+		int[] requestCourses;
+
+		/**
+		 * Where the students asking for each index group start in requestEntries.
+		 */
+		int[] requestStart;
+
+		/**
+		 * Creates a new Allocation.
+		 * @param entries The ballots to allocate.
+		 */
+		Allocation(Entry[] entries) {
+			this.entries = entries;
+		}
+
+		/**
+		 * Gives a position to every index group wanted by any ballot, and counts its seats left.
+		 */
+		void addIndexGroups() {
+			List<Integer> ids = new ArrayList<Integer>();
+
+			for (int i = 0; i < entries.length; i++) {
+				List<Integer> indexGroupList = entries[i].ballot.getIndexGroupList();
+
+				for (int j = 0; indexGroupList != null && j < indexGroupList.size(); j++) {
+					Integer indexGroupID = indexGroupList.get(j);
+
+					if (!positions.containsKey(indexGroupID) && Database.indexGroups.contains(indexGroupID)) {
+						positions.put(indexGroupID, ids.size());
+						ids.add(indexGroupID);
+					}
+				}
+			}
+
+			indexGroupIDs = ids.toArray(new Integer[ids.size()]);
+			words = new long[indexGroupIDs.length][];
+			seatsLeft = new int[indexGroupIDs.length];
+			for (int i = 0; i < indexGroupIDs.length; i++) {
+				IndexGroup indexGroup = Database.indexGroups.get(indexGroupIDs[i]);
+
+				words[i] = indexGroup.getTimetableMask().pack();
+				seatsLeft[i] = Math.max(0, indexGroup.calculateVacancy());
+			}
+		}
+
+		/**
+		 * Runs a phase for every student or index group, split across the common fork-join pool.
+		 * @param phase The phase to run.
+		 * @param size The number of students or index groups.
+		 */
+		void runPhase(int phase, int size) {
+			ForkJoinPool.commonPool().invoke(new PhaseTask(this, phase, 0, size));
+		}
+
+		/**
+		 * Runs a phase for one student or index group.
+		 * @param phase The phase to run.
+		 * @param position The position of the student or index group.
+		 */
+		void run(int phase, int position) {
+			switch (phase) {
+			case PREPARE:
+				prepare(entries[position]);
+				request(entries[position]);
+				break;
+			case GRANT:
+				grant(position);
+				break;
+			case SETTLE:
+				settle(entries[position]);
+				break;
+			default:
+				request(entries[position]);
+				break;
+			}
+		}
+
+		/**
+		 * Groups the index groups a student wants by course, in the order the courses first appear in the ballot,
+		 * leaving out courses the student is registered in and index groups that clash with the student's timetable.
+		 * @param entry The student's entry.
+		 */
+		private void prepare(Entry entry) {
+			Student student = Database.students.get(entry.ballot.getStudentID());
+			List<Integer> indexGroupList = entry.ballot.getIndexGroupList();
+			List<String> courseIDs = new ArrayList<String>();
+			List<List<Integer>> choices = new ArrayList<List<Integer>>();
+			Set<String> skipped = new HashSet<String>();
+
+			for (int i = 0; student != null && indexGroupList != null && i < indexGroupList.size(); i++) {
+				Integer indexGroupID = indexGroupList.get(i);
+				Integer position = positions.get(indexGroupID);
+				Course course = Database.courses.retrieveByIndexGroup(indexGroupID);
+
+				if (position == null || course == null || skipped.contains(course.getCourseID())) {
+					continue;
+				}
+				if (student.getCourseList().contains(course.getCourseID())) {
+					skipped.add(course.getCourseID());
+					continue;
+				}
+
+				int coursePosition = courseIDs.indexOf(course.getCourseID());
+				if (coursePosition < 0) {
+					coursePosition = courseIDs.size();
+					courseIDs.add(course.getCourseID());
+					choices.add(new ArrayList<Integer>());
+				}
+				if (!student.getSchedule().checkScheduleClash(indexGroupID)) {
+					choices.get(coursePosition).add(position);
+				}
+			}
+
+			entry.choices = new int[choices.size()][];
+			for (int i = 0; i < choices.size(); i++) {
+				entry.choices[i] = new int[choices.get(i).size()];
+				for (int j = 0; j < entry.choices[i].length; j++) {
+					entry.choices[i][j] = choices.get(i).get(j);
+				}
+			}
+			entry.next = new int[entry.choices.length];
+			entry.requested = new int[entry.choices.length];
+			entry.granted = new boolean[entry.choices.length];
+			entry.allocated = new int[entry.choices.length];
+			Arrays.fill(entry.requested, -1);
+			Arrays.fill(entry.allocated, -1);
+		}
+
+		/**
+		 * Asks for the most wanted index group of each course still unallocated that has seats left and does not
+		 * clash with the index groups given. An index group that clashes with one asked for earlier in the same
+		 * round is asked for in a later round instead, once the earlier one has been given or turned away.
+		 * @param entry The student's entry.
+		 */
+		private void request(Entry entry) {
+			long[] asked = new long[TimetableMask.NUM_OF_WORDS];
+
+			for (int i = 0; i < entry.choices.length; i++) {
+				if (entry.allocated[i] >= 0) {
+					continue;
+				}
+
+				int[] choices = entry.choices[i];
+				while (entry.next[i] < choices.length
+						&& (seatsLeft[choices[entry.next[i]]] == 0 || clashes(words[choices[entry.next[i]]], entry.taken))) {
+					entry.next[i]++;
+				}
+				if (entry.next[i] == choices.length || clashes(words[choices[entry.next[i]]], asked)) {
+					continue;
+				}
+
+				entry.requested[i] = choices[entry.next[i]];
+				for (int j = 0; j < asked.length; j++) {
+					asked[j] |= words[entry.requested[i]][j];
+				}
+			}
+		}
+
+		/**
+		 * Lists the students asking for each index group in this round, in the order of the ballot.
+		 * @return whether any student asks for an index group.
+		 */
+		boolean collectRequests() {
+			requestStart = new int[indexGroupIDs.length + 1];
+
+			for (int i = 0; i < entries.length; i++) {
+				for (int j = 0; j < entries[i].requested.length; j++) {
+					if (entries[i].requested[j] >= 0) {
+						requestStart[entries[i].requested[j] + 1]++;
+					}
+				}
+			}
+			for (int i = 0; i < indexGroupIDs.length; i++) {
+				requestStart[i + 1] += requestStart[i];
+			}
+
+			int numOfRequests = requestStart[indexGroupIDs.length];
+			int[] filled = Arrays.copyOf(requestStart, indexGroupIDs.length);
+			requestEntries = new int[numOfRequests];
+			requestCourses = new int[numOfRequests];
+			for (int i = 0; i < entries.length; i++) {
+				for (int j = 0; j < entries[i].requested.length; j++) {
+					int position = entries[i].requested[j];
+
+					if (position >= 0) {
+						requestEntries[filled[position]] = i;
+						requestCourses[filled[position]] = j;
+						filled[position]++;
+					}
+				}
+			}
+			return numOfRequests > 0;
+		}
+
+		/**
+		 * Gives the seats left in an index group to the students asking for it, earliest in the order first.
+		 * @param position The position of the index group.
+		 */
+		private void grant(int position) {
+			int end = Math.min(requestStart[position + 1], requestStart[position] + seatsLeft[position]);
+
+			for (int i = requestStart[position]; i < end; i++) {
+				entries[requestEntries[i]].granted[requestCourses[i]] = true;
+			}
+			seatsLeft[position] -= end - requestStart[position];
+		}
+
+		/**
+		 * Takes the index groups given to a student in this round, and moves on from those turned away.
+		 * @param entry The student's entry.
+		 */
+		private void settle(Entry entry) {
+			for (int i = 0; i < entry.requested.length; i++) {
+				if (entry.requested[i] < 0) {
+					continue;
+				}
+
+				if (entry.granted[i]) {
+					entry.allocated[i] = entry.requested[i];
+					for (int j = 0; j < entry.taken.length; j++) {
+						entry.taken[j] |= words[entry.requested[i]][j];
+					}
+				} else {
+					entry.next[i]++;
+				}
+				entry.requested[i] = -1;
+				entry.granted[i] = false;
+			}
+		}
+
+		/**
+		 * Checks if the periods of an index group are already taken.
+		 * @param words The packed periods of the index group.
+		 * @param taken The packed periods taken.
+		 * @return boolean (true / false)
+		 */
+		static boolean clashes(long[] words, long[] taken) {
+			for (int i = 0; i < words.length; i++) {
+				if ((words[i] & taken[i]) != 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Represents a phase of the allocation run for a range of students or index groups.
+	 */
+	private static class PhaseTask extends RecursiveAction {
+		/**
+		 * The ID to serialize data
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The allocation the phase is part of.
+		 */
+		private final Allocation allocation;
+
+		/**
+		 * The phase to run.
+		 */
+		private final int phase;
+
+		/**
+		 * The position of the first student or index group of the range.
+		 */
+		private final int from;
+
+		/**
+		 * The position after the last student or index group of the range.
+		 */
+		private final int to;
+
+		/**
+		 * Creates a new PhaseTask.
+		 * @param allocation The allocation the phase is part of.
+		 * @param phase The phase to run.
+		 * @param from The position of the first student or index group.
+		 * @param to The position after the last student or index group.
+		 */
+		PhaseTask(Allocation allocation, int phase, int from, int to) {
+			this.allocation = allocation;
+			this.phase = phase;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from <= SPLIT_SIZE) {
+				for (int i = from; i < to; i++) {
+					allocation.run(phase, i);
+				}
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new PhaseTask(allocation, phase, from, middle), new PhaseTask(allocation, phase, middle, to));
+		}
+	}
+}
@@ -1,18 +1,19 @@
 /**
 	Represents a control class for the admin to manage courses.
-	An admin can add/update courses.
+	An admin can add/update courses, and change the capacity of index groups.
 	@author Lim Boon Leng
-	@version 1.3
+	@version 1.4
 	@since 2017-04-12
 */
 
 package Control;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
 
 import Objects.Course;
+import Objects.Database;
 import Objects.IndexGroup;
+import Objects.StripedLock;
 
 public class CourseMgmtController {
 	/**
@@ -22,13 +23,9 @@ public class CourseMgmtController {
 	*/
 	public static boolean addCourse(Course courseToAdd) {
 		boolean success = false;
-		List<Course> courseList = new ArrayList<Course>();
-		Course course = new Course();
 		
 		try {
-			courseList = course.retrieveAllCourseObjects();
-			courseList.add(courseToAdd);
-			course.writeSerializedObject(courseList);
+			Database.courses.put(courseToAdd);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -42,17 +39,11 @@ public class CourseMgmtController {
 	*/
 	public static boolean updateCourse(Course courseToUpdate) {
 		boolean success = false;
-		List<Course> courseList = new ArrayList<Course>();
-		Course course = new Course();
 
 		try {
-			courseList = course.retrieveAllCourseObjects();
-			for (int i = 0; i < courseList.size(); i++) {
-				if (courseList.get(i).getCourseID().equals(courseToUpdate.getCourseID())) {
-					courseList.set(i, courseToUpdate);
-				}
+			if (Database.courses.contains(courseToUpdate.getCourseID())) {
+				Database.courses.put(courseToUpdate);
 			}
-			course.writeSerializedObject(courseList);
 			success = true;
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -67,13 +58,9 @@ public class CourseMgmtController {
 	*/
 	public static boolean addIndexGrp(IndexGroup grpToAdd) {
 		boolean success = false;
-		List<IndexGroup> indexGroupList = new ArrayList<IndexGroup>();
-		IndexGroup indexGroup = new IndexGroup();
 
 		try {
-			indexGroupList = indexGroup.retrieveAllIndexGroupObjects();
-			indexGroupList.add(grpToAdd);
-			indexGroup.writeSerializedObject(indexGroupList);
+			Database.indexGroups.put(grpToAdd);
 			success = true;
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -81,4 +68,32 @@ public class CourseMgmtController {
 
 		return success;
 	}
+
+	/**
+	* Changes the maximum number of students of an index group.
+	* If the capacity is raised, students in its waitlist are promoted into the new vacancies
+	* @param indexGroupID The ID of the index group
+	* @param maxNumOfStudents The new maximum number of students
+	* @return the number of students promoted, or -1 if the index group does not exist or has more students registered
+	*/
+	public static int changeCapacity(Integer indexGroupID, int maxNumOfStudents) {
+		StripedLock.Held held = Database.locks.lock(indexGroupID);
+
+		try {
+			IndexGroup indexGroup = Database.indexGroups.get(indexGroupID);
+
+			if (indexGroup == null || maxNumOfStudents < indexGroup.getCurrentNumOfStudents()) {
+				return -1;
+			}
+			indexGroup.setMaxNumOfStudents(maxNumOfStudents);
+			Database.indexGroups.put(indexGroup);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return -1;
+		} finally {
+			held.unlock();
+		}
+
+		return RegistrationEngine.promoteFromWaitlists(Collections.singletonList(indexGroupID));
+	}
 }
@@ -0,0 +1,400 @@
+/**
+	Represents a control class for the admin to add many index groups, courses and students at once.
+	Records are read one line at a time, so a whole semester catalog never has to be held in memory.
+	Every line is one record, its fields separated by commas and its lists by semicolons:
+	INDEXGROUP,indexGroupID,indexGroupName,maxNumOfStudents,lesson;lesson...
+	  where each lesson is staffName|lessonDay|startTime|endTime|lessonVenue|lessonType|remark
+	COURSE,courseID,courseName,AUCredits,courseType,school,indexGroupID;indexGroupID...
+	STUDENT,studentID,password,name,matricNum,nationality,gender,school;school...,email,mobileNum[,startTime,endTime]
+	  where the access period is given as dd/MM/yy HH:mm:ss
+	Blank lines and lines starting with # are skipped. A course may only list index groups added
+	before it, and an index group may belong to one course only.
+	Rows are checked and added in batches. Each batch gets its waitlist IDs as one block and is logged
+	in the journal as one transaction, and every database file is written once when the import ends.
+
+	@author Lim Boon Leng
+	@version 1.0
+	@since 2017-04-18
+*/
+
+package Control;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+
+import Objects.Course;
+import Objects.Database;
+import Objects.IndexGroup;
+import Objects.Lesson;
+import Objects.Schedule;
+import Objects.Student;
+import Objects.Transaction;
+import Objects.Waitlist;
+
+public class ImportController {
+	/**
+	 * The number of rows checked and logged together.
+	 */
+	private static final int BATCH_SIZE = 1000;
+
+	/**
+	 * The number of students an index group has room for if the row does not say.
+	 */
+	private static final int DEFAULT_MAX_NUM_OF_STUDENTS = 10;
+
+	/**
+	 * The access period given to a student if the row does not say, the same as the admin menu.
+	 */
+	private static final String DEFAULT_START_TIME = "05/04/17 00:00:00";
+
+	/**
+	 * The end of the access period given to a student if the row does not say.
+	 */
+	private static final String DEFAULT_END_TIME = "05/04/18 23:00:00";
+
+	/**
+	 * Represents the outcome of an import.
+	 */
+	public static class Result {
+		/**
+		 * The number of records added.
+		 */
+		private int numOfRecords;
+
+		/**
+		 * The number of rows rejected.
+		 */
+		private int numOfRejected;
+
+		/**
+		 * The time the import took, in milliseconds.
+		 */
+		private long elapsedTime;
+
+		/**
+		 * Whether every database file was written when the import ended.
+		 */
+		private boolean written;
+
+		/**
+		 * Gets the number of records added.
+		 * @return the number of records.
+		 */
+		public int getNumOfRecords() {
+			return numOfRecords;
+		}
+
+		/**
+		 * Gets the number of rows rejected.
+		 * @return the number of rows.
+		 */
+		public int getNumOfRejected() {
+			return numOfRejected;
+		}
+
+		/**
+		 * Gets the time the import took.
+		 * @return the time in milliseconds.
+		 */
+		public long getElapsedTime() {
+			return elapsedTime;
+		}
+
+		/**
+		 * Gets the number of records added per second.
+		 * @return the number of records per second.
+		 */
+		public double getRecordsPerSecond() {
+			return numOfRecords * 1000.0 / Math.max(1, elapsedTime);
+		}
+
+		/**
+		 * Checks if every database file was written when the import ended.
+		 * If not, the records are still in the journal and are written at the next compaction.
+		 * @return boolean (true / false)
+		 */
+		public boolean isWritten() {
+			return written;
+		}
+	}
+
+	/**
+	* Adds the records in a file, printing every row rejected and why
+	* @param fileName The path of the file
+	* @return the outcome of the import, or null if the file cannot be read
+	*/
+	public static Result importFile(String fileName) {
+		BufferedReader in = null;
+
+		try {
+			in = new BufferedReader(new FileReader(fileName));
+			return importRecords(in);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		} finally {
+			try {
+				if (in != null) {
+					in.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	* Adds the records read from a reader, printing every row rejected and why
+	* @param in The reader of the records
+	* @return the outcome of the import
+	* @throws IOException if the records cannot be read
+	*/
+	public static Result importRecords(BufferedReader in) throws IOException {
+		Result result = new Result();
+		long start = System.currentTimeMillis();
+		List<String> lines = new ArrayList<String>();
+		int lineNum = 0;
+		int firstLineNum = 1;
+		String line;
+
+		while ((line = in.readLine()) != null) {
+			lineNum++;
+			lines.add(line);
+
+			if (lines.size() == BATCH_SIZE) {
+				importBatch(lines, firstLineNum, result);
+				lines.clear();
+				firstLineNum = lineNum + 1;
+			}
+		}
+		importBatch(lines, firstLineNum, result);
+
+		result.written = Database.compactAll();
+		result.elapsedTime = System.currentTimeMillis() - start;
+		return result;
+	}
+
+	/**
+	* Checks and adds one batch of rows as one transaction
+	* @param lines The rows of the batch
+	* @param firstLineNum The line number of the first row
+	* @param result The outcome to add to
+	*/
+	private static void importBatch(List<String> lines, int firstLineNum, Result result) {
+		int numOfIndexGroups = 0;
+
+		for (int i = 0; i < lines.size(); i++) {
+			if (lines.get(i).trim().startsWith("INDEXGROUP,")) {
+				numOfIndexGroups++;
+			}
+		}
+
+		int nextWaitListID = 0;
+		if (numOfIndexGroups > 0) {
+			nextWaitListID = Database.waitlistIDs.nextBlock(numOfIndexGroups);
+		}
+
+		Transaction transaction = Transaction.begin();
+		try {
+			for (int i = 0; i < lines.size(); i++) {
+				String line = lines.get(i).trim();
+
+				if (line.length() == 0 || line.startsWith("#")) {
+					continue;
+				}
+
+				String[] fields = line.split(",", -1);
+				String error;
+
+				if (fields[0].equals("INDEXGROUP")) {
+					if (nextWaitListID < 0) {
+						error = "no waitlist ID can be allocated";
+					} else {
+						error = importIndexGroup(fields, nextWaitListID++);
+					}
+				} else if (fields[0].equals("COURSE")) {
+					error = importCourse(fields);
+				} else if (fields[0].equals("STUDENT")) {
+					error = importStudent(fields);
+				} else {
+					error = "unknown record type " + fields[0];
+				}
+
+				if (error == null) {
+					result.numOfRecords++;
+				} else {
+					result.numOfRejected++;
+					System.out.println("Line " + (firstLineNum + i) + ": " + error);
+				}
+			}
+		} finally {
+			transaction.commit();
+		}
+	}
+
+	/**
+	* Checks and adds an index group together with its waitlist
+	* @param fields The fields of the row
+	* @param waitListID The ID of the waitlist of the index group
+	* @return the reason the row is rejected, or null if the index group is added
+	*/
+	private static String importIndexGroup(String[] fields, int waitListID) {
+		if (fields.length != 5) {
+			return "expected 5 fields for an index group, found " + fields.length;
+		}
+
+		Integer indexGroupID = parsePositive(fields[1]);
+		if (indexGroupID == null) {
+			return "invalid index group number " + fields[1];
+		}
+		if (Database.indexGroups.contains(indexGroupID)) {
+			return "index group " + indexGroupID + " already exists";
+		}
+
+		Integer maxNumOfStudents = DEFAULT_MAX_NUM_OF_STUDENTS;
+		if (fields[3].length() > 0) {
+			maxNumOfStudents = parsePositive(fields[3]);
+			if (maxNumOfStudents == null) {
+				return "invalid number of students " + fields[3];
+			}
+		}
+
+		ArrayList<Lesson> lessonList = new ArrayList<Lesson>();
+		String[] lessons = fields[4].split(";");
+		for (int i = 0; i < lessons.length; i++) {
+			String[] lesson = lessons[i].split("\\|", -1);
+
+			if (lesson.length != 7) {
+				return "expected 7 fields for lesson " + (i + 1) + ", found " + lesson.length;
+			}
+			if (!lesson[5].equals("LEC/STUDIO") && !lesson[5].equals("TUT") && !lesson[5].equals("LAB")) {
+				return "invalid type " + lesson[5] + " for lesson " + (i + 1);
+			}
+			lessonList.add(new Lesson(lesson[0], lesson[1], lesson[2], lesson[3], lesson[4], lesson[5], lesson[6].length() == 0 ? null : lesson[6]));
+		}
+
+		Waitlist waitlist = new Waitlist(waitListID, indexGroupID, new LinkedList<String>());
+		Database.waitlists.put(waitlist);
+		Database.indexGroups.put(new IndexGroup(indexGroupID, 0, maxNumOfStudents, fields[2], lessonList, waitlist));
+		return null;
+	}
+
+	/**
+	* Checks and adds a course
+	* @param fields The fields of the row
+	* @return the reason the row is rejected, or null if the course is added
+	*/
+	private static String importCourse(String[] fields) {
+		if (fields.length != 7) {
+			return "expected 7 fields for a course, found " + fields.length;
+		}
+
+		String courseID = fields[1].toUpperCase();
+		if (courseID.length() == 0) {
+			return "missing course code";
+		}
+		if (Database.courses.contains(courseID)) {
+			return "course " + courseID + " already exists";
+		}
+
+		Integer AUCredits = parsePositive(fields[3]);
+		if (AUCredits == null) {
+			return "invalid AU credits " + fields[3];
+		}
+
+		ArrayList<Integer> indexGroupList = new ArrayList<Integer>();
+		String[] indexGroups = fields[6].split(";");
+		for (int i = 0; i < indexGroups.length; i++) {
+			Integer indexGroupID = parsePositive(indexGroups[i]);
+
+			if (indexGroupID == null) {
+				return "invalid index group number " + indexGroups[i];
+			}
+			if (!Database.indexGroups.contains(indexGroupID)) {
+				return "index group " + indexGroupID + " does not exist";
+			}
+			if (Database.courses.retrieveByIndexGroup(indexGroupID) != null || indexGroupList.contains(indexGroupID)) {
+				return "index group " + indexGroupID + " already belongs to a course";
+			}
+			indexGroupList.add(indexGroupID);
+		}
+
+		Database.courses.put(new Course(courseID, fields[2], AUCredits, fields[5], fields[4], indexGroupList));
+		return null;
+	}
+
+	/**
+	* Checks and adds a student, hashing the password given
+	* @param fields The fields of the row
+	* @return the reason the row is rejected, or null if the student is added
+	*/
+	private static String importStudent(String[] fields) {
+		if (fields.length != 10 && fields.length != 12) {
+			return "expected 10 or 12 fields for a student, found " + fields.length;
+		}
+
+		String studentID = fields[1];
+		if (studentID.length() == 0) {
+			return "missing student ID";
+		}
+		if (Database.students.contains(studentID)) {
+			return "student " + studentID + " already exists";
+		}
+		if (fields[2].length() == 0) {
+			return "missing password";
+		}
+		if (!fields[6].equals("M") && !fields[6].equals("F")) {
+			return "invalid gender " + fields[6];
+		}
+
+		ArrayList<String> schoolList = new ArrayList<String>();
+		String[] schools = fields[7].split(";");
+		for (int i = 0; i < schools.length; i++) {
+			if (schools[i].length() > 0) {
+				schoolList.add(schools[i]);
+			}
+		}
+
+		SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yy HH:mm:ss", Locale.ENGLISH);
+		sdf.setLenient(false);
+		Calendar startTime = Calendar.getInstance(Locale.ENGLISH);
+		Calendar endTime = Calendar.getInstance(Locale.ENGLISH);
+
+		try {
+			startTime.setTime(sdf.parse(fields.length == 12 ? fields[10] : DEFAULT_START_TIME));
+			endTime.setTime(sdf.parse(fields.length == 12 ? fields[11] : DEFAULT_END_TIME));
+		} catch (ParseException e) {
+			return "invalid access period";
+		}
+		if (endTime.before(startTime)) {
+			return "access period ends before it starts";
+		}
+
+		Database.students.put(new Student(studentID, PasswordHashController.hash(fields[2]), fields[3], fields[4], fields[5],
+				fields[6].charAt(0), schoolList, new ArrayList<String>(), new ArrayList<Integer>(), new ArrayList<String>(),
+				new ArrayList<String>(), new ArrayList<Integer>(), new Schedule(), startTime, endTime, fields[8], fields[9], "both"));
+		return null;
+	}
+
+	/**
+	* Parses a whole number of at least 1
+	* @param field The field to parse
+	* @return the number, or null if the field is not a whole number of at least 1
+	*/
+	private static Integer parsePositive(String field) {
+		try {
+			int value = Integer.parseInt(field.trim());
+			return value >= 1 ? value : null;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
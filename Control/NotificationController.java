@@ -1,9 +1,15 @@
 /**
 	Represents a control class for the notifications to be sent out.
 	Notification in the form of SMS/Email.
+	Emails are written to an outbox file and sent in the background by a pool of workers,
+	so the student whose drop promoted someone from the waitlist does not wait for the mail server.
+	Emails that cannot be sent are retried with a growing delay, and emails still in the outbox
+	when the program stops are sent the next time it starts.
+	The mail server can be changed with -Dstars.smtp.host, -Dstars.smtp.port,
+	-Dstars.smtp.ssl and -Dstars.smtp.auth, such as a local SMTP stand-in for testing.
 	
 	@author Lim Boon Leng
-	@version 1.0
+	@version 1.1
 	@since 2017-04-06
 */
 
@@ -20,10 +26,21 @@ About email :
 
 package Control;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import javax.mail.*;
 import javax.mail.internet.*;
 
+import Objects.Journal;
+import Objects.Notification;
+
 public class NotificationController {
 	/**
 	 * The email of the sender (the program is the sender)
@@ -33,6 +50,62 @@ public class NotificationController {
 	 * The password used for the sender's email (the program is the sender)
 	 */
 	private static final String SENDER_PW = "P@ssw0rd123";
+
+	/**
+	 * The number of workers sending emails at the same time.
+	 */
+	private static final int NUM_OF_WORKERS = 4;
+
+	/**
+	 * The maximum number of emails a worker sends over one connection to the mail server.
+	 */
+	private static final int BATCH_SIZE = 20;
+
+	/**
+	 * The number of times an email is tried before it is given up.
+	 */
+	private static final int MAX_ATTEMPTS = 5;
+
+	/**
+	 * The delay before an email is tried again for the first time, in milliseconds.
+	 * The delay doubles after every failed attempt.
+	 */
+	private static final long RETRY_DELAY = 2000;
+
+	/**
+	 * The log of emails queued and emails sent, so queued emails survive a restart.
+	 */
+	private static final Journal outbox = new Journal(System.getProperty("user.dir") + "\\Databases\\outbox.log");
+
+	/**
+	 * The emails in the outbox that have not been sent, keyed by notification ID.
+	 */
+	private static final Map<Long, Notification> pending = new LinkedHashMap<Long, Notification>();
+
+	/**
+	 * The emails waiting for a worker.
+	 */
+	private static final BlockingQueue<Notification> queue = new LinkedBlockingQueue<Notification>();
+
+	/**
+	 * The ID of the next notification.
+	 */
+	private static long nextNotificationID = 1;
+
+	/**
+	 * The workers sending emails, or null if they have not been started.
+	 */
+	private static ExecutorService workers;
+
+	/**
+	 * The timer that puts failed emails back in the queue.
+	 */
+	private static ScheduledExecutorService retryTimer;
+
+	/**
+	 * The mail session shared by every worker.
+	 */
+	private static Session session;
 	
 	/**
 	* Simulates sending of SMS to recipient
@@ -43,38 +116,204 @@ public class NotificationController {
 	}
 	
 	/**
-	* Sends an email to recipient
+	* Queues an email to recipient and returns without waiting for it to be sent
 	* @param recipient The email of the recipient
 	* @param courseID The courseID of the course that the recipient has successfully joined
 	*/
 	public static void sendEmail(String recipient, String courseID) {
-		Properties props = new Properties();
-		props.put("mail.smtp.host", "smtp.gmail.com");
-		props.put("mail.smtp.socketFactory.port", "465");
-		props.put("mail.smtp.socketFactory.class","javax.net.ssl.SSLSocketFactory");
-		props.put("mail.smtp.auth", "true");
-		props.put("mail.smtp.port", "465");
-
-		Session session = Session.getDefaultInstance(props,
-			new javax.mail.Authenticator() {
-				protected PasswordAuthentication getPasswordAuthentication() {
-					return new PasswordAuthentication(SENDER_EMAIL, SENDER_PW);
+		Notification notification;
+		start();
+
+		synchronized (pending) {
+			notification = new Notification(nextNotificationID++, recipient, courseID);
+			try {
+				outbox.append(notification);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			pending.put(notification.getNotificationID(), notification);
+		}
+		queue.offer(notification);
+
+		System.out.println("An email will be sent to " + recipient + "\n");
+	}
+
+	/**
+	 * Starts the workers and queues the emails left in the outbox when the program last stopped.
+	 * Does nothing if the workers have already been started.
+	 */
+	public static synchronized void start() {
+		if (workers != null) {
+			return;
+		}
+
+		synchronized (pending) {
+			List<Object> entries = outbox.readAll();
+
+			for (int i = 0; i < entries.size(); i++) {
+				if (entries.get(i) instanceof Notification) {
+					Notification notification = (Notification) entries.get(i);
+					pending.put(notification.getNotificationID(), notification);
+					nextNotificationID = Math.max(nextNotificationID, notification.getNotificationID() + 1);
+				} else if (entries.get(i) instanceof Long) {
+					pending.remove(entries.get(i));
+				}
+			}
+			if (pending.isEmpty() && !entries.isEmpty()) {
+				outbox.clear();
+			}
+			queue.addAll(pending.values());
+		}
+
+		ThreadFactory daemons = new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "notification-worker");
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+		retryTimer = Executors.newSingleThreadScheduledExecutor(daemons);
+		workers = Executors.newFixedThreadPool(NUM_OF_WORKERS, daemons);
+		for (int i = 0; i < NUM_OF_WORKERS; i++) {
+			workers.execute(new Runnable() {
+				public void run() {
+					runWorker();
 				}
 			});
+		}
+	}
 
-		try {
-			Message message = new MimeMessage(session);
-			message.setFrom(new InternetAddress(SENDER_EMAIL));
-			message.setRecipients(Message.RecipientType.TO,InternetAddress.parse(recipient));
-			message.setSubject("Waitlist notification");
-			message.setText("You have been registered to " + courseID);
+	/**
+	 * Takes emails from the queue and sends them in batches until the program stops.
+	 */
+	private static void runWorker() {
+		ArrayList<Notification> batch = new ArrayList<Notification>();
 
-			Transport.send(message);
+		while (true) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			queue.drainTo(batch, BATCH_SIZE - 1);
 
-			System.out.println("An email has been sent to " + recipient + "\n");
+			try {
+				sendBatch(batch);
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+			batch.clear();
+		}
+	}
 
+	/**
+	 * Sends a batch of emails over one connection to the mail server.
+	 * Emails that cannot be sent are tried again later.
+	 * @param batch The emails to send.
+	 */
+	private static void sendBatch(List<Notification> batch) {
+		Transport transport = null;
+
+		try {
+			transport = getSession().getTransport("smtp");
+			transport.connect();
 		} catch (MessagingException e) {
-			System.out.println("You are not connected to the internet!");
+			for (int i = 0; i < batch.size(); i++) {
+				retry(batch.get(i));
+			}
+			return;
+		}
+
+		try {
+			for (int i = 0; i < batch.size(); i++) {
+				try {
+					Message message = new MimeMessage(getSession());
+					message.setFrom(new InternetAddress(SENDER_EMAIL));
+					message.setRecipients(Message.RecipientType.TO,InternetAddress.parse(batch.get(i).getRecipient()));
+					message.setSubject("Waitlist notification");
+					message.setText("You have been registered to " + batch.get(i).getCourseID());
+					message.saveChanges();
+
+					transport.sendMessage(message, message.getAllRecipients());
+					removeFromOutbox(batch.get(i));
+				} catch (MessagingException e) {
+					retry(batch.get(i));
+				}
+			}
+		} finally {
+			try {
+				transport.close();
+			} catch (MessagingException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Puts an email that could not be sent back in the queue after a delay,
+	 * or gives it up after MAX_ATTEMPTS attempts.
+	 * @param notification The email that could not be sent.
+	 */
+	private static void retry(final Notification notification) {
+		notification.setNumOfAttempts(notification.getNumOfAttempts() + 1);
+
+		if (notification.getNumOfAttempts() >= MAX_ATTEMPTS) {
+			System.out.println("Unable to send an email to " + notification.getRecipient() + ", you are not connected to the internet!");
+			removeFromOutbox(notification);
+			return;
+		}
+
+		retryTimer.schedule(new Runnable() {
+			public void run() {
+				queue.offer(notification);
+			}
+		}, RETRY_DELAY << (notification.getNumOfAttempts() - 1), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Removes an email that has been sent or given up from the outbox.
+	 * The outbox file is emptied once no email is left in it.
+	 * @param notification The email to remove.
+	 */
+	private static void removeFromOutbox(Notification notification) {
+		synchronized (pending) {
+			pending.remove(notification.getNotificationID());
+
+			if (pending.isEmpty()) {
+				outbox.clear();
+			} else {
+				try {
+					outbox.append(notification.getNotificationID());
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the mail session, creating it on first use.
+	 * @return the mail session.
+	 */
+	private static synchronized Session getSession() {
+		if (session == null) {
+			boolean ssl = Boolean.parseBoolean(System.getProperty("stars.smtp.ssl", "true"));
+			Properties props = new Properties();
+			props.put("mail.smtp.host", System.getProperty("stars.smtp.host", "smtp.gmail.com"));
+			props.put("mail.smtp.port", System.getProperty("stars.smtp.port", "465"));
+			props.put("mail.smtp.auth", System.getProperty("stars.smtp.auth", "true"));
+			if (ssl) {
+				props.put("mail.smtp.socketFactory.port", System.getProperty("stars.smtp.port", "465"));
+				props.put("mail.smtp.socketFactory.class","javax.net.ssl.SSLSocketFactory");
+			}
+
+			session = Session.getInstance(props,
+				new javax.mail.Authenticator() {
+					protected PasswordAuthentication getPasswordAuthentication() {
+						return new PasswordAuthentication(SENDER_EMAIL, SENDER_PW);
+					}
+				});
 		}
+		return session;
 	}
 }
@@ -0,0 +1,767 @@
+/**
+	Represents a control class that registers, drops, changes and swaps index groups for students
+	without asking them anything, so requests can come from the console, the server or a batch job alike.
+	Every request returns a RegistrationOutcome instead of printing.
+	Each request has a check method that tells the outcome the request would have without changing anything,
+	so the console can ask the student to confirm first. The request itself checks everything again
+	while holding the locks of the students and index groups it changes, then changes them in one transaction.
+	A seat freed by a drop or a change is given to the students waiting for it in the same transaction,
+	and promoteFromWaitlists() promotes students into the vacancies of other index groups, such as when an admin
+	raises the capacity of an index group. A student promoted is notified by NotificationController.
+	Every change is made on a copy of the students and waitlists, and put only once it is made, so a request that fails
+	aborts its transaction, which puts back every record it changed and every seat it took or gave back,
+	and nothing of it is written or seen, so the seat counts always agree with the students registered.
+	Locks are always released after the transaction holding the changes has committed or aborted.
+
+	@author Lim Boon Leng
+	@version 1.3
+	@since 2017-04-18
+*/
+
+package Control;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import Objects.Course;
+import Objects.Database;
+import Objects.IndexGroup;
+import Objects.StripedLock;
+import Objects.Student;
+import Objects.Transaction;
+import Objects.Waitlist;
+
+public class RegistrationEngine {
+	/**
+	* Tells what registering a student in an index group would do, without changing anything
+	* @param studentID The ID of the student
+	* @param indexGroupID The ID of the index group
+	* @return REGISTERED if there is a vacancy, WAITLISTED if the student can join the waitlist, or why neither can be done
+	*/
+	public static RegistrationOutcome checkRegister(String studentID, Integer indexGroupID) {
+		try {
+			return validateRegister(Database.students.get(studentID), indexGroupID, true);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return RegistrationOutcome.ERROR;
+		}
+	}
+
+	/**
+	* Registers a student in an index group, or adds them to its waitlist if there is no vacancy
+	* @param studentID The ID of the student
+	* @param indexGroupID The ID of the index group
+	* @return REGISTERED, WAITLISTED, or why neither can be done
+	*/
+	public static RegistrationOutcome register(String studentID, Integer indexGroupID) {
+		return register(studentID, indexGroupID, true);
+	}
+
+	/**
+	* Registers a student in an index group
+	* @param studentID The ID of the student
+	* @param indexGroupID The ID of the index group
+	* @param joinWaitlist Whether to add the student to the waitlist if there is no vacancy
+	* @return REGISTERED, WAITLISTED, FULL if there is no vacancy and the student does not join the waitlist, or why neither can be done
+	*/
+	public static RegistrationOutcome register(String studentID, Integer indexGroupID, boolean joinWaitlist) {
+		Student student = Database.students.get(studentID);
+		Transaction transaction = null;
+		StripedLock.Held held = null;
+
+		if (student == null) {
+			return RegistrationOutcome.NOT_FOUND;
+		}
+
+		try {
+			held = Database.locks.lock(lockKeys(student, indexGroupID));
+			transaction = Transaction.begin();
+			student = Database.students.getCopy(studentID);
+
+			RegistrationOutcome outcome = validateRegister(student, indexGroupID, joinWaitlist);
+			IndexGroup indexGroup = Database.indexGroups.get(indexGroupID);
+			Course course = Database.courses.retrieveByIndexGroup(indexGroupID);
+
+			if (outcome == RegistrationOutcome.REGISTERED && !indexGroup.tryReserveSeat()) {
+				if (!joinWaitlist) {
+					return RegistrationOutcome.FULL;
+				}
+				outcome = validateWaitlists(student, course);
+			}
+
+			if (outcome == RegistrationOutcome.WAITLISTED) {
+				Waitlist waitlist = findWaitlist(indexGroup);
+
+				if (waitlist == null) {
+					return RegistrationOutcome.FULL;
+				}
+				waitlist = Database.waitlists.getCopy(waitlist.getWaitListID());
+				waitlist.getStudentQueueList().offer(studentID);
+				student.getWaitListIDList().add(waitlist.getWaitListID());
+				Database.waitlists.put(waitlist);
+				Database.students.put(student);
+			} else if (outcome == RegistrationOutcome.REGISTERED) {
+				for (int i = student.getWaitListIDList().size() - 1; i >= 0; i--) {
+					Integer waitListID = student.getWaitListIDList().get(i);
+					Waitlist waitlist = Database.waitlists.get(waitListID);
+
+					if (waitlist != null && course.getIndexGroupList().contains(waitlist.getIndexGroupNumber())) {
+						waitlist = Database.waitlists.getCopy(waitListID);
+						waitlist.getStudentQueueList().remove(studentID);
+						student.getWaitListIDList().remove(i);
+						Database.waitlists.put(waitlist);
+					}
+				}
+				student.getCourseList().add(course.getCourseID());
+				student.getIndexGroupList().add(indexGroupID);
+				student.getSchedule().AddSchedule(indexGroupID);
+				Database.indexGroups.put(indexGroup);
+				Database.students.put(student);
+			}
+			return outcome;
+		} catch (Exception e) {
+			e.printStackTrace();
+			if (transaction != null) {
+				transaction.abort();
+				transaction = null;
+			}
+			return RegistrationOutcome.ERROR;
+		} finally {
+			if (transaction != null) {
+				transaction.commit();
+			}
+			if (held != null) {
+				held.unlock();
+			}
+		}
+	}
+
+	/**
+	* Tells what dropping an index group would do, without changing anything
+	* @param studentID The ID of the student
+	* @param indexGroupID The ID of the index group the student is registered in or waiting for
+	* @return DROPPED, LEFT_WAITLIST, or why neither can be done
+	*/
+	public static RegistrationOutcome checkDrop(String studentID, Integer indexGroupID) {
+		try {
+			return validateDrop(Database.students.get(studentID), indexGroupID);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return RegistrationOutcome.ERROR;
+		}
+	}
+
+	/**
+	* Drops the course of an index group a student is registered in, or removes the student from its waitlist.
+	* A seat freed is then given to the first student in the waitlist who can take it
+	* @param studentID The ID of the student
+	* @param indexGroupID The ID of the index group the student is registered in or waiting for
+	* @return DROPPED, LEFT_WAITLIST, or why neither can be done
+	*/
+	public static RegistrationOutcome drop(String studentID, Integer indexGroupID) {
+		Student student = Database.students.get(studentID);
+		Transaction transaction = null;
+		StripedLock.Held held = null;
+
+		if (student == null) {
+			return RegistrationOutcome.NOT_FOUND;
+		}
+
+		RegistrationOutcome outcome;
+		try {
+			held = lockForPromotion(lockKeys(student, indexGroupID), Collections.singletonList(indexGroupID));
+			transaction = Transaction.begin();
+			student = Database.students.getCopy(studentID);
+
+			outcome = validateDrop(student, indexGroupID);
+			IndexGroup indexGroup = Database.indexGroups.get(indexGroupID);
+			Waitlist waitlist = findWaitlist(indexGroup);
+			Course course = Database.courses.retrieveByIndexGroup(indexGroupID);
+
+			if (outcome == RegistrationOutcome.LEFT_WAITLIST) {
+				waitlist = Database.waitlists.getCopy(waitlist.getWaitListID());
+				waitlist.getStudentQueueList().remove(studentID);
+				student.getWaitListIDList().remove(waitlist.getWaitListID());
+				Database.waitlists.put(waitlist);
+				Database.students.put(student);
+			} else if (outcome == RegistrationOutcome.DROPPED) {
+				student.getCourseList().remove(course.getCourseID());
+				student.getIndexGroupList().remove(indexGroupID);
+				indexGroup.releaseSeat();
+				student.getSchedule().RemoveSchedule(indexGroupID);
+				Database.indexGroups.put(indexGroup);
+				Database.students.put(student);
+				promoteFromWaitlist(indexGroupID);
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			if (transaction != null) {
+				transaction.abort();
+				transaction = null;
+			}
+			return RegistrationOutcome.ERROR;
+		} finally {
+			if (transaction != null) {
+				transaction.commit();
+			}
+			if (held != null) {
+				held.unlock();
+			}
+		}
+
+		return outcome;
+	}
+
+	/**
+	* Tells what changing a student to another index group of the same course would do, without changing anything
+	* @param studentID The ID of the student
+	* @param currentIndexGroupID The ID of the index group the student is registered in
+	* @param newIndexGroupID The ID of the index group to change to
+	* @return CHANGED, or why it cannot be done
+	*/
+	public static RegistrationOutcome checkChangeIndex(String studentID, Integer currentIndexGroupID, Integer newIndexGroupID) {
+		try {
+			return validateChangeIndex(Database.students.get(studentID), currentIndexGroupID, newIndexGroupID);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return RegistrationOutcome.ERROR;
+		}
+	}
+
+	/**
+	* Changes a student to another index group of the same course.
+	* The seat freed is then given to the first student in the waitlist of the old index group who can take it
+	* @param studentID The ID of the student
+	* @param currentIndexGroupID The ID of the index group the student is registered in
+	* @param newIndexGroupID The ID of the index group to change to
+	* @return CHANGED, or why it cannot be done
+	*/
+	public static RegistrationOutcome changeIndex(String studentID, Integer currentIndexGroupID, Integer newIndexGroupID) {
+		Student student = Database.students.get(studentID);
+		Transaction transaction = null;
+		StripedLock.Held held = null;
+
+		if (student == null) {
+			return RegistrationOutcome.NOT_FOUND;
+		}
+
+		RegistrationOutcome outcome;
+		try {
+			IndexGroup currentIndexGroup = Database.indexGroups.get(currentIndexGroupID);
+			IndexGroup newIndexGroup = Database.indexGroups.get(newIndexGroupID);
+
+			held = lockForPromotion(lockKeys(student, currentIndexGroupID, newIndexGroupID), Collections.singletonList(currentIndexGroupID));
+			transaction = Transaction.begin();
+			student = Database.students.getCopy(studentID);
+
+			outcome = validateChangeIndex(student, currentIndexGroupID, newIndexGroupID);
+
+			if (outcome != RegistrationOutcome.CHANGED) {
+				return outcome;
+			}
+			if (!newIndexGroup.tryReserveSeat()) {
+				return RegistrationOutcome.FULL;
+			}
+
+			student.getIndexGroupList().remove(currentIndexGroupID);
+			student.getIndexGroupList().add(newIndexGroupID);
+			student.getSchedule().UpdateSchedule(currentIndexGroupID, newIndexGroupID);
+
+			Database.students.put(student);
+			Database.indexGroups.put(currentIndexGroup);
+			Database.indexGroups.put(newIndexGroup);
+			currentIndexGroup.releaseSeat();
+			promoteFromWaitlist(currentIndexGroupID);
+		} catch (Exception e) {
+			e.printStackTrace();
+			if (transaction != null) {
+				transaction.abort();
+				transaction = null;
+			}
+			return RegistrationOutcome.ERROR;
+		} finally {
+			if (transaction != null) {
+				transaction.commit();
+			}
+			if (held != null) {
+				held.unlock();
+			}
+		}
+
+		return outcome;
+	}
+
+	/**
+	* Tells what swapping index groups of the same course with a peer would do, without changing anything
+	* @param studentID The ID of the student
+	* @param ownIndexGroupID The ID of the index group the student is registered in
+	* @param peerID The ID of the peer
+	* @param peerPasswordHash The hash of the peer's password
+	* @param peerIndexGroupID The ID of the index group the peer is registered in
+	* @return SWAPPED, or why it cannot be done
+	*/
+	public static RegistrationOutcome checkSwapIndex(String studentID, Integer ownIndexGroupID, String peerID, String peerPasswordHash,
+			Integer peerIndexGroupID) {
+		try {
+			return validateSwapIndex(Database.students.get(studentID), ownIndexGroupID, peerID, peerPasswordHash, peerIndexGroupID);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return RegistrationOutcome.ERROR;
+		}
+	}
+
+	/**
+	* Swaps index groups of the same course between a student and a peer, who confirms with their password
+	* @param studentID The ID of the student
+	* @param ownIndexGroupID The ID of the index group the student is registered in
+	* @param peerID The ID of the peer
+	* @param peerPasswordHash The hash of the peer's password
+	* @param peerIndexGroupID The ID of the index group the peer is registered in
+	* @return SWAPPED, or why it cannot be done
+	*/
+	public static RegistrationOutcome swapIndex(String studentID, Integer ownIndexGroupID, String peerID, String peerPasswordHash,
+			Integer peerIndexGroupID) {
+		Student student = Database.students.get(studentID);
+		Transaction transaction = null;
+		StripedLock.Held held = null;
+
+		if (student == null) {
+			return RegistrationOutcome.NOT_FOUND;
+		}
+
+		try {
+			held = Database.locks.lock(lockKeys(student, ownIndexGroupID, peerIndexGroupID, peerID));
+			transaction = Transaction.begin();
+			student = Database.students.getCopy(studentID);
+
+			RegistrationOutcome outcome = validateSwapIndex(student, ownIndexGroupID, peerID, peerPasswordHash, peerIndexGroupID);
+
+			if (outcome == RegistrationOutcome.SWAPPED) {
+				Student peer = Database.students.getCopy(peerID);
+
+				student.getIndexGroupList().remove(ownIndexGroupID);
+				peer.getIndexGroupList().remove(peerIndexGroupID);
+				student.getIndexGroupList().add(peerIndexGroupID);
+				peer.getIndexGroupList().add(ownIndexGroupID);
+				student.getSchedule().UpdateSchedule(ownIndexGroupID, peerIndexGroupID);
+				peer.getSchedule().UpdateSchedule(peerIndexGroupID, ownIndexGroupID);
+
+				Database.students.put(student);
+				Database.students.put(peer);
+			}
+			return outcome;
+		} catch (Exception e) {
+			e.printStackTrace();
+			if (transaction != null) {
+				transaction.abort();
+				transaction = null;
+			}
+			return RegistrationOutcome.ERROR;
+		} finally {
+			if (transaction != null) {
+				transaction.commit();
+			}
+			if (held != null) {
+				held.unlock();
+			}
+		}
+	}
+
+	/**
+	* Promotes students from the waitlists of every index group with vacancies
+	* @return the number of students promoted
+	*/
+	public static int promoteFromWaitlists() {
+		List<IndexGroup> indexGroups = Database.indexGroups.getAll();
+		List<Integer> indexGroupIDs = new ArrayList<Integer>();
+
+		for (int i = 0; i < indexGroups.size(); i++) {
+			indexGroupIDs.add(indexGroups.get(i).getIndexGroupID());
+		}
+		return promoteFromWaitlists(indexGroupIDs);
+	}
+
+	/**
+	* Promotes students from the waitlists of the index groups given that have vacancies, in one pass.
+	* The students in each waitlist are taken in order, skipping those whose timetable now clashes with the index group,
+	* who keep their place in the waitlist. Those already registered in the course are removed from the waitlist.
+	* The locks of every index group with students waiting and vacancies are taken up front, and every promotion
+	* is committed as one transaction, so the whole pass is a single write to the journal.
+	* An index group whose promotions fail is rolled back on its own, from a savepoint, without losing the others
+	* @param indexGroupIDs The IDs of the index groups
+	* @return the number of students promoted
+	*/
+	public static int promoteFromWaitlists(List<Integer> indexGroupIDs) {
+		List<Integer> promotableIDs = new ArrayList<Integer>();
+
+		for (int i = 0; i < indexGroupIDs.size(); i++) {
+			IndexGroup indexGroup = Database.indexGroups.get(indexGroupIDs.get(i));
+			Waitlist waitlist = findWaitlist(indexGroup);
+
+			if (waitlist != null && waitlist.getStudentQueueList() != null && !waitlist.getStudentQueueList().isEmpty()
+					&& indexGroup.checkVacancies()) {
+				promotableIDs.add(indexGroupIDs.get(i));
+			}
+		}
+		if (promotableIDs.isEmpty()) {
+			return 0;
+		}
+
+		int numOfPromoted = 0;
+		StripedLock.Held held = lockForPromotion(new ArrayList<Object>(), promotableIDs);
+		Transaction transaction = Transaction.begin();
+
+		try {
+			for (int i = 0; i < promotableIDs.size(); i++) {
+				Transaction.begin();
+
+				try {
+					int numOfGroupPromoted = promoteFromWaitlist(promotableIDs.get(i));
+					transaction.commit();
+					numOfPromoted += numOfGroupPromoted;
+				} catch (Exception e) {
+					e.printStackTrace();
+					transaction.abort();
+				}
+			}
+		} finally {
+			transaction.commit();
+			held.unlock();
+		}
+		return numOfPromoted;
+	}
+
+	/**
+	* Gives the vacancies of an index group to the students in its waitlist who can take them, in order.
+	* The caller holds the locks taken by lockForPromotion() for the index group and has begun a transaction.
+	* A student promoted leaves every waitlist of the course, and is notified once the transaction has committed
+	* @param indexGroupID The ID of the index group
+	* @return the number of students promoted
+	*/
+	private static int promoteFromWaitlist(Integer indexGroupID) {
+		IndexGroup indexGroup = Database.indexGroups.get(indexGroupID);
+		Course course = Database.courses.retrieveByIndexGroup(indexGroupID);
+		Waitlist waitlist = findWaitlist(indexGroup);
+
+		if (course == null || waitlist == null || waitlist.getStudentQueueList() == null
+				|| waitlist.getStudentQueueList().isEmpty() || !indexGroup.checkVacancies()) {
+			return 0;
+		}
+
+		List<String> candidateIDs = new ArrayList<String>(waitlist.getStudentQueueList());
+		int numOfPromoted = 0;
+		waitlist = Database.waitlists.getCopy(waitlist.getWaitListID());
+
+		for (int i = 0; i < candidateIDs.size() && indexGroup.checkVacancies(); i++) {
+			String candidateID = candidateIDs.get(i);
+
+			if (waitlist.getPosition(candidateID) == 0) {
+				continue;
+			}
+
+			Student candidate = Database.students.get(candidateID);
+			if (candidate == null) {
+				waitlist.getStudentQueueList().remove(candidateID);
+				Database.waitlists.put(waitlist);
+				continue;
+			}
+			if (candidate.getCourseList().contains(course.getCourseID())) {
+				waitlist.getStudentQueueList().remove(candidateID);
+				Database.waitlists.put(waitlist);
+				candidate = Database.students.getCopy(candidateID);
+				candidate.getWaitListIDList().remove(waitlist.getWaitListID());
+				Database.students.put(candidate);
+				continue;
+			}
+			if (candidate.getSchedule().checkScheduleClash(indexGroupID)) {
+				continue;
+			}
+			if (!indexGroup.tryReserveSeat()) {
+				break;
+			}
+
+			candidate = Database.students.getCopy(candidateID);
+			waitlist.getStudentQueueList().remove(candidateID);
+			Database.waitlists.put(waitlist);
+			for (int j = candidate.getWaitListIDList().size() - 1; j >= 0; j--) {
+				Integer waitListID = candidate.getWaitListIDList().get(j);
+				Waitlist other = Database.waitlists.get(waitListID);
+
+				if (other != null && course.getIndexGroupList().contains(other.getIndexGroupNumber())) {
+					other = Database.waitlists.getCopy(waitListID);
+					other.getStudentQueueList().remove(candidateID);
+					candidate.getWaitListIDList().remove(j);
+					Database.waitlists.put(other);
+				}
+			}
+			candidate.getCourseList().add(course.getCourseID());
+			candidate.getIndexGroupList().add(indexGroupID);
+			candidate.getSchedule().AddSchedule(indexGroupID);
+			Database.students.put(candidate);
+
+			notifyPromoted(candidate, course.getCourseID());
+			numOfPromoted++;
+		}
+
+		if (numOfPromoted > 0) {
+			Database.indexGroups.put(indexGroup);
+		}
+		return numOfPromoted;
+	}
+
+	/**
+	* Notifies a student promoted from a waitlist, by SMS, email or both as they chose,
+	* once the transaction promoting them has committed, so no student hears of a registration that was not kept
+	* @param student The student promoted
+	* @param courseID The ID of the course the student was promoted in
+	*/
+	private static void notifyPromoted(final Student student, final String courseID) {
+		Transaction.afterCommit(new Runnable() {
+			public void run() {
+				String notifMode = student.getNotifMode() == null ? "" : student.getNotifMode().toLowerCase();
+
+				if (notifMode.equals("sms") || notifMode.equals("both")) {
+					NotificationController.sendSMS(student.getMobileNum());
+				}
+				if (notifMode.equals("email") || notifMode.equals("both")) {
+					NotificationController.sendEmail(student.getEmail(), courseID);
+				}
+			}
+		});
+	}
+
+	/**
+	* Checks if a student can be registered in an index group
+	* @param student The student, or null if there is none
+	* @param indexGroupID The ID of the index group
+	* @param joinWaitlist Whether the student would join the waitlist if there is no vacancy
+	* @return REGISTERED, WAITLISTED, or why neither can be done
+	*/
+	private static RegistrationOutcome validateRegister(Student student, Integer indexGroupID, boolean joinWaitlist) {
+		IndexGroup indexGroup = Database.indexGroups.get(indexGroupID);
+		Course course = Database.courses.retrieveByIndexGroup(indexGroupID);
+
+		if (student == null || indexGroup == null || course == null) {
+			return RegistrationOutcome.NOT_FOUND;
+		}
+		if (student.getCourseList().contains(course.getCourseID())) {
+			return RegistrationOutcome.ALREADY_REGISTERED;
+		}
+		if (student.getSchedule().checkScheduleClash(indexGroupID)) {
+			return RegistrationOutcome.CLASH;
+		}
+		if (indexGroup.checkVacancies()) {
+			return RegistrationOutcome.REGISTERED;
+		}
+		if (!joinWaitlist) {
+			return RegistrationOutcome.FULL;
+		}
+		return validateWaitlists(student, course);
+	}
+
+	/**
+	* Checks if a student can join a waitlist of a course, which they cannot if they are in a waitlist of the course already
+	* @param student The student
+	* @param course The course
+	* @return WAITLISTED or ALREADY_WAITLISTED
+	*/
+	private static RegistrationOutcome validateWaitlists(Student student, Course course) {
+		for (int i = 0; i < student.getWaitListIDList().size(); i++) {
+			Waitlist waitlist = Database.waitlists.get(student.getWaitListIDList().get(i));
+
+			if (waitlist != null && course.getIndexGroupList().contains(waitlist.getIndexGroupNumber())) {
+				return RegistrationOutcome.ALREADY_WAITLISTED;
+			}
+		}
+		return RegistrationOutcome.WAITLISTED;
+	}
+
+	/**
+	* Checks if a student can drop an index group or leave its waitlist
+	* @param student The student, or null if there is none
+	* @param indexGroupID The ID of the index group
+	* @return DROPPED, LEFT_WAITLIST, or why neither can be done
+	*/
+	private static RegistrationOutcome validateDrop(Student student, Integer indexGroupID) {
+		IndexGroup indexGroup = Database.indexGroups.get(indexGroupID);
+		Course course = Database.courses.retrieveByIndexGroup(indexGroupID);
+
+		if (student == null || indexGroup == null || course == null) {
+			return RegistrationOutcome.NOT_FOUND;
+		}
+		if (student.checkCourseIndexRegistered(indexGroupID)) {
+			return RegistrationOutcome.DROPPED;
+		}
+
+		Waitlist waitlist = findWaitlist(indexGroup);
+		if (waitlist != null && student.getWaitListIDList().contains(waitlist.getWaitListID())) {
+			return RegistrationOutcome.LEFT_WAITLIST;
+		}
+		return RegistrationOutcome.NOT_REGISTERED;
+	}
+
+	/**
+	* Checks if a student can change to another index group of the same course
+	* @param student The student, or null if there is none
+	* @param currentIndexGroupID The ID of the index group the student is registered in
+	* @param newIndexGroupID The ID of the index group to change to
+	* @return CHANGED, or why it cannot be done
+	*/
+	private static RegistrationOutcome validateChangeIndex(Student student, Integer currentIndexGroupID, Integer newIndexGroupID) {
+		IndexGroup newIndexGroup = Database.indexGroups.get(newIndexGroupID);
+		Course currentCourse = Database.courses.retrieveByIndexGroup(currentIndexGroupID);
+		Course newCourse = Database.courses.retrieveByIndexGroup(newIndexGroupID);
+
+		if (student == null) {
+			return RegistrationOutcome.NOT_FOUND;
+		}
+		if (!student.checkCourseIndexRegistered(currentIndexGroupID)) {
+			return RegistrationOutcome.NOT_REGISTERED;
+		}
+		if (newIndexGroup == null || currentCourse == null || newCourse == null) {
+			return RegistrationOutcome.NOT_FOUND;
+		}
+		if (!currentCourse.getCourseID().equals(newCourse.getCourseID())) {
+			return RegistrationOutcome.DIFFERENT_COURSE;
+		}
+		if (student.getSchedule().checkScheduleClashSameCourse(newIndexGroupID)) {
+			return RegistrationOutcome.CLASH;
+		}
+		if (!newIndexGroup.checkVacancies()) {
+			return RegistrationOutcome.FULL;
+		}
+		return RegistrationOutcome.CHANGED;
+	}
+
+	/**
+	* Checks if a student and a peer can swap index groups
+	* @param student The student, or null if there is none
+	* @param ownIndexGroupID The ID of the index group the student is registered in
+	* @param peerID The ID of the peer
+	* @param peerPasswordHash The hash of the peer's password
+	* @param peerIndexGroupID The ID of the index group the peer is registered in
+	* @return SWAPPED, or why it cannot be done
+	*/
+	private static RegistrationOutcome validateSwapIndex(Student student, Integer ownIndexGroupID, String peerID, String peerPasswordHash,
+			Integer peerIndexGroupID) {
+		if (student == null) {
+			return RegistrationOutcome.NOT_FOUND;
+		}
+		if (!student.checkCourseIndexRegistered(ownIndexGroupID)) {
+			return RegistrationOutcome.NOT_REGISTERED;
+		}
+		if (!new Student().login(peerID, peerPasswordHash)) {
+			return RegistrationOutcome.INVALID_PEER;
+		}
+
+		Student peer = Database.students.get(peerID);
+		if (peer == null || peer.getStudentID().equals(student.getStudentID())) {
+			return RegistrationOutcome.INVALID_PEER;
+		}
+		if (!peer.checkCourseIndexRegistered(peerIndexGroupID)) {
+			return RegistrationOutcome.PEER_NOT_REGISTERED;
+		}
+
+		Course ownCourse = Database.courses.retrieveByIndexGroup(ownIndexGroupID);
+		Course peerCourse = Database.courses.retrieveByIndexGroup(peerIndexGroupID);
+		if (ownCourse == null || peerCourse == null) {
+			return RegistrationOutcome.NOT_FOUND;
+		}
+		if (!ownCourse.getCourseID().equals(peerCourse.getCourseID())) {
+			return RegistrationOutcome.DIFFERENT_COURSE;
+		}
+		if (student.getSchedule().checkScheduleClashSameCourse(peerIndexGroupID)) {
+			return RegistrationOutcome.CLASH;
+		}
+		if (peer.getSchedule().checkScheduleClashSameCourse(ownIndexGroupID)) {
+			return RegistrationOutcome.PEER_CLASH;
+		}
+		return RegistrationOutcome.SWAPPED;
+	}
+
+	/**
+	* Finds the waitlist of an index group in the waitlist database by the waitlist ID the index group holds.
+	* A waitlist ID that is not in the waitlist database means the databases are corrupted, and is reported
+	* @param indexGroup The index group, or null
+	* @return the waitlist, or null if there is none
+	*/
+	private static Waitlist findWaitlist(IndexGroup indexGroup) {
+		if (indexGroup == null || indexGroup.getWaitList() == null || indexGroup.getWaitList().getWaitListID() == null) {
+			return null;
+		}
+
+		Waitlist waitlist = Database.waitlists.get(indexGroup.getWaitList().getWaitListID());
+		if (waitlist == null) {
+			System.out.println("Database corrupted: waitlist " + indexGroup.getWaitList().getWaitListID()
+					+ " of index group " + indexGroup.getIndexGroupID() + " is not in the waitlist database.");
+		}
+		return waitlist;
+	}
+
+	/**
+	* Gets the keys to lock before a student and index groups are changed,
+	* including the index groups of the waitlists the student is in
+	* @param student The student that will be changed
+	* @param keys The IDs of the other index groups and students that will be changed, which may be null
+	* @return list of keys to lock
+	*/
+	private static List<Object> lockKeys(Student student, Object... keys) {
+		List<Object> lockKeys = new ArrayList<Object>();
+		lockKeys.add(student.getStudentID());
+
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				lockKeys.add(keys[i]);
+			}
+		}
+
+		for (int i = 0; i < student.getWaitListIDList().size(); i++) {
+			Waitlist waitlist = Database.waitlists.get(student.getWaitListIDList().get(i));
+			if (waitlist != null) {
+				lockKeys.add(waitlist.getIndexGroupNumber());
+			}
+		}
+		return lockKeys;
+	}
+
+	/**
+	* Locks the given keys together with those needed to promote students from the waitlists of the given index groups:
+	* the index groups of their courses and the students waiting for them. The waitlists are read again once locked,
+	* and everything is locked again if a student joined one in the meantime, so no lock is ever taken while others are held
+	* @param keys The keys of the other students and index groups that will be changed
+	* @param indexGroupIDs The IDs of the index groups to promote students from
+	* @return the locks held, to be unlocked once the transaction has committed
+	*/
+	private static StripedLock.Held lockForPromotion(List<Object> keys, List<Integer> indexGroupIDs) {
+		List<Object> lockKeys = new ArrayList<Object>(keys);
+
+		for (int i = 0; i < indexGroupIDs.size(); i++) {
+			Course course = Database.courses.retrieveByIndexGroup(indexGroupIDs.get(i));
+
+			lockKeys.add(indexGroupIDs.get(i));
+			if (course != null) {
+				lockKeys.addAll(course.getIndexGroupList());
+			}
+		}
+
+		while (true) {
+			StripedLock.Held held = Database.locks.lock(lockKeys);
+			List<String> candidateIDs = new ArrayList<String>();
+
+			for (int i = 0; i < indexGroupIDs.size(); i++) {
+				Waitlist waitlist = findWaitlist(Database.indexGroups.get(indexGroupIDs.get(i)));
+
+				if (waitlist != null && waitlist.getStudentQueueList() != null) {
+					candidateIDs.addAll(waitlist.getStudentQueueList());
+				}
+			}
+			if (new HashSet<Object>(lockKeys).containsAll(candidateIDs)) {
+				return held;
+			}
+			held.unlock();
+			lockKeys.addAll(candidateIDs);
+		}
+	}
+}
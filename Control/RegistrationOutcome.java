@@ -0,0 +1,153 @@
+/**
+	Represents the outcome of a request to the RegistrationEngine or the SwapController.
+	Every outcome carries the message shown to the student.
+
+	@author Lim Boon Leng
+	@version 1.1
+	@since 2017-04-18
+*/
+
+package Control;
+
+public enum RegistrationOutcome {
+	/**
+	 * The student has been registered in the index group.
+	 */
+	REGISTERED(true, "Course successfully registered!"),
+
+	/**
+	 * The student has been added to the waitlist of the index group.
+	 */
+	WAITLISTED(true, "You have been added to the waitlist\n"),
+
+	/**
+	 * The student has dropped the course.
+	 */
+	DROPPED(true, "Course has been dropped successfully."),
+
+	/**
+	 * The student has been removed from the waitlist of the index group.
+	 */
+	LEFT_WAITLIST(true, "You have been removed from the waitlist."),
+
+	/**
+	 * The student has changed to the new index group.
+	 */
+	CHANGED(true, "You have successfully changed your index group number!"),
+
+	/**
+	 * The student and the peer have swapped index groups.
+	 */
+	SWAPPED(true, "You have successfully swapped your index group number with your peer."),
+
+	/**
+	 * The swap request has been posted and is waiting for a swap.
+	 */
+	SWAP_POSTED(true, "Your swap request has been posted. You will be swapped as soon as a swap is found."),
+
+	/**
+	 * The swap request has been matched and the student has been swapped.
+	 */
+	SWAP_MATCHED(true, "A swap has been found! You have been moved to another index group."),
+
+	/**
+	 * The swap request has been cancelled.
+	 */
+	SWAP_CANCELLED(true, "Your swap request has been cancelled."),
+
+	/**
+	 * The student has no open swap request for the course.
+	 */
+	NO_SWAP_REQUEST(false, "You have no open swap request for this course."),
+
+	/**
+	 * The student, the course or the index group does not exist.
+	 */
+	NOT_FOUND(false, "The course or index group number does not exist!"),
+
+	/**
+	 * The student is already registered in the course, in this or another index group.
+	 */
+	ALREADY_REGISTERED(false, "You are already registered in this course in another index group\n"),
+
+	/**
+	 * The student is already in the waitlist of an index group of the course.
+	 */
+	ALREADY_WAITLISTED(false, "You are already in the waitlist of an index group of this course\n"),
+
+	/**
+	 * The student is not registered in, or waiting for, the index group.
+	 */
+	NOT_REGISTERED(false, "You are not registered in this index group."),
+
+	/**
+	 * The peer is not registered in the index group.
+	 */
+	PEER_NOT_REGISTERED(false, "Peer is not registered in this index group."),
+
+	/**
+	 * The peer's username or password is invalid.
+	 */
+	INVALID_PEER(false, "Peer has invalid Username/Password."),
+
+	/**
+	 * The two index groups are of different courses.
+	 */
+	DIFFERENT_COURSE(false, "The index groups are of different courses."),
+
+	/**
+	 * The lessons of the index group clash with the student's schedule.
+	 */
+	CLASH(false, "Period of lesson clash with current schedule\n"),
+
+	/**
+	 * The lessons of the index group clash with the peer's schedule.
+	 */
+	PEER_CLASH(false, "Peer index group schedule clash with current schedule"),
+
+	/**
+	 * The index group has no vacancies.
+	 */
+	FULL(false, "Index group has no more vacancies."),
+
+	/**
+	 * The request failed unexpectedly.
+	 */
+	ERROR(false, "The request could not be completed. Please try again.");
+
+	/**
+	 * Whether the request has been carried out.
+	 */
+	private final boolean success;
+
+	/**
+	 * The message shown to the student.
+	 */
+	private final String message;
+
+	/**
+	 * Creates a new RegistrationOutcome.
+	 * @param success Whether the request has been carried out.
+	 * @param message The message shown to the student.
+	 */
+	private RegistrationOutcome(boolean success, String message) {
+		this.success = success;
+		this.message = message;
+	}
+
+	/**
+	* Checks if the request has been carried out
+	* @return boolean (true / false)
+	*/
+	public boolean isSuccess() {
+		return success;
+	}
+
+	/**
+	* Gets the message shown to the student
+	* @return the message
+	*/
+	public String getMessage() {
+		return message;
+	}
+}
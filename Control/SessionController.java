@@ -0,0 +1,119 @@
+/**
+	Represents a control class for the sessions of the users that are logged in.
+	A successful login issues a random session token, and the token identifies the user
+	until logout, so a session does not need to check the user's password again.
+
+	@author Lim Boon Leng
+	@version 1.0
+	@since 2017-04-18
+*/
+
+package Control;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import Objects.Admin;
+import Objects.Student;
+
+public class SessionController {
+	/**
+	 * The number of random bytes in a session token.
+	 */
+	private static final int TOKEN_LENGTH = 16;
+
+	/**
+	 * The source of session tokens.
+	 */
+	private static final SecureRandom random = new SecureRandom();
+
+	/**
+	 * The sessions that are logged in, keyed by session token.
+	 */
+	private static final Map<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+
+	/**
+	 * Represents the user of one session.
+	 */
+	private static class Session {
+		/**
+		 * The ID of the user.
+		 */
+		final String userID;
+
+		/**
+		 * Whether the user is an admin rather than a student.
+		 */
+		final boolean admin;
+
+		/**
+		 * Creates a new Session.
+		 * @param userID The ID of the user.
+		 * @param admin Whether the user is an admin.
+		 */
+		Session(String userID, boolean admin) {
+			this.userID = userID;
+			this.admin = admin;
+		}
+	}
+
+	/**
+	* Logs in an admin or a student, checking admins first
+	* @param userID The ID of the user
+	* @param passwordHash The hash of the password entered
+	* @return the session token, or null if the userID or password is invalid
+	*/
+	public static String login(String userID, String passwordHash) {
+		boolean admin;
+
+		if (new Admin().login(userID, passwordHash)) {
+			admin = true;
+		} else if (new Student().login(userID, passwordHash)) {
+			admin = false;
+		} else {
+			return null;
+		}
+
+		byte[] bytes = new byte[TOKEN_LENGTH];
+		random.nextBytes(bytes);
+		StringBuffer sb = new StringBuffer();
+		for (int i = 0; i < bytes.length; i++) {
+			sb.append(Integer.toString((bytes[i] & 0xff) + 0x100, 16).substring(1));
+		}
+
+		String token = sb.toString();
+		sessions.put(token, new Session(userID, admin));
+		return token;
+	}
+
+	/**
+	* Gets the user of a session
+	* @param token The session token
+	* @return the ID of the user, or null if the token is not logged in
+	*/
+	public static String getUserID(String token) {
+		Session session = token == null ? null : sessions.get(token);
+		return session == null ? null : session.userID;
+	}
+
+	/**
+	* Checks if the user of a session is an admin
+	* @param token The session token
+	* @return boolean (true / false)
+	*/
+	public static boolean isAdmin(String token) {
+		Session session = token == null ? null : sessions.get(token);
+		return session != null && session.admin;
+	}
+
+	/**
+	* Logs out a session, so its token can no longer be used
+	* @param token The session token
+	*/
+	public static void logout(String token) {
+		if (token != null) {
+			sessions.remove(token);
+		}
+	}
+}
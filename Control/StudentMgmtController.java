@@ -1,6 +1,8 @@
 /**
+ * The class lists are printed from a Snapshot, so a long list shows the students as of one moment
+ * and does not hold up registrations while it is printed.
  * @author Ang Poh Keong
- * @version 1.0
+ * @version 1.1
 	@since 2017-04-06
  */
 
@@ -8,6 +10,8 @@ package Control;
 
 import java.util.*;
 
+import Objects.Database;
+import Objects.Snapshot;
 import Objects.Student;
 
 public class StudentMgmtController {
@@ -18,21 +22,9 @@ public class StudentMgmtController {
      */
 	public static boolean checkExistingStudent(String studentID) {
 		boolean success = false;
-		List<Student> list = new ArrayList<Student>();
-		Student student = new Student();
 		
 		try {
-			list = student.retrieveAllStudentObjects();
-
-			for (int i = 0; i < list.size(); i++) {
-				Student s1 = (Student) list.get(i);
-
-				if (s1.getStudentID().equals(studentID)) {
-					success = true;
-					break;
-				}
-
-			}
+			success = Database.students.contains(studentID);
 		} catch (Exception e) {
 			System.out.println("Exception >> " + e.getMessage());
 		}
@@ -46,13 +38,9 @@ public class StudentMgmtController {
      */
 	public static boolean addStudent(Student s1) {
 		boolean success = false;
-		List<Student> list = new ArrayList<Student>();
-		Student student = new Student();
 		
 		try {
-			list = student.retrieveAllStudentObjects();
-			list.add(s1);
-			student.writeSerializedObject(list);
+			Database.students.put(s1);
 
 			success = true;
 		} catch (Exception e) {
@@ -70,24 +58,17 @@ public class StudentMgmtController {
      */
 	public static boolean editStudentLoginPeriod(String studentID, Calendar start, Calendar end) {
 		boolean success = false;
-		List<Student> list = new ArrayList<Student>();
-		Student student = new Student();
 
 		try {
-			list = student.retrieveAllStudentObjects();
+			Student s1 = Database.students.get(studentID);
 
-			for (int i = 0; i < list.size(); i++) {
-				Student s1 = (Student) list.get(i);
+			if (s1 != null) {
+				s1.setStartTime(start);
+				s1.setEndTime(end);
 
-				if (s1.getStudentID().equals(studentID)) {
-					s1.setStartTime(start);
-					s1.setEndTime(end);
+				s1.updateStudentObject(s1);
 
-					s1.updateStudentObject(s1);
-
-					success = true;
-					break;
-				}
+				success = true;
 			}
 		} catch (Exception e) {
 			System.out.println("Exception >> " + e.getMessage());
@@ -104,10 +85,10 @@ public class StudentMgmtController {
         boolean success = false;
         List<Student> studList = new ArrayList<Student>();
         int studCount = 0;
-        Student student = new Student();
+        Snapshot snapshot = Database.snapshot();
  
         try {
-            studList = student.retrieveAllStudentObjects();
+            studList = snapshot.getStudentsInCourse(courseID);
  
             System.out.println("List of students in the course " + courseID + ":\n");
  
@@ -118,13 +99,8 @@ public class StudentMgmtController {
             
             for (int i = 0; i < studList.size(); i++) {
                 Student student1 = (Student) studList.get(i);
- 
-                if (student1.getCourseList() != null) {
-                    if (student1.getCourseList().contains(courseID)) {
-                        studCount++;            
-                        System.out.format("| %-21s| %-9s| %-19s|\n",student1.getName(),student1.getGender(),student1.getNationality());
-                    }
-                }
+                studCount++;            
+                System.out.format("| %-21s| %-9s| %-19s|\n",student1.getName(),student1.getGender(),student1.getNationality());
             }
             System.out.println("========================================================");
  
@@ -135,6 +111,8 @@ public class StudentMgmtController {
             }
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            snapshot.close();
         }
         return success;
     }
@@ -148,10 +126,10 @@ public class StudentMgmtController {
         boolean success = false;
         List<Student> studList = new ArrayList<Student>();
         int studCount = 0;
-        Student student = new Student();
+        Snapshot snapshot = Database.snapshot();
  
         try {
-            studList = student.retrieveAllStudentObjects();
+            studList = snapshot.getStudentsInIndexGroup(indexGrpNumber);
  
             System.out.println("List of students in the index group " + indexGrpNumber + ":");
  
@@ -162,14 +140,9 @@ public class StudentMgmtController {
             
             for (int i = 0; i < studList.size(); i++) {
                 Student student1 = (Student) studList.get(i);
- 
-                if (student1.getIndexGroupList() != null) {
-                    if (student1.getIndexGroupList().contains(indexGrpNumber)) {
-                        studCount++;
-                       
-                        System.out.format("| %-21s| %-9s| %-19s|\n",student1.getName(),student1.getGender(),student1.getNationality());               
-                    }
-                }
+                studCount++;
+               
+                System.out.format("| %-21s| %-9s| %-19s|\n",student1.getName(),student1.getGender(),student1.getNationality());               
             }
             System.out.println("========================================================");
             
@@ -180,6 +153,8 @@ public class StudentMgmtController {
             }
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            snapshot.close();
         }
         return success;
     }
@@ -192,10 +167,10 @@ public class StudentMgmtController {
         boolean success = false;
         List<Student> studList = new ArrayList<Student>();
         int studCount = 0;
-        Student student = new Student();
+        Snapshot snapshot = Database.snapshot();
  
         try {
-            studList = student.retrieveAllStudentObjects();
+            studList = snapshot.getAllStudents();
  
             System.out.println("List of students: \n");
  
@@ -220,6 +195,8 @@ public class StudentMgmtController {
             }
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            snapshot.close();
         }
         return success;
     }
@@ -0,0 +1,434 @@
+/**
+	Represents a control class for the swap marketplace, where students post the index group they have
+	and the index groups of the same course they would swap it for, without having to find a peer themselves.
+	Each course has a market of its open swap requests, kept as a graph from the index group a student has
+	to the index groups they want, with the requests of each edge in the order they were posted.
+	Every request posted is matched at once against the market: the shortest chain of requests that leads from
+	one of the index groups it wants back to the index group it has is a swap cycle, two or more students each
+	moving to the index group of the next, which leaves every index group with as many students as before.
+	Since every request is matched when it is posted, the market never holds a cycle, so only cycles through the
+	new request need to be searched for, and the search visits each index group of the course at most once.
+	A cycle is applied in one transaction while holding the locks of its students and index groups, after checking
+	again that every student still has their index group and that the index group they move to does not clash
+	with their timetable. A student who no longer has their index group has their request closed, and an index group
+	that now clashes is taken out of the request, before the search is run again.
+	The market of a course is built from swapRequests.dat the first time the course is used.
+
+	@author Lim Boon Leng
+	@version 1.0
+	@since 2017-04-18
+*/
+
+package Control;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import Objects.Course;
+import Objects.Database;
+import Objects.IndexGroup;
+import Objects.StripedLock;
+import Objects.Student;
+import Objects.SwapRequest;
+import Objects.Transaction;
+
+public class SwapController {
+	/**
+	 * The maximum number of index groups a swap request can want.
+	 */
+	public static final int MAX_NUM_OF_WANTS = 20;
+
+	/**
+	 * The markets of the courses used so far, keyed by course ID.
+	 */
+	private static final Map<String, Market> markets = new HashMap<String, Market>();
+
+	/**
+	 * Represents the open swap requests of one course.
+	 * Requests that are closed, or no longer want an index group, are left in the edges
+	 * and removed when they are next looked at.
+	 */
+	private static class Market {
+		/**
+		 * The requests of each edge, keyed by the index group they have and then by the index group they want,
+		 * oldest first.
+		 */
+		private final Map<Integer, LinkedHashMap<Integer, ArrayDeque<SwapRequest>>> edges = new HashMap<Integer, LinkedHashMap<Integer, ArrayDeque<SwapRequest>>>();
+
+		/**
+		 * Whether the open requests of the course have been read in.
+		 */
+		private boolean loaded;
+
+		/**
+		 * Adds an open request to the edges from the index group it has.
+		 * @param request The request.
+		 */
+		private void add(SwapRequest request) {
+			LinkedHashMap<Integer, ArrayDeque<SwapRequest>> wants = edges.get(request.getHaveIndexGroupID());
+
+			if (wants == null) {
+				wants = new LinkedHashMap<Integer, ArrayDeque<SwapRequest>>();
+				edges.put(request.getHaveIndexGroupID(), wants);
+			}
+			for (int i = 0; i < request.getWantIndexGroupList().size(); i++) {
+				Integer want = request.getWantIndexGroupList().get(i);
+				ArrayDeque<SwapRequest> requests = wants.get(want);
+
+				if (requests == null) {
+					requests = new ArrayDeque<SwapRequest>();
+					wants.put(want, requests);
+				}
+				requests.add(request);
+			}
+		}
+
+		/**
+		 * Gets the oldest open request that has an index group and wants another, removing the requests before it
+		 * that are closed or no longer want it.
+		 * @param have The ID of the index group the request has.
+		 * @param want The ID of the index group the request wants.
+		 * @return the request, or null if there is none.
+		 */
+		private SwapRequest head(Integer have, Integer want) {
+			LinkedHashMap<Integer, ArrayDeque<SwapRequest>> wants = edges.get(have);
+			ArrayDeque<SwapRequest> requests = wants == null ? null : wants.get(want);
+
+			if (requests == null) {
+				return null;
+			}
+			while (!requests.isEmpty()) {
+				SwapRequest request = requests.peekFirst();
+
+				if (request.isOpen() && request.getWantIndexGroupList().contains(want)) {
+					return request;
+				}
+				requests.pollFirst();
+			}
+			wants.remove(want);
+			if (wants.isEmpty()) {
+				edges.remove(have);
+			}
+			return null;
+		}
+
+		/**
+		 * Finds the shortest swap cycle through a request, breadth first from the index groups it wants,
+		 * in the order it wants them, taking the oldest request of each edge.
+		 * @param request The open request.
+		 * @return the requests of the cycle, starting with the request given, each moving to the index group
+		 * of the next, or null if there is none.
+		 */
+		private List<SwapRequest> findCycle(SwapRequest request) {
+			Map<Integer, SwapRequest> via = new HashMap<Integer, SwapRequest>();
+			ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+			Integer start = request.getHaveIndexGroupID();
+
+			for (int i = 0; i < request.getWantIndexGroupList().size(); i++) {
+				Integer want = request.getWantIndexGroupList().get(i);
+
+				if (!via.containsKey(want)) {
+					via.put(want, request);
+					queue.add(want);
+				}
+			}
+
+			while (!queue.isEmpty()) {
+				Integer have = queue.pollFirst();
+				LinkedHashMap<Integer, ArrayDeque<SwapRequest>> wants = edges.get(have);
+
+				if (wants == null) {
+					continue;
+				}
+				List<Integer> wantIDs = new ArrayList<Integer>(wants.keySet());
+
+				for (int i = 0; i < wantIDs.size(); i++) {
+					Integer want = wantIDs.get(i);
+
+					if (!want.equals(start) && via.containsKey(want)) {
+						continue;
+					}
+					SwapRequest next = head(have, want);
+					if (next == null) {
+						continue;
+					}
+					if (want.equals(start)) {
+						List<SwapRequest> cycle = new ArrayList<SwapRequest>();
+						cycle.add(next);
+						for (SwapRequest previous = via.get(have); previous != request; previous = via.get(previous.getHaveIndexGroupID())) {
+							cycle.add(previous);
+						}
+						cycle.add(request);
+						Collections.reverse(cycle);
+						return cycle;
+					}
+					via.put(want, next);
+					queue.add(want);
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	* Posts a swap request for a student, replacing the student's open request for the same course,
+	* and matches it against the open requests of the course at once
+	* @param studentID The ID of the student
+	* @param haveIndexGroupID The ID of the index group the student is registered in
+	* @param wantIndexGroupIDs The IDs of the index groups of the same course the student would swap for
+	* @return SWAP_MATCHED if the student has been swapped, SWAP_POSTED if the request is waiting, or why it cannot be posted
+	*/
+	public static RegistrationOutcome postSwapRequest(String studentID, Integer haveIndexGroupID, List<Integer> wantIndexGroupIDs) {
+		try {
+			Student student = Database.students.get(studentID);
+			ArrayList<Integer> wants = new ArrayList<Integer>();
+			RegistrationOutcome outcome = validateSwapRequest(student, haveIndexGroupID, wantIndexGroupIDs, wants);
+
+			if (outcome != RegistrationOutcome.SWAP_POSTED) {
+				return outcome;
+			}
+
+			String courseID = Database.courses.retrieveByIndexGroup(haveIndexGroupID).getCourseID();
+			Market market = getMarket(courseID);
+
+			synchronized (market) {
+				SwapRequest request = new SwapRequest(studentID, courseID, haveIndexGroupID, wants, System.currentTimeMillis(), true, null);
+				SwapRequest previous = Database.swapRequests.get(request.getKey());
+
+				if (previous != null) {
+					previous.setOpen(false);
+				}
+				Database.swapRequests.put(request);
+				market.add(request);
+				match(market, request);
+
+				return request.isOpen() ? RegistrationOutcome.SWAP_POSTED
+						: request.getSwappedIndexGroupID() != null ? RegistrationOutcome.SWAP_MATCHED : RegistrationOutcome.CLASH;
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			return RegistrationOutcome.ERROR;
+		}
+	}
+
+	/**
+	* Cancels the open swap request of a student for a course
+	* @param studentID The ID of the student
+	* @param courseID The ID of the course
+	* @return SWAP_CANCELLED, or NO_SWAP_REQUEST if the student has no open request for the course
+	*/
+	public static RegistrationOutcome cancelSwapRequest(String studentID, String courseID) {
+		try {
+			Market market = getMarket(courseID);
+
+			synchronized (market) {
+				SwapRequest request = Database.swapRequests.get(studentID + "/" + courseID);
+
+				if (request == null || !request.isOpen()) {
+					return RegistrationOutcome.NO_SWAP_REQUEST;
+				}
+				request.setOpen(false);
+				Database.swapRequests.put(request);
+				return RegistrationOutcome.SWAP_CANCELLED;
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			return RegistrationOutcome.ERROR;
+		}
+	}
+
+	/**
+	* Gets the swap requests of a student, open or not
+	* @param studentID The ID of the student
+	* @return list of the student's swap requests
+	*/
+	public static List<SwapRequest> getSwapRequests(String studentID) {
+		List<SwapRequest> all = Database.swapRequests.getAll();
+		List<SwapRequest> swapRequests = new ArrayList<SwapRequest>();
+
+		for (int i = 0; i < all.size(); i++) {
+			if (all.get(i).getStudentID().equals(studentID)) {
+				swapRequests.add(all.get(i));
+			}
+		}
+		return swapRequests;
+	}
+
+	/**
+	* Gets the market of a course, reading in its open requests in the order they were posted if it is new,
+	* which swaps any that can be swapped
+	* @param courseID The ID of the course
+	* @return the market
+	*/
+	private static Market getMarket(String courseID) {
+		Market market;
+
+		synchronized (markets) {
+			market = markets.get(courseID);
+			if (market == null) {
+				market = new Market();
+				markets.put(courseID, market);
+			}
+		}
+
+		synchronized (market) {
+			if (!market.loaded) {
+				List<SwapRequest> all = Database.swapRequests.getAll();
+				List<SwapRequest> open = new ArrayList<SwapRequest>();
+
+				for (int i = 0; i < all.size(); i++) {
+					if (all.get(i).isOpen() && all.get(i).getCourseID().equals(courseID)) {
+						open.add(all.get(i));
+					}
+				}
+				Collections.sort(open, new Comparator<SwapRequest>() {
+					public int compare(SwapRequest a, SwapRequest b) {
+						return Long.compare(a.getPostTime(), b.getPostTime());
+					}
+				});
+				market.loaded = true;
+
+				for (int i = 0; i < open.size(); i++) {
+					market.add(open.get(i));
+					match(market, open.get(i));
+				}
+			}
+		}
+		return market;
+	}
+
+	/**
+	* Swaps the students of the shortest cycle through a request until one is applied or none is left.
+	* A request of the cycle found stale is closed, and an index group that clashes is taken out of its request,
+	* so every cycle that fails leaves the market smaller. Called while holding the lock of the market
+	* @param market The market of the request's course
+	* @param request The open request just added to the market
+	*/
+	private static void match(Market market, SwapRequest request) {
+		while (request.isOpen()) {
+			List<SwapRequest> cycle = market.findCycle(request);
+
+			if (cycle == null || applyCycle(cycle) < 0) {
+				return;
+			}
+		}
+	}
+
+	/**
+	* Moves every student of a swap cycle to the index group of the next in one transaction,
+	* while holding the locks of the students and index groups, if every one of them still can.
+	* Otherwise nothing is swapped and the first request that cannot is closed or loses the index group that clashes
+	* @param cycle The requests of the cycle, each moving to the index group of the next
+	* @return -1 if the cycle has been swapped, or the position of the request that cannot be
+	*/
+	private static int applyCycle(List<SwapRequest> cycle) {
+		List<Object> keys = new ArrayList<Object>();
+		for (int i = 0; i < cycle.size(); i++) {
+			keys.add(cycle.get(i).getStudentID());
+			keys.add(cycle.get(i).getHaveIndexGroupID());
+		}
+
+		StripedLock.Held held = Database.locks.lock(keys);
+		Transaction transaction = null;
+		int failed = -1;
+
+		try {
+			for (int i = 0; i < cycle.size() && failed < 0; i++) {
+				SwapRequest request = cycle.get(i);
+				Integer target = cycle.get((i + 1) % cycle.size()).getHaveIndexGroupID();
+				Student student = Database.students.get(request.getStudentID());
+
+				if (student == null || !request.isOpen() || !student.checkCourseIndexRegistered(request.getHaveIndexGroupID())) {
+					request.setOpen(false);
+					Database.swapRequests.put(request);
+					failed = i;
+				} else if (Database.indexGroups.get(target) == null || student.getSchedule().checkScheduleClashSameCourse(target)) {
+					request.getWantIndexGroupList().remove(target);
+					if (request.getWantIndexGroupList().isEmpty()) {
+						request.setOpen(false);
+					}
+					Database.swapRequests.put(request);
+					failed = i;
+				}
+			}
+			if (failed >= 0) {
+				return failed;
+			}
+
+			transaction = Transaction.begin();
+			for (int i = 0; i < cycle.size(); i++) {
+				SwapRequest request = cycle.get(i);
+				Integer target = cycle.get((i + 1) % cycle.size()).getHaveIndexGroupID();
+				Student student = Database.students.get(request.getStudentID());
+
+				student.getIndexGroupList().remove(request.getHaveIndexGroupID());
+				student.getIndexGroupList().add(target);
+				student.getSchedule().UpdateSchedule(request.getHaveIndexGroupID(), target);
+				Database.students.put(student);
+
+				request.setOpen(false);
+				request.setSwappedIndexGroupID(target);
+				Database.swapRequests.put(request);
+			}
+			return -1;
+		} finally {
+			if (transaction != null) {
+				transaction.commit();
+			}
+			held.unlock();
+		}
+	}
+
+	/**
+	* Checks if a student can post a swap request, collecting the index groups wanted without repeats
+	* @param student The student, or null if there is none
+	* @param haveIndexGroupID The ID of the index group the student is registered in
+	* @param wantIndexGroupIDs The IDs of the index groups the student would swap for
+	* @param wants The list to add the IDs of the index groups wanted to, without repeats
+	* @return SWAP_POSTED, or why it cannot be posted
+	*/
+	private static RegistrationOutcome validateSwapRequest(Student student, Integer haveIndexGroupID, List<Integer> wantIndexGroupIDs,
+			List<Integer> wants) {
+		if (student == null) {
+			return RegistrationOutcome.NOT_FOUND;
+		}
+		if (!student.checkCourseIndexRegistered(haveIndexGroupID)) {
+			return RegistrationOutcome.NOT_REGISTERED;
+		}
+
+		Course course = Database.courses.retrieveByIndexGroup(haveIndexGroupID);
+		if (course == null || wantIndexGroupIDs == null || wantIndexGroupIDs.isEmpty()) {
+			return RegistrationOutcome.NOT_FOUND;
+		}
+
+		for (int i = 0; i < wantIndexGroupIDs.size() && wants.size() < MAX_NUM_OF_WANTS; i++) {
+			Integer want = wantIndexGroupIDs.get(i);
+			IndexGroup indexGroup = Database.indexGroups.get(want);
+			Course wantCourse = Database.courses.retrieveByIndexGroup(want);
+
+			if (want.equals(haveIndexGroupID) || wants.contains(want)) {
+				continue;
+			}
+			if (indexGroup == null || wantCourse == null) {
+				return RegistrationOutcome.NOT_FOUND;
+			}
+			if (!wantCourse.getCourseID().equals(course.getCourseID())) {
+				return RegistrationOutcome.DIFFERENT_COURSE;
+			}
+			if (student.getSchedule().checkScheduleClashSameCourse(want)) {
+				return RegistrationOutcome.CLASH;
+			}
+			wants.add(want);
+		}
+		if (wants.isEmpty()) {
+			return RegistrationOutcome.NOT_FOUND;
+		}
+		return RegistrationOutcome.SWAP_POSTED;
+	}
+}
@@ -0,0 +1,507 @@
+/**
+	Represents a control class that finds the best clash-free combinations of index groups for a list of courses,
+	so a student can pick a timetable that works before registering any course.
+	One index group is chosen for every course. An index group with vacancies scores VACANCY_BONUS plus its
+	number of vacancies, and a full index group scores minus the length of its waitlist, so plans needing
+	no waitlist come first and plans with more room come next.
+	Index groups are compared by the packed periods of their TimetableMasks, and the search skips any
+	combination that clashes, or that cannot score higher than the plans already found. The first levels of
+	the search are split across the common fork-join pool.
+
+	@author Lim Boon Leng
+	@version 1.0
+	@since 2017-04-18
+*/
+
+package Control;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import Objects.Course;
+import Objects.Database;
+import Objects.IndexGroup;
+import Objects.Student;
+import Objects.TimetableMask;
+import Objects.Waitlist;
+
+public class TimetablePlanner {
+	/**
+	 * The score of an index group with vacancies, on top of its number of vacancies.
+	 */
+	private static final long VACANCY_BONUS = 1000;
+
+	/**
+	 * The number of levels of the search split into separate tasks. Deeper levels are searched by the task itself.
+	 */
+	private static final int SPLIT_DEPTH = 2;
+
+	/**
+	 * Represents one clash-free combination of index groups, one for each course planned.
+	 */
+	public static class Plan {
+		/**
+		 * The IDs of the courses planned, in the order they were asked for.
+		 */
+		private final List<String> courseIDs;
+
+		/**
+		 * The ID of the index group chosen for each course, in the same order.
+		 */
+		private final List<Integer> indexGroupIDs;
+
+		/**
+		 * The score of this Plan.
+		 */
+		private final long score;
+
+		/**
+		 * The number of index groups chosen that have no vacancies.
+		 */
+		private final int numOfFullGroups;
+
+		/**
+		 * Creates a new Plan.
+		 * @param courseIDs The IDs of the courses planned.
+		 * @param indexGroupIDs The ID of the index group chosen for each course.
+		 * @param score The score of the Plan.
+		 * @param numOfFullGroups The number of index groups chosen that have no vacancies.
+		 */
+		Plan(List<String> courseIDs, List<Integer> indexGroupIDs, long score, int numOfFullGroups) {
+			this.courseIDs = courseIDs;
+			this.indexGroupIDs = indexGroupIDs;
+			this.score = score;
+			this.numOfFullGroups = numOfFullGroups;
+		}
+
+		/**
+		 * Gets the IDs of the courses planned, in the order they were asked for.
+		 * @return list of course IDs.
+		 */
+		public List<String> getCourseIDs() {
+			return courseIDs;
+		}
+
+		/**
+		 * Gets the ID of the index group chosen for each course, in the same order as getCourseIDs().
+		 * @return list of index group IDs.
+		 */
+		public List<Integer> getIndexGroupIDs() {
+			return indexGroupIDs;
+		}
+
+		/**
+		 * Gets the score of this Plan. Higher is better.
+		 * @return the score.
+		 */
+		public long getScore() {
+			return score;
+		}
+
+		/**
+		 * Gets the number of index groups chosen that have no vacancies, which the student would have to wait for.
+		 * @return the number of index groups.
+		 */
+		public int getNumOfFullGroups() {
+			return numOfFullGroups;
+		}
+	}
+
+	/**
+	* Finds the best clash-free plans for a list of courses, around the timetable a student already has.
+	* Courses the student is already registered in are left out of the plans
+	* @param studentID The ID of the student, or null to plan on an empty timetable
+	* @param courseIDs The IDs of the courses to plan
+	* @param maxPlans The largest number of plans to return
+	* @return the plans, best first, which is empty if no clash-free plan exists, or null if a course or the student does not exist
+	*/
+	public static List<Plan> plan(String studentID, List<String> courseIDs, int maxPlans) {
+		Student student = null;
+
+		if (studentID != null) {
+			student = Database.students.get(studentID);
+			if (student == null) {
+				return null;
+			}
+		}
+
+		List<String> plannedCourseIDs = new ArrayList<String>();
+		for (int i = 0; i < courseIDs.size(); i++) {
+			String courseID = courseIDs.get(i).trim().toUpperCase();
+			Course course = Database.courses.get(courseID);
+
+			if (course == null) {
+				return null;
+			}
+			if ((student == null || !student.getCourseList().contains(courseID)) && !plannedCourseIDs.contains(courseID)) {
+				plannedCourseIDs.add(courseID);
+			}
+		}
+
+		int numOfCourses = plannedCourseIDs.size();
+		final Candidate[][] candidatesByCourse = new Candidate[numOfCourses][];
+		for (int i = 0; i < numOfCourses; i++) {
+			candidatesByCourse[i] = findCandidates(Database.courses.get(plannedCourseIDs.get(i)), student, i);
+
+			if (candidatesByCourse[i].length == 0) {
+				return new ArrayList<Plan>();
+			}
+		}
+		if (numOfCourses == 0 || maxPlans < 1) {
+			return new ArrayList<Plan>();
+		}
+
+		// Search the courses with the fewest index groups first, so clashes cut the search early
+		Arrays.sort(candidatesByCourse, new Comparator<Candidate[]>() {
+			public int compare(Candidate[] c1, Candidate[] c2) {
+				return c1.length - c2.length;
+			}
+		});
+
+		Search search = new Search(candidatesByCourse, maxPlans);
+		ForkJoinPool.commonPool().invoke(new SearchTask(search, 0, new int[numOfCourses], new long[TimetableMask.NUM_OF_WORDS], 0));
+
+		List<int[]> choices = search.getChoices();
+		List<Plan> plans = new ArrayList<Plan>();
+		for (int i = 0; i < choices.size(); i++) {
+			int[] choice = choices.get(i);
+			Integer[] indexGroupIDs = new Integer[numOfCourses];
+			long score = 0;
+			int numOfFullGroups = 0;
+
+			for (int j = 0; j < numOfCourses; j++) {
+				Candidate candidate = candidatesByCourse[j][choice[j]];
+
+				indexGroupIDs[candidate.coursePosition] = candidate.indexGroupID;
+				score += candidate.score;
+				if (candidate.score < VACANCY_BONUS) {
+					numOfFullGroups++;
+				}
+			}
+			plans.add(new Plan(Collections.unmodifiableList(new ArrayList<String>(plannedCourseIDs)),
+					Collections.unmodifiableList(Arrays.asList(indexGroupIDs)), score, numOfFullGroups));
+		}
+		return plans;
+	}
+
+	/**
+	* Gets the index groups of a course that do not clash with the student's timetable, highest score first
+	* @param course The course
+	* @param student The student, or null
+	* @param coursePosition The position of the course in the plans
+	* @return the index groups that can be chosen
+	*/
+	private static Candidate[] findCandidates(Course course, Student student, int coursePosition) {
+		List<Candidate> candidates = new ArrayList<Candidate>();
+
+		for (int i = 0; i < course.getIndexGroupList().size(); i++) {
+			Integer indexGroupID = course.getIndexGroupList().get(i);
+			IndexGroup indexGroup = Database.indexGroups.get(indexGroupID);
+
+			if (indexGroup == null) {
+				continue;
+			}
+			if (student != null && student.getSchedule().checkScheduleClash(indexGroupID)) {
+				continue;
+			}
+
+			long score;
+			int vacancy = indexGroup.calculateVacancy();
+			if (vacancy > 0) {
+				score = VACANCY_BONUS + vacancy;
+			} else {
+				Waitlist waitlist = indexGroup.getWaitList() == null ? null : Database.waitlists.get(indexGroup.getWaitList().getWaitListID());
+				score = waitlist == null ? 0 : -waitlist.getStudentQueueList().size();
+			}
+			candidates.add(new Candidate(indexGroupID, coursePosition, indexGroup.getTimetableMask().pack(), score));
+		}
+
+		Collections.sort(candidates, new Comparator<Candidate>() {
+			public int compare(Candidate c1, Candidate c2) {
+				return Long.compare(c2.score, c1.score);
+			}
+		});
+		return candidates.toArray(new Candidate[candidates.size()]);
+	}
+
+	/**
+	 * Represents an index group that can be chosen for a course.
+	 */
+	private static class Candidate {
+		/**
+		 * The ID of the index group.
+		 */
+		final Integer indexGroupID;
+
+		/**
+		 * The position of the course of the index group in the plans.
+		 */
+		final int coursePosition;
+
+		/**
+		 * The packed periods of the lessons of the index group.
+		 */
+		final long[] words;
+
+		/**
+		 * The score of the index group.
+		 */
+		final long score;
+
+		/**
+		 * Creates a new Candidate.
+		 * @param indexGroupID The ID of the index group.
+		 * @param coursePosition The position of the course in the plans.
+		 * @param words The packed periods of the lessons.
+		 * @param score The score of the index group.
+		 */
+		Candidate(Integer indexGroupID, int coursePosition, long[] words, long score) {
+			this.indexGroupID = indexGroupID;
+			this.coursePosition = coursePosition;
+			this.words = words;
+			this.score = score;
+		}
+	}
+
+	/**
+	 * Represents one search, shared by all of its tasks, and the best plans found so far.
+	 */
+	private static class Search {
+		/**
+		 * The index groups that can be chosen for each course, in search order.
+		 */
+		final Candidate[][] candidatesByCourse;
+
+		/**
+		 * The highest score the courses from each position onwards can add.
+		 */
+		final long[] bestRemaining;
+
+		/**
+		 * The largest number of plans to keep.
+		 */
+		private final int maxPlans;
+
+		/**
+		 * The best plans found so far, the lowest score at the head, as the choice for each course followed by the score.
+		 */
+		private final PriorityQueue<long[]> best;
+
+		/**
+		 * The score a new plan must beat to be kept, once maxPlans plans have been found.
+		 */
+		private volatile long threshold = Long.MIN_VALUE;
+
+		/**
+		 * Creates a new Search.
+		 * @param candidatesByCourse The index groups that can be chosen for each course, in search order.
+		 * @param maxPlans The largest number of plans to keep.
+		 */
+		Search(Candidate[][] candidatesByCourse, int maxPlans) {
+			this.candidatesByCourse = candidatesByCourse;
+			this.maxPlans = maxPlans;
+			this.bestRemaining = new long[candidatesByCourse.length + 1];
+			for (int i = candidatesByCourse.length - 1; i >= 0; i--) {
+				bestRemaining[i] = bestRemaining[i + 1] + candidatesByCourse[i][0].score;
+			}
+
+			final int scorePosition = candidatesByCourse.length;
+			this.best = new PriorityQueue<long[]>(maxPlans + 1, new Comparator<long[]>() {
+				public int compare(long[] p1, long[] p2) {
+					return Long.compare(p1[scorePosition], p2[scorePosition]);
+				}
+			});
+		}
+
+		/**
+		 * Gets the score a plan must beat to be kept.
+		 * @return the score.
+		 */
+		long getThreshold() {
+			return threshold;
+		}
+
+		/**
+		 * Keeps a complete plan if it is among the best found so far.
+		 * @param choice The position of the index group chosen for each course.
+		 * @param score The score of the plan.
+		 */
+		synchronized void offer(int[] choice, long score) {
+			if (score <= threshold) {
+				return;
+			}
+
+			long[] plan = new long[choice.length + 1];
+			for (int i = 0; i < choice.length; i++) {
+				plan[i] = choice[i];
+			}
+			plan[choice.length] = score;
+			best.add(plan);
+
+			if (best.size() > maxPlans) {
+				best.poll();
+			}
+			if (best.size() == maxPlans) {
+				threshold = best.peek()[choice.length];
+			}
+		}
+
+		/**
+		 * Gets the best plans found, best first.
+		 * @return the position of the index group chosen for each course, for each plan.
+		 */
+		synchronized List<int[]> getChoices() {
+			List<long[]> plans = new ArrayList<long[]>(best);
+			final int scorePosition = candidatesByCourse.length;
+
+			Collections.sort(plans, new Comparator<long[]>() {
+				public int compare(long[] p1, long[] p2) {
+					return Long.compare(p2[scorePosition], p1[scorePosition]);
+				}
+			});
+
+			List<int[]> choices = new ArrayList<int[]>();
+			for (int i = 0; i < plans.size(); i++) {
+				int[] choice = new int[scorePosition];
+				for (int j = 0; j < scorePosition; j++) {
+					choice[j] = (int) plans.get(i)[j];
+				}
+				choices.add(choice);
+			}
+			return choices;
+		}
+	}
+
+	/**
+	 * Represents the search of every plan that starts with the index groups already chosen.
+	 */
+	private static class SearchTask extends RecursiveAction {
+		/**
+		 * The ID to serialize data
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The search this task is part of.
+		 */
+		private final Search search;
+
+		/**
+		 * The position of the next course to choose an index group for.
+		 */
+		private final int depth;
+
+		/**
+		 * The position of the index group chosen for each course before depth.
+		 */
+		private final int[] choice;
+
+		/**
+		 * The packed periods taken by the index groups chosen.
+		 */
+		private final long[] taken;
+
+		/**
+		 * The score of the index groups chosen.
+		 */
+		private final long score;
+
+		/**
+		 * Creates a new SearchTask.
+		 * @param search The search this task is part of.
+		 * @param depth The position of the next course.
+		 * @param choice The index groups chosen so far, which the task keeps as its own.
+		 * @param taken The periods taken so far, which the task keeps as its own.
+		 * @param score The score so far.
+		 */
+		SearchTask(Search search, int depth, int[] choice, long[] taken, long score) {
+			this.search = search;
+			this.depth = depth;
+			this.choice = choice;
+			this.taken = taken;
+			this.score = score;
+		}
+
+		protected void compute() {
+			if (depth >= SPLIT_DEPTH || depth >= search.candidatesByCourse.length - 1) {
+				searchFrom(depth, score);
+				return;
+			}
+
+			Candidate[] candidates = search.candidatesByCourse[depth];
+			List<SearchTask> tasks = new ArrayList<SearchTask>();
+
+			for (int i = 0; i < candidates.length; i++) {
+				if (score + candidates[i].score + search.bestRemaining[depth + 1] <= search.getThreshold()) {
+					break;
+				}
+				if (clashes(candidates[i].words, taken)) {
+					continue;
+				}
+
+				int[] nextChoice = choice.clone();
+				long[] nextTaken = taken.clone();
+				nextChoice[depth] = i;
+				for (int j = 0; j < nextTaken.length; j++) {
+					nextTaken[j] |= candidates[i].words[j];
+				}
+				tasks.add(new SearchTask(search, depth + 1, nextChoice, nextTaken, score + candidates[i].score));
+			}
+			invokeAll(tasks);
+		}
+
+		/**
+		 * Tries every index group of the course at the given position and the courses after it, depth first.
+		 * The index groups of each course are tried highest score first, so the rest of a course is skipped
+		 * as soon as the plan can no longer beat the plans already found.
+		 * @param position The position of the course.
+		 * @param scoreSoFar The score of the index groups chosen before the position.
+		 */
+		private void searchFrom(int position, long scoreSoFar) {
+			if (position == search.candidatesByCourse.length) {
+				search.offer(choice, scoreSoFar);
+				return;
+			}
+
+			Candidate[] candidates = search.candidatesByCourse[position];
+			for (int i = 0; i < candidates.length; i++) {
+				if (scoreSoFar + candidates[i].score + search.bestRemaining[position + 1] <= search.getThreshold()) {
+					return;
+				}
+				if (clashes(candidates[i].words, taken)) {
+					continue;
+				}
+
+				choice[position] = i;
+				for (int j = 0; j < taken.length; j++) {
+					taken[j] |= candidates[i].words[j];
+				}
+				searchFrom(position + 1, scoreSoFar + candidates[i].score);
+				for (int j = 0; j < taken.length; j++) {
+					taken[j] &= ~candidates[i].words[j];
+				}
+			}
+		}
+
+		/**
+		 * Checks if the periods of an index group are already taken.
+		 * @param words The packed periods of the index group.
+		 * @param taken The packed periods taken.
+		 * @return boolean (true / false)
+		 */
+		private static boolean clashes(long[] words, long[] taken) {
+			for (int i = 0; i < words.length; i++) {
+				if ((words[i] & taken[i]) != 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,361 @@
+/**
+	Represents a control class that pushes the vacancies of index groups to the sessions watching them,
+	so students waiting for a seat no longer have to check the vacancies over and over.
+	A session watches a set of index groups and is pushed a VacancyEvent whenever the number of students
+	registered in one of them, or the length of its waitlist, has changed.
+	Changes are taken from every Transaction committed. The first change to a watched index group starts a window
+	of -Dstars.vacancyWindow milliseconds (default 500), and the vacancies are read from a Snapshot once the window
+	has passed, so however often an index group changes, its watchers are pushed at most one event per window,
+	and none if it has changed back to the vacancies last pushed.
+	Each session is pushed its events by a thread of its own, which holds the newest event of each index group
+	not pushed yet. On the server, the listener of a session prints to the PrintStream of that session only,
+	the same one its menus print to, so a session that stops reading only ever holds up itself and its own thread.
+
+	@author Lim Boon Leng
+	@version 1.2
+	@since 2017-04-18
+*/
+
+package Control;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import Interface.CommitListener;
+import Interface.VacancyListener;
+import Objects.Database;
+import Objects.IndexGroup;
+import Objects.Snapshot;
+import Objects.VacancyEvent;
+import Objects.Waitlist;
+
+public class VacancyFeedController {
+	/**
+	 * The time changes to an index group are gathered for before its watchers are pushed, in milliseconds.
+	 */
+	private static final long COALESCE_WINDOW = Long.parseLong(System.getProperty("stars.vacancyWindow", "500"));
+
+	/**
+	 * The maximum number of index groups a session can watch.
+	 */
+	public static final int MAX_NUM_OF_INDEX_GROUPS = 20;
+
+	/**
+	 * The watch of each session, keyed by the ID of the user.
+	 */
+	private static final Map<String, Watch> watches = new ConcurrentHashMap<String, Watch>();
+
+	/**
+	 * The watches of each index group, keyed by index group ID.
+	 */
+	private static final Map<Integer, Set<Watch>> watchesByIndexGroup = new ConcurrentHashMap<Integer, Set<Watch>>();
+
+	/**
+	 * The watched index groups that have changed and are waiting for their window to pass.
+	 */
+	private static final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The vacancies last pushed for each watched index group, keyed by index group ID.
+	 */
+	private static final Map<Integer, VacancyEvent> lastEvents = new ConcurrentHashMap<Integer, VacancyEvent>();
+
+	/**
+	 * The thread that reads the vacancies once a window has passed, and hands them to the watches.
+	 */
+	private static ScheduledExecutorService pusher;
+
+	/**
+	 * Represents the index groups one session watches.
+	 */
+	private static class Watch {
+		/**
+		 * The ID of the user of the session.
+		 */
+		final String userID;
+
+		/**
+		 * The IDs of the index groups watched.
+		 */
+		final List<Integer> indexGroupIDs;
+
+		/**
+		 * The listener of the session that events are pushed to.
+		 */
+		final VacancyListener listener;
+
+		/**
+		 * The events not pushed yet, the newest of each index group, in the order the index groups changed.
+		 */
+		private final LinkedHashMap<Integer, VacancyEvent> queued = new LinkedHashMap<Integer, VacancyEvent>();
+
+		/**
+		 * Whether the watch has been stopped.
+		 */
+		private boolean stopped;
+
+		/**
+		 * Creates a new Watch.
+		 * @param userID The ID of the user of the session.
+		 * @param indexGroupIDs The IDs of the index groups watched.
+		 * @param listener The listener of the session.
+		 */
+		Watch(String userID, List<Integer> indexGroupIDs, VacancyListener listener) {
+			this.userID = userID;
+			this.indexGroupIDs = indexGroupIDs;
+			this.listener = listener;
+		}
+
+		/**
+		 * Queues an event to be pushed, replacing the event of the same index group not pushed yet.
+		 * @param event The event.
+		 */
+		synchronized void offer(VacancyEvent event) {
+			if (!stopped) {
+				queued.remove(event.getIndexGroupID());
+				queued.put(event.getIndexGroupID(), event);
+				notifyAll();
+			}
+		}
+
+		/**
+		 * Waits for the next event to push.
+		 * @return the event, or null once the watch has been stopped.
+		 * @throws InterruptedException if the thread is interrupted while waiting.
+		 */
+		synchronized VacancyEvent take() throws InterruptedException {
+			while (queued.isEmpty() && !stopped) {
+				wait();
+			}
+			if (stopped) {
+				return null;
+			}
+
+			Iterator<VacancyEvent> it = queued.values().iterator();
+			VacancyEvent event = it.next();
+			it.remove();
+			return event;
+		}
+
+		/**
+		 * Stops the watch, dropping the events not pushed yet.
+		 */
+		synchronized void stop() {
+			stopped = true;
+			queued.clear();
+			notifyAll();
+		}
+	}
+
+	/**
+	* Watches a set of index groups for a session, replacing the index groups it watched before.
+	* The listener is pushed the vacancies of every index group at once, then whenever they change,
+	* from a thread started for the watch
+	* @param userID The ID of the user of the session
+	* @param indexGroupIDs The IDs of the index groups to watch
+	* @param listener The listener of the session
+	* @return the number of index groups watched, leaving out those that do not exist
+	*/
+	public static synchronized int watch(String userID, List<Integer> indexGroupIDs, VacancyListener listener) {
+		List<Integer> watched = new ArrayList<Integer>();
+		List<VacancyEvent> events = new ArrayList<VacancyEvent>();
+
+		start();
+		unwatch(userID);
+
+		Snapshot snapshot = Database.snapshot();
+		try {
+			for (int i = 0; i < indexGroupIDs.size() && watched.size() < MAX_NUM_OF_INDEX_GROUPS; i++) {
+				VacancyEvent event = VacancyEvent.read(snapshot, indexGroupIDs.get(i));
+
+				if (event != null && !watched.contains(indexGroupIDs.get(i))) {
+					watched.add(indexGroupIDs.get(i));
+					events.add(event);
+					if (!lastEvents.containsKey(event.getIndexGroupID())) {
+						lastEvents.put(event.getIndexGroupID(), event);
+					}
+				}
+			}
+		} finally {
+			snapshot.close();
+		}
+		if (watched.isEmpty()) {
+			return 0;
+		}
+
+		final Watch watch = new Watch(userID, watched, listener);
+		watches.put(userID, watch);
+		for (int i = 0; i < watched.size(); i++) {
+			Set<Watch> indexGroupWatches = watchesByIndexGroup.get(watched.get(i));
+
+			if (indexGroupWatches == null) {
+				indexGroupWatches = new CopyOnWriteArraySet<Watch>();
+				watchesByIndexGroup.put(watched.get(i), indexGroupWatches);
+			}
+			indexGroupWatches.add(watch);
+		}
+
+		for (int i = 0; i < events.size(); i++) {
+			watch.offer(events.get(i));
+		}
+
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				push(watch);
+			}
+		}, "vacancy-watch-" + userID);
+		thread.setDaemon(true);
+		thread.start();
+		return watched.size();
+	}
+
+	/**
+	* Stops the watch of a session. Does nothing if it watches nothing
+	* @param userID The ID of the user of the session
+	*/
+	public static synchronized void unwatch(String userID) {
+		Watch watch = watches.remove(userID);
+
+		if (watch == null) {
+			return;
+		}
+		watch.stop();
+		for (int i = 0; i < watch.indexGroupIDs.size(); i++) {
+			Integer indexGroupID = watch.indexGroupIDs.get(i);
+			Set<Watch> indexGroupWatches = watchesByIndexGroup.get(indexGroupID);
+
+			if (indexGroupWatches != null) {
+				indexGroupWatches.remove(watch);
+				if (indexGroupWatches.isEmpty()) {
+					watchesByIndexGroup.remove(indexGroupID);
+					lastEvents.remove(indexGroupID);
+				}
+			}
+		}
+	}
+
+	/**
+	* Gets the IDs of the index groups a session watches
+	* @param userID The ID of the user of the session
+	* @return list of index group IDs, empty if it watches nothing
+	*/
+	public static List<Integer> getWatched(String userID) {
+		Watch watch = watches.get(userID);
+		return watch == null ? new ArrayList<Integer>() : new ArrayList<Integer>(watch.indexGroupIDs);
+	}
+
+	/**
+	* Starts the thread that pushes the vacancies, and listens to every Transaction committed.
+	* Does nothing if it has already been started
+	*/
+	private static synchronized void start() {
+		if (pusher != null) {
+			return;
+		}
+
+		pusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "vacancy-pusher");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		Database.addCommitListener(new CommitListener() {
+			public void committed(long version, List<Object> records) {
+				changed(records);
+			}
+		});
+	}
+
+	/**
+	* Starts the window of each watched index group changed by a Transaction, unless it has already started
+	* @param records The records changed by the Transaction
+	*/
+	private static void changed(List<Object> records) {
+		for (int i = 0; i < records.size(); i++) {
+			Integer indexGroupID = null;
+
+			if (records.get(i) instanceof IndexGroup) {
+				indexGroupID = ((IndexGroup) records.get(i)).getIndexGroupID();
+			} else if (records.get(i) instanceof Waitlist) {
+				indexGroupID = ((Waitlist) records.get(i)).getIndexGroupNumber();
+			}
+
+			if (indexGroupID != null && watchesByIndexGroup.containsKey(indexGroupID) && pending.add(indexGroupID)) {
+				final Integer changedID = indexGroupID;
+
+				pusher.schedule(new Runnable() {
+					public void run() {
+						flush(changedID);
+					}
+				}, COALESCE_WINDOW, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	* Reads the vacancies of an index group once its window has passed, and queues them for its watchers
+	* if they are not the vacancies last pushed
+	* @param indexGroupID The ID of the index group
+	*/
+	private static void flush(Integer indexGroupID) {
+		VacancyEvent event;
+
+		pending.remove(indexGroupID);
+		Snapshot snapshot = Database.snapshot();
+		try {
+			event = VacancyEvent.read(snapshot, indexGroupID);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return;
+		} finally {
+			snapshot.close();
+		}
+
+		Set<Watch> indexGroupWatches = watchesByIndexGroup.get(indexGroupID);
+		if (event == null || indexGroupWatches == null || event.sameVacancies(lastEvents.get(indexGroupID))) {
+			return;
+		}
+		lastEvents.put(indexGroupID, event);
+
+		Iterator<Watch> it = indexGroupWatches.iterator();
+		while (it.hasNext()) {
+			it.next().offer(event);
+		}
+	}
+
+	/**
+	* Pushes the events queued for a session until its watch is stopped,
+	* stopping the watch if the session can no longer be reached
+	* @param watch The watch of the session
+	*/
+	private static void push(Watch watch) {
+		try {
+			VacancyEvent event = watch.take();
+
+			while (event != null) {
+				watch.listener.vacancyChanged(event);
+				event = watch.take();
+			}
+		} catch (IOException e) {
+			synchronized (VacancyFeedController.class) {
+				if (watches.get(watch.userID) == watch) {
+					unwatch(watch.userID);
+				}
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,20 @@
+/**
+ * Represents an interface for classes to be told about every Transaction committed.
+ * @author Lim Boon Leng
+ * @version 1.0
+ * @since 2017-04-18
+*/
+
+package Interface;
+
+import java.util.List;
+
+public interface CommitListener {
+	/**
+	* Called once a Transaction has been committed and its version published to snapshots.
+	* Called while the journal is locked, so it must return quickly and must not change any record.
+	* @param version The version of the Transaction
+	* @param records The records changed by the Transaction, which must not be changed
+	*/
+	public abstract void committed(long version, List<Object> records);
+}
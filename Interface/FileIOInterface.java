@@ -20,7 +20,8 @@ public interface FileIOInterface {
 	/**
 	* Writes data to the database file
 	* @param list The list of objects to write
+	* @return write success failure boolean.
 	*/
 	@SuppressWarnings("rawtypes")
-	public abstract void writeSerializedObject(List list);
+	public abstract boolean writeSerializedObject(List list);
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+/**
+ * Represents an interface for sessions to implement to be pushed the vacancies of the index groups they watch.
+ * @author Lim Boon Leng
+ * @version 1.0
+ * @since 2017-04-18
+*/
+
+package Interface;
+
+import java.io.IOException;
+
+import Objects.VacancyEvent;
+
+public interface VacancyListener {
+	/**
+	* Called when the number of students or the length of the waitlist of a watched index group has changed
+	* @param event The vacancies of the index group
+	* @throws IOException if the session can no longer be reached, which stops the watch
+	*/
+	public abstract void vacancyChanged(VacancyEvent event) throws IOException;
+}
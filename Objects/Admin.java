@@ -2,19 +2,13 @@
  * Represents a entity class for the admin
  * An admin can login to manage courses and students
  * @author Lim Boon Leng
- * @version 1.0
+ * @version 1.1
  * @since 2017-04-06
 */
 
 package Objects;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.List;
 
 import Interface.FileIOInterface;
@@ -52,31 +46,17 @@ public class Admin implements Serializable, LoginInterface, FileIOInterface{
 	
 	/**
 	* Admin login method
-	* Compares adminID and passwordHash with database data
+	* Compares adminID and passwordHash with Database.adminCredentials, loading the databases first if they are not loaded yet
 	* @param adminID This Admin's adminID
 	* @param passwordHash This Admin's passwordHash
 	* @return login success failure boolean.
 	*/
-	@SuppressWarnings("unchecked")
 	public boolean login(String adminID, String passwordHash) {
 		boolean success = false;
-		List<Admin> adminUsersList = new ArrayList<Admin>();
 
 		try {
-			adminUsersList = readSerializedObject();
-			
-			for(int i = 0; i < adminUsersList.size(); i++) {
-				Admin admin1 = (Admin)adminUsersList.get(i);
-								
-				if (admin1 != null) {
-					if (admin1.getAdminID().equals(adminID)) {
-						if (admin1.getPasswordHash().equals(passwordHash)) {
-							success = true;
-						}
-					} 
-				}
-			}
-
+			Database.ensureLoaded();
+			success = Database.adminCredentials.check(adminID, passwordHash);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -123,37 +103,17 @@ public class Admin implements Serializable, LoginInterface, FileIOInterface{
 	*/
 	@SuppressWarnings("rawtypes")
 	public List readSerializedObject() {
-		List pDetails = null;
-		FileInputStream fis = null;
-		ObjectInputStream in = null;
-		try {
-			fis = new FileInputStream(System.getProperty("user.dir") + "\\Databases\\admins.dat");
-			in = new ObjectInputStream(fis);
-			pDetails = (ArrayList)in.readObject();
-			in.close();
-		} catch (IOException ex) {
-			ex.printStackTrace();
-		} catch (ClassNotFoundException ex) {
-			ex.printStackTrace();
-		}
-		return pDetails;
+		return RecordFile.read(System.getProperty("user.dir") + "\\Databases\\admins.dat", RecordCodec.ADMIN);
 	}
 
 	/**
-	* Writes data to the database file
+	* Writes data to the database file in the binary format of RecordCodec,
+	* through a temporary file, so a crash leaves either the old or the new database file.
 	* @param list The list of objects to write
+	* @return write success failure boolean.
 	*/
 	@SuppressWarnings("rawtypes")
-	public void writeSerializedObject(List list) {
-		FileOutputStream fos = null;
-		ObjectOutputStream out = null;
-		try {
-			fos = new FileOutputStream(System.getProperty("user.dir") + "\\Databases\\admins.dat");
-			out = new ObjectOutputStream(fos);
-			out.writeObject(list);
-			out.close();
-		} catch (IOException ex) {
-			ex.printStackTrace();
-		}
+	public boolean writeSerializedObject(List list) {
+		return RecordFile.write(System.getProperty("user.dir") + "\\Databases\\admins.dat", RecordCodec.ADMIN, list);
 	}
 }
@@ -0,0 +1,108 @@
+/**
+ * Represents the ballot of a student, the index groups the student wants ranked from most to least wanted.
+ * A student has at most one ballot, submitted during the ballot window and replaced if submitted again.
+ * The index groups may be of several courses, and the student is given at most one index group of each course.
+ * @author Lim Boon Leng
+ * @version 1.0
+ * @since 2017-04-18
+ */
+
+package Objects;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import Interface.FileIOInterface;
+
+public class Ballot implements Serializable, FileIOInterface {
+	/**
+	 * The ID to serialize data
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The ID of the student who submitted this Ballot.
+	 */
+	private String studentID;
+
+	/**
+	 * The IDs of the index groups wanted, most wanted first.
+	 */
+	private ArrayList<Integer> indexGroupList;
+
+	/**
+	 * Whether this Ballot has been allocated by a ballot run.
+	 */
+	private boolean allocated;
+
+	/**
+	 * Creates a new Ballot with no attribute values
+	 */
+	public Ballot() {
+	}
+
+	/**
+	 * Creates a new Ballot with the given attribute values
+	 * @param studentID The ID of the student who submitted this Ballot
+	 * @param indexGroupList The IDs of the index groups wanted, most wanted first
+	 * @param allocated Whether this Ballot has been allocated by a ballot run
+	 */
+	public Ballot(String studentID, ArrayList<Integer> indexGroupList, boolean allocated) {
+		this.studentID = studentID;
+		this.indexGroupList = indexGroupList;
+		this.allocated = allocated;
+	}
+
+	/**
+	* Gets the ID of the student who submitted this Ballot.
+	* @return the student ID.
+	*/
+	public String getStudentID() {
+		return studentID;
+	}
+
+	/**
+	* Gets the IDs of the index groups wanted, most wanted first.
+	* @return the index group IDs.
+	*/
+	public ArrayList<Integer> getIndexGroupList() {
+		return indexGroupList;
+	}
+
+	/**
+	* Checks if this Ballot has been allocated by a ballot run.
+	* @return boolean (true / false)
+	*/
+	public boolean isAllocated() {
+		return allocated;
+	}
+
+	/**
+	* Changes whether this Ballot has been allocated by a ballot run.
+	* @param allocated Whether this Ballot has been allocated.
+	*/
+	public void setAllocated(boolean allocated) {
+		this.allocated = allocated;
+	}
+
+	/**
+	* Reads the data from the database file
+	* @return list of objects in the database file.
+	*/
+	@SuppressWarnings("rawtypes")
+	public List readSerializedObject() {
+		return RecordFile.read(System.getProperty("user.dir") + "\\Databases\\ballots.dat", RecordCodec.BALLOT);
+	}
+
+	/**
+	* Writes data to the database file in the binary format of RecordCodec,
+	* through a temporary file, so a crash leaves either the old or the new database file.
+	* @param list The list of objects to write
+	* @return write success failure boolean.
+	*/
+	@SuppressWarnings("rawtypes")
+	public boolean writeSerializedObject(List list) {
+		return RecordFile.write(System.getProperty("user.dir") + "\\Databases\\ballots.dat", RecordCodec.BALLOT, list);
+	}
+}
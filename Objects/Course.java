@@ -7,11 +7,6 @@
 
 package Objects;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -218,22 +213,8 @@ public class Course implements Serializable, FileIOInterface{
 	 * Retrieves all Courses in the text file that stores all Courses.
 	 * @return List of Courses
 	 */
-	@SuppressWarnings("unchecked")
 	public List<Course> retrieveAllCourseObjects(){
-		List<Course> listOfCourses = new ArrayList<Course>();
-		
-		try{
-			listOfCourses = readSerializedObject();
-			
-			if(listOfCourses == null){
-				System.out.println("Unable to read from file!");
-				throw new Exception();
-			}
-		}
-		catch (Exception e) {
-			e.printStackTrace();
-		}
-		return listOfCourses;
+		return Database.courses.getAll();
 	}
 
 	/**
@@ -243,19 +224,9 @@ public class Course implements Serializable, FileIOInterface{
 	 */
 	public Course retrieveCourseObject(String courseID){
 		Course returnedCourse = null;
-		Course course = new Course();
 		
 		try{		
-			List<Course> listOfCourses = course.retrieveAllCourseObjects();
-			
-			for (int i = 0; i < listOfCourses.size(); i++){
-				
-				if(listOfCourses.get(i).getCourseID().equals(courseID))
-				{
-					returnedCourse = (Course) listOfCourses.get(i);
-					break;
-				}
-			}
+			returnedCourse = Database.courses.get(courseID);
 		}
 		catch (Exception e) {
 			e.printStackTrace();
@@ -269,30 +240,10 @@ public class Course implements Serializable, FileIOInterface{
 	 * @return specified Course.
 	 */
 	public Course retrieveCourseObjectByIndexGroup(Integer indexGroupID){
-		List<Course> listOfCourses = new ArrayList<Course>();
-		List<Integer> currentListOfIndexGroupToCheck= new ArrayList<Integer>();
 		Course returnedCourse = null;
-		Course course = new Course();
 		
 		try{
-			listOfCourses = course.retrieveAllCourseObjects();
-			
-			for(int i = 0; i < listOfCourses.size(); i++){
-				
-				currentListOfIndexGroupToCheck = listOfCourses.get(i).getIndexGroupList();
-				
-				for(int j = 0; j < currentListOfIndexGroupToCheck.size(); j++){
-					
-					if(currentListOfIndexGroupToCheck.get(j).equals(indexGroupID)){
-						returnedCourse = listOfCourses.get(i);
-						break;
-					}
-				}
-				
-				if(returnedCourse != null){
-					break;
-				}
-			}
+			returnedCourse = Database.courses.retrieveByIndexGroup(indexGroupID);
 		}
 		catch (Exception e) {
 			e.printStackTrace();
@@ -307,26 +258,11 @@ public class Course implements Serializable, FileIOInterface{
 	 */
 	public Course retrieveCourseObjectByWaitList(Integer waitListID){
 		Course returnedCourse = null;
-		ArrayList<Integer> indexGroupsToCheck = new ArrayList<Integer>();
-		Course course = new Course();
 		IndexGroup indexGroup = new IndexGroup();
 
 		try{
-			List<Course> listOfCourses = course.retrieveAllCourseObjects();
 			IndexGroup indexGroupObjectOfWaitlist = indexGroup.retrieveIndexGroupObjectByWaitList(waitListID);
-		 
-			for(int i = 0; i < listOfCourses.size(); i++){
-				indexGroupsToCheck = listOfCourses.get(i).getIndexGroupList();
-				for(int j = 0; j < indexGroupsToCheck.size(); j++){
-					if(indexGroupsToCheck.get(j).equals(indexGroupObjectOfWaitlist.getIndexGroupID())){
-						returnedCourse = listOfCourses.get(i);
-						break;
-					}
-				}
-				if(returnedCourse != null){
-					break;
-				}
-			}
+			returnedCourse = Database.courses.retrieveByIndexGroup(indexGroupObjectOfWaitlist.getIndexGroupID());
 		}
 		catch (Exception e) {
 			e.printStackTrace();
@@ -349,20 +285,8 @@ public class Course implements Serializable, FileIOInterface{
 	 * @param courseToUpdate The Course object to update.
 	 */
 	public void updateCourseObject(Course courseToUpdate){
-		Course course = new Course();
-		
 		try{
-			List<Course> listOfCourses = course.retrieveAllCourseObjects();
-			
-			for (int i = 0; i < listOfCourses.size(); i++){
-				if(listOfCourses.get(i).getCourseID().equals(courseToUpdate.getCourseID()))
-				{
-					listOfCourses.set(i, courseToUpdate);
-					break;
-				}
-			}
-			
-			writeSerializedObject(listOfCourses);
+			Database.courses.put(courseToUpdate);
 		}
 		catch (Exception e) {
 			e.printStackTrace();
@@ -375,37 +299,17 @@ public class Course implements Serializable, FileIOInterface{
 	*/
 	@SuppressWarnings("rawtypes")
 	public List readSerializedObject() {
-		List pDetails = null;
-		FileInputStream fis = null;
-		ObjectInputStream in = null;
-		try {
-			fis = new FileInputStream(System.getProperty("user.dir") + "\\Databases\\courses.dat");
-			in = new ObjectInputStream(fis);
-			pDetails = (ArrayList)in.readObject();
-			in.close();
-		} catch (IOException ex) {
-			ex.printStackTrace();
-		} catch (ClassNotFoundException ex) {
-			ex.printStackTrace();
-		}
-		return pDetails;
+		return RecordFile.read(System.getProperty("user.dir") + "\\Databases\\courses.dat", RecordCodec.COURSE);
 	}
 
 	/**
-	* Writes data to the database file
+	* Writes data to the database file in the binary format of RecordCodec,
+	* through a temporary file, so a crash leaves either the old or the new database file.
 	* @param list The list of objects to write
+	* @return write success failure boolean.
 	*/
 	@SuppressWarnings("rawtypes")
-	public void writeSerializedObject(List list) {
-		FileOutputStream fos = null;
-		ObjectOutputStream out = null;
-		try {
-			fos = new FileOutputStream(System.getProperty("user.dir") + "\\Databases\\courses.dat");
-			out = new ObjectOutputStream(fos);
-			out.writeObject(list);
-			out.close();
-		} catch (IOException ex) {
-			ex.printStackTrace();
-		}
+	public boolean writeSerializedObject(List list) {
+		return RecordFile.write(System.getProperty("user.dir") + "\\Databases\\courses.dat", RecordCodec.COURSE, list);
 	}
 }
\ No newline at end of file
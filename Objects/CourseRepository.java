@@ -0,0 +1,104 @@
+/**
+ * Represents the in-memory copy of courses.dat.
+ * Keeps a reverse index from index group ID to the Course that owns the index group.
+ * @author Heng Ze Hao
+ * @version 1.0
+ * @since 2017-04-14
+ */
+
+package Objects;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class CourseRepository extends Repository<String, Course> {
+	/**
+	 * The Course that owns each index group, keyed by index group ID.
+	 */
+	private Map<Integer, Course> coursesByIndexGroup = new HashMap<Integer, Course>();
+
+	/**
+	 * The index group IDs each Course was last indexed with, keyed by course ID.
+	 * Kept as a copy because a Course's indexGroupList can be changed in place before it is put.
+	 */
+	private Map<String, ArrayList<Integer>> indexedGroups = new HashMap<String, ArrayList<Integer>>();
+
+	/**
+	 * Creates a new CourseRepository backed by courses.dat.
+	 */
+	public CourseRepository() {
+		super(new Course(), "courses");
+	}
+
+	protected String getKey(Course record) {
+		return record.getCourseID();
+	}
+
+	protected void clearIndexes() {
+		coursesByIndexGroup.clear();
+		indexedGroups.clear();
+	}
+
+	protected void indexRecord(Course record) {
+		ArrayList<Integer> oldGroups = indexedGroups.remove(record.getCourseID());
+		ArrayList<Integer> newGroups = new ArrayList<Integer>();
+
+		if (record.getIndexGroupList() != null) {
+			newGroups.addAll(record.getIndexGroupList());
+		}
+		indexedGroups.put(record.getCourseID(), newGroups);
+
+		if (oldGroups != null) {
+			for (int i = 0; i < oldGroups.size(); i++) {
+				Course owner = coursesByIndexGroup.get(oldGroups.get(i));
+
+				if (owner != null && owner.getCourseID().equals(record.getCourseID())) {
+					coursesByIndexGroup.remove(oldGroups.get(i));
+					if (!newGroups.contains(oldGroups.get(i))) {
+						reassignIndexGroup(oldGroups.get(i));
+					}
+				}
+			}
+		}
+
+		for (int i = 0; i < newGroups.size(); i++) {
+			Course owner = coursesByIndexGroup.get(newGroups.get(i));
+
+			if (owner == null || owner.getCourseID().equals(record.getCourseID())) {
+				coursesByIndexGroup.put(newGroups.get(i), record);
+			}
+		}
+	}
+
+	/**
+	 * Gives an index group that lost its owner to the first other Course that still lists it,
+	 * the same Course a scan of courses.dat would find.
+	 * @param indexGroupID The ID of the index group.
+	 */
+	private void reassignIndexGroup(Integer indexGroupID) {
+		Iterator<Course> it = records().values().iterator();
+
+		while (it.hasNext()) {
+			Course course = it.next();
+			List<Integer> groups = indexedGroups.get(course.getCourseID());
+
+			if (groups != null && groups.contains(indexGroupID)) {
+				coursesByIndexGroup.put(indexGroupID, course);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the Course that owns the given index group.
+	 * @param indexGroupID The ID of the index group.
+	 * @return the Course, or null if no Course has the index group.
+	 */
+	public synchronized Course retrieveByIndexGroup(Integer indexGroupID) {
+		records();
+		return coursesByIndexGroup.get(indexGroupID);
+	}
+}
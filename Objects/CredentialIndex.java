@@ -0,0 +1,73 @@
+/**
+ * Represents the password hashes of one kind of user, kept in memory and keyed by user ID,
+ * so a login or a password check is a single hash lookup.
+ * The index is filled by the repository of the users whenever a user is loaded or put,
+ * so checking a password again, such as the peer's password in a swap, does not read the database.
+ * @author Lim Boon Leng
+ * @version 1.0
+ * @since 2017-04-18
+ */
+
+package Objects;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class CredentialIndex {
+	/**
+	 * The password hash of every user indexed, keyed by user ID.
+	 */
+	private final Map<String, String> passwordHashes = new ConcurrentHashMap<String, String>();
+
+	/**
+	 * Adds or replaces the password hash of a user.
+	 * @param userID The ID of the user.
+	 * @param passwordHash The hash of the user's password, or null to remove the user.
+	 */
+	public void put(String userID, String passwordHash) {
+		if (userID == null) {
+			return;
+		}
+		if (passwordHash == null) {
+			passwordHashes.remove(userID);
+		} else {
+			passwordHashes.put(userID, passwordHash);
+		}
+	}
+
+	/**
+	 * Removes every user from the index.
+	 */
+	public void clear() {
+		passwordHashes.clear();
+	}
+
+	/**
+	 * Checks if a user is in the index.
+	 * @param userID The ID of the user.
+	 * @return boolean (true / false)
+	 */
+	public boolean contains(String userID) {
+		return userID != null && passwordHashes.containsKey(userID);
+	}
+
+	/**
+	 * Checks a password hash against the index, taking the same time wherever the hashes differ.
+	 * @param userID The ID of the user.
+	 * @param passwordHash The hash of the password entered.
+	 * @return boolean (true if the user is indexed with this hash / false otherwise)
+	 */
+	public boolean check(String userID, String passwordHash) {
+		if (userID == null || passwordHash == null) {
+			return false;
+		}
+
+		String expected = passwordHashes.get(userID);
+		if (expected == null) {
+			return false;
+		}
+		return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), passwordHash.getBytes(StandardCharsets.UTF_8));
+	}
+}
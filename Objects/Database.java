@@ -0,0 +1,424 @@
+/**
+ * Represents the in-memory databases of the program.
+ * Each database file is loaded once into a Repository and shared by every lookup.
+ * Every Transaction committed is numbered with a new version, and snapshot() gives a Snapshot
+ * of the records as of the last version committed, for readers that must not wait for writers.
+ * Classes that must react to changes, such as the vacancy feed, are told of every version committed
+ * through a CommitListener.
+ * The journal is compacted at a commit boundary: it is rotated while holding LOCK, and each record is then
+ * written to the database files as of a Snapshot of that boundary, while transactions go on committing to the new journal.
+ * @author Lim Boon Leng
+ * @version 1.3
+ * @since 2017-04-14
+ */
+
+package Objects;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import Interface.CommitListener;
+
+public class Database {
+	/**
+	 * The students in students.dat, keyed by student ID.
+	 */
+	public static final StudentRepository students = new StudentRepository();
+
+	/**
+	 * The courses in courses.dat, keyed by course ID.
+	 */
+	public static final CourseRepository courses = new CourseRepository();
+
+	/**
+	 * The index groups in indexGrps.dat, keyed by index group ID.
+	 */
+	public static final Repository<Integer, IndexGroup> indexGroups = new Repository<Integer, IndexGroup>(new IndexGroup(), "indexGrps") {
+		protected Integer getKey(IndexGroup record) {
+			return record.getIndexGroupID();
+		}
+
+		protected void indexRecord(IndexGroup record) {
+			vacancies.attach(record);
+		}
+
+		protected void prepareCopy(IndexGroup copy) {
+			copy.markSnapshotCopy();
+		}
+	};
+
+	/**
+	 * The seat counters of the index groups, in vacancies.tbl.
+	 * A row is added for every index group loaded or put that has none.
+	 */
+	public static final VacancyTable vacancies = new VacancyTable(System.getProperty("user.dir") + "\\Databases\\vacancies.tbl");
+
+	/**
+	 * The waitlists in waitlists.dat, keyed by waitlist ID.
+	 */
+	public static final Repository<Integer, Waitlist> waitlists = new Repository<Integer, Waitlist>(new Waitlist(), "waitlists") {
+		protected Integer getKey(Waitlist record) {
+			return record.getWaitListID();
+		}
+	};
+
+	/**
+	 * The admins in admins.dat, keyed by admin ID.
+	 */
+	public static final Repository<String, Admin> admins = new Repository<String, Admin>(new Admin(), "admins") {
+		protected String getKey(Admin record) {
+			return record.getAdminID();
+		}
+
+		protected void clearIndexes() {
+			adminCredentials.clear();
+		}
+
+		protected void indexRecord(Admin record) {
+			adminCredentials.put(record.getAdminID(), record.getPasswordHash());
+		}
+	};
+
+	/**
+	 * The ballots in ballots.dat, keyed by student ID.
+	 */
+	public static final Repository<String, Ballot> ballots = new Repository<String, Ballot>(new Ballot(), "ballots") {
+		protected String getKey(Ballot record) {
+			return record.getStudentID();
+		}
+	};
+
+	/**
+	 * The swap requests in swapRequests.dat, keyed by student ID and course ID.
+	 */
+	public static final Repository<String, SwapRequest> swapRequests = new Repository<String, SwapRequest>(new SwapRequest(), "swapRequests") {
+		protected String getKey(SwapRequest record) {
+			return record.getKey();
+		}
+	};
+
+	/**
+	 * The password hashes of the admins, keyed by admin ID.
+	 */
+	public static final CredentialIndex adminCredentials = new CredentialIndex();
+
+	/**
+	 * The password hashes of the Students read so far, keyed by student ID.
+	 */
+	public static final CredentialIndex studentCredentials = new CredentialIndex();
+
+	/**
+	 * The IDs of new waitlists, in waitlists.seq.
+	 */
+	public static final IdSequence waitlistIDs = new IdSequence(System.getProperty("user.dir") + "\\Databases\\waitlists.seq");
+
+	/**
+	 * The locks held while index groups and Students are changed, so sessions
+	 * changing different index groups do not wait for each other.
+	 */
+	public static final StripedLock locks = new StripedLock(64);
+
+	/**
+	 * The log of transactions committed since the database files were last written.
+	 */
+	static final Journal journal = new Journal(System.getProperty("user.dir") + "\\Databases\\journal.log");
+
+	/**
+	 * The lock held while a transaction is logged or the journal is rotated.
+	 */
+	static final Object LOCK = new Object();
+
+	/**
+	 * The lock held while the journal is compacted, so only one compaction runs at a time.
+	 */
+	private static final Object COMPACTION_LOCK = new Object();
+
+	/**
+	 * Whether every database file has been loaded into memory.
+	 */
+	private static volatile boolean loaded = false;
+
+	/**
+	 * The version of the last Transaction committed, which new snapshots read.
+	 */
+	private static volatile long committedVersion = 0;
+
+	/**
+	 * The number of open snapshots of each version, oldest first.
+	 * Copies of records older than the oldest version here are dropped.
+	 */
+	private static final TreeMap<Long, Integer> openSnapshots = new TreeMap<Long, Integer>();
+
+	/**
+	 * The listeners told of every Transaction committed.
+	 */
+	private static final List<CommitListener> commitListeners = new CopyOnWriteArrayList<CommitListener>();
+
+	/**
+	 * The time between two compactions of the journal, in milliseconds.
+	 */
+	private static final long COMPACTION_INTERVAL = 60 * 1000;
+
+	/**
+	 * Gets every repository.
+	 * @return array of the repositories.
+	 */
+	private static Repository<?, ?>[] repositories() {
+		Repository<?, ?>[] repositories = { students, courses, indexGroups, waitlists, admins, ballots, swapRequests };
+		return repositories;
+	}
+
+	/**
+	 * Finds the repository of a record type.
+	 * @param recordType The record type, from RecordCodec.
+	 * @return the repository, or null if the type is unknown.
+	 */
+	private static Repository<?, ?> findRepository(byte recordType) {
+		switch (recordType) {
+		case RecordCodec.STUDENT:
+			return students;
+		case RecordCodec.COURSE:
+			return courses;
+		case RecordCodec.INDEX_GROUP:
+			return indexGroups;
+		case RecordCodec.WAITLIST:
+			return waitlists;
+		case RecordCodec.ADMIN:
+			return admins;
+		case RecordCodec.BALLOT:
+			return ballots;
+		case RecordCodec.SWAP_REQUEST:
+			return swapRequests;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Loads every database file into memory, then replays the transactions in the journal,
+	 * those moved aside by a compaction that did not finish first.
+	 * Called once when the program starts.
+	 */
+	public static void loadAll() {
+		synchronized (LOCK) {
+			Repository<?, ?>[] repositories = repositories();
+
+			vacancies.open();
+			for (int i = 0; i < repositories.length; i++) {
+				repositories[i].load();
+			}
+
+			List<byte[]> entries = journal.readEntries();
+			for (int i = 0; i < entries.size(); i++) {
+				try {
+					List<Object> records = Transaction.readEntry(entries.get(i));
+
+					for (int j = 0; j < records.size(); j++) {
+						Repository<?, ?> repository = findRepository(RecordCodec.typeOf(records.get(j)));
+
+						repository.apply(records.get(j));
+						repository.markChanged(records.get(j));
+					}
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+			vacancies.markLoaded();
+			for (int i = 0; i < repositories.length; i++) {
+				repositories[i].resetVersions();
+			}
+			waitlistIDs.seed(findMaxWaitlistID() + 1);
+			loaded = true;
+		}
+	}
+
+	/**
+	 * Loads every database file into memory unless it has already been loaded,
+	 * for lookups that read an index of the repositories, such as the credentials, instead of a repository.
+	 */
+	public static void ensureLoaded() {
+		if (!loaded) {
+			synchronized (LOCK) {
+				if (!loaded) {
+					loadAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Takes a Snapshot of the records as of the last Transaction committed.
+	 * The Snapshot must be closed when it is no longer read, so older copies of records can be dropped.
+	 * @return the Snapshot.
+	 */
+	public static Snapshot snapshot() {
+		indexGroups.records();
+
+		synchronized (openSnapshots) {
+			long version = committedVersion;
+			Integer numOfSnapshots = openSnapshots.get(version);
+
+			openSnapshots.put(version, numOfSnapshots == null ? 1 : numOfSnapshots + 1);
+			return new Snapshot(version);
+		}
+	}
+
+	/**
+	 * Closes a Snapshot taken by snapshot().
+	 * @param version The version of the Snapshot.
+	 */
+	static void closeSnapshot(long version) {
+		synchronized (openSnapshots) {
+			Integer numOfSnapshots = openSnapshots.get(version);
+
+			if (numOfSnapshots == null || numOfSnapshots <= 1) {
+				openSnapshots.remove(version);
+			} else {
+				openSnapshots.put(version, numOfSnapshots - 1);
+			}
+		}
+	}
+
+	/**
+	 * Gets the version of the next Transaction to commit. Called while holding LOCK.
+	 * @return the version.
+	 */
+	static long nextVersion() {
+		return committedVersion + 1;
+	}
+
+	/**
+	 * Makes a version readable by new snapshots, once the copies of every record it changed are kept.
+	 * Called while holding LOCK.
+	 * @param version The version of the Transaction committed.
+	 * @return the oldest version still read by an open Snapshot, or the version committed if none is open.
+	 */
+	static long publishVersion(long version) {
+		synchronized (openSnapshots) {
+			committedVersion = version;
+
+			if (openSnapshots.isEmpty()) {
+				return version;
+			}
+			Map.Entry<Long, Integer> oldest = openSnapshots.firstEntry();
+			return oldest.getKey();
+		}
+	}
+
+	/**
+	 * Adds a listener to be told of every Transaction committed from now on.
+	 * @param listener The listener.
+	 */
+	public static void addCommitListener(CommitListener listener) {
+		commitListeners.add(listener);
+	}
+
+	/**
+	 * Tells every listener that a Transaction has been committed. Called while holding LOCK.
+	 * @param version The version of the Transaction.
+	 * @param records The records changed by the Transaction.
+	 */
+	static void committed(long version, List<Object> records) {
+		for (int i = 0; i < commitListeners.size(); i++) {
+			try {
+				commitListeners.get(i).committed(version, records);
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Finds the highest waitlist ID in use, by a waitlist or by the waitlist of an index group.
+	 * @return the highest waitlist ID, or 0 if there is none.
+	 */
+	private static int findMaxWaitlistID() {
+		int maxID = 0;
+		List<Waitlist> allWaitlists = waitlists.getAll();
+		List<IndexGroup> allIndexGroups = indexGroups.getAll();
+
+		for (int i = 0; i < allWaitlists.size(); i++) {
+			if (allWaitlists.get(i).getWaitListID() != null) {
+				maxID = Math.max(maxID, allWaitlists.get(i).getWaitListID());
+			}
+		}
+		for (int i = 0; i < allIndexGroups.size(); i++) {
+			Waitlist waitlist = allIndexGroups.get(i).getWaitList();
+
+			if (waitlist != null && waitlist.getWaitListID() != null) {
+				maxID = Math.max(maxID, waitlist.getWaitListID());
+			}
+		}
+		return maxID;
+	}
+
+	/**
+	 * Rotates the journal between two commits, then writes every repository changed before the rotation
+	 * to its database file as of a Snapshot taken at the rotation, and deletes the entries rotated.
+	 * Every change in the Snapshot is synced to the journal by the rotation, so no change that could still be lost
+	 * reaches a database file. Transactions open or committing meanwhile are not waited for, and go on to the new journal.
+	 * The vacancy table is forced to disk as well.
+	 * The entries rotated are kept if a database file cannot be written, and replayed before the new ones.
+	 * @return compaction success failure boolean.
+	 */
+	public static boolean compactAll() {
+		synchronized (COMPACTION_LOCK) {
+			Repository<?, ?>[] repositories = repositories();
+			boolean rotated;
+			Snapshot snapshot;
+
+			synchronized (LOCK) {
+				rotated = journal.rotate();
+				snapshot = snapshot();
+				for (int i = 0; i < repositories.length; i++) {
+					repositories[i].startCompaction();
+				}
+			}
+
+			boolean success = true;
+			try {
+				for (int i = 0; i < repositories.length; i++) {
+					if (!repositories[i].compact(snapshot.getVersion())) {
+						success = false;
+					}
+				}
+			} finally {
+				snapshot.close();
+			}
+
+			if (success && rotated) {
+				journal.deleteRotated();
+			}
+			vacancies.sync();
+			return success && rotated;
+		}
+	}
+
+	/**
+	 * Starts a background thread that compacts the journal periodically,
+	 * and compacts them one last time when the program exits.
+	 */
+	public static void startCompactor() {
+		Timer timer = new Timer("journal-compactor", true);
+		timer.schedule(new TimerTask() {
+			public void run() {
+				try {
+					compactAll();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		}, COMPACTION_INTERVAL, COMPACTION_INTERVAL);
+
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				compactAll();
+			}
+		});
+	}
+}
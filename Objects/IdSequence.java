@@ -0,0 +1,147 @@
+/**
+ * Represents a sequence of IDs for new records, such as waitlist IDs.
+ * The highest ID handed out is kept in a file of its own. IDs are reserved from the file
+ * in blocks, so most IDs are handed out from memory without touching the file.
+ * A block is synced to disk before any of its IDs is handed out, so an ID is never handed out
+ * twice, even after a crash or by two programs sharing the file; the rest of a block
+ * reserved before a crash is skipped.
+ * @author Lim Boon Leng
+ * @version 1.0
+ * @since 2017-04-18
+ */
+
+package Objects;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class IdSequence {
+	/**
+	 * The number of IDs reserved from the file at a time by nextID().
+	 */
+	private static final int BLOCK_SIZE = 32;
+
+	/**
+	 * The path of the file keeping the next ID that has not been reserved.
+	 */
+	private final String fileName;
+
+	/**
+	 * The next ID to hand out from the block reserved in memory.
+	 */
+	private int nextID;
+
+	/**
+	 * The first ID after the block reserved in memory.
+	 */
+	private int limit;
+
+	/**
+	 * The lowest ID that may be handed out, set from the IDs already in use.
+	 */
+	private int floor;
+
+	/**
+	 * Creates a new IdSequence kept in the given file.
+	 * @param fileName The path of the file.
+	 */
+	public IdSequence(String fileName) {
+		this.fileName = fileName;
+	}
+
+	/**
+	 * Makes sure no ID below the given ID is handed out, such as the IDs of records already loaded,
+	 * in case the file has been lost or is older than the database files.
+	 * @param minID The lowest ID that may be handed out.
+	 */
+	public synchronized void seed(int minID) {
+		floor = Math.max(floor, minID);
+
+		if (nextID < floor) {
+			nextID = floor;
+			limit = Math.max(limit, floor);
+		}
+	}
+
+	/**
+	 * Hands out the next ID, reserving a new block from the file when the block in memory runs out.
+	 * @return the ID, or -1 if no block can be reserved.
+	 */
+	public synchronized int nextID() {
+		if (nextID >= limit) {
+			int first = reserve(BLOCK_SIZE);
+
+			if (first < 0) {
+				return -1;
+			}
+			nextID = first;
+			limit = first + BLOCK_SIZE;
+		}
+		return nextID++;
+	}
+
+	/**
+	 * Hands out a block of IDs that follow each other, for adding many records at once.
+	 * The block is reserved from the file straight away, apart from the block in memory.
+	 * @param numOfIDs The number of IDs to hand out.
+	 * @return the first ID of the block, or -1 if the block cannot be reserved.
+	 */
+	public synchronized int nextBlock(int numOfIDs) {
+		return reserve(numOfIDs);
+	}
+
+	/**
+	 * Reserves IDs from the file, while holding a lock on the file against other programs.
+	 * @param numOfIDs The number of IDs to reserve.
+	 * @return the first ID reserved, or -1 if the file cannot be written.
+	 */
+	private int reserve(int numOfIDs) {
+		FileChannel channel = null;
+
+		try {
+			channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			FileLock lock = channel.lock();
+
+			try {
+				ByteBuffer buffer = ByteBuffer.allocate(4);
+				int first = floor;
+
+				if (channel.size() >= 4) {
+					while (buffer.hasRemaining()) {
+						if (channel.read(buffer, buffer.position()) < 0) {
+							throw new IOException(fileName + " is too short");
+						}
+					}
+					buffer.flip();
+					first = Math.max(first, buffer.getInt());
+				}
+
+				buffer.clear();
+				buffer.putInt(first + numOfIDs);
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer, buffer.position());
+				}
+				channel.force(true);
+				return first;
+			} finally {
+				lock.release();
+			}
+		} catch (IOException ex) {
+			ex.printStackTrace();
+			return -1;
+		} finally {
+			try {
+				if (channel != null) {
+					channel.close();
+				}
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+}
@@ -3,17 +3,16 @@
  * A index group can be in 1 course only.
  * A course consists of 1 or more index groups.
  * @author Heng Ze Hao
- * @version 1.4
+ * @version 1.6
  * @since 2017-04-06
  */
 
 package Objects;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -25,16 +24,36 @@ public class IndexGroup implements Serializable, FileIOInterface{
 	 * The ID to serialize data
 	 */
 	private static final long serialVersionUID = 1L;
-	
+
+	/**
+	 * The fields saved in the database file. currentNumOfStudents is still saved as an Integer,
+	 * so database files written before it became a primitive counter can still be read.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("indexGroupID", Integer.class),
+		new ObjectStreamField("currentNumOfStudents", Integer.class),
+		new ObjectStreamField("maxNumOfStudents", Integer.class),
+		new ObjectStreamField("indexGroupName", String.class),
+		new ObjectStreamField("lessonList", ArrayList.class),
+		new ObjectStreamField("waitList", Waitlist.class)
+	};
+
 	/**
 	 * The ID of this index group.
 	 */
 	private Integer indexGroupID;
 	
 	/**
-	 * The current number of students registered into this index group.
+	 * The number of students registered into this index group when it was last saved or changed here.
+	 * The current number is kept in Database.vacancies, which every seat is taken from.
 	 */
-	private Integer currentNumOfStudents;
+	private volatile int currentNumOfStudents;
+
+	/**
+	 * Whether this IndexGroup is a copy kept for a Snapshot, whose current number of students
+	 * is the one it was committed with rather than the one in Database.vacancies.
+	 */
+	private transient boolean snapshotCopy;
 	
 	/**
 	 * The maximum number of students that can be 
@@ -57,6 +76,17 @@ public class IndexGroup implements Serializable, FileIOInterface{
 	 */
 	private Waitlist waitList;
 
+	/**
+	 * The periods taken by the lessons of this index group, computed on first use
+	 * and kept until setLessonList() is called.
+	 */
+	private transient TimetableMask timetableMask;
+
+	/**
+	 * The periods taken by the lessons of this index group other than lectures, computed on first use.
+	 */
+	private transient TimetableMask timetableMaskWithoutLectures;
+
 	/**
 	 * Creates a new IndexGroup with no attribute values
 	 */
@@ -87,28 +117,16 @@ public class IndexGroup implements Serializable, FileIOInterface{
 	 * Calculate the vacancy for this IndexGroup.
 	 * @return this IndexGroup's vacancy.
 	 */	public Integer calculateVacancy() {
-		return maxNumOfStudents - currentNumOfStudents;
+		return maxNumOfStudents - getCurrentNumOfStudents();
 	}
 
 
 	/**
 	* Retrieves an IndexGroup in the text file that stores all IndexGroups.
 	* @return a List of IndexGroups
-	*/	@SuppressWarnings("unchecked")
+	*/
 	public List<IndexGroup> retrieveAllIndexGroupObjects(){
-		List<IndexGroup> listOfIndexGroups = new ArrayList<IndexGroup>();
-
-		try{
-			listOfIndexGroups = readSerializedObject();
-
-			if(listOfIndexGroups == null){
-				System.out.println("Unable to read from file!");
-				throw new Exception();
-			}
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-		return listOfIndexGroups;
+		return Database.indexGroups.getAll();
 	}
 
 	/**
@@ -118,18 +136,9 @@ public class IndexGroup implements Serializable, FileIOInterface{
 	 */
 	public IndexGroup retrieveIndexGroupObject(Integer indexGroupID){
 		IndexGroup indexGroupToCheck = null;
-		IndexGroup indexGroup = new IndexGroup();
 
 		try{
-			List<IndexGroup> listOfIndexGroups = indexGroup.retrieveAllIndexGroupObjects();
-
-			for (int i = 0; i < listOfIndexGroups.size(); i++){
-				if(listOfIndexGroups.get(i).getIndexGroupID().equals(indexGroupID))
-				{
-					indexGroupToCheck = listOfIndexGroups.get(i);
-					break;
-				}
-			}
+			indexGroupToCheck = Database.indexGroups.get(indexGroupID);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -142,33 +151,19 @@ public class IndexGroup implements Serializable, FileIOInterface{
 	 * @return specified IndexGroup
 	 */
 	public IndexGroup retrieveIndexGroupObjectByWaitList(Integer waitListID){
-		List<Waitlist> listOfWaitlists = new ArrayList<Waitlist>();
-		List<IndexGroup> listOfIndexGroups = new ArrayList<IndexGroup>();
-		int indexGroupNumberToFind= -1;
 		IndexGroup returnedIndexGroup= null;
-		IndexGroup indexGroup = new IndexGroup();
-		Waitlist waitlist = new Waitlist();
 		
 		try{
+			Waitlist waitlist = Database.waitlists.get(waitListID);
 
-			listOfWaitlists = waitlist.retrieveAllWaitListObjects();
-			listOfIndexGroups = indexGroup.retrieveAllIndexGroupObjects();
-			
-			for(int i = 0; i < listOfWaitlists.size(); i++){
-				if(listOfWaitlists.get(i).getWaitListID().equals(waitListID)){
-					indexGroupNumberToFind = listOfWaitlists.get(i).getIndexGroupNumber();
-					
-					for(int j = 0; j < listOfIndexGroups.size(); j++){
-						if(listOfIndexGroups.get(j).getIndexGroupID().equals(indexGroupNumberToFind)){
-							returnedIndexGroup = listOfIndexGroups.get(j);					
-						}
-						else if(j == listOfIndexGroups.size() + 1){					
-							System.out.println("Waitlist found, but no such IndexGroupID found in IndexGroupID database for the Waitlist");
-						}
-					}
-				}
-				else if(i == listOfWaitlists.size() + 1){					
-					System.out.println("Waitlist not found in Waitlist database");
+			if(waitlist == null){
+				System.out.println("Waitlist not found in Waitlist database");
+			}
+			else{
+				returnedIndexGroup = Database.indexGroups.get(waitlist.getIndexGroupNumber());
+
+				if(returnedIndexGroup == null){
+					System.out.println("Waitlist found, but no such IndexGroupID found in IndexGroupID database for the Waitlist");
 				}
 			}
 		} catch (Exception e) {
@@ -201,48 +196,66 @@ public class IndexGroup implements Serializable, FileIOInterface{
 	 * Checks if there are vacancies available in this IndexGroup
 	 * by calculating the difference of the current number of students
 	 * registered and the maximum number of students that can be registered.
+	 * Another session may take the last seat right after this check,
+	 * so a seat must still be taken with tryReserveSeat().
 	 * @return boolean(true / false)
 	 */
 	public boolean checkVacancies(){
-		boolean vacancyExists = false;
+		return this.getCurrentNumOfStudents() < this.getMaxNumOfStudents();
+	}
 
-		if(this.getMaxNumOfStudents() - this.getCurrentNumOfStudents() > 0){
-			vacancyExists = true;
+	/**
+	 * Takes one seat in this IndexGroup if there is a vacancy,
+	 * by incrementing the current number of students registered.
+	 * Safe to call from many sessions and programs at once: the IndexGroup is never oversubscribed.
+	 * The seat is given back if the Transaction it was taken in is aborted.
+	 * @return boolean (true if a seat was taken / false if there is no vacancy)
+	 */
+	public boolean tryReserveSeat(){
+		int current = Database.vacancies.tryReserveSeat(this.indexGroupID);
+
+		if(current == -2){
+			Database.vacancies.attach(this);
+			current = Database.vacancies.tryReserveSeat(this.indexGroupID);
 		}
-		return vacancyExists;
+		if(current < 0){
+			return false;
+		}
+		this.currentNumOfStudents = current;
+		Transaction.onAbort(new Runnable() {
+			public void run() {
+				releaseSeat();
+			}
+		});
+		return true;
 	}
 
 	/**
-	 * Update vacancies based on the given operator by incrementing or
-	 * decrementing the current number of students registered in this IndexGroup.
-	 * @param operator The operation to update the vacancy. 
-	 * + to increment vacancy, - to decrement vacancy.
+	 * Gives back one seat taken in this IndexGroup,
+	 * by decrementing the current number of students registered.
+	 * The seat is taken again if the Transaction it was given back in is aborted.
+	 * @return boolean (true if a seat was given back / false if no student is registered)
 	 */
-	public void updateVacancies(char operator){
-		try{
-			if(operator == '+'){
-				if(this.getMaxNumOfStudents() >= this.getCurrentNumOfStudents())
-					this.setCurrentNumOfStudents(this.getCurrentNumOfStudents() - 1);
-				else{
-					System.out.println("No more vacancy!");
-					throw new Exception();
-				}
-			}
-			else if(operator == '-'){
-				if (this.getCurrentNumOfStudents() >= 0)
-					this.setCurrentNumOfStudents(this.getCurrentNumOfStudents() + 1);
-				else{
-					System.out.println("Current number of students is already 0! Is the student registered in this indexGroup?");
-					throw new Exception();
+	public boolean releaseSeat(){
+		int current = Database.vacancies.releaseSeat(this.indexGroupID);
+
+		if(current == -2){
+			Database.vacancies.attach(this);
+			current = Database.vacancies.releaseSeat(this.indexGroupID);
+		}
+		if(current < 0){
+			System.out.println("Current number of students is already 0! Is the student registered in this indexGroup?");
+			return false;
+		}
+		this.currentNumOfStudents = current;
+		Transaction.onAbort(new Runnable() {
+			public void run() {
+				if(!tryReserveSeat()){
+					System.out.println("Unable to take back the seat given back in index group " + indexGroupID + "!");
 				}
 			}
-			else{
-				System.out.println("Operator parameter invalid!");
-				throw new Exception();
-			}
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+		});
+		return true;
 	}
 	
 	/**
@@ -250,20 +263,8 @@ public class IndexGroup implements Serializable, FileIOInterface{
 	 * @param indexGroupToUpdate The IndexGroup object to update.
 	 */
 	public void updateIndexGroupObject(IndexGroup indexGroupToUpdate){
-		IndexGroup indexGroup = new IndexGroup();
-		
 		try{
-			List<IndexGroup> listOfIndexGroups = indexGroup.retrieveAllIndexGroupObjects();
-			
-			for (int i = 0; i < listOfIndexGroups.size(); i++){
-				if(listOfIndexGroups.get(i).getIndexGroupID().equals(indexGroupToUpdate.getIndexGroupID()))
-				{
-					listOfIndexGroups.set(i, indexGroupToUpdate);
-					break;
-				}
-			}
-			
-			writeSerializedObject(listOfIndexGroups);
+			Database.indexGroups.put(indexGroupToUpdate);
 		}
 		catch (Exception e) {
 			e.printStackTrace();
@@ -345,19 +346,47 @@ public class IndexGroup implements Serializable, FileIOInterface{
 	}	
 	
 	/**
-	 * Gets the current number of students registered into this IndexGroup.
+	 * Gets the current number of students registered into this IndexGroup,
+	 * from Database.vacancies if this IndexGroup has a row there.
 	 * @return this IndexGroup's currentNumOfStudents.
 	 */
 	public Integer getCurrentNumOfStudents(){
+		if(snapshotCopy){
+			return this.currentNumOfStudents;
+		}
+		Integer current = Database.vacancies.getCurrentNumOfStudents(this.indexGroupID);
+
+		if(current == null){
+			return this.currentNumOfStudents;
+		}
+		return current;
+	}
+
+	/**
+	 * Gets the number of students registered into this IndexGroup when it was last saved or changed here,
+	 * used to add its row to Database.vacancies.
+	 * @return this IndexGroup's saved currentNumOfStudents.
+	 */
+	int getStoredNumOfStudents(){
 		return this.currentNumOfStudents;
 	}
 
 	/**
-	 * Changes the current number of students registered into this IndexGroup.
+	 * Marks this IndexGroup as a copy kept for a Snapshot, so its current number of students
+	 * no longer follows Database.vacancies.
+	 */
+	void markSnapshotCopy(){
+		this.snapshotCopy = true;
+	}
+
+	/**
+	 * Changes the current number of students registered into this IndexGroup,
+	 * in Database.vacancies as well if this IndexGroup has a row there.
 	 * @param currentNumOfStudents This IndexGroup's current number of students registered.
 	 */
 	public void setCurrentNumOfStudents(Integer currentNumOfStudents){
 		this.currentNumOfStudents= currentNumOfStudents;
+		Database.vacancies.setCurrentNumOfStudents(this.indexGroupID, currentNumOfStudents);
 	}
 
 	/**
@@ -394,6 +423,7 @@ public class IndexGroup implements Serializable, FileIOInterface{
 
 	/**
 	 * Gets the ArrayList of Lessons that this IndexGroup has.
+	 * Lessons must be changed through setLessonList(), so the TimetableMask is computed again.
 	 * @return this IndexGroup's lessonList.
 	 */
 	public ArrayList<Lesson> getLessonList(){
@@ -406,6 +436,31 @@ public class IndexGroup implements Serializable, FileIOInterface{
 	 */
 	public void setLessonList(ArrayList<Lesson> lessonList){
 		this.lessonList= lessonList;
+		this.timetableMask = null;
+		this.timetableMaskWithoutLectures = null;
+	}
+
+	/**
+	 * Gets the periods taken by the lessons of this IndexGroup.
+	 * @return this IndexGroup's TimetableMask.
+	 */
+	public TimetableMask getTimetableMask(){
+		if(this.timetableMask == null){
+			this.timetableMask = new TimetableMask(this.lessonList, true);
+		}
+		return this.timetableMask;
+	}
+
+	/**
+	 * Gets the periods taken by the lessons of this IndexGroup other than lectures,
+	 * which are shared by every index group of a course.
+	 * @return this IndexGroup's TimetableMask without lectures.
+	 */
+	public TimetableMask getTimetableMaskWithoutLectures(){
+		if(this.timetableMaskWithoutLectures == null){
+			this.timetableMaskWithoutLectures = new TimetableMask(this.lessonList, false);
+		}
+		return this.timetableMaskWithoutLectures;
 	}
 
 	/**
@@ -424,43 +479,58 @@ public class IndexGroup implements Serializable, FileIOInterface{
 		this.waitList = waitList;
 	}
 	
+	/**
+	 * Saves this IndexGroup, writing currentNumOfStudents as an Integer.
+	 * @param out The stream to write to.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("indexGroupID", indexGroupID);
+		fields.put("currentNumOfStudents", getCurrentNumOfStudents());
+		fields.put("maxNumOfStudents", maxNumOfStudents);
+		fields.put("indexGroupName", indexGroupName);
+		fields.put("lessonList", lessonList);
+		fields.put("waitList", waitList);
+		out.writeFields();
+	}
+
+	/**
+	 * Loads this IndexGroup, reading currentNumOfStudents as an Integer.
+	 * @param in The stream to read from.
+	 * @throws IOException if the stream cannot be read.
+	 * @throws ClassNotFoundException if a saved class cannot be found.
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		Integer numOfStudents = (Integer) fields.get("currentNumOfStudents", null);
+
+		indexGroupID = (Integer) fields.get("indexGroupID", null);
+		currentNumOfStudents = numOfStudents == null ? 0 : numOfStudents.intValue();
+		maxNumOfStudents = (Integer) fields.get("maxNumOfStudents", null);
+		indexGroupName = (String) fields.get("indexGroupName", null);
+		lessonList = (ArrayList<Lesson>) fields.get("lessonList", null);
+		waitList = (Waitlist) fields.get("waitList", null);
+	}
+
 	/**
 	* Reads the data from the database file
 	* @return list of objects in the database file.
 	*/
 	@SuppressWarnings("rawtypes")
 	public List readSerializedObject() {
-		List pDetails = null;
-		FileInputStream fis = null;
-		ObjectInputStream in = null;
-		try {
-			fis = new FileInputStream(System.getProperty("user.dir") + "\\Databases\\indexGrps.dat");
-			in = new ObjectInputStream(fis);
-			pDetails = (ArrayList)in.readObject();
-			in.close();
-		} catch (IOException ex) {
-			ex.printStackTrace();
-		} catch (ClassNotFoundException ex) {
-			ex.printStackTrace();
-		}
-		return pDetails;
+		return RecordFile.read(System.getProperty("user.dir") + "\\Databases\\indexGrps.dat", RecordCodec.INDEX_GROUP);
 	}
 
 	/**
-	* Writes data to the database file
+	* Writes data to the database file in the binary format of RecordCodec,
+	* through a temporary file, so a crash leaves either the old or the new database file.
 	* @param list The list of objects to write
+	* @return write success failure boolean.
 	*/
 	@SuppressWarnings("rawtypes")
-	public void writeSerializedObject(List list) {
-		FileOutputStream fos = null;
-		ObjectOutputStream out = null;
-		try {
-			fos = new FileOutputStream(System.getProperty("user.dir") + "\\Databases\\indexGrps.dat");
-			out = new ObjectOutputStream(fos);
-			out.writeObject(list);
-			out.close();
-		} catch (IOException ex) {
-			ex.printStackTrace();
-		}
+	public boolean writeSerializedObject(List list) {
+		return RecordFile.write(System.getProperty("user.dir") + "\\Databases\\indexGrps.dat", RecordCodec.INDEX_GROUP, list);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,376 @@
+/**
+ * Represents an append-only log of changed records.
+ * Each entry is the length of its bytes followed by the bytes themselves,
+ * so a change costs one entry instead of a rewrite of the whole database file.
+ * Entries appended by appendEntry() are made durable by sync(), which syncs every entry appended so far,
+ * so transactions committing together share a single sync to disk.
+ * The log file can be rotated at a point where no entry is being appended, moving its entries aside
+ * to be replayed before the new ones until deleteRotated() is called.
+ * @author Lim Boon Leng
+ * @version 1.1
+ * @since 2017-04-15
+ */
+
+package Objects;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Journal {
+	/**
+	 * The path of the log file.
+	 */
+	private final String fileName;
+
+	/**
+	 * The path that the log file is moved to when it is rotated.
+	 */
+	private final String rotatedFileName;
+
+	/**
+	 * The open log file, or null if it has not been appended to yet.
+	 */
+	private FileOutputStream fileOut;
+
+	/**
+	 * The stream that entries are written through.
+	 */
+	private DataOutputStream out;
+
+	/**
+	 * The length of the whole entries in the log file, in bytes.
+	 */
+	private long length;
+
+	/**
+	 * The number of bytes appended since the program started, over every log file,
+	 * which is the position that sync() is asked to reach.
+	 */
+	private long appendedPosition;
+
+	/**
+	 * The position up to which the entries appended are synced to disk. Read and changed while holding syncLock.
+	 */
+	private long syncedPosition;
+
+	/**
+	 * The lock held while the log file is synced, so a thread waiting for it finds its entry synced by the one before.
+	 */
+	private final Object syncLock = new Object();
+
+	/**
+	 * The number of entries in the log file.
+	 */
+	private int numOfEntries;
+
+	/**
+	 * Creates a new Journal that logs to the given file.
+	 * @param fileName The path of the log file.
+	 */
+	public Journal(String fileName) {
+		this.fileName = fileName;
+		this.rotatedFileName = fileName + ".old";
+	}
+
+	/**
+	 * Appends a record to the end of the log file, serialized, and syncs the log file to disk.
+	 * @param record The record to append.
+	 * @throws IOException if the log file cannot be written.
+	 */
+	public void append(Object record) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream recordOut = new ObjectOutputStream(bytes);
+		recordOut.writeObject(record);
+		recordOut.close();
+
+		sync(appendEntry(bytes.toByteArray()));
+	}
+
+	/**
+	 * Appends an entry to the end of the log file without syncing it to disk.
+	 * An entry that cannot be written in full is cut off again.
+	 * @param entry The bytes of the entry.
+	 * @return the position to pass to sync() to make the entry durable.
+	 * @throws IOException if the log file cannot be written.
+	 */
+	public synchronized long appendEntry(byte[] entry) throws IOException {
+		try {
+			if (out == null) {
+				fileOut = new FileOutputStream(fileName, true);
+				out = new DataOutputStream(new BufferedOutputStream(fileOut, 8192));
+				length = fileOut.getChannel().size();
+			}
+			out.writeInt(entry.length);
+			out.write(entry);
+		} catch (IOException ex) {
+			close();
+			length = Math.min(length, new File(fileName).length());
+			truncate(fileName, length);
+			throw ex;
+		}
+		length += 4 + entry.length;
+		appendedPosition += 4 + entry.length;
+		numOfEntries++;
+		return appendedPosition;
+	}
+
+	/**
+	 * Syncs the log file to disk up to the given position, unless another thread already has.
+	 * Every entry appended before the sync starts is synced with it.
+	 * @param position The position returned by appendEntry().
+	 * @throws IOException if the log file cannot be synced.
+	 */
+	public void sync(long position) throws IOException {
+		synchronized (syncLock) {
+			if (syncedPosition >= position) {
+				return;
+			}
+
+			long target;
+			FileDescriptor fd;
+			synchronized (this) {
+				target = appendedPosition;
+				if (out == null) {
+					syncedPosition = target;
+					return;
+				}
+				out.flush();
+				fd = fileOut.getFD();
+			}
+			fd.sync();
+			syncedPosition = target;
+		}
+	}
+
+	/**
+	 * Moves the entries of the log file aside, after syncing them, so that new entries start a new log file.
+	 * Entries already moved aside and not yet deleted are kept, with these entries added after them.
+	 * Must be called at a point where no entry is being appended that belongs with those moved aside.
+	 * @return rotation success failure boolean.
+	 */
+	public boolean rotate() {
+		synchronized (syncLock) {
+			synchronized (this) {
+				try {
+					if (out != null) {
+						out.flush();
+						fileOut.getFD().sync();
+					}
+				} catch (IOException ex) {
+					ex.printStackTrace();
+					return false;
+				}
+				syncedPosition = appendedPosition;
+				close();
+
+				File file = new File(fileName);
+				File rotated = new File(rotatedFileName);
+				if (!file.exists()) {
+					return true;
+				}
+				if (!rotated.exists()) {
+					if (file.renameTo(rotated)) {
+						numOfEntries = 0;
+						return true;
+					}
+					return false;
+				}
+				try {
+					copy(file, rotated);
+				} catch (IOException ex) {
+					ex.printStackTrace();
+					return false;
+				}
+				if (file.delete()) {
+					numOfEntries = 0;
+					return true;
+				}
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Deletes the entries moved aside by rotate(), after they have been written to the database files.
+	 */
+	public synchronized void deleteRotated() {
+		File rotated = new File(rotatedFileName);
+
+		if (rotated.exists() && !rotated.delete()) {
+			System.out.println("Unable to delete " + rotatedFileName);
+		}
+	}
+
+	/**
+	 * Reads every record in the log file, serialized by append(), oldest first.
+	 * A record cut short by a crash ends the log and is ignored.
+	 * @return list of records in the log file.
+	 */
+	public List<Object> readAll() {
+		List<Object> records = new ArrayList<Object>();
+		List<byte[]> entries = readEntries();
+
+		for (int i = 0; i < entries.size(); i++) {
+			try {
+				ObjectInputStream recordIn = new ObjectInputStream(new ByteArrayInputStream(entries.get(i)));
+				records.add(recordIn.readObject());
+				recordIn.close();
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			} catch (ClassNotFoundException ex) {
+				ex.printStackTrace();
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Reads every entry moved aside by rotate() and then every entry in the log file, oldest first.
+	 * An entry cut short by a crash ends its file and is ignored.
+	 * @return list of the bytes of the entries.
+	 */
+	public synchronized List<byte[]> readEntries() {
+		List<byte[]> entries = new ArrayList<byte[]>();
+
+		readEntries(rotatedFileName, entries);
+		int numOfRotated = entries.size();
+		readEntries(fileName, entries);
+		numOfEntries = entries.size() - numOfRotated;
+		return entries;
+	}
+
+	/**
+	 * Reads every entry in a file, cutting off an entry cut short by a crash
+	 * so that later entries are appended after the last whole entry.
+	 * @param name The path of the file.
+	 * @param entries The list to add the bytes of the entries to.
+	 */
+	private void readEntries(String name, List<byte[]> entries) {
+		File file = new File(name);
+
+		if (!file.exists()) {
+			return;
+		}
+
+		DataInputStream in = null;
+		long validLength = 0;
+		try {
+			in = new DataInputStream(new FileInputStream(file));
+
+			while (true) {
+				int entryLength = in.readInt();
+				if (entryLength < 0 || entryLength > file.length() - validLength - 4) {
+					break;
+				}
+				byte[] data = new byte[entryLength];
+				in.readFully(data);
+				entries.add(data);
+				validLength += 4 + entryLength;
+			}
+		} catch (EOFException ex) {
+			// end of the log, or an entry cut short by a crash
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		} finally {
+			try {
+				if (in != null) {
+					in.close();
+				}
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+
+		if (file.length() > validLength) {
+			truncate(name, validLength);
+		}
+	}
+
+	/**
+	 * Adds the contents of one file to the end of another and syncs it to disk.
+	 * @param from The file to copy.
+	 * @param to The file to add to.
+	 * @throws IOException if either file cannot be read or written.
+	 */
+	private void copy(File from, File to) throws IOException {
+		FileInputStream in = new FileInputStream(from);
+		FileOutputStream copyOut = new FileOutputStream(to, true);
+		try {
+			byte[] buffer = new byte[8192];
+			int count;
+			while ((count = in.read(buffer)) > 0) {
+				copyOut.write(buffer, 0, count);
+			}
+			copyOut.getFD().sync();
+		} finally {
+			in.close();
+			copyOut.close();
+		}
+	}
+
+	/**
+	 * Cuts a file back to the given length, dropping an entry cut short by a crash or a failed write.
+	 * @param name The path of the file.
+	 * @param newLength The length to keep.
+	 */
+	private void truncate(String name, long newLength) {
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(name, "rw");
+			raf.setLength(newLength);
+			raf.close();
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * Closes the log file, so the next entry opens it again.
+	 */
+	private void close() {
+		try {
+			if (out != null) {
+				out.close();
+			}
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+		out = null;
+		fileOut = null;
+	}
+
+	/**
+	 * Empties the log file, after its records have been written to the database file.
+	 */
+	public synchronized void clear() {
+		try {
+			close();
+			new FileOutputStream(fileName).close();
+			numOfEntries = 0;
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * Gets the number of entries in the log file.
+	 * @return the number of entries.
+	 */
+	public synchronized int getNumOfEntries() {
+		return numOfEntries;
+	}
+}
@@ -0,0 +1,95 @@
+/**
+ * Represents an email notification waiting in the outbox to be sent to a student.
+ * @author Lim Boon Leng
+ * @version 1.0
+ * @since 2017-04-16
+ */
+
+package Objects;
+
+import java.io.Serializable;
+
+public class Notification implements Serializable {
+	/**
+	 * The ID to serialize data
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The ID of this notification, unique in the outbox.
+	 */
+	private Long notificationID;
+
+	/**
+	 * The email of the recipient.
+	 */
+	private String recipient;
+
+	/**
+	 * The ID of the course the recipient has been registered to.
+	 */
+	private String courseID;
+
+	/**
+	 * The number of times sending this notification has failed.
+	 */
+	private int numOfAttempts;
+
+	/**
+	 * Creates a new Notification with no attribute values
+	 */
+	public Notification() {
+	}
+
+	/**
+	 * Creates a new Notification with the given ID, recipient and course ID.
+	 * @param notificationID This Notification's ID.
+	 * @param recipient The email of the recipient.
+	 * @param courseID The ID of the course the recipient has been registered to.
+	 */
+	public Notification(Long notificationID, String recipient, String courseID) {
+		this.notificationID = notificationID;
+		this.recipient = recipient;
+		this.courseID = courseID;
+	}
+
+	/**
+	 * Gets the ID of this Notification.
+	 * @return this Notification's notificationID.
+	 */
+	public Long getNotificationID() {
+		return notificationID;
+	}
+
+	/**
+	 * Gets the email of the recipient of this Notification.
+	 * @return this Notification's recipient.
+	 */
+	public String getRecipient() {
+		return recipient;
+	}
+
+	/**
+	 * Gets the ID of the course the recipient has been registered to.
+	 * @return this Notification's courseID.
+	 */
+	public String getCourseID() {
+		return courseID;
+	}
+
+	/**
+	 * Gets the number of times sending this Notification has failed.
+	 * @return this Notification's numOfAttempts.
+	 */
+	public int getNumOfAttempts() {
+		return numOfAttempts;
+	}
+
+	/**
+	 * Changes the number of times sending this Notification has failed.
+	 * @param numOfAttempts This Notification's number of failed attempts.
+	 */
+	public void setNumOfAttempts(int numOfAttempts) {
+		this.numOfAttempts = numOfAttempts;
+	}
+}
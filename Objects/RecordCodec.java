@@ -0,0 +1,794 @@
+/**
+ * Represents the binary format of the database files.
+ * A database file starts with a header of the magic number, the format version,
+ * the type of its records and the number of slots. Every record follows in a slot of
+ * its capacity, its length in bytes and its fields, padded to the capacity, so a record
+ * can be rewritten in place by RecordStore as long as it still fits its slot.
+ * A slot whose length is FREE_SLOT holds no record. Version 1 files have no capacity
+ * or padding and are still read.
+ * Strings, lists and calendars are written without the class descriptors and boxed values
+ * of Java serialization, and a Student's schedule is written as the lessons it holds
+ * and the periods they take.
+ * @author Lim Boon Leng
+ * @version 1.1
+ * @since 2017-04-17
+ */
+
+package Objects;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+public class RecordCodec {
+	/**
+	 * The first four bytes of a database file in this format, "STAR".
+	 */
+	public static final int MAGIC = 0x53544152;
+
+	/**
+	 * The version of the format written by this RecordCodec.
+	 */
+	public static final short VERSION = 2;
+
+	/**
+	 * The size of the header of a database file, in bytes.
+	 */
+	public static final int HEADER_SIZE = 11;
+
+	/**
+	 * The position of the number of slots in the header of a database file.
+	 */
+	public static final int NUM_OF_SLOTS_POSITION = 7;
+
+	/**
+	 * The length written in a slot that holds no record.
+	 */
+	public static final int FREE_SLOT = -1;
+
+	/**
+	 * The record type of students.dat.
+	 */
+	public static final byte STUDENT = 1;
+
+	/**
+	 * The record type of courses.dat.
+	 */
+	public static final byte COURSE = 2;
+
+	/**
+	 * The record type of indexGrps.dat.
+	 */
+	public static final byte INDEX_GROUP = 3;
+
+	/**
+	 * The record type of waitlists.dat.
+	 */
+	public static final byte WAITLIST = 4;
+
+	/**
+	 * The record type of admins.dat.
+	 */
+	public static final byte ADMIN = 5;
+
+	/**
+	 * The record type of ballots.dat.
+	 */
+	public static final byte BALLOT = 6;
+
+	/**
+	 * The record type of swapRequests.dat.
+	 */
+	public static final byte SWAP_REQUEST = 7;
+
+	/**
+	 * The value written in place of a null Integer.
+	 */
+	private static final int NULL_INT = Integer.MIN_VALUE;
+
+	/**
+	 * Writes the header of a database file.
+	 * @param out The stream to write to.
+	 * @param recordType The type of the records in the file.
+	 * @param numOfSlots The number of slots in the file.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	public static void writeHeader(DataOutput out, byte recordType, int numOfSlots) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeShort(VERSION);
+		out.writeByte(recordType);
+		out.writeInt(numOfSlots);
+	}
+
+	/**
+	 * Reads the version and record type in the header of a database file, after its magic number.
+	 * The number of slots follows them.
+	 * @param in The stream to read from.
+	 * @param recordType The type of the records expected in the file.
+	 * @return the version of the file.
+	 * @throws IOException if the stream cannot be read or the header does not match.
+	 */
+	public static int readVersion(DataInput in, byte recordType) throws IOException {
+		short version = in.readShort();
+		if (version > VERSION) {
+			throw new IOException("Database file version " + version + " is newer than this program");
+		}
+		byte type = in.readByte();
+		if (type != recordType) {
+			throw new IOException("Database file has records of type " + type + " instead of " + recordType);
+		}
+		return version;
+	}
+
+	/**
+	 * Writes the ID of a record the way it starts the fields of the record.
+	 * @param out The stream to write to.
+	 * @param recordType The type of the record.
+	 * @param key The ID of the record.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	public static void writeKey(DataOutput out, byte recordType, Object key) throws IOException {
+		if (recordType == INDEX_GROUP || recordType == WAITLIST) {
+			writeInteger(out, (Integer) key);
+		} else {
+			writeString(out, (String) key);
+		}
+	}
+
+	/**
+	 * Reads the ID of a record, which is the first field of every record,
+	 * without reading the rest of the record.
+	 * @param in The stream to read from.
+	 * @param recordType The type of the record.
+	 * @return the ID of the record.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	public static Object readKey(DataInput in, byte recordType) throws IOException {
+		if (recordType == INDEX_GROUP || recordType == WAITLIST) {
+			return readInteger(in);
+		}
+		return readString(in);
+	}
+
+	/**
+	 * Converts a record to its bytes, without the length.
+	 * @param record The Student, Course, IndexGroup, Waitlist, Admin, Ballot or SwapRequest to convert.
+	 * @return the bytes of the record.
+	 * @throws IOException if the record is of an unknown type.
+	 */
+	public static byte[] encode(Object record) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		if (record instanceof Student) {
+			writeStudent(out, (Student) record);
+		} else if (record instanceof Course) {
+			writeCourse(out, (Course) record);
+		} else if (record instanceof IndexGroup) {
+			writeIndexGroup(out, (IndexGroup) record);
+		} else if (record instanceof Waitlist) {
+			writeWaitlist(out, (Waitlist) record);
+		} else if (record instanceof Admin) {
+			writeAdmin(out, (Admin) record);
+		} else if (record instanceof Ballot) {
+			writeBallot(out, (Ballot) record);
+		} else if (record instanceof SwapRequest) {
+			writeSwapRequest(out, (SwapRequest) record);
+		} else {
+			throw new IOException("Cannot encode " + record.getClass().getName());
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Gets the type of a record.
+	 * @param record The Student, Course, IndexGroup, Waitlist, Admin, Ballot or SwapRequest.
+	 * @return the record type.
+	 * @throws IOException if the record is of an unknown type.
+	 */
+	public static byte typeOf(Object record) throws IOException {
+		if (record instanceof Student) {
+			return STUDENT;
+		} else if (record instanceof Course) {
+			return COURSE;
+		} else if (record instanceof IndexGroup) {
+			return INDEX_GROUP;
+		} else if (record instanceof Waitlist) {
+			return WAITLIST;
+		} else if (record instanceof Admin) {
+			return ADMIN;
+		} else if (record instanceof Ballot) {
+			return BALLOT;
+		} else if (record instanceof SwapRequest) {
+			return SWAP_REQUEST;
+		}
+		throw new IOException("Cannot encode " + record.getClass().getName());
+	}
+
+	/**
+	 * Converts the bytes of a record back to the record.
+	 * @param recordType The type of the record.
+	 * @param bytes The bytes of the record, without the length.
+	 * @return the record.
+	 * @throws IOException if the bytes are not a record of the given type.
+	 */
+	public static Object decode(byte recordType, byte[] bytes) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+
+		switch (recordType) {
+		case STUDENT:
+			return readStudent(in);
+		case COURSE:
+			return readCourse(in);
+		case INDEX_GROUP:
+			return readIndexGroup(in);
+		case WAITLIST:
+			return readWaitlist(in);
+		case ADMIN:
+			return readAdmin(in);
+		case BALLOT:
+			return readBallot(in);
+		case SWAP_REQUEST:
+			return readSwapRequest(in);
+		default:
+			throw new IOException("Unknown record type " + recordType);
+		}
+	}
+
+	/**
+	 * Writes the fields of a Student.
+	 * @param out The stream to write to.
+	 * @param student The Student to write.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeStudent(DataOutput out, Student student) throws IOException {
+		writeString(out, student.getStudentID());
+		writeString(out, student.getPasswordHash());
+		writeString(out, student.getName());
+		writeString(out, student.getMatricNum());
+		writeString(out, student.getNationality());
+		out.writeChar(student.getGender());
+		writeStringList(out, student.getSchool());
+		writeStringList(out, student.getCourseList());
+		writeIntegerList(out, student.getIndexGroupList());
+		writeStringList(out, student.getExemptionCoursesList());
+		writeStringList(out, student.getCompletedCoursesList());
+		writeIntegerList(out, student.getWaitListIDList());
+		writeCalendar(out, student.getStartTime());
+		writeCalendar(out, student.getEndTime());
+		writeString(out, student.getEmail());
+		writeString(out, student.getMobileNum());
+		writeString(out, student.getNotifMode());
+		writeSchedule(out, student.getSchedule());
+	}
+
+	/**
+	 * Reads the fields of a Student.
+	 * @param in The stream to read from.
+	 * @return the Student.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static Student readStudent(DataInput in) throws IOException {
+		Student student = new Student();
+		student.setStudentID(readString(in));
+		student.setPasswordHash(readString(in));
+		student.setName(readString(in));
+		student.setMatricNum(readString(in));
+		student.setNationality(readString(in));
+		student.setGender(in.readChar());
+		student.setSchool(readStringList(in));
+		student.setCourseList(readStringList(in));
+		student.setIndexGroupList(readIntegerList(in));
+		student.setExemptionCoursesList(readStringList(in));
+		student.setCompletedCoursesList(readStringList(in));
+		student.setWaitListIDList(readIntegerList(in));
+		student.setStartTime(readCalendar(in));
+		student.setEndTime(readCalendar(in));
+		student.setEmail(readString(in));
+		student.setMobileNum(readString(in));
+		student.setNotifMode(readString(in));
+		student.setSchedule(readSchedule(in));
+		return student;
+	}
+
+	/**
+	 * Writes the fields of a Course.
+	 * @param out The stream to write to.
+	 * @param course The Course to write.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeCourse(DataOutput out, Course course) throws IOException {
+		writeString(out, course.getCourseID());
+		writeString(out, course.getCourseName());
+		out.writeInt(course.getAUCredits());
+		writeString(out, course.getSchool());
+		writeString(out, course.getCourseType());
+		writeIntegerList(out, course.getIndexGroupList());
+	}
+
+	/**
+	 * Reads the fields of a Course.
+	 * @param in The stream to read from.
+	 * @return the Course.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static Course readCourse(DataInput in) throws IOException {
+		String courseID = readString(in);
+		String courseName = readString(in);
+		int AUCredits = in.readInt();
+		String school = readString(in);
+		String courseType = readString(in);
+		return new Course(courseID, courseName, AUCredits, school, courseType, readIntegerList(in));
+	}
+
+	/**
+	 * Writes the fields of an IndexGroup, with its lessons and its waitlist if it has one.
+	 * @param out The stream to write to.
+	 * @param indexGroup The IndexGroup to write.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeIndexGroup(DataOutput out, IndexGroup indexGroup) throws IOException {
+		writeInteger(out, indexGroup.getIndexGroupID());
+		out.writeInt(indexGroup.getCurrentNumOfStudents());
+		writeInteger(out, indexGroup.getMaxNumOfStudents());
+		writeString(out, indexGroup.getIndexGroupName());
+
+		List<Lesson> lessons = indexGroup.getLessonList();
+		if (lessons == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(lessons.size());
+			for (int i = 0; i < lessons.size(); i++) {
+				writeLesson(out, lessons.get(i));
+			}
+		}
+
+		out.writeBoolean(indexGroup.getWaitList() != null);
+		if (indexGroup.getWaitList() != null) {
+			writeWaitlist(out, indexGroup.getWaitList());
+		}
+	}
+
+	/**
+	 * Reads the fields of an IndexGroup, with its lessons and its waitlist if it has one.
+	 * @param in The stream to read from.
+	 * @return the IndexGroup.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static IndexGroup readIndexGroup(DataInput in) throws IOException {
+		Integer indexGroupID = readInteger(in);
+		int currentNumOfStudents = in.readInt();
+		Integer maxNumOfStudents = readInteger(in);
+		String indexGroupName = readString(in);
+		ArrayList<Lesson> lessons = null;
+		Waitlist waitlist = null;
+
+		int numOfLessons = in.readInt();
+		if (numOfLessons >= 0) {
+			lessons = new ArrayList<Lesson>(numOfLessons);
+			for (int i = 0; i < numOfLessons; i++) {
+				lessons.add(readLesson(in));
+			}
+		}
+
+		if (in.readBoolean()) {
+			waitlist = readWaitlist(in);
+		}
+		return new IndexGroup(indexGroupID, currentNumOfStudents, maxNumOfStudents, indexGroupName, lessons, waitlist);
+	}
+
+	/**
+	 * Writes the fields of a Waitlist, with the students in its queue in order.
+	 * @param out The stream to write to.
+	 * @param waitlist The Waitlist to write.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeWaitlist(DataOutput out, Waitlist waitlist) throws IOException {
+		writeInteger(out, waitlist.getWaitListID());
+		writeInteger(out, waitlist.getIndexGroupNumber());
+
+		if (waitlist.getStudentQueueList() == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(waitlist.getStudentQueueList().size());
+			Iterator<String> it = waitlist.getStudentQueueList().iterator();
+			while (it.hasNext()) {
+				writeString(out, it.next());
+			}
+		}
+	}
+
+	/**
+	 * Reads the fields of a Waitlist, with the students in its queue in order.
+	 * @param in The stream to read from.
+	 * @return the Waitlist.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static Waitlist readWaitlist(DataInput in) throws IOException {
+		Integer waitListID = readInteger(in);
+		Integer indexGroupNumber = readInteger(in);
+		WaitlistQueue queue = null;
+
+		int size = in.readInt();
+		if (size >= 0) {
+			queue = new WaitlistQueue();
+			for (int i = 0; i < size; i++) {
+				queue.add(readString(in));
+			}
+		}
+		return new Waitlist(waitListID, indexGroupNumber, queue);
+	}
+
+	/**
+	 * Writes the fields of an Admin.
+	 * @param out The stream to write to.
+	 * @param admin The Admin to write.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeAdmin(DataOutput out, Admin admin) throws IOException {
+		writeString(out, admin.getAdminID());
+		writeString(out, admin.getPasswordHash());
+	}
+
+	/**
+	 * Reads the fields of an Admin.
+	 * @param in The stream to read from.
+	 * @return the Admin.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static Admin readAdmin(DataInput in) throws IOException {
+		String adminID = readString(in);
+		return new Admin(adminID, readString(in));
+	}
+
+	/**
+	 * Writes the fields of a Ballot.
+	 * @param out The stream to write to.
+	 * @param ballot The Ballot to write.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeBallot(DataOutput out, Ballot ballot) throws IOException {
+		writeString(out, ballot.getStudentID());
+		writeIntegerList(out, ballot.getIndexGroupList());
+		out.writeBoolean(ballot.isAllocated());
+	}
+
+	/**
+	 * Reads the fields of a Ballot.
+	 * @param in The stream to read from.
+	 * @return the Ballot.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static Ballot readBallot(DataInput in) throws IOException {
+		String studentID = readString(in);
+		ArrayList<Integer> indexGroupList = readIntegerList(in);
+		return new Ballot(studentID, indexGroupList, in.readBoolean());
+	}
+
+	/**
+	 * Writes the fields of a SwapRequest.
+	 * @param out The stream to write to.
+	 * @param swapRequest The SwapRequest to write.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeSwapRequest(DataOutput out, SwapRequest swapRequest) throws IOException {
+		writeString(out, swapRequest.getStudentID());
+		writeString(out, swapRequest.getCourseID());
+		writeInteger(out, swapRequest.getHaveIndexGroupID());
+		writeIntegerList(out, swapRequest.getWantIndexGroupList());
+		out.writeLong(swapRequest.getPostTime());
+		out.writeBoolean(swapRequest.isOpen());
+		writeInteger(out, swapRequest.getSwappedIndexGroupID());
+	}
+
+	/**
+	 * Reads the fields of a SwapRequest.
+	 * @param in The stream to read from.
+	 * @return the SwapRequest.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static SwapRequest readSwapRequest(DataInput in) throws IOException {
+		String studentID = readString(in);
+		String courseID = readString(in);
+		Integer haveIndexGroupID = readInteger(in);
+		ArrayList<Integer> wantIndexGroupList = readIntegerList(in);
+		long postTime = in.readLong();
+		boolean open = in.readBoolean();
+		return new SwapRequest(studentID, courseID, haveIndexGroupID, wantIndexGroupList, postTime, open, readInteger(in));
+	}
+
+	/**
+	 * Writes the fields of a Lesson.
+	 * @param out The stream to write to.
+	 * @param lesson The Lesson to write.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeLesson(DataOutput out, Lesson lesson) throws IOException {
+		writeString(out, lesson.getStaffName());
+		writeString(out, lesson.getLessonDay());
+		writeString(out, lesson.getStartTime());
+		writeString(out, lesson.getEndTime());
+		writeString(out, lesson.getLessonVenue());
+		writeString(out, lesson.getLessonType());
+		writeString(out, lesson.getRemark());
+	}
+
+	/**
+	 * Reads the fields of a Lesson.
+	 * @param in The stream to read from.
+	 * @return the Lesson.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static Lesson readLesson(DataInput in) throws IOException {
+		String staffName = readString(in);
+		String lessonDay = readString(in);
+		String startTime = readString(in);
+		String endTime = readString(in);
+		String lessonVenue = readString(in);
+		String lessonType = readString(in);
+		return new Lesson(staffName, lessonDay, startTime, endTime, lessonVenue, lessonType, readString(in));
+	}
+
+	/**
+	 * Writes a Schedule as the distinct lessons it holds, followed by
+	 * the day, period, slot and lesson of every period that is taken.
+	 * @param out The stream to write to.
+	 * @param schedule The Schedule to write, or null.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeSchedule(DataOutput out, Schedule schedule) throws IOException {
+		if (schedule == null) {
+			out.writeByte(0);
+			return;
+		}
+		ArrayList<ArrayList<ArrayList<Lesson>>> timetable = schedule.getScheduleTimetable();
+		if (timetable == null) {
+			out.writeByte(1);
+			return;
+		}
+		out.writeByte(2);
+
+		Map<Lesson, Integer> lessonNums = new IdentityHashMap<Lesson, Integer>();
+		ArrayList<Lesson> lessons = new ArrayList<Lesson>();
+		ArrayList<int[]> periods = new ArrayList<int[]>();
+
+		out.writeByte(timetable.size());
+		out.writeByte(timetable.isEmpty() ? 0 : timetable.get(0).size());
+		for (int i = 0; i < timetable.size(); i++) {
+			for (int j = 0; j < timetable.get(i).size(); j++) {
+				for (int k = 0; k < timetable.get(i).get(j).size(); k++) {
+					Lesson lesson = timetable.get(i).get(j).get(k);
+
+					if (lesson != null) {
+						Integer lessonNum = lessonNums.get(lesson);
+						if (lessonNum == null) {
+							lessonNum = lessons.size();
+							lessonNums.put(lesson, lessonNum);
+							lessons.add(lesson);
+						}
+						int[] period = { i, j, k, lessonNum };
+						periods.add(period);
+					}
+				}
+			}
+		}
+
+		out.writeShort(lessons.size());
+		for (int i = 0; i < lessons.size(); i++) {
+			writeLesson(out, lessons.get(i));
+		}
+		out.writeShort(periods.size());
+		for (int i = 0; i < periods.size(); i++) {
+			out.writeByte(periods.get(i)[0]);
+			out.writeByte(periods.get(i)[1]);
+			out.writeByte(periods.get(i)[2]);
+			out.writeShort(periods.get(i)[3]);
+		}
+	}
+
+	/**
+	 * Reads a Schedule written by writeSchedule. A lesson taking many periods is read once
+	 * and shared by those periods, as it was when written.
+	 * @param in The stream to read from.
+	 * @return the Schedule, or null.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static Schedule readSchedule(DataInput in) throws IOException {
+		byte kind = in.readByte();
+		if (kind == 0) {
+			return null;
+		}
+		Schedule schedule = new Schedule();
+		if (kind == 1) {
+			return schedule;
+		}
+
+		int numOfDays = in.readUnsignedByte();
+		int numOfPeriods = in.readUnsignedByte();
+		ArrayList<ArrayList<ArrayList<Lesson>>> timetable = new ArrayList<ArrayList<ArrayList<Lesson>>>();
+		for (int i = 0; i < numOfDays; i++) {
+			ArrayList<ArrayList<Lesson>> periodList = new ArrayList<ArrayList<Lesson>>();
+			for (int j = 0; j < numOfPeriods; j++) {
+				ArrayList<Lesson> periodItem = new ArrayList<Lesson>();
+				periodItem.add(null);
+				periodItem.add(null);
+				periodList.add(periodItem);
+			}
+			timetable.add(periodList);
+		}
+
+		int numOfLessons = in.readUnsignedShort();
+		Lesson[] lessons = new Lesson[numOfLessons];
+		for (int i = 0; i < numOfLessons; i++) {
+			lessons[i] = readLesson(in);
+		}
+		int numOfTakenPeriods = in.readUnsignedShort();
+		for (int i = 0; i < numOfTakenPeriods; i++) {
+			int day = in.readUnsignedByte();
+			int period = in.readUnsignedByte();
+			int slot = in.readUnsignedByte();
+			timetable.get(day).get(period).set(slot, lessons[in.readUnsignedShort()]);
+		}
+		schedule.setScheduleTimetable(timetable);
+		return schedule;
+	}
+
+	/**
+	 * Writes a Calendar as its time and time zone.
+	 * @param out The stream to write to.
+	 * @param calendar The Calendar to write, or null.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeCalendar(DataOutput out, Calendar calendar) throws IOException {
+		out.writeBoolean(calendar != null);
+		if (calendar != null) {
+			out.writeLong(calendar.getTimeInMillis());
+			out.writeUTF(calendar.getTimeZone().getID());
+		}
+	}
+
+	/**
+	 * Reads a Calendar written by writeCalendar.
+	 * @param in The stream to read from.
+	 * @return the Calendar, or null.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static Calendar readCalendar(DataInput in) throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		long timeInMillis = in.readLong();
+		Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone(in.readUTF()));
+		calendar.setTimeInMillis(timeInMillis);
+		return calendar;
+	}
+
+	/**
+	 * Writes a String that may be null.
+	 * @param out The stream to write to.
+	 * @param s The String to write, or null.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeString(DataOutput out, String s) throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null) {
+			out.writeUTF(s);
+		}
+	}
+
+	/**
+	 * Reads a String written by writeString.
+	 * @param in The stream to read from.
+	 * @return the String, or null.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static String readString(DataInput in) throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		return in.readUTF();
+	}
+
+	/**
+	 * Writes an Integer that may be null.
+	 * @param out The stream to write to.
+	 * @param i The Integer to write, or null.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeInteger(DataOutput out, Integer i) throws IOException {
+		out.writeInt(i == null ? NULL_INT : i.intValue());
+	}
+
+	/**
+	 * Reads an Integer written by writeInteger.
+	 * @param in The stream to read from.
+	 * @return the Integer, or null.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static Integer readInteger(DataInput in) throws IOException {
+		int i = in.readInt();
+		return i == NULL_INT ? null : Integer.valueOf(i);
+	}
+
+	/**
+	 * Writes a list of Strings that may be null.
+	 * @param out The stream to write to.
+	 * @param list The list to write, or null.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeStringList(DataOutput out, List<String> list) throws IOException {
+		if (list == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(list.size());
+		for (int i = 0; i < list.size(); i++) {
+			writeString(out, list.get(i));
+		}
+	}
+
+	/**
+	 * Reads a list of Strings written by writeStringList.
+	 * @param in The stream to read from.
+	 * @return the list, or null.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static ArrayList<String> readStringList(DataInput in) throws IOException {
+		int size = in.readInt();
+		if (size < 0) {
+			return null;
+		}
+		ArrayList<String> list = new ArrayList<String>(size);
+		for (int i = 0; i < size; i++) {
+			list.add(readString(in));
+		}
+		return list;
+	}
+
+	/**
+	 * Writes a list of Integers that may be null.
+	 * @param out The stream to write to.
+	 * @param list The list to write, or null.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private static void writeIntegerList(DataOutput out, List<Integer> list) throws IOException {
+		if (list == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(list.size());
+		for (int i = 0; i < list.size(); i++) {
+			writeInteger(out, list.get(i));
+		}
+	}
+
+	/**
+	 * Reads a list of Integers written by writeIntegerList.
+	 * @param in The stream to read from.
+	 * @return the list, or null.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	private static ArrayList<Integer> readIntegerList(DataInput in) throws IOException {
+		int size = in.readInt();
+		if (size < 0) {
+			return null;
+		}
+		ArrayList<Integer> list = new ArrayList<Integer>(size);
+		for (int i = 0; i < size; i++) {
+			list.add(readInteger(in));
+		}
+		return list;
+	}
+}
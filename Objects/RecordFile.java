@@ -0,0 +1,176 @@
+/**
+ * Reads and writes the database files.
+ * Files are written in the binary format of RecordCodec. Files still written with
+ * Java serialization are detected by their first bytes and read as before,
+ * so existing database files keep working until they are next written or converted.
+ * Writing a whole file deletes the index RecordStore keeps for it, which no longer matches.
+ * @author Lim Boon Leng
+ * @version 1.1
+ * @since 2017-04-17
+ */
+
+package Objects;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RecordFile {
+	/**
+	 * The first two bytes of a stream written with Java serialization.
+	 */
+	private static final int SERIALIZATION_MAGIC = 0xACED;
+
+	/**
+	 * Reads every record of a database file, in either format.
+	 * @param fileName The path of the database file.
+	 * @param recordType The type of the records in the file, from RecordCodec.
+	 * @return list of records, or null if the file cannot be read.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static List read(String fileName, byte recordType) {
+		List records = null;
+		DataInputStream in = null;
+
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
+			in.mark(4);
+			int magic = in.readInt();
+
+			if ((magic >>> 16) == SERIALIZATION_MAGIC) {
+				in.reset();
+				ObjectInputStream objectIn = new ObjectInputStream(in);
+				records = (ArrayList) objectIn.readObject();
+			} else if (magic == RecordCodec.MAGIC) {
+				int version = RecordCodec.readVersion(in, recordType);
+				int numOfSlots = in.readInt();
+				records = new ArrayList(numOfSlots);
+
+				for (int i = 0; i < numOfSlots; i++) {
+					int capacity = version == 1 ? -1 : in.readInt();
+					int length = in.readInt();
+
+					if (length != RecordCodec.FREE_SLOT) {
+						byte[] bytes = new byte[length];
+						in.readFully(bytes);
+						records.add(RecordCodec.decode(recordType, bytes));
+					}
+					if (capacity > 0) {
+						in.skipBytes(capacity - Math.max(length, 0));
+					}
+				}
+			} else {
+				throw new IOException(fileName + " is not a database file");
+			}
+		} catch (IOException ex) {
+			ex.printStackTrace();
+			records = null;
+		} catch (ClassNotFoundException ex) {
+			ex.printStackTrace();
+			records = null;
+		} finally {
+			close(in);
+		}
+		return records;
+	}
+
+	/**
+	 * Writes records to a temporary file in the binary format, syncs it to disk and
+	 * renames it over the database file, so a crash leaves either the old or the new database file.
+	 * @param fileName The path of the database file.
+	 * @param recordType The type of the records, from RecordCodec.
+	 * @param list The records to write.
+	 * @return write success failure boolean.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static boolean write(String fileName, byte recordType, List list) {
+		return write(fileName, recordType, list, false);
+	}
+
+	/**
+	 * Writes records to a database file with Java serialization, as before the binary format.
+	 * Used by ConverterAppUI to go back to the old format.
+	 * @param fileName The path of the database file.
+	 * @param list The records to write.
+	 * @return write success failure boolean.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static boolean writeSerialized(String fileName, List list) {
+		return write(fileName, (byte) 0, list, true);
+	}
+
+	/**
+	 * Writes records to a temporary file, syncs it to disk and renames it over the database file.
+	 * @param fileName The path of the database file.
+	 * @param recordType The type of the records, from RecordCodec.
+	 * @param list The records to write.
+	 * @param serialized Whether to write with Java serialization instead of the binary format.
+	 * @return write success failure boolean.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static boolean write(String fileName, byte recordType, List list, boolean serialized) {
+		boolean success = false;
+		FileOutputStream fos = null;
+		OutputStream out = null;
+
+		try {
+			fos = new FileOutputStream(fileName + ".tmp");
+
+			if (serialized) {
+				ObjectOutputStream objectOut = new ObjectOutputStream(new BufferedOutputStream(fos));
+				out = objectOut;
+				objectOut.writeObject(new ArrayList(list));
+			} else {
+				DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(fos));
+				out = dataOut;
+				RecordCodec.writeHeader(dataOut, recordType, list.size());
+
+				for (int i = 0; i < list.size(); i++) {
+					byte[] bytes = RecordCodec.encode(list.get(i));
+					dataOut.writeInt(bytes.length);
+					dataOut.writeInt(bytes.length);
+					dataOut.write(bytes);
+				}
+			}
+			out.flush();
+			fos.getFD().sync();
+			out.close();
+			out = null;
+			Files.move(Paths.get(fileName + ".tmp"), Paths.get(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			Files.deleteIfExists(Paths.get(RecordStore.getIndexFileName(fileName)));
+			success = true;
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		} finally {
+			close(out != null ? out : fos);
+		}
+		return success;
+	}
+
+	/**
+	 * Closes a stream, ignoring a null stream.
+	 * @param stream The stream to close.
+	 */
+	private static void close(Closeable stream) {
+		try {
+			if (stream != null) {
+				stream.close();
+			}
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,438 @@
+/**
+ * Represents a database file whose records can be read and written one at a time.
+ * An index file next to the database file keeps the position of every record,
+ * so a record is read with one positioned read of its slot and written back with one
+ * positioned write, however many records the file holds. A record that has grown past
+ * its slot is moved to a new slot at the end of the file and its old slot is freed.
+ * The index file is rebuilt from the slots of the database file if it is missing or out of date.
+ * @author Lim Boon Leng
+ * @version 1.0
+ * @since 2017-04-17
+ */
+
+package Objects;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RecordStore {
+	/**
+	 * The first four bytes of an index file, "STIX".
+	 */
+	private static final int INDEX_MAGIC = 0x53544958;
+
+	/**
+	 * The size of the capacity and length before the fields of every slot, in bytes.
+	 */
+	private static final int SLOT_HEADER_SIZE = 8;
+
+	/**
+	 * The path of the database file.
+	 */
+	private final String fileName;
+
+	/**
+	 * The type of the records in the database file, from RecordCodec.
+	 */
+	private final byte recordType;
+
+	/**
+	 * The open database file, or null if the store is not open.
+	 */
+	private FileChannel channel;
+
+	/**
+	 * The slot of every record, keyed by the ID of the record, in file order.
+	 */
+	private Map<Object, Slot> slots = new LinkedHashMap<Object, Slot>();
+
+	/**
+	 * The number of slots in the database file, including freed slots.
+	 */
+	private int numOfSlots;
+
+	/**
+	 * Whether slots have been added or moved since the index file was last written.
+	 */
+	private boolean indexChanged;
+
+	/**
+	 * Represents the position of a record in the database file.
+	 */
+	private static class Slot {
+		/**
+		 * The position of the slot in the database file.
+		 */
+		final long position;
+
+		/**
+		 * The number of bytes the slot can hold, not counting its capacity and length.
+		 */
+		final int capacity;
+
+		/**
+		 * Creates a new Slot.
+		 * @param position The position of the slot in the database file.
+		 * @param capacity The number of bytes the slot can hold.
+		 */
+		Slot(long position, int capacity) {
+			this.position = position;
+			this.capacity = capacity;
+		}
+	}
+
+	/**
+	 * Creates a new RecordStore for the given database file. The store must be opened before use.
+	 * @param fileName The path of the database file.
+	 * @param recordType The type of the records in the database file, from RecordCodec.
+	 */
+	public RecordStore(String fileName, byte recordType) {
+		this.fileName = fileName;
+		this.recordType = recordType;
+	}
+
+	/**
+	 * Gets the path of the index file kept for a database file.
+	 * @param fileName The path of the database file.
+	 * @return the path of the index file.
+	 */
+	public static String getIndexFileName(String fileName) {
+		if (fileName.endsWith(".dat")) {
+			return fileName.substring(0, fileName.length() - 4) + ".idx";
+		}
+		return fileName + ".idx";
+	}
+
+	/**
+	 * Opens the database file and reads its index, rebuilding the index if it is out of date.
+	 * A database file in an older format is first rewritten in the current format.
+	 * @return open success failure boolean.
+	 */
+	@SuppressWarnings("rawtypes")
+	public synchronized boolean open() {
+		close();
+
+		try {
+			if (readFileVersion() != RecordCodec.VERSION) {
+				List records = RecordFile.read(fileName, recordType);
+
+				if (records == null || !RecordFile.write(fileName, recordType, records)) {
+					return false;
+				}
+			}
+
+			channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ, StandardOpenOption.WRITE);
+			numOfSlots = readInt(RecordCodec.NUM_OF_SLOTS_POSITION);
+
+			if (!readIndex()) {
+				rebuildIndex();
+				writeIndex();
+			}
+			return true;
+		} catch (IOException ex) {
+			ex.printStackTrace();
+			close();
+			return false;
+		}
+	}
+
+	/**
+	 * Closes the database file.
+	 */
+	public synchronized void close() {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+			channel = null;
+		}
+	}
+
+	/**
+	 * Checks if the database file is open.
+	 * @return boolean (true / false)
+	 */
+	public synchronized boolean isOpen() {
+		return channel != null;
+	}
+
+	/**
+	 * Checks if a record with the given ID is in the database file.
+	 * @param key The ID of the record.
+	 * @return boolean (true / false)
+	 */
+	public synchronized boolean contains(Object key) {
+		return slots.containsKey(key);
+	}
+
+	/**
+	 * Gets the IDs of the records in the database file, in file order.
+	 * @return a new list of the IDs.
+	 */
+	public synchronized List<Object> getKeys() {
+		return new ArrayList<Object>(slots.keySet());
+	}
+
+	/**
+	 * Reads one record with a single positioned read of its slot.
+	 * @param key The ID of the record.
+	 * @return the record, or null if there is none.
+	 * @throws IOException if the database file cannot be read.
+	 */
+	public synchronized Object read(Object key) throws IOException {
+		Slot slot = slots.get(key);
+		if (slot == null) {
+			return null;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(SLOT_HEADER_SIZE + slot.capacity);
+		readFully(buffer, slot.position);
+		buffer.getInt();
+		int length = buffer.getInt();
+		if (length == RecordCodec.FREE_SLOT) {
+			return null;
+		}
+
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return RecordCodec.decode(recordType, bytes);
+	}
+
+	/**
+	 * Writes one record, in place if it fits its slot, or in a new slot at the end of the file.
+	 * The write is not synced to disk until sync() is called.
+	 * @param key The ID of the record.
+	 * @param record The record to write.
+	 * @throws IOException if the database file cannot be written.
+	 */
+	public synchronized void write(Object key, Object record) throws IOException {
+		byte[] bytes = RecordCodec.encode(record);
+		Slot slot = slots.get(key);
+
+		if (slot != null && bytes.length <= slot.capacity) {
+			ByteBuffer buffer = ByteBuffer.allocate(4 + bytes.length);
+			buffer.putInt(bytes.length);
+			buffer.put(bytes);
+			buffer.flip();
+			writeFully(buffer, slot.position + 4);
+			return;
+		}
+
+		Slot newSlot = new Slot(channel.size(), bytes.length + bytes.length / 4);
+		ByteBuffer buffer = ByteBuffer.allocate(SLOT_HEADER_SIZE + newSlot.capacity);
+		buffer.putInt(newSlot.capacity);
+		buffer.putInt(bytes.length);
+		buffer.put(bytes);
+		buffer.rewind();
+		writeFully(buffer, newSlot.position);
+		numOfSlots++;
+		writeInt(RecordCodec.NUM_OF_SLOTS_POSITION, numOfSlots);
+
+		if (slot != null) {
+			writeInt(slot.position + 4, RecordCodec.FREE_SLOT);
+		}
+		slots.put(key, newSlot);
+		indexChanged = true;
+	}
+
+	/**
+	 * Syncs the writes made since the last sync to disk, then writes the index file if slots have changed.
+	 * @throws IOException if the database file or index file cannot be written.
+	 */
+	public synchronized void sync() throws IOException {
+		channel.force(false);
+
+		if (indexChanged) {
+			writeIndex();
+		}
+	}
+
+	/**
+	 * Reads the version of the database file without opening it for writing.
+	 * @return the version of the database file, or 0 if it is not in the binary format.
+	 * @throws IOException if the database file cannot be read.
+	 */
+	private int readFileVersion() throws IOException {
+		DataInputStream in = new DataInputStream(new FileInputStream(fileName));
+
+		try {
+			if (in.readInt() != RecordCodec.MAGIC) {
+				return 0;
+			}
+			return RecordCodec.readVersion(in, recordType);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads the index file, if it matches the database file.
+	 * @return whether the index file was read.
+	 */
+	private boolean readIndex() {
+		File indexFile = new File(getIndexFileName(fileName));
+		if (!indexFile.exists()) {
+			return false;
+		}
+
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+
+			if (in.readInt() != INDEX_MAGIC || in.readLong() != channel.size() || in.readInt() != numOfSlots) {
+				return false;
+			}
+
+			int numOfRecords = in.readInt();
+			Map<Object, Slot> indexSlots = new LinkedHashMap<Object, Slot>();
+			for (int i = 0; i < numOfRecords; i++) {
+				Object key = RecordCodec.readKey(in, recordType);
+				indexSlots.put(key, new Slot(in.readLong(), in.readInt()));
+			}
+			slots = indexSlots;
+			indexChanged = false;
+			return true;
+		} catch (IOException ex) {
+			return false;
+		} finally {
+			try {
+				if (in != null) {
+					in.close();
+				}
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Rebuilds the index by reading the capacity, length and ID at the start of every slot.
+	 * A record found in more than one slot is kept in the last one, which is the newest.
+	 * @throws IOException if the database file cannot be read.
+	 */
+	private void rebuildIndex() throws IOException {
+		Map<Object, Slot> indexSlots = new LinkedHashMap<Object, Slot>();
+		long position = RecordCodec.HEADER_SIZE;
+
+		for (int i = 0; i < numOfSlots; i++) {
+			ByteBuffer slotHeader = ByteBuffer.allocate(SLOT_HEADER_SIZE);
+			readFully(slotHeader, position);
+			int capacity = slotHeader.getInt();
+			int length = slotHeader.getInt();
+
+			if (length != RecordCodec.FREE_SLOT) {
+				ByteBuffer bytes = ByteBuffer.allocate(Math.min(length, 1024));
+				readFully(bytes, position + SLOT_HEADER_SIZE);
+				Object key = RecordCodec.readKey(new DataInputStream(new ByteArrayInputStream(bytes.array())), recordType);
+				indexSlots.remove(key);
+				indexSlots.put(key, new Slot(position, capacity));
+			}
+			position += SLOT_HEADER_SIZE + capacity;
+		}
+		slots = indexSlots;
+	}
+
+	/**
+	 * Writes the index file to a temporary file, syncs it to disk and renames it over the index file.
+	 * @throws IOException if the index file cannot be written.
+	 */
+	private void writeIndex() throws IOException {
+		String indexFileName = getIndexFileName(fileName);
+		FileOutputStream fos = new FileOutputStream(indexFileName + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+
+		try {
+			out.writeInt(INDEX_MAGIC);
+			out.writeLong(channel.size());
+			out.writeInt(numOfSlots);
+			out.writeInt(slots.size());
+
+			Iterator<Map.Entry<Object, Slot>> it = slots.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<Object, Slot> entry = it.next();
+				RecordCodec.writeKey(out, recordType, entry.getKey());
+				out.writeLong(entry.getValue().position);
+				out.writeInt(entry.getValue().capacity);
+			}
+			out.flush();
+			fos.getFD().sync();
+		} finally {
+			out.close();
+		}
+		Files.move(Paths.get(indexFileName + ".tmp"), Paths.get(indexFileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		indexChanged = false;
+	}
+
+	/**
+	 * Reads an int from the database file.
+	 * @param position The position of the int.
+	 * @return the int.
+	 * @throws IOException if the database file cannot be read.
+	 */
+	private int readInt(long position) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4);
+		readFully(buffer, position);
+		return buffer.getInt();
+	}
+
+	/**
+	 * Writes an int to the database file.
+	 * @param position The position of the int.
+	 * @param i The int to write.
+	 * @throws IOException if the database file cannot be written.
+	 */
+	private void writeInt(long position, int i) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(4);
+		buffer.putInt(i);
+		buffer.flip();
+		writeFully(buffer, position);
+	}
+
+	/**
+	 * Fills a buffer from the database file, then rewinds it for reading.
+	 * @param buffer The buffer to fill.
+	 * @param position The position to read from.
+	 * @throws IOException if the database file cannot be read or ends too early.
+	 */
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int numOfBytes = channel.read(buffer, position + buffer.position());
+			if (numOfBytes < 0) {
+				throw new IOException(fileName + " ends in the middle of a record");
+			}
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Writes all of a buffer to the database file.
+	 * @param buffer The buffer to write.
+	 * @param position The position to write to.
+	 * @throws IOException if the database file cannot be written.
+	 */
+	private void writeFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, position + buffer.position());
+		}
+	}
+}
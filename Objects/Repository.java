@@ -0,0 +1,602 @@
+/**
+ * Represents an in-memory copy of one database file, keyed by the ID of its records.
+ * The database file is read once and every lookup afterwards is served from memory.
+ * Changed records are logged through a Transaction and folded back into the database file by compact(),
+ * which writes the state of each record as of the version committed when it started, so it does not wait
+ * for open transactions.
+ * Every committed state of a record is also kept in its bytes, tagged with the version of the Transaction
+ * that committed it, so a Snapshot can read the records as of one version without locking.
+ * The bytes are turned back into a copy of the record the first time a Snapshot reads them,
+ * since most states are replaced before any Snapshot reads them.
+ * Copies older than every open Snapshot are dropped when the record is next committed.
+ * The IDs of the records changed since the oldest open Snapshot are kept as well, so a Snapshot looking up records
+ * through a secondary index, which is always up to date, also finds those the index no longer lists.
+ * @author Lim Boon Leng
+ * @version 1.4
+ * @since 2017-04-14
+ */
+
+package Objects;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import Interface.FileIOInterface;
+
+public abstract class Repository<K, V> {
+	/**
+	 * The entity that reads and writes the database file of this repository.
+	 */
+	private final FileIOInterface database;
+
+	/**
+	 * The name of the database, used to tag its records in the journal.
+	 */
+	private final String name;
+
+	/**
+	 * The records of the database file keyed by their ID, kept in file order.
+	 */
+	private Map<K, V> records;
+
+	/**
+	 * Whether records have been committed since the last compaction started.
+	 */
+	private boolean dirty;
+
+	/**
+	 * Whether records committed before the compaction started are still to be written to the database file.
+	 */
+	private boolean compacting;
+
+	/**
+	 * The committed copies of each record in memory, newest first, keyed by their ID in ID order.
+	 * Read by snapshots without locking, and changed only while holding Database.LOCK or,
+	 * for a record read into memory for the first time, the lock of this repository.
+	 */
+	private final ConcurrentSkipListMap<K, Version> versions = new ConcurrentSkipListMap<K, Version>();
+
+	/**
+	 * The IDs of the records committed by each version newer than the oldest open Snapshot, keyed by version.
+	 */
+	private final ConcurrentSkipListMap<Long, ConcurrentLinkedQueue<K>> committedKeys = new ConcurrentSkipListMap<Long, ConcurrentLinkedQueue<K>>();
+
+	/**
+	 * The IDs of the records put by a Transaction that has not ended yet, with the number of puts not ended,
+	 * so a Transaction ending does not clear the mark of another that put the same record.
+	 */
+	private final ConcurrentHashMap<K, Integer> uncommittedKeys = new ConcurrentHashMap<K, Integer>();
+
+	/**
+	 * Represents one committed copy of a record.
+	 */
+	private static class Version {
+		/**
+		 * The version of the Transaction that committed the copy, or 0 if it was read from the database file.
+		 */
+		final long number;
+
+		/**
+		 * The type of the record, from RecordCodec.
+		 */
+		final byte recordType;
+
+		/**
+		 * The record in the binary format of RecordCodec.
+		 */
+		final byte[] bytes;
+
+		/**
+		 * The copy of the record read from the bytes, which is never changed, or null if it has not been read yet.
+		 */
+		volatile Object record;
+
+		/**
+		 * The copy committed before this one, or null if it has been dropped.
+		 */
+		volatile Version older;
+
+		/**
+		 * Creates a new Version.
+		 * @param number The version of the Transaction that committed the copy.
+		 * @param recordType The type of the record, from RecordCodec.
+		 * @param bytes The record in the binary format of RecordCodec.
+		 * @param older The copy committed before this one, or null.
+		 */
+		Version(long number, byte recordType, byte[] bytes, Version older) {
+			this.number = number;
+			this.recordType = recordType;
+			this.bytes = bytes;
+			this.older = older;
+		}
+	}
+
+	/**
+	 * Creates a new Repository backed by the given database file.
+	 * @param database The entity that reads and writes the database file.
+	 * @param name The name of the database, used to tag its records in the journal.
+	 */
+	public Repository(FileIOInterface database, String name) {
+		this.database = database;
+		this.name = name;
+	}
+
+	/**
+	 * Gets the ID that a record is stored under.
+	 * @param record The record to get the ID of.
+	 * @return the ID of the record.
+	 */
+	protected abstract K getKey(V record);
+
+	/**
+	 * Clears any secondary index of this repository before the database file is loaded.
+	 */
+	protected void clearIndexes() {
+	}
+
+	/**
+	 * Updates any secondary index of this repository after a record is loaded or put.
+	 * @param record The record that was loaded or put.
+	 */
+	protected void indexRecord(V record) {
+	}
+
+	/**
+	 * Gets the name of the database of this repository.
+	 * @return the name of the database.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Reads the database file into memory, replacing any records already loaded.
+	 * Records logged in the journal are replayed afterwards by Database.loadAll().
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized void load() {
+		clear();
+		List<V> list = database.readSerializedObject();
+
+		if (list == null) {
+			System.out.println("Unable to read from file!");
+			return;
+		}
+
+		for (int i = 0; i < list.size(); i++) {
+			if (list.get(i) != null) {
+				records.put(getKey(list.get(i)), list.get(i));
+				indexRecord(list.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Empties the records in memory, before the database file is loaded.
+	 */
+	protected synchronized void clear() {
+		records = new LinkedHashMap<K, V>();
+		dirty = false;
+		compacting = false;
+		versions.clear();
+		clearIndexes();
+	}
+
+	/**
+	 * Prepares a copy of a record read from its committed bytes before a Snapshot reads it.
+	 * @param copy The copy.
+	 */
+	protected void prepareCopy(V copy) {
+	}
+
+	/**
+	 * Gets the copy of a committed record, reading it from its bytes the first time.
+	 * Two snapshots reading it at once may both read it, and either copy is kept.
+	 * @param version The committed record.
+	 * @return the copy, or null if the bytes cannot be read.
+	 */
+	@SuppressWarnings("unchecked")
+	private V copyOf(Version version) {
+		Object record = version.record;
+
+		if (record == null) {
+			try {
+				V copy = (V) RecordCodec.decode(version.recordType, version.bytes);
+				prepareCopy(copy);
+				version.record = copy;
+				record = copy;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return (V) record;
+	}
+
+	/**
+	 * Reads every record of the database file into memory, for repositories that read records on first use.
+	 * Called before a Snapshot lists every record.
+	 */
+	protected void loadAllRecords() {
+	}
+
+	/**
+	 * Replaces the committed copies with a copy of each record in memory, as version 0.
+	 * Called by Database.loadAll() once the journal has been replayed.
+	 */
+	synchronized void resetVersions() {
+		versions.clear();
+		committedKeys.clear();
+		uncommittedKeys.clear();
+		Iterator<V> it = records().values().iterator();
+
+		while (it.hasNext()) {
+			addVersion(it.next(), 0);
+		}
+	}
+
+	/**
+	 * Keeps a copy of a record read into memory for the first time as version 0, if there is none yet.
+	 * @param record The record read.
+	 */
+	protected void addFirstVersion(V record) {
+		if (!versions.containsKey(getKey(record))) {
+			addVersion(record, 0);
+		}
+	}
+
+	/**
+	 * Keeps a copy of a record as the newest committed copy.
+	 * Called by Transaction while holding Database.LOCK, before the version is published.
+	 * @param record The record committed.
+	 * @param number The version of the Transaction.
+	 */
+	void addVersion(Object record, long number) {
+		try {
+			addVersion(record, RecordCodec.typeOf(record), RecordCodec.encode(record), number);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Keeps a record already in its bytes as the newest committed copy.
+	 * Called by Transaction while holding Database.LOCK, before the version is published.
+	 * @param record The record committed.
+	 * @param recordType The type of the record, from RecordCodec.
+	 * @param bytes The record in the binary format of RecordCodec.
+	 * @param number The version of the Transaction.
+	 */
+	@SuppressWarnings("unchecked")
+	void addVersion(Object record, byte recordType, byte[] bytes, long number) {
+		K key = getKey((V) record);
+		versions.put(key, new Version(number, recordType, bytes, versions.get(key)));
+
+		if (number > 0) {
+			ConcurrentLinkedQueue<K> keys = committedKeys.get(number);
+			if (keys == null) {
+				keys = new ConcurrentLinkedQueue<K>();
+				committedKeys.put(number, keys);
+			}
+			keys.add(key);
+		}
+	}
+
+	/**
+	 * Reads a new copy of a record as committed as of a version from its bytes, to be written to the database file.
+	 * @param key The ID of the record.
+	 * @param number The version, read by an open Snapshot so its copies are kept.
+	 * @return the copy, or null if the record did not exist as of the version or is not in memory.
+	 * @throws IOException if the bytes cannot be read.
+	 */
+	@SuppressWarnings("unchecked")
+	V getCommitted(K key, long number) throws IOException {
+		Version version = versions.get(key);
+
+		while (version != null && version.number > number) {
+			version = version.older;
+		}
+		if (version == null) {
+			return null;
+		}
+		V copy = (V) RecordCodec.decode(version.recordType, version.bytes);
+		prepareCopy(copy);
+		return copy;
+	}
+
+	/**
+	 * Drops the copies of a record that no open Snapshot can read, keeping the newest one
+	 * no newer than the oldest version still read.
+	 * @param record The record committed.
+	 * @param oldestVersion The oldest version read by an open Snapshot, or the newest version if none is open.
+	 */
+	@SuppressWarnings("unchecked")
+	void dropVersions(Object record, long oldestVersion) {
+		Version version = versions.get(getKey((V) record));
+
+		while (version != null && version.number > oldestVersion) {
+			version = version.older;
+		}
+		if (version != null) {
+			version.older = null;
+		}
+		committedKeys.headMap(oldestVersion, true).clear();
+	}
+
+	/**
+	 * Retrieves the copy of a record committed as of a version, without locking.
+	 * @param key The ID of the record.
+	 * @param number The version.
+	 * @return the copy, which must not be changed, or null if the record did not exist or is not in memory yet.
+	 */
+	@SuppressWarnings("unchecked")
+	V getVersion(K key, long number) {
+		Version version = versions.get(key);
+
+		while (version != null && version.number > number) {
+			version = version.older;
+		}
+		return version == null ? null : copyOf(version);
+	}
+
+	/**
+	 * Gets the IDs of the records that may have changed after a version: those committed by a newer version,
+	 * and those put by a Transaction that has not committed yet.
+	 * @param number The version, no older than the oldest open Snapshot.
+	 * @return a new set of the IDs.
+	 */
+	Set<K> getKeysChangedAfter(long number) {
+		Set<K> keys = new HashSet<K>(uncommittedKeys.keySet());
+		Iterator<ConcurrentLinkedQueue<K>> it = committedKeys.tailMap(number, false).values().iterator();
+
+		while (it.hasNext()) {
+			keys.addAll(it.next());
+		}
+		return keys;
+	}
+
+	/**
+	 * Checks if a record has a committed copy, that is if it has been read into memory.
+	 * @param key The ID of the record.
+	 * @return boolean (true / false)
+	 */
+	boolean hasVersions(K key) {
+		return versions.containsKey(key);
+	}
+
+	/**
+	 * Retrieves the copies of every record committed as of a version, in ID order, without locking.
+	 * @param number The version.
+	 * @return a new list of the copies, which must not be changed.
+	 */
+	@SuppressWarnings("unchecked")
+	List<V> getAllVersions(long number) {
+		loadAllRecords();
+		List<V> list = new ArrayList<V>();
+		Iterator<Version> it = versions.values().iterator();
+
+		while (it.hasNext()) {
+			Version version = it.next();
+
+			while (version != null && version.number > number) {
+				version = version.older;
+			}
+			if (version != null) {
+				list.add(copyOf(version));
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Gets the loaded records, loading every database on first use.
+	 * @return the records keyed by their ID.
+	 */
+	protected Map<K, V> records() {
+		if (records == null) {
+			Database.loadAll();
+		}
+		return records;
+	}
+
+	/**
+	 * Retrieves the record stored under the given ID.
+	 * @param key The ID of the record.
+	 * @return the record, or null if there is none.
+	 */
+	public synchronized V get(K key) {
+		return records().get(key);
+	}
+
+	/**
+	 * Checks if a record is stored under the given ID.
+	 * @param key The ID of the record.
+	 * @return boolean (true / false)
+	 */
+	public synchronized boolean contains(K key) {
+		return records().containsKey(key);
+	}
+
+	/**
+	 * Retrieves all records, in file order.
+	 * @return a new list containing every record.
+	 */
+	public synchronized List<V> getAll() {
+		return new ArrayList<V>(records().values());
+	}
+
+	/**
+	 * Retrieves a copy of the record stored under the given ID, to be changed and then put,
+	 * so the record in memory is left as it was if the Transaction is aborted.
+	 * Inside a Transaction that has already put the record, the record put is returned instead,
+	 * since it is a copy of its own.
+	 * @param key The ID of the record.
+	 * @return the copy, or null if there is no record or it cannot be copied.
+	 */
+	@SuppressWarnings("unchecked")
+	public V getCopy(K key) {
+		V record = get(key);
+
+		if (record == null || Transaction.isPutByCurrent(record)) {
+			return record;
+		}
+
+		try {
+			return (V) RecordCodec.decode(RecordCodec.typeOf(record), RecordCodec.encode(record));
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Adds a record, or replaces the record with the same ID, and logs it in the journal.
+	 * Inside a Transaction the record is logged when the Transaction commits,
+	 * and put back as it was if the Transaction is aborted,
+	 * otherwise it is committed on its own.
+	 * @param record The record to add or replace.
+	 */
+	public void put(V record) {
+		K key = getKey(record);
+		V previous;
+
+		markUncommitted(key);
+		try {
+			previous = apply(record);
+		} catch (RuntimeException e) {
+			clearUncommitted(key);
+			throw e;
+		}
+		Transaction.log(this, record, previous);
+	}
+
+	/**
+	 * Marks a record as put by a Transaction that has not ended yet, before it is changed in memory,
+	 * so a Snapshot looking it up through a secondary index checks it.
+	 * @param key The ID of the record.
+	 */
+	private void markUncommitted(K key) {
+		synchronized (uncommittedKeys) {
+			Integer numOfPuts = uncommittedKeys.get(key);
+			uncommittedKeys.put(key, numOfPuts == null ? 1 : numOfPuts + 1);
+		}
+	}
+
+	/**
+	 * Clears one mark made by put(), once the Transaction that put the record has committed, failed or aborted.
+	 * Called by Transaction after the record is published, if it is.
+	 * @param key The ID of the record.
+	 */
+	@SuppressWarnings("unchecked")
+	void clearUncommitted(Object key) {
+		synchronized (uncommittedKeys) {
+			Integer numOfPuts = uncommittedKeys.get(key);
+
+			if (numOfPuts == null || numOfPuts <= 1) {
+				uncommittedKeys.remove(key);
+			} else {
+				uncommittedKeys.put((K) key, numOfPuts - 1);
+			}
+		}
+	}
+
+	/**
+	 * Adds a record, or replaces the record with the same ID, in memory only.
+	 * Used by put() and when the journal is replayed.
+	 * @param record The record to add or replace.
+	 * @return the record replaced, or null if there was none in memory.
+	 */
+	@SuppressWarnings("unchecked")
+	synchronized V apply(Object record) {
+		V previous = records().put(getKey((V) record), (V) record);
+		indexRecord((V) record);
+		return previous;
+	}
+
+	/**
+	 * Puts back the record a put() replaced, in memory only, when its Transaction is aborted.
+	 * @param key The ID of the record.
+	 * @param previous The record replaced, or null to remove the record put.
+	 */
+	synchronized void restore(K key, V previous) {
+		if (previous == null) {
+			discard(key);
+		} else {
+			apply(previous);
+		}
+	}
+
+	/**
+	 * Removes a record from memory only, when the Transaction that added it is aborted.
+	 * @param key The ID of the record.
+	 */
+	protected synchronized void discard(K key) {
+		records().remove(key);
+	}
+
+	/**
+	 * Marks a record as committed or replayed but not yet in the database file.
+	 * Called while holding Database.LOCK.
+	 * @param record The record.
+	 */
+	synchronized void markChanged(Object record) {
+		dirty = true;
+	}
+
+	/**
+	 * Takes the records marked as changed until now as those the next compact() writes.
+	 * Called by Database.compactAll() while holding Database.LOCK, as the journal is rotated.
+	 */
+	synchronized void startCompaction() {
+		compacting = compacting || dirty;
+		dirty = false;
+	}
+
+	/**
+	 * Writes every record as committed as of a version to the database file, in file order,
+	 * if a record was changed before the compaction started. Records put by a Transaction
+	 * that has not committed, or committed after the version, are written as they were as of the version.
+	 * Called by Database.compactAll() after the journal is rotated, without holding Database.LOCK.
+	 * @param number The version of the last Transaction committed when the journal was rotated.
+	 * @return write success failure boolean.
+	 */
+	boolean compact(long number) {
+		List<K> keys;
+
+		synchronized (this) {
+			if (!compacting) {
+				return true;
+			}
+			keys = new ArrayList<K>(records().keySet());
+		}
+
+		List<V> list = new ArrayList<V>();
+		try {
+			for (int i = 0; i < keys.size(); i++) {
+				V record = getCommitted(keys.get(i), number);
+				if (record != null) {
+					list.add(record);
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+
+		synchronized (this) {
+			if (!database.writeSerializedObject(list)) {
+				return false;
+			}
+			compacting = false;
+		}
+		return true;
+	}
+}
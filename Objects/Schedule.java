@@ -3,7 +3,7 @@
  * A schedule can be for 1 student only.
  * A student can have 1 schedule only.
  * @author Ang Poh Keong
- * @version 1.0
+ * @version 1.1
 	@since 2017-04-06
  */
 
@@ -21,6 +21,16 @@ public class Schedule implements Serializable {
      * A 3-Dimensional ArrayList containing information of individual student's schedule
      */
     private ArrayList<ArrayList<ArrayList<Lesson>>> scheduleTimetable;
+
+    /**
+     * The periods taken in odd weeks, one bitmask per day, rebuilt from scheduleTimetable on first use
+     */
+    private transient long[] oddWeekSlots;
+
+    /**
+     * The periods taken in even weeks, one bitmask per day, rebuilt from scheduleTimetable on first use
+     */
+    private transient long[] evenWeekSlots;
  
     /**
 	 * Creates a new Schedule with no attribute values
@@ -43,6 +53,42 @@ public class Schedule implements Serializable {
      */
     public void setScheduleTimetable(ArrayList<ArrayList<ArrayList<Lesson>>> scheduleTimetable) {
         this.scheduleTimetable = scheduleTimetable;
+        this.oddWeekSlots = null;
+        this.evenWeekSlots = null;
+    }
+
+    /**
+     * Build the bitmasks of the periods taken from scheduleTimetable, if not built yet
+     */
+    private void loadSlots() {
+        if (oddWeekSlots != null) {
+            return;
+        }
+
+        long[] oddWeek = new long[TimetableMask.NUM_OF_DAYS];
+        long[] evenWeek = new long[TimetableMask.NUM_OF_DAYS];
+
+        if (scheduleTimetable != null) {
+            for (int i = 0; i < scheduleTimetable.size() && i < TimetableMask.NUM_OF_DAYS; i++) {
+                ArrayList<ArrayList<Lesson>> periodList = scheduleTimetable.get(i);
+
+                for (int j = 0; j < periodList.size() && j < TimetableMask.NUM_OF_PERIODS; j++) {
+                    Lesson weekly = periodList.get(j).get(0);
+
+                    if (weekly != null) {
+                        oddWeek[i] |= 1L << j;
+                        if (weekly.getRemark() == null) {
+                            evenWeek[i] |= 1L << j;
+                        }
+                    }
+                    if (periodList.get(j).get(1) != null) {
+                        evenWeek[i] |= 1L << j;
+                    }
+                }
+            }
+        }
+        evenWeekSlots = evenWeek;
+        oddWeekSlots = oddWeek;
     }
  
    /**
@@ -57,56 +103,10 @@ public class Schedule implements Serializable {
 		IndexGroup indexGrp = new IndexGroup();
 		indexGrp = indexGrp.retrieveIndexGroupObject(indexGrpID);
 		boolean clashStatus = false;
-		ArrayList<Lesson> lesson = indexGrp.getLessonList();
 
 		if (scheduleTimetable != null) {
-			for (int i = 0; i < lesson.size(); i++) {
-				Lesson l1 = lesson.get(i);
-
-				if (!(l1.getLessonType().equals("ONLINE MOD"))) {
-
-					ArrayList<ArrayList<Lesson>> periodList = scheduleTimetable.get((Lesson.convertLessonDayToInt(l1.getLessonDay())) - 1);
-					ArrayList<Integer> listOfPeriod = convertTimeToPeriod(l1.getStartTime(), l1.getEndTime());
-
-					for (int j = 0; j < listOfPeriod.size(); j++) {
-
-						ArrayList<Lesson> period = periodList.get(listOfPeriod.get(j));
-
-						if (l1.getRemark() == null) {
-							if (period.get(0) != null) {
-								clashStatus = true;
-								break;
-							}
-						}
-						else if (l1.getRemark().equals("ODD")) {
-							if (period.get(0) != null) {
-								clashStatus = true;
-								break;
-							}
-							else if (l1.getRemark().equals("EVEN")) {
-								if (period.get(0) != null) {
-									if (period.get(0).getRemark() == null) {
-										clashStatus = true;
-										break;
-									} else if (period.get(1) != null) {
-										clashStatus = true;
-										break;
-									}
-								}
-								else {
-									if (period.get(1) != null) {
-										clashStatus = true;
-										break;
-									}
-								}
-
-							}
-
-						}
-					}
-				}
-			}
-
+			loadSlots();
+			clashStatus = indexGrp.getTimetableMask().clashesWith(oddWeekSlots, evenWeekSlots);
 		}
 		if (scheduleTimetable == null) {
 			createDefaultTSchedule();
@@ -124,52 +124,11 @@ public class Schedule implements Serializable {
 	public boolean checkScheduleClashSameCourse(Integer indexGrpID) {
 		IndexGroup indexGrp = new IndexGroup();
 		indexGrp = indexGrp.retrieveIndexGroupObject(indexGrpID);
-
 		boolean clashStatus = false;
-		ArrayList<Lesson> lesson = indexGrp.getLessonList();
 
 		if (scheduleTimetable != null) {
-			for (int i = 0; i < lesson.size(); i++) {
-				Lesson l1 = lesson.get(i);
-				if (!(l1.getLessonType().equals("LEC/STUDIO")) && !(l1.getLessonType().equals("ONLINE MOD"))) {
-					ArrayList<ArrayList<Lesson>> periodList = scheduleTimetable.get((Lesson.convertLessonDayToInt(l1.getLessonDay())) - 1);
-					ArrayList<Integer> listOfPeriod = convertTimeToPeriod(l1.getStartTime(), l1.getEndTime());
-					for (int j = 0; j < listOfPeriod.size(); j++) {
-
-						ArrayList<Lesson> period = periodList.get(listOfPeriod.get(j));
-
-						if (l1.getRemark() == null) {
-							if (period.get(0) != null) {
-								clashStatus = true;
-								break;
-							}
-						}
-						else if (l1.getRemark().equals("ODD")) {
-							if (period.get(0) != null) {
-								clashStatus = true;
-								break;
-							}
-							else if (l1.getRemark().equals("EVEN")) {
-								if (period.get(0) != null) {
-									if (period.get(0).getRemark() == null) {
-										clashStatus = true;
-										break;
-									} else if (period.get(1) != null) {
-										clashStatus = true;
-										break;
-									}
-								}
-								else {
-									if (period.get(1) != null) {
-										clashStatus = true;
-										break;
-									}
-								}
-							}
-						}
-					}
-				}
-			}
+			loadSlots();
+			clashStatus = indexGrp.getTimetableMaskWithoutLectures().clashesWith(oddWeekSlots, evenWeekSlots);
 		}
 		if (scheduleTimetable == null) {
 			createDefaultTSchedule();
@@ -183,6 +142,8 @@ public class Schedule implements Serializable {
         int day = 6;
         int period = 15;
         scheduleTimetable = new ArrayList<ArrayList<ArrayList<Lesson>>>();
+        oddWeekSlots = null;
+        evenWeekSlots = null;
  
         for (int i = 0; i < day; i++) {
             ArrayList<ArrayList<Lesson>> periodList = new ArrayList<ArrayList<Lesson>>();
@@ -198,76 +159,6 @@ public class Schedule implements Serializable {
         }
     }
  
-    /**
-     * Convert a lesson's time and duration to period format in a timetable
-     * @param startTime Starting time of a lesson
-     * @param endTime Ending time of a lesson
-     * @return ArrayList of Integer containing period of a lesson
-     */
-    public ArrayList<Integer> convertTimeToPeriod(String startTime, String endTime) {
-        ArrayList<Integer> tempList = new ArrayList<Integer>();
-        int startPeriod = 0;
-        int noOfHour = (Integer.parseInt(endTime) - Integer.parseInt(startTime)) / 100;
- 
-        switch (startTime) {
- 
-        case "0830":
-            startPeriod = 0;
-            break;
-        case "0930":
-            startPeriod = 1;
-            break;
-        case "1030":
-            startPeriod = 2;
-            break;
-        case "1130":
-            startPeriod = 3;
-            break;
-        case "1230":
-            startPeriod = 4;
-            break;
-        case "1330":
-            startPeriod = 5;
-            break;
-        case "1430":
-            startPeriod = 6;
-            break;
-        case "1530":
-            startPeriod = 7;
-            break;
-        case "1630":
-            startPeriod = 8;
-            break;
-        case "1730":
-            startPeriod = 9;
-            break;
-        case "1830":
-            startPeriod = 10;
-            break;
-        case "1930":
-            startPeriod = 11;
-            break;
-        case "2030":
-            startPeriod = 12;
-            break;
-        case "2130":
-            startPeriod = 13;
-            break;
-        case "2230":
-            startPeriod = 14;
-            break;
-        default:
-            break;
-        }
- 
-        for (int i = 0; i < noOfHour; i++) {
-            tempList.add(startPeriod);
-            startPeriod++;
-        }
- 
-        return tempList;
-    }
- 
     /**
      * Add a particular index group to a student's schedule
      * @param indexGrpID ID of an indexGroup
@@ -282,29 +173,12 @@ public class Schedule implements Serializable {
          
         IndexGroup indexGrp = new IndexGroup();
         indexGrp = indexGrp.retrieveIndexGroupObject(indexGrpID);
-        ArrayList<Lesson> lesson = indexGrp.getLessonList();
- 
-        for (int i = 0; i < lesson.size(); i++) {
-            Lesson l1 = lesson.get(i);
- 
-            if (!(l1.getLessonType().equals("ONLINE MOD"))) {
-                ArrayList<Integer> listOfPeriod = convertTimeToPeriod(l1.getStartTime(), l1.getEndTime());
- 
-                for (int j = 0; j < listOfPeriod.size(); j++) {
- 
-                    if (l1.getRemark() == null){
-                        scheduleTimetable.get((Lesson.convertLessonDayToInt(l1.getLessonDay())) - 1).get(listOfPeriod.get(j)).set(0, l1);
-                    }
-                    else if (l1.getRemark().equals("ODD")){
-                        scheduleTimetable.get((Lesson.convertLessonDayToInt(l1.getLessonDay())) - 1).get(listOfPeriod.get(j)).set(0, l1);
-                    }
-                    else if (l1.getRemark().equals("EVEN")){
-                        scheduleTimetable.get((Lesson.convertLessonDayToInt(l1.getLessonDay())) - 1).get(listOfPeriod.get(j)).set(1, l1);
-                    }
-                }
-            }
-            success = true;
-        }
+        TimetableMask mask = indexGrp.getTimetableMask();
+
+        loadSlots();
+        mask.addTo(oddWeekSlots, evenWeekSlots);
+        mask.placeIn(scheduleTimetable);
+        success = !indexGrp.getLessonList().isEmpty();
         return success;
     }
  
@@ -330,28 +204,12 @@ public class Schedule implements Serializable {
         boolean success = false;
         IndexGroup indexToRemove = new IndexGroup();
         indexToRemove = indexToRemove.retrieveIndexGroupObject(removeIndexID);
-        ArrayList<Lesson> lesson = indexToRemove.getLessonList();
- 
-        for (int i = 0; i < lesson.size(); i++) {
-            Lesson l1 = lesson.get(i);
+        TimetableMask mask = indexToRemove.getTimetableMask();
 
-            if (!(l1.getLessonType().equals("ONLINE MOD"))) {
-                ArrayList<Integer> listOfPeriod = convertTimeToPeriod(l1.getStartTime(), l1.getEndTime());
- 
-                for (int j = 0; j < listOfPeriod.size(); j++) {
-                    if (l1.getRemark() == null){
-                        scheduleTimetable.get((Lesson.convertLessonDayToInt(l1.getLessonDay())) - 1).get(listOfPeriod.get(j)).set(0, null);
-                    }
-                    else if (l1.getRemark().equals("ODD")){
-                        scheduleTimetable.get((Lesson.convertLessonDayToInt(l1.getLessonDay())) - 1).get(listOfPeriod.get(j)).set(0, null);
-                    }
-                    else if (l1.getRemark().equals("EVEN")){
-                        scheduleTimetable.get((Lesson.convertLessonDayToInt(l1.getLessonDay())) - 1).get(listOfPeriod.get(j)).set(1, null);
-                    }
-                }
-            }
-            success = true;
-        }
+        loadSlots();
+        mask.removeFrom(oddWeekSlots, evenWeekSlots);
+        mask.clearFrom(scheduleTimetable);
+        success = !indexToRemove.getLessonList().isEmpty();
         return success;
     }
     
@@ -0,0 +1,154 @@
+/**
+ * Represents a view of the records as of one committed version, taken by Database.snapshot().
+ * Every record read from a Snapshot is a copy as it was when that version was committed,
+ * so a long report sees one consistent state while registrations carry on, and neither waits for the other.
+ * The records read must not be changed or put, and the Snapshot must be closed once it is no longer read.
+ * @author Lim Boon Leng
+ * @version 1.0
+ * @since 2017-04-18
+ */
+
+package Objects;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class Snapshot {
+	/**
+	 * The version of the last Transaction committed when this Snapshot was taken.
+	 */
+	private final long version;
+
+	/**
+	 * Whether this Snapshot has been closed.
+	 */
+	private boolean closed;
+
+	/**
+	 * Creates a new Snapshot of the given version. Snapshots are taken by Database.snapshot().
+	 * @param version The version of the last Transaction committed.
+	 */
+	Snapshot(long version) {
+		this.version = version;
+	}
+
+	/**
+	* Gets the version of the last Transaction committed when this Snapshot was taken.
+	* @return the version.
+	*/
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	* Retrieves a Student as of this Snapshot, reading it from the store if it is not in memory yet.
+	* @param studentID The ID of the Student.
+	* @return the Student, or null if there was none.
+	*/
+	public Student getStudent(String studentID) {
+		if (!Database.students.hasVersions(studentID)) {
+			Database.students.get(studentID);
+		}
+		return Database.students.getVersion(studentID, version);
+	}
+
+	/**
+	* Retrieves an IndexGroup as of this Snapshot, with the number of students registered at the time.
+	* @param indexGroupID The ID of the IndexGroup.
+	* @return the IndexGroup, or null if there was none.
+	*/
+	public IndexGroup getIndexGroup(Integer indexGroupID) {
+		return Database.indexGroups.getVersion(indexGroupID, version);
+	}
+
+	/**
+	* Retrieves a Course as of this Snapshot.
+	* @param courseID The ID of the Course.
+	* @return the Course, or null if there was none.
+	*/
+	public Course getCourse(String courseID) {
+		return Database.courses.getVersion(courseID, version);
+	}
+
+	/**
+	* Retrieves a Waitlist as of this Snapshot.
+	* @param waitListID The ID of the Waitlist.
+	* @return the Waitlist, or null if there was none.
+	*/
+	public Waitlist getWaitlist(Integer waitListID) {
+		return Database.waitlists.getVersion(waitListID, version);
+	}
+
+	/**
+	* Retrieves every Student as of this Snapshot, in order of student ID.
+	* @return list of the Students.
+	*/
+	public List<Student> getAllStudents() {
+		return Database.students.getAllVersions(version);
+	}
+
+	/**
+	* Retrieves the Students registered in a course as of this Snapshot, in order of student ID.
+	* @param courseID The ID of the course.
+	* @return list of the Students in the course.
+	*/
+	public List<Student> getStudentsInCourse(String courseID) {
+		Iterator<String> it = findCandidates(Database.students.getStudentIDsByCourse(courseID)).iterator();
+		List<Student> students = new ArrayList<Student>();
+
+		while (it.hasNext()) {
+			Student student = Database.students.getVersion(it.next(), version);
+
+			if (student != null && student.getCourseList() != null && student.getCourseList().contains(courseID)) {
+				students.add(student);
+			}
+		}
+		return students;
+	}
+
+	/**
+	* Retrieves the Students registered in an index group as of this Snapshot, in order of student ID.
+	* @param indexGroupID The ID of the index group.
+	* @return list of the Students in the index group.
+	*/
+	public List<Student> getStudentsInIndexGroup(Integer indexGroupID) {
+		Iterator<String> it = findCandidates(Database.students.getStudentIDsByIndexGroup(indexGroupID)).iterator();
+		List<Student> students = new ArrayList<Student>();
+
+		while (it.hasNext()) {
+			Student student = Database.students.getVersion(it.next(), version);
+
+			if (student != null && student.getIndexGroupList() != null && student.getIndexGroupList().contains(indexGroupID)) {
+				students.add(student);
+			}
+		}
+		return students;
+	}
+
+	/**
+	* Finds the Students that may have been in a posting list as of this Snapshot: those in it now,
+	* and those changed since, who may have left it. Each of them must be checked against their copy as of this Snapshot.
+	* @param studentIDs The IDs of the Students in the posting list now.
+	* @return the IDs of the Students, in order of student ID.
+	*/
+	private Set<String> findCandidates(List<String> studentIDs) {
+		Set<String> candidateIDs = new TreeSet<String>(studentIDs);
+
+		candidateIDs.addAll(Database.students.getKeysChangedAfter(version));
+		return candidateIDs;
+	}
+
+	/**
+	* Closes this Snapshot, so the copies of records only it reads can be dropped.
+	* Does nothing if it is already closed.
+	*/
+	public synchronized void close() {
+		if (!closed) {
+			closed = true;
+			Database.closeSnapshot(version);
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * Represents a fixed set of locks shared by many keys, such as index group IDs and student IDs.
+ * Each key is guarded by one stripe, so changes to different index groups can run in parallel
+ * while changes to the same index group are serialized.
+ * Stripes are always locked in ascending order, so two sessions can never deadlock.
+ * @author Lim Boon Leng
+ * @version 1.0
+ * @since 2017-04-16
+ */
+
+package Objects;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class StripedLock {
+	/**
+	 * The locks that keys are spread over.
+	 */
+	private final ReentrantLock[] stripes;
+
+	/**
+	 * Represents the stripes held by one call to lock().
+	 */
+	public class Held {
+		/**
+		 * The indexes of the stripes held, in the order they were locked.
+		 */
+		private final int[] heldStripes;
+
+		/**
+		 * Creates a new Held for the given stripes.
+		 * @param heldStripes The indexes of the stripes held.
+		 */
+		private Held(int[] heldStripes) {
+			this.heldStripes = heldStripes;
+		}
+
+		/**
+		 * Unlocks the stripes, in the reverse order they were locked.
+		 */
+		public void unlock() {
+			for (int i = heldStripes.length - 1; i >= 0; i--) {
+				stripes[heldStripes[i]].unlock();
+			}
+		}
+	}
+
+	/**
+	 * Creates a new StripedLock with the given number of stripes.
+	 * @param numOfStripes The number of stripes.
+	 */
+	public StripedLock(int numOfStripes) {
+		stripes = new ReentrantLock[numOfStripes];
+		for (int i = 0; i < numOfStripes; i++) {
+			stripes[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Locks the stripes of the given keys. Null keys are ignored.
+	 * @param keys The keys to lock.
+	 * @return the stripes held, to be unlocked when the change is done.
+	 */
+	public Held lock(Object... keys) {
+		return lock(Arrays.asList(keys));
+	}
+
+	/**
+	 * Locks the stripes of the given keys. Null keys are ignored.
+	 * @param keys The keys to lock.
+	 * @return the stripes held, to be unlocked when the change is done.
+	 */
+	public Held lock(List<?> keys) {
+		boolean[] needed = new boolean[stripes.length];
+		int numOfNeeded = 0;
+
+		for (int i = 0; i < keys.size(); i++) {
+			if (keys.get(i) != null) {
+				int stripe = (keys.get(i).hashCode() & 0x7fffffff) % stripes.length;
+				if (!needed[stripe]) {
+					needed[stripe] = true;
+					numOfNeeded++;
+				}
+			}
+		}
+
+		int[] heldStripes = new int[numOfNeeded];
+		int j = 0;
+		for (int i = 0; i < stripes.length; i++) {
+			if (needed[i]) {
+				stripes[i].lock();
+				heldStripes[j++] = i;
+			}
+		}
+		return new Held(heldStripes);
+	}
+}
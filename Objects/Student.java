@@ -6,22 +6,18 @@ import java.util.InputMismatchException;
 import java.util.List;
 import java.util.Scanner;
 
-import Control.NotificationController;
+import Control.RegistrationEngine;
+import Control.RegistrationOutcome;
 import Interface.FileIOInterface;
 import Interface.LoginInterface;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 /**
  * This is a Student class which manages Student object.
  * 
  * @author Derrick
- * @version 1.2
+ * @version 1.3
  * @since 2017-04-12
  */
 public class Student implements Serializable, LoginInterface, FileIOInterface {
@@ -204,7 +200,8 @@ public class Student implements Serializable, LoginInterface, FileIOInterface {
 	}
 
 	/**
-	 * Student log in interface for the system
+	 * Student log in interface for the system. Checks the password against
+	 * Database.studentCredentials, reading the Student only if it has not been indexed yet.
 	 * 
 	 * @param studentID
 	 *            This Student's identification number.
@@ -212,23 +209,14 @@ public class Student implements Serializable, LoginInterface, FileIOInterface {
 	 *            This Student's hashed password.
 	 * @return log in validation of this Student.
 	 */
-	@SuppressWarnings("unchecked")
 	public boolean login(String studentID, String passwordHash) {
 		boolean success = false;
-		List<Student> studList = new ArrayList<Student>();
 
 		try {
-			studList = readSerializedObject();
-
-			for (int i = 0; i < studList.size(); i++) {
-				Student student1 = (Student) studList.get(i);
-
-				if (student1.getStudentID().equals(studentID)) {
-					if (student1.getPasswordHash().equals(passwordHash)) {
-						success = true;
-					}
-				}
+			if (!Database.studentCredentials.contains(studentID)) {
+				Database.students.get(studentID);
 			}
+			success = Database.studentCredentials.check(studentID, passwordHash);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -240,21 +228,8 @@ public class Student implements Serializable, LoginInterface, FileIOInterface {
 	 * 
 	 * @return list containing all Students.
 	 */
-	@SuppressWarnings("unchecked")
 	public List<Student> retrieveAllStudentObjects() {
-		List<Student> listOfStudents = new ArrayList<Student>();
-
-		try {
-			listOfStudents = readSerializedObject();
-
-			if (listOfStudents == null) {
-				System.out.println("Unable to read from file!");
-				throw new Exception();
-			}
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-		return listOfStudents;
+		return Database.students.getAll();
 	}
 
 	/**
@@ -266,17 +241,9 @@ public class Student implements Serializable, LoginInterface, FileIOInterface {
 	 */
 	public Student retrieveStudentObject(String studentID) {
 		Student studentToRetrieve = null;
-		Student student = new Student();
 
 		try {
-			List<Student> listOfStudents = student.retrieveAllStudentObjects();
-
-			for (int i = 0; i < listOfStudents.size(); i++) {
-				if (listOfStudents.get(i).getStudentID().equals(studentID)) {
-					studentToRetrieve = listOfStudents.get(i);
-					break;
-				}
-			}
+			studentToRetrieve = Database.students.get(studentID);
 
 			if (studentToRetrieve == null) {
 				throw new Exception();
@@ -294,24 +261,16 @@ public class Student implements Serializable, LoginInterface, FileIOInterface {
 	 *            This Student
 	 */
 	public void updateStudentObject(Student studentToUpdate) {
-		Student student = new Student();
 		try {
-			List<Student> listOfStudents = student.retrieveAllStudentObjects();
-
-			for (int i = 0; i < listOfStudents.size(); i++) {
-				if (listOfStudents.get(i).getStudentID().equals(studentToUpdate.getStudentID())) {
-					listOfStudents.set(i, studentToUpdate);
-					break;
-				}
-			}
-			student.writeSerializedObject(listOfStudents);
+			Database.students.put(studentToUpdate);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 
 	/**
-	 * Registers this Student into specified course given index group ID.
+	 * Registers this Student into specified course given index group ID,
+	 * after asking the Student to confirm. The registration itself is done by RegistrationEngine.
 	 * 
 	 * @param indexGroupID
 	 *            This Student's index group ID he wants to register in.
@@ -320,237 +279,46 @@ public class Student implements Serializable, LoginInterface, FileIOInterface {
 	 * @return Success or failure to register course.
 	 */
 	public boolean registerCourse(Integer indexGroupID, Scanner sc) {
-		boolean success = false;
-		boolean validInput = false;
-		int confirmation = 0;
-		Student s1 = new Student();
-		s1 = s1.retrieveStudentObject(this.getStudentID());
 		Course c1 = new Course();
 		c1 = c1.retrieveCourseObjectByIndexGroup(indexGroupID);
-		Course c2 = new Course();
-		IndexGroup g1 = new IndexGroup();
-		g1 = g1.retrieveIndexGroupObject(indexGroupID);
-		Waitlist wl1 = new Waitlist();
-		wl1 = wl1.retrieveWaitListObjectByIndexGroup(indexGroupID);
-		Waitlist wl2 = new Waitlist();
-
-		try {
-			if (s1 == null) {
-				System.out.println("No user has been logged in.\n");
-			} else {
-				if (c1 != null) {
-					int temp = s1.getCourseList().size();
-					int temp2 = s1.getWaitListIDList().size();
-
-					if (temp == 0) {
-						if (schedule.checkScheduleClash(indexGroupID)) {
-							System.out.println("Period of lesson clash with current schedule\n");
-						} else {
-							if (!(g1.checkVacancies())) {
-								int flag = 0;
-								for (int i = 0; i < temp2; i++) {
-									c2 = c2.retrieveCourseObjectByWaitList(s1.getWaitListIDList().get(i));
-									if (s1.getWaitListIDList().get(i).equals(wl1.getWaitListID())) {
-										System.out.println("You are already in waitlist\n");
-										flag = 1;
-										break;
-									} else if (c2.getCourseID().equals(c1.getCourseID())) {
-										System.out.println(
-												"You already in waitlist of another index group of the same course\n");
-										flag = 1;
-										break;
-									}
-								}
-								if (flag == 0) {
-									g1.printGroupDetailsConfirmation();
-									System.out.print(
-											"Confirm to join the waitlist of this group? 1 = Yes, Any other number = No: ");
-									do {
-										try {
-											confirmation = sc.nextInt();
-											if (confirmation >= 0) {
-												validInput = true;
-												sc.nextLine();
-											}
-										} catch (InputMismatchException e) {
-											System.out.println("Enter a valid integer!");
-											sc.nextLine();
-										}
-									} while (!validInput);
-									validInput = false;
-
-									if (confirmation == 1) {
-										wl1.enqueueToWaitList(s1.getStudentID());
-										s1.getWaitListIDList().add(wl1.getWaitListID());
-										g1.printGroupDetailsConfirmation();
-										wl1.updateWaitListObject(wl1);
-										s1.updateStudentObject(s1);
-										System.out.println("You have been added to the waitlist\n");
-										success = true;
-									} else {
-										System.out.println("You are not added to the waitlist\n");
-										System.out.println("Returning to main menu...\n");
-									}
-								}
-							} else {
-								System.out.println("Course: " + c1.getCourseID());
-								g1.printGroupDetailsConfirmation();
-								System.out.print(
-										"Confirm to register course under this index group? 1 = Yes, Any other number = No: ");
-								do {
-									try {
-										confirmation = sc.nextInt();
-										if (confirmation >= 0) {
-											validInput = true;
-											sc.nextLine();
-										}
-									} catch (InputMismatchException e) {
-										System.out.println("Enter a valid integer!");
-										sc.nextLine();
-									}
-								} while (!validInput);
-								validInput = false;
-
-								if (confirmation == 1) {
-									for (int i = 0; i < temp2; i++) {
-										c2 = c2.retrieveCourseObjectByWaitList(s1.getWaitListIDList().get(i));
-										if (c2.getCourseID().equals(c1.getCourseID())) {
-											wl2 = wl2.retrieveWaitListObject(s1.getWaitListIDList().get(i));
-											wl2.dequeueFromWaitList(s1.getStudentID());
-											s1.getWaitListIDList().remove(i);
-											wl2.updateWaitListObject(wl2);
-										}
-									}
-									s1.getCourseList().add(c1.getCourseID());
-									s1.getIndexGroupList().add(indexGroupID);
-									System.out.println("Course: " + c1.getCourseID());
-									g1.printGroupDetailsConfirmation();
-									g1.updateVacancies('-');
-									// Add schedule
-									s1.getSchedule().AddSchedule(indexGroupID);
-									g1.updateIndexGroupObject(g1);
-									s1.updateStudentObject(s1);
-									System.out.println("Course successfully registered!");
-									success = true;
-								} else {
-									System.out.println("Course has not been registered.");
-									System.out.println("Returning to main menu...");
-								}
-							}
-						}
-					} else {
-						for (int j = 0; j < temp; j++) {
-							if (s1.getCourseList().get(j).equals(c1.getCourseID())) {
-								System.out
-										.println("You are already registered in this course in another index group\n");
-							} else if (j == (temp - 1)) {
-								if (schedule.checkScheduleClash(indexGroupID)) {
-									System.out.println("Period of lesson clash with current schedule\n");
-								} else {
-									if (!(g1.checkVacancies())) {
-										int flag = 0;
-										for (int i = 0; i < temp2; i++) {
-											c2 = c2.retrieveCourseObjectByWaitList(s1.getWaitListIDList().get(i));
-											if (s1.getWaitListIDList().get(i).equals(wl1.getWaitListID())) {
-												System.out.println("You are already in waitlist\n");
-												flag = 1;
-												break;
-											} else if (c2.getCourseID().equals(c1.getCourseID())) {
-												System.out.println(
-														"You are already in waitlist of another index group of the same course\n");
-												flag = 1;
-												break;
-											}
-										}
-										if (flag == 0) {
-											g1.printGroupDetailsConfirmation();
-											System.out.print(
-													"Confirm to join the waitlist of this group? 1 = Yes, Any other number = No: ");
-											do {
-												try {
-													confirmation = sc.nextInt();
-													if (confirmation >= 0) {
-														validInput = true;
-														sc.nextLine();
-													}
-												} catch (InputMismatchException e) {
-													System.out.println("Enter a valid integer!");
-													sc.nextLine();
-												}
-											} while (!validInput);
-											validInput = false;
-
-											if (confirmation == 1) {
-												wl1.enqueueToWaitList(s1.getStudentID());
-												s1.getWaitListIDList().add(wl1.getWaitListID());
-												g1.printGroupDetailsConfirmation();
-												System.out.println("You have been added to waitlist\n");
-												wl1.updateWaitListObject(wl1);
-												s1.updateStudentObject(s1);
-												success = true;
-											} else {
-												System.out.println("You have not been added to waitlist\n");
-												System.out.println("Returning to main menu...\n");
-											}
-										}
-									} else {
-										System.out.println("Course: " + c1.getCourseID());
-										g1.printGroupDetailsConfirmation();
-										System.out.print(
-												"Confirm to register course under this index group? 1 = Yes, Any other number = No: ");
-										do {
-											try {
-												confirmation = sc.nextInt();
-												if (confirmation >= 0) {
-													validInput = true;
-													sc.nextLine();
-												}
-											} catch (InputMismatchException e) {
-												System.out.println("Enter a valid integer!");
-												sc.nextLine();
-											}
-										} while (!validInput);
-										validInput = false;
-
-										if (confirmation == 1) {
-											for (int i = 0; i < temp2; i++) {
-												c2 = c2.retrieveCourseObjectByWaitList(s1.getWaitListIDList().get(i));
-												if (c2.getCourseID().equals(c1.getCourseID())) {
-													wl2 = wl2.retrieveWaitListObject(s1.getWaitListIDList().get(i));
-													wl2.dequeueFromWaitList(s1.getStudentID());
-													s1.getWaitListIDList().remove(i);
-													wl2.updateWaitListObject(wl2);
-												}
-											}
-											s1.getCourseList().add(c1.getCourseID());
-											s1.getIndexGroupList().add(indexGroupID);
-											System.out.println("Course: " + c1.getCourseID());
-											g1.printGroupDetailsConfirmation();
-											g1.updateVacancies('-');
-											s1.getSchedule().AddSchedule(indexGroupID);
-											g1.updateIndexGroupObject(g1);
-											s1.updateStudentObject(s1);
-											System.out.println("Course successfully registered!");
-											success = true;
-										} else {
-											System.out.println("Course has not been registered.");
-											System.out.println("Returning to main menu...");
-										}
-									}
-								}
-							}
-						}
-					}
-				}
+		IndexGroup g1 = Database.indexGroups.get(indexGroupID);
+		RegistrationOutcome outcome = RegistrationEngine.checkRegister(this.getStudentID(), indexGroupID);
+
+		if (outcome == RegistrationOutcome.WAITLISTED) {
+			g1.printGroupDetailsConfirmation();
+			if (!confirm("Confirm to join the waitlist of this group? 1 = Yes, Any other number = No: ", sc)) {
+				System.out.println("You are not added to the waitlist\n");
+				System.out.println("Returning to main menu...\n");
+				return false;
 			}
-		} catch (Exception e) {
-			e.printStackTrace();
+		} else if (outcome == RegistrationOutcome.REGISTERED) {
+			System.out.println("Course: " + c1.getCourseID());
+			g1.printGroupDetailsConfirmation();
+			if (!confirm("Confirm to register course under this index group? 1 = Yes, Any other number = No: ", sc)) {
+				System.out.println("Course has not been registered.");
+				System.out.println("Returning to main menu...");
+				return false;
+			}
+		} else {
+			System.out.println(outcome.getMessage());
+			return false;
 		}
-		return success;
+
+		outcome = RegistrationEngine.register(this.getStudentID(), indexGroupID, outcome == RegistrationOutcome.WAITLISTED);
+
+		if (outcome == RegistrationOutcome.REGISTERED) {
+			System.out.println("Course: " + c1.getCourseID());
+			g1.printGroupDetailsConfirmation();
+		} else if (outcome == RegistrationOutcome.WAITLISTED) {
+			g1.printGroupDetailsConfirmation();
+		}
+		System.out.println(outcome.getMessage());
+		return outcome.isSuccess();
 	}
 
 	/**
-	 * Drops this Student from registered course.
+	 * Drops this Student from registered course or waitlist chosen from a list,
+	 * after asking the Student to confirm. The drop itself is done by RegistrationEngine.
 	 * 
 	 * @param sc
 	 *            Scanner for input.
@@ -558,130 +326,51 @@ public class Student implements Serializable, LoginInterface, FileIOInterface {
 	 */
 	public boolean dropCourse(Scanner sc) {
 		boolean success = false;
-		boolean validInput = false;
-		int choice, confirmation = 0;
+		int choice;
 		Student s1 = new Student();
 		s1 = s1.retrieveStudentObject(this.getStudentID());
-		Student s2 = new Student();
 		Course c1 = new Course();
 		IndexGroup g1 = new IndexGroup();
-		Waitlist wl1 = new Waitlist();
 
 		try {
 			if (s1 != null) {
 				s1.printCoursesRegistered();
 
 				if (s1.getCourseList().size() != 0 || s1.getWaitListIDList().size() != 0) {
+					int numOfWaitlists = s1.getWaitListIDList().size();
+					int numOfChoices = numOfWaitlists + s1.getIndexGroupList().size();
 					do {
 						System.out.print("Select the Course you want to drop: ");
 						choice = sc.nextInt();
 
-						if (choice >= 1 && choice <= this.waitListIDList.size() && this.waitListIDList.size() != 0) {
-							Integer tempWaitListID = this.waitListIDList.get(choice - 1);
+						if (choice >= 1 && choice <= numOfWaitlists) {
+							Integer tempWaitListID = s1.getWaitListIDList().get(choice - 1);
 							c1 = c1.retrieveCourseObjectByWaitList(tempWaitListID);
 							g1 = g1.retrieveIndexGroupObjectByWaitList(tempWaitListID);
 
 							System.out.println("Course: " + c1.getCourseID());
 							g1.printGroupDetailsConfirmation();
-							System.out.print("Confirm to remove from the waitlist? 1 = Yes, Any other number = No: ");
-							do {
-								try {
-									confirmation = sc.nextInt();
-									if (confirmation >= 0) {
-										validInput = true;
-										sc.nextLine();
-									}
-								} catch (InputMismatchException e) {
-									System.out.println("Enter a valid integer!");
-									sc.nextLine();
-								}
-
-							} while (!validInput);
-							validInput = false;
-
-							if (confirmation == 1) {
-								wl1 = wl1.retrieveWaitListObject(tempWaitListID);
-								wl1.dequeueFromWaitList(s1.getStudentID());
-								s1.getWaitListIDList().remove(tempWaitListID);
-								System.out.println("You have been removed from the waitlist.");
-								wl1.updateWaitListObject(wl1);
-								s1.updateStudentObject(s1);
-								success = true;
+
+							if (confirm("Confirm to remove from the waitlist? 1 = Yes, Any other number = No: ", sc)) {
+								RegistrationOutcome outcome = RegistrationEngine.drop(s1.getStudentID(), g1.getIndexGroupID());
+								System.out.println(outcome.getMessage());
+								success = outcome.isSuccess();
 							} else {
 								System.out.println("Student was not removed from the waitlist.");
 								System.out.println("Returning to main menu...");
 							}
-						} else if (choice > this.waitListIDList.size()
-								&& choice <= (this.waitListIDList.size() + this.getIndexGroupList().size())) {
-							Integer tempGroupID = this.getIndexGroupList().get(choice - this.waitListIDList.size() - 1);
+						} else if (choice > numOfWaitlists && choice <= numOfChoices) {
+							Integer tempGroupID = s1.getIndexGroupList().get(choice - numOfWaitlists - 1);
 							c1 = c1.retrieveCourseObjectByIndexGroup(tempGroupID);
 							g1 = g1.retrieveIndexGroupObject(tempGroupID);
 
 							System.out.println("Course: " + c1.getCourseID());
 							g1.printGroupDetailsConfirmation();
-							System.out.print("Confirm to drop the course? 1 = Yes, Any other number = No: ");
-							do {
-								try {
-									confirmation = sc.nextInt();
-									if (confirmation >= 0) {
-										validInput = true;
-										sc.nextLine();
-									}
-								} catch (InputMismatchException e) {
-									System.out.println("Enter a valid integer!");
-									sc.nextLine();
-								}
-							} while (!validInput);
-							validInput = false;
-
-							if (confirmation == 1) {
-								s1.getCourseList().remove(c1.getCourseID());
-								s1.getIndexGroupList().remove(tempGroupID);
-								g1.updateVacancies('+');
-								wl1 = wl1.retrieveWaitListObjectByIndexGroup(tempGroupID);
-								String tempStudentID = wl1.getStudentQueueList().peek();
-								if (tempStudentID != null) {
-									s2 = s2.retrieveStudentObject(tempStudentID);
-									wl1.dequeueFromWaitList(tempStudentID);
-									s2.getCourseList().add(c1.getCourseID());
-									s2.getIndexGroupList().add(tempGroupID);
-									s2.getSchedule().AddSchedule(tempGroupID);
-
-									for (int i = 0; i < s2.getWaitListIDList().size(); i++) {
-										if (s2.getWaitListIDList().get(i).equals(wl1.getWaitListID())) {
-											s2.getWaitListIDList().remove(i);
-										}
-									}
-									g1.updateVacancies('-');
-
-									wl1.updateWaitListObject(wl1);
-									s2.updateStudentObject(s2);
-
-									System.out.println("System message:");
-									if (s2.getNotifMode().toLowerCase().equals("sms")) {
-										System.out.println(s2.getName()
-												+ " has been removed from waitlist and added to the index group "
-												+ tempGroupID);
-										NotificationController.sendSMS(s2.getMobileNum());
-									} else if (s2.getNotifMode().toLowerCase().equals("email")) {
-										System.out.println(s2.getName()
-												+ " has been removed from waitlist and added to the index group "
-												+ tempGroupID);
-										NotificationController.sendEmail(s2.getEmail(), c1.getCourseID());
-									} else if (s2.getNotifMode().toLowerCase().equals("both")) {
-										System.out.println(s2.getName()
-												+ " has been removed from waitlist and added to the index group "
-												+ tempGroupID);
-										NotificationController.sendSMS(s2.getMobileNum());
-										NotificationController.sendEmail(s2.getEmail(), c1.getCourseID());
-									}
-								}
-								s1.getSchedule().RemoveSchedule(tempGroupID);
-
-								g1.updateIndexGroupObject(g1);
-								s1.updateStudentObject(s1);
-								System.out.println("Course has been dropped successfully.");
-								success = true;
+
+							if (confirm("Confirm to drop the course? 1 = Yes, Any other number = No: ", sc)) {
+								RegistrationOutcome outcome = RegistrationEngine.drop(s1.getStudentID(), tempGroupID);
+								System.out.println(outcome.getMessage());
+								success = outcome.isSuccess();
 							} else {
 								System.out.println("Course has not been dropped.");
 								System.out.println("Returning to main menu...");
@@ -689,7 +378,7 @@ public class Student implements Serializable, LoginInterface, FileIOInterface {
 						} else {
 							System.out.print("Invalid choice.\n");
 						}
-					} while (choice < 0 || choice > (this.waitListIDList.size() + this.getIndexGroupList().size()));
+					} while (choice < 0 || choice > numOfChoices);
 				}
 			}
 		} catch (Exception e) {
@@ -709,7 +398,9 @@ public class Student implements Serializable, LoginInterface, FileIOInterface {
 			c1 = c1.retrieveCourseObjectByWaitList(this.waitListIDList.get(j));
 			IndexGroup ig1 = new IndexGroup();
 			ig1 = ig1.retrieveIndexGroupObjectByWaitList(this.waitListIDList.get(j));
-			System.out.print(j + 1 + ") " + ig1.getIndexGroupID() + " " + c1.getCourseID() + " On Waitlist" + '\n');
+			Waitlist wl1 = Database.waitlists.get(this.waitListIDList.get(j));
+			System.out.print(j + 1 + ") " + ig1.getIndexGroupID() + " " + c1.getCourseID() + " On Waitlist (position "
+					+ wl1.getPosition(this.studentID) + " of " + wl1.getStudentQueueList().size() + ")" + '\n');
 		}
 
 		for (int k = 0; k < this.getIndexGroupList().size(); k++) {
@@ -725,7 +416,7 @@ public class Student implements Serializable, LoginInterface, FileIOInterface {
 
 	/**
 	 * Swaps this Student's index with peer's index given both are in the same
-	 * course.
+	 * course, after asking the Student to confirm. The swap itself is done by RegistrationEngine.
 	 * 
 	 * @param peerUsername
 	 *            Peer's username.
@@ -741,98 +432,49 @@ public class Student implements Serializable, LoginInterface, FileIOInterface {
 	 */
 	public boolean swapIndex(String peerUsername, String peerPassword, Integer ownIndexNumber, Integer peerIndexNumber,
 			Scanner sc) {
-		boolean success = false;
-		boolean validInput = false;
-		int confirmation = 0;
-		Student s1 = new Student();
-		s1 = s1.retrieveStudentObject(this.getStudentID());
-		Student s2 = new Student();
-		s2 = s2.retrieveStudentObject(peerUsername);
-		Course c1 = new Course();
-		c1 = c1.retrieveCourseObjectByIndexGroup(ownIndexNumber);
-		Course c2 = new Course();
-		c2 = c2.retrieveCourseObjectByIndexGroup(peerIndexNumber);
-		IndexGroup g1 = new IndexGroup();
-		g1 = g1.retrieveIndexGroupObject(ownIndexNumber);
-		IndexGroup g2 = new IndexGroup();
-		g2 = g2.retrieveIndexGroupObject(peerIndexNumber);
+		RegistrationOutcome outcome = RegistrationEngine.checkSwapIndex(this.getStudentID(), ownIndexNumber, peerUsername,
+				peerPassword, peerIndexNumber);
 
-		try {
-			if (!(s1.checkCourseIndexRegistered(ownIndexNumber))) {
-				System.out.println("You are not registered in this index group.");
-			} else {
-				if (!(s2.checkCourseIndexRegistered(peerIndexNumber))) {
-					System.out.println("Peer is not registered in this index group.");
-				} else {
-					if (!(login(peerUsername, peerPassword))) {
-						System.out.println("Peer has invalid Username/Password.");
-					} else {
-						if (!(c1.getCourseID().equals(c2.getCourseID()))) {
-							System.out.println("User index group is of different course from peer index group.");
-						} else {
-							if (schedule.checkScheduleClashSameCourse(peerIndexNumber)) {
-								System.out.println("Index group schedule clash with current schedule");
-							} else if (s2.getSchedule().checkScheduleClashSameCourse(ownIndexNumber)) {
-								System.out.println("Peer index group schedule clash with current schedule");
-							} else {
-								System.out.println(s1.getName());
-								System.out.println("Course: " + c1.getCourseID());
-								System.out.println("Student#1");
-								System.out.println(s1.getMatricNum());
-								g1.printGroupDetailsConfirmation();
-
-								System.out.println(s2.getName());
-								System.out.println("Course: " + c2.getCourseID());
-								System.out.println("Student#2");
-								System.out.println(s2.getMatricNum());
-								g2.printGroupDetailsConfirmation();
-
-								System.out.print("Confirm to swap index? 1 = Yes, Any other number = No: ");
-								do {
-									try {
-										confirmation = sc.nextInt();
-										if (confirmation >= 0) {
-											validInput = true;
-											sc.nextLine();
-										}
-									} catch (InputMismatchException e) {
-										System.out.println("Enter a valid integer!");
-										sc.nextLine();
-									}
-								} while (!validInput);
-								validInput = false;
-
-								if (confirmation == 1) {
-									s1.getIndexGroupList().remove(ownIndexNumber);
-									s2.getIndexGroupList().remove(peerIndexNumber);
-									s1.getIndexGroupList().add(peerIndexNumber);
-									s2.getIndexGroupList().add(ownIndexNumber);
-									s1.getSchedule().UpdateSchedule(ownIndexNumber, peerIndexNumber);
-									s2.getSchedule().UpdateSchedule(peerIndexNumber, ownIndexNumber);
-
-									s1.updateStudentObject(s1);
-									s2.updateStudentObject(s2);
-									success = true;
-									System.out.println("You have successfully swapped your index group number with "
-											+ s2.getName());
-
-								} else {
-									System.out.println("Index group has not been swapped.");
-									System.out.println("Returning to main menu...");
-								}
-							}
-						}
-					}
-				}
-			}
-		} catch (Exception e) {
-			e.printStackTrace();
+		if (outcome != RegistrationOutcome.SWAPPED) {
+			System.out.println(outcome.getMessage());
+			return false;
 		}
-		return success;
+
+		Student s1 = Database.students.get(this.getStudentID());
+		Student s2 = Database.students.get(peerUsername);
+		Course c1 = Database.courses.retrieveByIndexGroup(ownIndexNumber);
+
+		System.out.println(s1.getName());
+		System.out.println("Course: " + c1.getCourseID());
+		System.out.println("Student#1");
+		System.out.println(s1.getMatricNum());
+		Database.indexGroups.get(ownIndexNumber).printGroupDetailsConfirmation();
+
+		System.out.println(s2.getName());
+		System.out.println("Course: " + c1.getCourseID());
+		System.out.println("Student#2");
+		System.out.println(s2.getMatricNum());
+		Database.indexGroups.get(peerIndexNumber).printGroupDetailsConfirmation();
+
+		if (!confirm("Confirm to swap index? 1 = Yes, Any other number = No: ", sc)) {
+			System.out.println("Index group has not been swapped.");
+			System.out.println("Returning to main menu...");
+			return false;
+		}
+
+		outcome = RegistrationEngine.swapIndex(this.getStudentID(), ownIndexNumber, peerUsername, peerPassword, peerIndexNumber);
+
+		if (outcome == RegistrationOutcome.SWAPPED) {
+			System.out.println("You have successfully swapped your index group number with " + s2.getName());
+		} else {
+			System.out.println(outcome.getMessage());
+		}
+		return outcome.isSuccess();
 	}
 
 	/**
-	 * Changes the index group of this Student given the same course.
+	 * Changes the index group of this Student given the same course,
+	 * after asking the Student to confirm. The change itself is done by RegistrationEngine.
 	 * 
 	 * @param currentChoice
 	 *            Index of course which this Student is registered in.
@@ -843,125 +485,61 @@ public class Student implements Serializable, LoginInterface, FileIOInterface {
 	 * @return Success or failure to change index.
 	 */
 	public boolean changeIndex(Integer currentChoice, Integer newChoice, Scanner sc) {
-		boolean success = false;
-		boolean validInput = false;
+		RegistrationOutcome outcome = RegistrationEngine.checkChangeIndex(this.getStudentID(), currentChoice, newChoice);
+
+		if (outcome != RegistrationOutcome.CHANGED) {
+			System.out.println(outcome.getMessage());
+			return false;
+		}
+
+		Course c1 = Database.courses.retrieveByIndexGroup(currentChoice);
+
+		System.out.println(this.getName());
+		System.out.println("Course: " + c1.getCourseID());
+		Database.indexGroups.get(currentChoice).printGroupDetailsConfirmation();
+		System.out.println("Course: " + c1.getCourseID());
+		Database.indexGroups.get(newChoice).printGroupDetailsConfirmation();
+		System.out.println("Subject type: " + c1.getCourseType());
+		System.out.println("Status: Registered");
+
+		if (!confirm("Confirm to change index? 1 = Yes, Any other number = No: ", sc)) {
+			System.out.println("Index group has not been changed.");
+			System.out.println("Returning to main menu...");
+			return false;
+		}
+
+		outcome = RegistrationEngine.changeIndex(this.getStudentID(), currentChoice, newChoice);
+		System.out.println(outcome.getMessage());
+		return outcome.isSuccess();
+	}
+
+	/**
+	 * Asks the Student to confirm, until a number of at least 0 is entered.
+	 * 
+	 * @param prompt
+	 *            The question to ask.
+	 * @param sc
+	 *            Scanner for input.
+	 * @return true if the Student entered 1.
+	 */
+	private static boolean confirm(String prompt, Scanner sc) {
 		int confirmation = 0;
-		Student s1 = new Student();
-		s1 = s1.retrieveStudentObject(this.getStudentID());
-		Student s2 = new Student();
-		Course c1 = new Course();
-		c1 = c1.retrieveCourseObjectByIndexGroup(currentChoice);
-		Course c2 = new Course();
-		c2 = c2.retrieveCourseObjectByIndexGroup(newChoice);
-		IndexGroup g1 = new IndexGroup();
-		g1 = g1.retrieveIndexGroupObject(currentChoice);
-		IndexGroup g2 = new IndexGroup();
-		g2 = g2.retrieveIndexGroupObject(newChoice);
-		Waitlist wl1 = new Waitlist();
-		wl1 = wl1.retrieveWaitListObjectByIndexGroup(currentChoice);
+		boolean validInput = false;
 
-		try {
-			if (!(s1.checkCourseIndexRegistered(currentChoice))) {
-				System.out.println("You are not registered in this Index Group.");
-			} else {
-				if (c1 != null && c2 != null) {
-					if (!(c1.getCourseID().equals(c2.getCourseID()))) {
-						System.out.println("New index is of different course from current index.");
-					} else {
-						if (schedule.checkScheduleClashSameCourse(newChoice)) {
-							System.out.println("Index schedule clash with current schedule.");
-						} else {
-							if (!(g2.checkVacancies())) {
-								System.out.println("New index has no vacancies available.");
-							} else {
-								System.out.println(s1.getName());
-								System.out.println("Course: " + c1.getCourseID());
-								g1.printGroupDetailsConfirmation();
-								System.out.println("Course: " + c2.getCourseID());
-								g2.printGroupDetailsConfirmation();
-								System.out.println("Subject type: " + c1.getCourseType());
-								System.out.println("Status: Registered");
-
-								System.out.print("Confirm to change index? 1 = Yes, Any other number = No: ");
-								do {
-									try {
-										confirmation = sc.nextInt();
-										if (confirmation >= 0) {
-											validInput = true;
-											sc.nextLine();
-										}
-									} catch (InputMismatchException e) {
-										System.out.println("Enter a valid integer!");
-										sc.nextLine();
-									}
-								} while (!validInput);
-								validInput = false;
-
-								if (confirmation == 1) {
-									s1.getIndexGroupList().remove(currentChoice);
-									s1.getIndexGroupList().add(newChoice);
-									g1.updateVacancies('+');
-									String tempStudentID = wl1.getStudentQueueList().peek();
-
-									if (tempStudentID != null) {
-										s2 = s2.retrieveStudentObject(tempStudentID);
-										wl1.dequeueFromWaitList(tempStudentID);
-										s2.getCourseList().add(c1.getCourseID());
-										s2.getIndexGroupList().add(currentChoice);
-										s2.getSchedule().AddSchedule(currentChoice);
-
-										for (int i = 0; i < s2.getWaitListIDList().size(); i++) {
-											if (s2.getWaitListIDList().get(i).equals(wl1.getWaitListID())) {
-												s2.getWaitListIDList().remove(i);
-											}
-										}
-										g1.updateVacancies('-');
-
-										wl1.updateWaitListObject(wl1);
-										s2.updateStudentObject(s2);
-
-										System.out.println("System message:");
-										if (s2.getNotifMode().equals("sms")) {
-											System.out.println(s2.getName()
-													+ " has been removed from waitlist and added to the index group "
-													+ currentChoice);
-											NotificationController.sendSMS(s2.getMobileNum());
-										} else if (s2.getNotifMode().equals("email")) {
-											System.out.println(s2.getName()
-													+ " has been removed from waitlist and added to the index group "
-													+ currentChoice);
-											NotificationController.sendEmail(s2.getEmail(), c1.getCourseID());
-										} else if (s2.getNotifMode().equals("both")) {
-											System.out.println(s2.getName()
-													+ " has been removed from waitlist and added to the index group "
-													+ currentChoice);
-											NotificationController.sendSMS(s2.getMobileNum());
-											NotificationController.sendEmail(s2.getEmail(), c1.getCourseID());
-										}
-									}
-									s1.getSchedule().UpdateSchedule(currentChoice, newChoice);
-									g2.updateVacancies('-');
-
-									s1.updateStudentObject(s1);
-									g1.updateIndexGroupObject(g1);
-									g2.updateIndexGroupObject(g2);
-									success = true;
-									System.out.println("You have successfully changed your index group number!");
-								} else {
-									System.out.println("Index group has not been changed.");
-									System.out.println("Returning to main menu...");
-								}
-							}
-						}
-					}
-				} else {
-					System.out.println("The course or index group number does not exist!");
+		System.out.print(prompt);
+		do {
+			try {
+				confirmation = sc.nextInt();
+				if (confirmation >= 0) {
+					validInput = true;
+					sc.nextLine();
 				}
+			} catch (InputMismatchException e) {
+				System.out.println("Enter a valid integer!");
+				sc.nextLine();
 			}
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-		return success;
+		} while (!validInput);
+		return confirmation == 1;
 	}
 
 	/**
@@ -1367,39 +945,19 @@ public class Student implements Serializable, LoginInterface, FileIOInterface {
 	 */
 	@SuppressWarnings("rawtypes")
 	public List readSerializedObject() {
-		List pDetails = null;
-		FileInputStream fis = null;
-		ObjectInputStream in = null;
-		try {
-			fis = new FileInputStream(System.getProperty("user.dir") + "\\Databases\\students.dat");
-			in = new ObjectInputStream(fis);
-			pDetails = (ArrayList) in.readObject();
-			in.close();
-		} catch (IOException ex) {
-			ex.printStackTrace();
-		} catch (ClassNotFoundException ex) {
-			ex.printStackTrace();
-		}
-		return pDetails;
+		return RecordFile.read(System.getProperty("user.dir") + "\\Databases\\students.dat", RecordCodec.STUDENT);
 	}
 
 	/**
-	 * Writes data to the database file
+	 * Writes data to the database file in the binary format of RecordCodec,
+	 * through a temporary file, so a crash leaves either the old or the new database file.
 	 * 
 	 * @param list
 	 *            The list of objects to write
+	 * @return write success failure boolean.
 	 */
 	@SuppressWarnings("rawtypes")
-	public void writeSerializedObject(List list) {
-		FileOutputStream fos = null;
-		ObjectOutputStream out = null;
-		try {
-			fos = new FileOutputStream(System.getProperty("user.dir") + "\\Databases\\students.dat");
-			out = new ObjectOutputStream(fos);
-			out.writeObject(list);
-			out.close();
-		} catch (IOException ex) {
-			ex.printStackTrace();
-		}
+	public boolean writeSerializedObject(List list) {
+		return RecordFile.write(System.getProperty("user.dir") + "\\Databases\\students.dat", RecordCodec.STUDENT, list);
 	}
 }
\ No newline at end of file
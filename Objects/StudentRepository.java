@@ -0,0 +1,372 @@
+/**
+ * Represents the Students of students.dat.
+ * Unlike the other repositories, students.dat is not read into memory at start up.
+ * Each Student is read from its slot in the RecordStore the first time it is looked up
+ * and kept in memory afterwards, and changed Students are written back to their slots
+ * one at a time, so logging in or registering does not read or write every Student.
+ * Keeps the students enrolled in each course and in each index group,
+ * so class lists do not need to look at every Student once they are all loaded.
+ * @author Derrick
+ * @version 1.3
+ * @since 2017-04-14
+ */
+
+package Objects;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+public class StudentRepository extends Repository<String, Student> {
+	/**
+	 * The store of students.dat that Students are read from and written to one at a time.
+	 */
+	private final RecordStore store = new RecordStore(System.getProperty("user.dir") + "\\Databases\\students.dat", RecordCodec.STUDENT);
+
+	/**
+	 * The IDs of the Students committed since the last compaction started.
+	 */
+	private LinkedHashSet<String> changedStudentIDs = new LinkedHashSet<String>();
+
+	/**
+	 * The IDs of the Students committed before the compaction started that are still to be written to the store.
+	 */
+	private LinkedHashSet<String> compactingStudentIDs = new LinkedHashSet<String>();
+
+	/**
+	 * Whether every Student in the store has been read into memory.
+	 */
+	private volatile boolean allLoaded;
+
+	/**
+	 * The IDs of the students registered in each course, keyed by course ID.
+	 */
+	private Map<String, LinkedHashSet<String>> studentsByCourse = new HashMap<String, LinkedHashSet<String>>();
+
+	/**
+	 * The IDs of the students registered in each index group, keyed by index group ID.
+	 */
+	private Map<Integer, LinkedHashSet<String>> studentsByIndexGroup = new HashMap<Integer, LinkedHashSet<String>>();
+
+	/**
+	 * The courses each Student was last indexed with, keyed by student ID.
+	 * Kept as a copy because a Student's lists are changed in place before it is put.
+	 */
+	private Map<String, ArrayList<String>> indexedCourses = new HashMap<String, ArrayList<String>>();
+
+	/**
+	 * The index groups each Student was last indexed with, keyed by student ID.
+	 */
+	private Map<String, ArrayList<Integer>> indexedIndexGroups = new HashMap<String, ArrayList<Integer>>();
+
+	/**
+	 * Creates a new StudentRepository backed by students.dat.
+	 */
+	public StudentRepository() {
+		super(new Student(), "students");
+	}
+
+	protected String getKey(Student record) {
+		return record.getStudentID();
+	}
+
+	/**
+	 * Opens the store of students.dat and reads its index, without reading any Student.
+	 * Records logged in the journal are replayed afterwards by Database.loadAll().
+	 */
+	public synchronized void load() {
+		clear();
+		changedStudentIDs.clear();
+		compactingStudentIDs.clear();
+		allLoaded = false;
+
+		if (!store.open()) {
+			System.out.println("Unable to read from file!");
+		}
+	}
+
+	/**
+	 * Retrieves the Student with the given ID, reading it from the store if it is not in memory.
+	 * @param key The ID of the Student.
+	 * @return the Student, or null if there is none.
+	 */
+	public synchronized Student get(String key) {
+		Student student = records().get(key);
+
+		if (student == null && !allLoaded) {
+			student = readStudent(key);
+		}
+		return student;
+	}
+
+	/**
+	 * Checks if a Student is stored under the given ID, without reading the Student.
+	 * @param key The ID of the Student.
+	 * @return boolean (true / false)
+	 */
+	public synchronized boolean contains(String key) {
+		return records().containsKey(key) || store.contains(key);
+	}
+
+	/**
+	 * Retrieves all Students, in file order, reading those not in memory yet.
+	 * @return a new list containing every Student.
+	 */
+	public synchronized List<Student> getAll() {
+		loadAllStudents();
+		return new ArrayList<Student>(records().values());
+	}
+
+	/**
+	 * Reads every Student not in memory yet from the store, before a Snapshot lists every Student.
+	 * Takes the lock of this repository only until every Student has been read.
+	 */
+	protected void loadAllRecords() {
+		if (!allLoaded) {
+			synchronized (this) {
+				loadAllStudents();
+			}
+		}
+	}
+
+	/**
+	 * Remembers to write a Student committed or replayed to the store at the next compaction.
+	 * @param record The Student.
+	 */
+	synchronized void markChanged(Object record) {
+		changedStudentIDs.add(getKey((Student) record));
+	}
+
+	/**
+	 * Takes the Students committed until now as those the next compact() writes.
+	 */
+	synchronized void startCompaction() {
+		compactingStudentIDs.addAll(changedStudentIDs);
+		changedStudentIDs.clear();
+	}
+
+	/**
+	 * Removes a Student added by an aborted Transaction from memory and from the postings.
+	 * A Student that is in the store is read from it again on its next lookup.
+	 * @param key The ID of the Student.
+	 */
+	protected synchronized void discard(String key) {
+		super.discard(key);
+		Database.studentCredentials.put(key, null);
+		removePostings(studentsByCourse, indexedCourses.remove(key), key);
+		removePostings(studentsByIndexGroup, indexedIndexGroups.remove(key), key);
+	}
+
+	/**
+	 * Writes each Student committed before the compaction started to its slot in the store,
+	 * as committed as of the version the compaction started at, then syncs the store to disk.
+	 * @param number The version of the last Transaction committed when the journal was rotated.
+	 * @return write success failure boolean.
+	 */
+	synchronized boolean compact(long number) {
+		if (compactingStudentIDs.isEmpty()) {
+			return true;
+		}
+		if (!store.isOpen()) {
+			return false;
+		}
+
+		try {
+			Iterator<String> it = compactingStudentIDs.iterator();
+			while (it.hasNext()) {
+				String studentID = it.next();
+				Student student = getCommitted(studentID, number);
+
+				if (student != null) {
+					store.write(studentID, student);
+				}
+			}
+			store.sync();
+			compactingStudentIDs.clear();
+			return true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Reads a Student from the store and keeps it in memory.
+	 * @param studentID The ID of the Student.
+	 * @return the Student, or null if there is none.
+	 */
+	private Student readStudent(String studentID) {
+		Student student = null;
+
+		try {
+			student = (Student) store.read(studentID);
+
+			if (student != null) {
+				records().put(studentID, student);
+				indexRecord(student);
+				addFirstVersion(student);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return student;
+	}
+
+	/**
+	 * Reads every Student not in memory yet from the store, so the Students are
+	 * kept in file order and every Student is in the course and index group postings.
+	 */
+	private void loadAllStudents() {
+		if (allLoaded) {
+			return;
+		}
+
+		List<Object> studentIDs = store.getKeys();
+		Map<String, Student> loaded = new LinkedHashMap<String, Student>(records());
+		records().clear();
+
+		for (int i = 0; i < studentIDs.size(); i++) {
+			String studentID = (String) studentIDs.get(i);
+			Student student = loaded.remove(studentID);
+
+			if (student != null) {
+				records().put(studentID, student);
+			} else {
+				readStudent(studentID);
+			}
+		}
+		records().putAll(loaded);
+		allLoaded = true;
+	}
+
+	protected void clearIndexes() {
+		Database.studentCredentials.clear();
+		studentsByCourse.clear();
+		studentsByIndexGroup.clear();
+		indexedCourses.clear();
+		indexedIndexGroups.clear();
+	}
+
+	protected void indexRecord(Student record) {
+		String studentID = record.getStudentID();
+		Database.studentCredentials.put(studentID, record.getPasswordHash());
+		ArrayList<String> newCourses = new ArrayList<String>();
+		ArrayList<Integer> newIndexGroups = new ArrayList<Integer>();
+
+		if (record.getCourseList() != null) {
+			newCourses.addAll(record.getCourseList());
+		}
+		if (record.getIndexGroupList() != null) {
+			newIndexGroups.addAll(record.getIndexGroupList());
+		}
+
+		removePostings(studentsByCourse, indexedCourses.put(studentID, newCourses), studentID);
+		removePostings(studentsByIndexGroup, indexedIndexGroups.put(studentID, newIndexGroups), studentID);
+		addPostings(studentsByCourse, newCourses, studentID);
+		addPostings(studentsByIndexGroup, newIndexGroups, studentID);
+	}
+
+	/**
+	 * Adds a Student to the posting list of each of the given keys.
+	 * @param postings The posting lists to update.
+	 * @param keys The keys the Student is now registered under.
+	 * @param studentID The ID of the Student.
+	 */
+	private static <T> void addPostings(Map<T, LinkedHashSet<String>> postings, List<T> keys, String studentID) {
+		for (int i = 0; i < keys.size(); i++) {
+			LinkedHashSet<String> students = postings.get(keys.get(i));
+
+			if (students == null) {
+				students = new LinkedHashSet<String>();
+				postings.put(keys.get(i), students);
+			}
+			students.add(studentID);
+		}
+	}
+
+	/**
+	 * Removes a Student from the posting list of each of the given keys.
+	 * @param postings The posting lists to update.
+	 * @param keys The keys the Student was registered under, or null.
+	 * @param studentID The ID of the Student.
+	 */
+	private static <T> void removePostings(Map<T, LinkedHashSet<String>> postings, List<T> keys, String studentID) {
+		if (keys == null) {
+			return;
+		}
+
+		for (int i = 0; i < keys.size(); i++) {
+			LinkedHashSet<String> students = postings.get(keys.get(i));
+
+			if (students != null) {
+				students.remove(studentID);
+				if (students.isEmpty()) {
+					postings.remove(keys.get(i));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Looks up the Students whose IDs are in a posting list.
+	 * @param studentIDs The posting list, or null.
+	 * @return list of Students.
+	 */
+	private List<Student> retrieveStudents(LinkedHashSet<String> studentIDs) {
+		List<Student> students = new ArrayList<Student>();
+
+		if (studentIDs != null) {
+			Iterator<String> it = studentIDs.iterator();
+
+			while (it.hasNext()) {
+				students.add(records().get(it.next()));
+			}
+		}
+		return students;
+	}
+
+	/**
+	 * Gets the IDs of the Students registered in the given course, as a copy of its posting list.
+	 * @param courseID The ID of the course.
+	 * @return a new list of the student IDs.
+	 */
+	synchronized List<String> getStudentIDsByCourse(String courseID) {
+		loadAllStudents();
+		return studentsByCourse.containsKey(courseID) ? new ArrayList<String>(studentsByCourse.get(courseID)) : new ArrayList<String>();
+	}
+
+	/**
+	 * Gets the IDs of the Students registered in the given index group, as a copy of its posting list.
+	 * @param indexGroupID The ID of the index group.
+	 * @return a new list of the student IDs.
+	 */
+	synchronized List<String> getStudentIDsByIndexGroup(Integer indexGroupID) {
+		loadAllStudents();
+		return studentsByIndexGroup.containsKey(indexGroupID) ? new ArrayList<String>(studentsByIndexGroup.get(indexGroupID)) : new ArrayList<String>();
+	}
+
+	/**
+	 * Retrieves the Students registered in the given course.
+	 * @param courseID The ID of the course.
+	 * @return list of Students in the course.
+	 */
+	public synchronized List<Student> retrieveByCourse(String courseID) {
+		loadAllStudents();
+		return retrieveStudents(studentsByCourse.get(courseID));
+	}
+
+	/**
+	 * Retrieves the Students registered in the given index group.
+	 * @param indexGroupID The ID of the index group.
+	 * @return list of Students in the index group.
+	 */
+	public synchronized List<Student> retrieveByIndexGroup(Integer indexGroupID) {
+		loadAllStudents();
+		return retrieveStudents(studentsByIndexGroup.get(indexGroupID));
+	}
+}
@@ -0,0 +1,185 @@
+/**
+ * Represents the request of a student to swap the index group they are registered in for any of the index groups
+ * they want, of the same course. A student has at most one request for each course, replaced if posted again.
+ * A request stays open until it is swapped or cancelled.
+ * @author Lim Boon Leng
+ * @version 1.0
+ * @since 2017-04-18
+ */
+
+package Objects;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import Interface.FileIOInterface;
+
+public class SwapRequest implements Serializable, FileIOInterface {
+	/**
+	 * The ID to serialize data
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The ID of the student who posted this SwapRequest.
+	 */
+	private String studentID;
+
+	/**
+	 * The ID of the course of the index groups.
+	 */
+	private String courseID;
+
+	/**
+	 * The ID of the index group the student is registered in.
+	 */
+	private Integer haveIndexGroupID;
+
+	/**
+	 * The IDs of the index groups the student would swap for.
+	 */
+	private ArrayList<Integer> wantIndexGroupList;
+
+	/**
+	 * The time this SwapRequest was posted, in milliseconds since 1970.
+	 */
+	private long postTime;
+
+	/**
+	 * Whether this SwapRequest is still waiting for a swap.
+	 */
+	private boolean open;
+
+	/**
+	 * The ID of the index group the student was swapped to, or null if the student has not been swapped.
+	 */
+	private Integer swappedIndexGroupID;
+
+	/**
+	 * Creates a new SwapRequest with no attribute values
+	 */
+	public SwapRequest() {
+	}
+
+	/**
+	 * Creates a new SwapRequest with the given attribute values
+	 * @param studentID The ID of the student who posted this SwapRequest
+	 * @param courseID The ID of the course of the index groups
+	 * @param haveIndexGroupID The ID of the index group the student is registered in
+	 * @param wantIndexGroupList The IDs of the index groups the student would swap for
+	 * @param postTime The time this SwapRequest was posted, in milliseconds since 1970
+	 * @param open Whether this SwapRequest is still waiting for a swap
+	 * @param swappedIndexGroupID The ID of the index group the student was swapped to, or null
+	 */
+	public SwapRequest(String studentID, String courseID, Integer haveIndexGroupID, ArrayList<Integer> wantIndexGroupList,
+			long postTime, boolean open, Integer swappedIndexGroupID) {
+		this.studentID = studentID;
+		this.courseID = courseID;
+		this.haveIndexGroupID = haveIndexGroupID;
+		this.wantIndexGroupList = wantIndexGroupList;
+		this.postTime = postTime;
+		this.open = open;
+		this.swappedIndexGroupID = swappedIndexGroupID;
+	}
+
+	/**
+	* Gets the key this SwapRequest is stored under, one for each student and course.
+	* @return the key.
+	*/
+	public String getKey() {
+		return studentID + "/" + courseID;
+	}
+
+	/**
+	* Gets the ID of the student who posted this SwapRequest.
+	* @return the student ID.
+	*/
+	public String getStudentID() {
+		return studentID;
+	}
+
+	/**
+	* Gets the ID of the course of the index groups.
+	* @return the course ID.
+	*/
+	public String getCourseID() {
+		return courseID;
+	}
+
+	/**
+	* Gets the ID of the index group the student is registered in.
+	* @return the index group ID.
+	*/
+	public Integer getHaveIndexGroupID() {
+		return haveIndexGroupID;
+	}
+
+	/**
+	* Gets the IDs of the index groups the student would swap for.
+	* @return the index group IDs.
+	*/
+	public ArrayList<Integer> getWantIndexGroupList() {
+		return wantIndexGroupList;
+	}
+
+	/**
+	* Gets the time this SwapRequest was posted.
+	* @return the time in milliseconds since 1970.
+	*/
+	public long getPostTime() {
+		return postTime;
+	}
+
+	/**
+	* Checks if this SwapRequest is still waiting for a swap.
+	* @return boolean (true / false)
+	*/
+	public boolean isOpen() {
+		return open;
+	}
+
+	/**
+	* Changes whether this SwapRequest is still waiting for a swap.
+	* @param open Whether this SwapRequest is still waiting.
+	*/
+	public void setOpen(boolean open) {
+		this.open = open;
+	}
+
+	/**
+	* Gets the ID of the index group the student was swapped to.
+	* @return the index group ID, or null if the student has not been swapped.
+	*/
+	public Integer getSwappedIndexGroupID() {
+		return swappedIndexGroupID;
+	}
+
+	/**
+	* Changes the ID of the index group the student was swapped to.
+	* @param swappedIndexGroupID The ID of the index group.
+	*/
+	public void setSwappedIndexGroupID(Integer swappedIndexGroupID) {
+		this.swappedIndexGroupID = swappedIndexGroupID;
+	}
+
+	/**
+	* Reads the data from the database file
+	* @return list of objects in the database file.
+	*/
+	@SuppressWarnings("rawtypes")
+	public List readSerializedObject() {
+		return RecordFile.read(System.getProperty("user.dir") + "\\Databases\\swapRequests.dat", RecordCodec.SWAP_REQUEST);
+	}
+
+	/**
+	* Writes data to the database file in the binary format of RecordCodec,
+	* through a temporary file, so a crash leaves either the old or the new database file.
+	* @param list The list of objects to write
+	* @return write success failure boolean.
+	*/
+	@SuppressWarnings("rawtypes")
+	public boolean writeSerializedObject(List list) {
+		return RecordFile.write(System.getProperty("user.dir") + "\\Databases\\swapRequests.dat", RecordCodec.SWAP_REQUEST, list);
+	}
+}
@@ -0,0 +1,243 @@
+/**
+ * Represents the periods taken by a set of lessons in a week.
+ * Each day has one bitmask for odd weeks and one for even weeks, where bit n
+ * is the one hour period starting at 0830 + n hours, as in Schedule.
+ * A lesson with no remark takes its periods in both odd and even weeks.
+ * A TimetableMask is computed once from the lessons of an index group and never changes,
+ * so timetable operations do not parse lesson days and times again.
+ * @author Ang Poh Keong
+ * @version 1.0
+ * @since 2017-04-16
+ */
+
+package Objects;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TimetableMask {
+	/**
+	 * The number of days in a week that lessons can be held on.
+	 */
+	public static final int NUM_OF_DAYS = 6;
+
+	/**
+	 * The number of one hour periods in a day.
+	 */
+	public static final int NUM_OF_PERIODS = 15;
+
+	/**
+	 * The number of longs the periods of a TimetableMask are packed into by pack().
+	 */
+	public static final int NUM_OF_WORDS = (2 * NUM_OF_DAYS * NUM_OF_PERIODS + 63) / 64;
+
+	/**
+	 * The periods taken in odd weeks, one bitmask per day.
+	 */
+	private final long[] oddWeek = new long[NUM_OF_DAYS];
+
+	/**
+	 * The periods taken in even weeks, one bitmask per day.
+	 */
+	private final long[] evenWeek = new long[NUM_OF_DAYS];
+
+	/**
+	 * The lessons that take periods, in the order of the lesson list.
+	 */
+	private final Lesson[] lessons;
+
+	/**
+	 * The day of each lesson, from 0 for Monday.
+	 */
+	private final int[] days;
+
+	/**
+	 * The bitmask of the periods of each lesson.
+	 */
+	private final long[] periods;
+
+	/**
+	 * The slot of each lesson in a period of Schedule: 0 for every week and odd weeks, 1 for even weeks.
+	 */
+	private final int[] slots;
+
+	/**
+	 * Creates a new TimetableMask of the given lessons. Online lessons take no periods.
+	 * @param lessons The lessons to take the periods of.
+	 * @param withLectures Whether lectures are included.
+	 */
+	public TimetableMask(List<Lesson> lessons, boolean withLectures) {
+		ArrayList<Lesson> placedLessons = new ArrayList<Lesson>();
+		ArrayList<Integer> placedDays = new ArrayList<Integer>();
+		ArrayList<Long> placedPeriods = new ArrayList<Long>();
+		ArrayList<Integer> placedSlots = new ArrayList<Integer>();
+
+		for (int i = 0; lessons != null && i < lessons.size(); i++) {
+			Lesson l1 = lessons.get(i);
+
+			if (l1.getLessonType().equals("ONLINE MOD")) {
+				continue;
+			}
+			if (!withLectures && l1.getLessonType().equals("LEC/STUDIO")) {
+				continue;
+			}
+
+			int day = Lesson.convertLessonDayToInt(l1.getLessonDay()) - 1;
+			if (day < 0) {
+				continue;
+			}
+
+			long lessonPeriods = convertTimeToPeriods(l1.getStartTime(), l1.getEndTime());
+			if (l1.getRemark() == null || l1.getRemark().equals("ODD")) {
+				oddWeek[day] |= lessonPeriods;
+				if (l1.getRemark() == null) {
+					evenWeek[day] |= lessonPeriods;
+				}
+				placedSlots.add(0);
+			} else if (l1.getRemark().equals("EVEN")) {
+				evenWeek[day] |= lessonPeriods;
+				placedSlots.add(1);
+			} else {
+				continue;
+			}
+			placedLessons.add(l1);
+			placedDays.add(day);
+			placedPeriods.add(lessonPeriods);
+		}
+
+		this.lessons = placedLessons.toArray(new Lesson[placedLessons.size()]);
+		this.days = new int[placedDays.size()];
+		this.periods = new long[placedPeriods.size()];
+		this.slots = new int[placedSlots.size()];
+		for (int i = 0; i < this.lessons.length; i++) {
+			this.days[i] = placedDays.get(i);
+			this.periods[i] = placedPeriods.get(i);
+			this.slots[i] = placedSlots.get(i);
+		}
+	}
+
+	/**
+	 * Converts a lesson's time to the bitmask of the periods it takes in a day.
+	 * A start time that is not on a period starts at the first period, as lessons always have.
+	 * @param startTime Starting time of a lesson, such as 0830.
+	 * @param endTime Ending time of a lesson, such as 1030.
+	 * @return the bitmask of the periods of the lesson.
+	 */
+	public static long convertTimeToPeriods(String startTime, String endTime) {
+		int start = Integer.parseInt(startTime);
+		int noOfHour = (Integer.parseInt(endTime) - start) / 100;
+		int startPeriod = 0;
+
+		if (start % 100 == 30 && start >= 830 && start <= 2230) {
+			startPeriod = (start - 830) / 100;
+		}
+		if (noOfHour <= 0) {
+			return 0;
+		}
+		return (((1L << Math.min(noOfHour, NUM_OF_PERIODS)) - 1) << startPeriod) & ((1L << NUM_OF_PERIODS) - 1);
+	}
+
+	/**
+	 * Checks if any period of this TimetableMask is already taken.
+	 * @param oddWeekSlots The periods taken in odd weeks, one bitmask per day.
+	 * @param evenWeekSlots The periods taken in even weeks, one bitmask per day.
+	 * @return boolean (true / false)
+	 */
+	public boolean clashesWith(long[] oddWeekSlots, long[] evenWeekSlots) {
+		for (int i = 0; i < NUM_OF_DAYS; i++) {
+			if ((oddWeek[i] & oddWeekSlots[i]) != 0 || (evenWeek[i] & evenWeekSlots[i]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Packs the periods of this TimetableMask into NUM_OF_WORDS longs, the odd weeks of every day
+	 * followed by the even weeks, so two TimetableMasks clash exactly when a pair of their words
+	 * share a bit. Used to try many combinations of index groups quickly.
+	 * @return the packed periods.
+	 */
+	public long[] pack() {
+		long[] words = new long[NUM_OF_WORDS];
+
+		for (int i = 0; i < NUM_OF_DAYS; i++) {
+			packInto(words, i * NUM_OF_PERIODS, oddWeek[i]);
+			packInto(words, (NUM_OF_DAYS + i) * NUM_OF_PERIODS, evenWeek[i]);
+		}
+		return words;
+	}
+
+	/**
+	 * Puts the periods of one day into packed words, which may span two words.
+	 * @param words The packed words.
+	 * @param bit The position of the first period of the day in the packed words.
+	 * @param periods The bitmask of the periods of the day.
+	 */
+	private static void packInto(long[] words, int bit, long periods) {
+		int offset = bit & 63;
+
+		words[bit >> 6] |= periods << offset;
+		if (offset + NUM_OF_PERIODS > 64) {
+			words[(bit >> 6) + 1] |= periods >>> (64 - offset);
+		}
+	}
+
+	/**
+	 * Marks the periods of this TimetableMask as taken.
+	 * @param oddWeekSlots The periods taken in odd weeks, one bitmask per day.
+	 * @param evenWeekSlots The periods taken in even weeks, one bitmask per day.
+	 */
+	public void addTo(long[] oddWeekSlots, long[] evenWeekSlots) {
+		for (int i = 0; i < NUM_OF_DAYS; i++) {
+			oddWeekSlots[i] |= oddWeek[i];
+			evenWeekSlots[i] |= evenWeek[i];
+		}
+	}
+
+	/**
+	 * Marks the periods of this TimetableMask as free.
+	 * @param oddWeekSlots The periods taken in odd weeks, one bitmask per day.
+	 * @param evenWeekSlots The periods taken in even weeks, one bitmask per day.
+	 */
+	public void removeFrom(long[] oddWeekSlots, long[] evenWeekSlots) {
+		for (int i = 0; i < NUM_OF_DAYS; i++) {
+			oddWeekSlots[i] &= ~oddWeek[i];
+			evenWeekSlots[i] &= ~evenWeek[i];
+		}
+	}
+
+	/**
+	 * Puts the lessons of this TimetableMask into their periods of a Schedule's timetable.
+	 * @param scheduleTimetable The timetable of a Schedule, by day, period and slot.
+	 */
+	public void placeIn(ArrayList<ArrayList<ArrayList<Lesson>>> scheduleTimetable) {
+		for (int i = 0; i < lessons.length; i++) {
+			setPeriods(scheduleTimetable, i, lessons[i]);
+		}
+	}
+
+	/**
+	 * Clears the periods of the lessons of this TimetableMask in a Schedule's timetable.
+	 * @param scheduleTimetable The timetable of a Schedule, by day, period and slot.
+	 */
+	public void clearFrom(ArrayList<ArrayList<ArrayList<Lesson>>> scheduleTimetable) {
+		for (int i = 0; i < lessons.length; i++) {
+			setPeriods(scheduleTimetable, i, null);
+		}
+	}
+
+	/**
+	 * Sets the periods of one lesson of this TimetableMask in a Schedule's timetable.
+	 * @param scheduleTimetable The timetable of a Schedule, by day, period and slot.
+	 * @param i The position of the lesson in this TimetableMask.
+	 * @param lesson The lesson to set, or null to clear the periods.
+	 */
+	private void setPeriods(ArrayList<ArrayList<ArrayList<Lesson>>> scheduleTimetable, int i, Lesson lesson) {
+		ArrayList<ArrayList<Lesson>> periodList = scheduleTimetable.get(days[i]);
+
+		for (long bits = periods[i]; bits != 0; bits &= bits - 1) {
+			periodList.get(Long.numberOfTrailingZeros(bits)).set(slots[i], lesson);
+		}
+	}
+}
@@ -0,0 +1,447 @@
+/**
+ * Represents a group of changes to Students, IndexGroups, Waitlists and Courses
+ * that is written to the journal as one entry.
+ * A Transaction is bound to the thread that began it, and every Repository.put()
+ * made by that thread is logged when the Transaction commits, with a single sync to disk
+ * that also covers the entries of the transactions committing at the same time.
+ * A crash therefore keeps either all of the changes of a Transaction or none of them.
+ * An entry holds each changed record whole, in the binary format of RecordCodec, so replaying
+ * an entry over a database file already holding a later state of the record still ends with the latest state.
+ * Committing also publishes the changes as a new version, all at once, to the snapshots taken afterwards,
+ * then runs the tasks given to afterCommit(), such as notifying students, which must not happen unless the changes are kept.
+ * Aborting instead puts every record changed back as it was in memory, gives back the seats taken and takes back those given,
+ * writes nothing and drops the tasks.
+ * A nested begin() marks a savepoint, so aborting it rolls back only the changes made since.
+ * @author Lim Boon Leng
+ * @version 1.5
+ * @since 2017-04-15
+ */
+
+package Objects;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Transaction {
+	/**
+	 * The Transaction that the current thread has begun, if any.
+	 */
+	private static final ThreadLocal<Transaction> current = new ThreadLocal<Transaction>();
+
+	/**
+	 * The changed records of this Transaction, keyed by database name and record ID
+	 * so that a record put twice is logged once, in its latest state.
+	 */
+	private final Map<String, Change> changes = new LinkedHashMap<String, Change>();
+
+	/**
+	 * The repositories changed by this Transaction.
+	 */
+	private final ArrayList<Repository<?, ?>> repositories = new ArrayList<Repository<?, ?>>();
+
+	/**
+	 * The tasks to run once this Transaction has been written.
+	 */
+	private final ArrayList<Runnable> tasks = new ArrayList<Runnable>();
+
+	/**
+	 * The steps that undo each change of this Transaction in memory, oldest first.
+	 */
+	private final ArrayList<Runnable> undoLog = new ArrayList<Runnable>();
+
+	/**
+	 * The length of the undo log and of the tasks when each nested begin() still open was called, innermost last.
+	 */
+	private final ArrayList<int[]> savepoints = new ArrayList<int[]>();
+
+	/**
+	 * The repository and ID of each record put by this Transaction, whose mark as uncommitted
+	 * is cleared once this Transaction has ended, however it ends.
+	 */
+	private final ArrayList<Object[]> uncommittedKeys = new ArrayList<Object[]>();
+
+	/**
+	 * The records put by this Transaction, compared by identity.
+	 */
+	private final IdentityHashMap<Object, Boolean> putRecords = new IdentityHashMap<Object, Boolean>();
+
+	/**
+	 * Whether the undo log is being run by abort(), so the steps run do not log undo steps of their own.
+	 */
+	private boolean aborting;
+
+	/**
+	 * The number of nested begin() calls that have not been committed or aborted yet.
+	 */
+	private int depth;
+
+	/**
+	 * Represents one changed record in a journal entry.
+	 */
+	static class Change {
+		/**
+		 * The name of the database the record belongs to.
+		 */
+		final String database;
+
+		/**
+		 * The changed record.
+		 */
+		final Object record;
+
+		/**
+		 * The type of the record, from RecordCodec, once the record has been encoded.
+		 */
+		byte recordType;
+
+		/**
+		 * The record in the binary format of RecordCodec, or null if it has not been encoded yet.
+		 */
+		byte[] bytes;
+
+		/**
+		 * Creates a new Change.
+		 * @param database The name of the database the record belongs to.
+		 * @param record The changed record.
+		 */
+		Change(String database, Object record) {
+			this.database = database;
+			this.record = record;
+		}
+	}
+
+	/**
+	 * Begins a Transaction on the current thread.
+	 * Nested calls join the Transaction that is already open, from a savepoint.
+	 * @return the Transaction of the current thread.
+	 */
+	public static Transaction begin() {
+		Transaction transaction = current.get();
+
+		if (transaction == null) {
+			transaction = new Transaction();
+			current.set(transaction);
+		}
+		transaction.savepoints.add(new int[] {transaction.undoLog.size(), transaction.tasks.size()});
+		transaction.depth++;
+		return transaction;
+	}
+
+	/**
+	 * Checks if a record was put by the Transaction of the current thread.
+	 * @param record The record.
+	 * @return boolean (true / false)
+	 */
+	static boolean isPutByCurrent(Object record) {
+		Transaction transaction = current.get();
+		return transaction != null && transaction.putRecords.containsKey(record);
+	}
+
+	/**
+	 * Runs a task once the Transaction of the current thread has committed and its changes are written,
+	 * or at once if no Transaction is open. The task is dropped if the changes cannot be written.
+	 * @param task The task to run.
+	 */
+	public static void afterCommit(Runnable task) {
+		Transaction transaction = current.get();
+
+		if (transaction == null) {
+			task.run();
+		} else {
+			transaction.tasks.add(task);
+		}
+	}
+
+	/**
+	 * Runs a step if the Transaction of the current thread is aborted, to undo a change kept outside the repositories,
+	 * such as a seat taken in Database.vacancies. Does nothing if no Transaction is open.
+	 * @param undo The step that undoes the change.
+	 */
+	static void onAbort(Runnable undo) {
+		Transaction transaction = current.get();
+
+		if (transaction != null && !transaction.aborting) {
+			transaction.undoLog.add(undo);
+		}
+	}
+
+	/**
+	 * Logs a changed record in the Transaction of the current thread,
+	 * or commits it on its own if no Transaction is open.
+	 * @param repository The repository the record was put in.
+	 * @param record The changed record.
+	 * @param previous The record it replaced in memory, or null if there was none.
+	 */
+	static <K, V> void log(Repository<K, V> repository, V record, V previous) {
+		Transaction transaction = current.get();
+
+		if (transaction == null) {
+			transaction = new Transaction();
+			transaction.uncommittedKeys.add(new Object[] {repository, repository.getKey(record)});
+			try {
+				transaction.add(repository, record);
+				transaction.write();
+			} finally {
+				transaction.clearUncommittedKeys();
+			}
+		} else {
+			transaction.uncommittedKeys.add(new Object[] {repository, repository.getKey(record)});
+			transaction.addUndo(repository, record, previous);
+			transaction.add(repository, record);
+			transaction.putRecords.put(record, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Remembers how to undo the put of a record, should this Transaction be aborted.
+	 * @param repository The repository the record was put in.
+	 * @param record The changed record.
+	 * @param previous The record it replaced in memory, or null if there was none.
+	 */
+	private <K, V> void addUndo(final Repository<K, V> repository, V record, final V previous) {
+		final K recordKey = repository.getKey(record);
+		final String key = repository.getName() + ":" + recordKey;
+		final Change change = changes.get(key);
+
+		undoLog.add(new Runnable() {
+			public void run() {
+				repository.restore(recordKey, previous);
+				changes.remove(key);
+				if (change != null) {
+					changes.put(key, change);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Adds a changed record to this Transaction.
+	 * @param repository The repository the record was put in.
+	 * @param record The changed record.
+	 */
+	private <K, V> void add(Repository<K, V> repository, V record) {
+		String key = repository.getName() + ":" + repository.getKey(record);
+
+		changes.remove(key);
+		changes.put(key, new Change(repository.getName(), record));
+		if (!repositories.contains(repository)) {
+			repositories.add(repository);
+		}
+	}
+
+	/**
+	 * Commits this Transaction, writing all of its changes to the journal as one entry,
+	 * then runs the tasks given to afterCommit() if they were written.
+	 * Does nothing but close a nested begin() when called from inside another Transaction.
+	 */
+	public void commit() {
+		savepoints.remove(savepoints.size() - 1);
+		depth--;
+
+		if (depth == 0) {
+			boolean written;
+			current.remove();
+
+			try {
+				written = write();
+			} finally {
+				clearUncommittedKeys();
+			}
+
+			for (int i = 0; written && i < tasks.size(); i++) {
+				try {
+					tasks.get(i).run();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Aborts this Transaction, or only the changes made since the nested begin() being closed,
+	 * putting every record changed back as it was in memory and dropping the tasks given to afterCommit() since.
+	 * Nothing is written to the journal. Must be called before the locks of the changed records are released.
+	 */
+	public void abort() {
+		int[] savepoint = savepoints.remove(savepoints.size() - 1);
+
+		aborting = true;
+		for (int i = undoLog.size() - 1; i >= savepoint[0]; i--) {
+			try {
+				undoLog.remove(i).run();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+		aborting = false;
+		while (tasks.size() > savepoint[1]) {
+			tasks.remove(tasks.size() - 1);
+		}
+		depth--;
+
+		if (depth == 0) {
+			current.remove();
+			clearUncommittedKeys();
+		}
+	}
+
+	/**
+	 * Clears the marks of the records put by this Transaction as uncommitted, once it has ended.
+	 */
+	private void clearUncommittedKeys() {
+		for (int i = 0; i < uncommittedKeys.size(); i++) {
+			((Repository<?, ?>) uncommittedKeys.get(i)[0]).clearUncommitted(uncommittedKeys.get(i)[1]);
+		}
+		uncommittedKeys.clear();
+	}
+
+	/**
+	 * Appends the changes of this Transaction to the journal and publishes a copy of each changed record
+	 * as a new version, then syncs the journal to disk once Database.LOCK is released, so transactions
+	 * committing at the same time share a sync. The changed databases are written instead
+	 * if the journal cannot be written.
+	 * @return write success failure boolean.
+	 */
+	private boolean write() {
+		if (changes.isEmpty()) {
+			return true;
+		}
+
+		ArrayList<Change> entry = new ArrayList<Change>();
+		Iterator<Change> it = changes.values().iterator();
+		while (it.hasNext()) {
+			entry.add(it.next());
+		}
+
+		byte[] bytes = null;
+		try {
+			bytes = writeEntry(entry);
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+
+		long position = -1;
+		synchronized (Database.LOCK) {
+			for (int i = 0; i < entry.size(); i++) {
+				findRepository(entry.get(i).database).markChanged(entry.get(i).record);
+			}
+
+			if (bytes != null) {
+				try {
+					position = Database.journal.appendEntry(bytes);
+				} catch (IOException ex) {
+					ex.printStackTrace();
+				}
+			}
+
+			publish(entry);
+		}
+
+		if (position >= 0) {
+			try {
+				Database.journal.sync(position);
+				return true;
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+		return Database.compactAll();
+	}
+
+	/**
+	 * Converts the changes of a Transaction to a journal entry: the number of records,
+	 * then the type, length and bytes of each record.
+	 * @param entry The changes, each of which keeps the bytes of its record.
+	 * @return the bytes of the entry.
+	 * @throws IOException if a record cannot be encoded.
+	 */
+	private static byte[] writeEntry(ArrayList<Change> entry) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		out.writeInt(entry.size());
+		for (int i = 0; i < entry.size(); i++) {
+			Change change = entry.get(i);
+
+			change.recordType = RecordCodec.typeOf(change.record);
+			change.bytes = RecordCodec.encode(change.record);
+			out.writeByte(change.recordType);
+			out.writeInt(change.bytes.length);
+			out.write(change.bytes);
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Reads the records of a journal entry written by writeEntry().
+	 * @param bytes The bytes of the entry.
+	 * @return the records, in the order they were written.
+	 * @throws IOException if the entry is not whole or a record cannot be decoded.
+	 */
+	static List<Object> readEntry(byte[] bytes) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		int numOfRecords = in.readInt();
+		List<Object> records = new ArrayList<Object>();
+
+		for (int i = 0; i < numOfRecords; i++) {
+			byte recordType = in.readByte();
+			byte[] record = new byte[in.readInt()];
+			in.readFully(record);
+			records.add(RecordCodec.decode(recordType, record));
+		}
+		return records;
+	}
+
+	/**
+	 * Keeps a copy of each changed record under the next version, then makes the version readable,
+	 * drops the copies of those records that no open snapshot can read any more and tells the commit listeners.
+	 * Called while holding Database.LOCK, so versions are published in the order they are committed.
+	 * @param entry The changes of this Transaction.
+	 */
+	private void publish(ArrayList<Change> entry) {
+		long version = Database.nextVersion();
+
+		for (int i = 0; i < entry.size(); i++) {
+			Change change = entry.get(i);
+
+			if (change.bytes == null) {
+				findRepository(change.database).addVersion(change.record, version);
+			} else {
+				findRepository(change.database).addVersion(change.record, change.recordType, change.bytes, version);
+			}
+		}
+
+		long oldestVersion = Database.publishVersion(version);
+		List<Object> records = new ArrayList<Object>();
+		for (int i = 0; i < entry.size(); i++) {
+			findRepository(entry.get(i).database).dropVersions(entry.get(i).record, oldestVersion);
+			records.add(entry.get(i).record);
+		}
+		Database.committed(version, records);
+	}
+
+	/**
+	 * Finds the repository changed by this Transaction with the given name.
+	 * @param name The name of the database.
+	 * @return the repository.
+	 */
+	private Repository<?, ?> findRepository(String name) {
+		for (int i = 0; i < repositories.size(); i++) {
+			if (repositories.get(i).getName().equals(name)) {
+				return repositories.get(i);
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,133 @@
+/**
+ * Represents the vacancies of an index group as of one committed version, pushed to the sessions watching it.
+ * @author Lim Boon Leng
+ * @version 1.0
+ * @since 2017-04-18
+ */
+
+package Objects;
+
+public class VacancyEvent {
+	/**
+	 * The ID of the index group.
+	 */
+	private final Integer indexGroupID;
+
+	/**
+	 * The number of students registered in the index group.
+	 */
+	private final int currentNumOfStudents;
+
+	/**
+	 * The maximum number of students of the index group.
+	 */
+	private final int maxNumOfStudents;
+
+	/**
+	 * The number of students in the waitlist of the index group.
+	 */
+	private final int waitlistLength;
+
+	/**
+	 * The version of the last Transaction committed when the vacancies were read.
+	 */
+	private final long version;
+
+	/**
+	 * Creates a new VacancyEvent with the given attribute values
+	 * @param indexGroupID The ID of the index group
+	 * @param currentNumOfStudents The number of students registered in the index group
+	 * @param maxNumOfStudents The maximum number of students of the index group
+	 * @param waitlistLength The number of students in the waitlist of the index group
+	 * @param version The version of the last Transaction committed when the vacancies were read
+	 */
+	public VacancyEvent(Integer indexGroupID, int currentNumOfStudents, int maxNumOfStudents, int waitlistLength, long version) {
+		this.indexGroupID = indexGroupID;
+		this.currentNumOfStudents = currentNumOfStudents;
+		this.maxNumOfStudents = maxNumOfStudents;
+		this.waitlistLength = waitlistLength;
+		this.version = version;
+	}
+
+	/**
+	 * Reads the vacancies of an index group from a Snapshot.
+	 * @param snapshot The Snapshot to read from.
+	 * @param indexGroupID The ID of the index group.
+	 * @return the VacancyEvent, or null if the index group did not exist.
+	 */
+	public static VacancyEvent read(Snapshot snapshot, Integer indexGroupID) {
+		IndexGroup indexGroup = snapshot.getIndexGroup(indexGroupID);
+		int waitlistLength = 0;
+
+		if (indexGroup == null) {
+			return null;
+		}
+		if (indexGroup.getWaitList() != null && indexGroup.getWaitList().getWaitListID() != null) {
+			Waitlist waitlist = snapshot.getWaitlist(indexGroup.getWaitList().getWaitListID());
+
+			if (waitlist != null && waitlist.getStudentQueueList() != null) {
+				waitlistLength = waitlist.getStudentQueueList().size();
+			}
+		}
+		return new VacancyEvent(indexGroupID, indexGroup.getCurrentNumOfStudents(), indexGroup.getMaxNumOfStudents(),
+				waitlistLength, snapshot.getVersion());
+	}
+
+	/**
+	* Gets the ID of the index group.
+	* @return the index group ID.
+	*/
+	public Integer getIndexGroupID() {
+		return indexGroupID;
+	}
+
+	/**
+	* Gets the number of students registered in the index group.
+	* @return the number of students.
+	*/
+	public int getCurrentNumOfStudents() {
+		return currentNumOfStudents;
+	}
+
+	/**
+	* Gets the maximum number of students of the index group.
+	* @return the maximum number of students.
+	*/
+	public int getMaxNumOfStudents() {
+		return maxNumOfStudents;
+	}
+
+	/**
+	* Gets the number of vacancies of the index group.
+	* @return the number of vacancies.
+	*/
+	public int getVacancy() {
+		return maxNumOfStudents - currentNumOfStudents;
+	}
+
+	/**
+	* Gets the number of students in the waitlist of the index group.
+	* @return the length of the waitlist.
+	*/
+	public int getWaitlistLength() {
+		return waitlistLength;
+	}
+
+	/**
+	* Gets the version of the last Transaction committed when the vacancies were read.
+	* @return the version.
+	*/
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	* Checks if another VacancyEvent of the same index group has the same vacancies, whatever its version.
+	* @param other The other VacancyEvent, or null.
+	* @return boolean (true / false)
+	*/
+	public boolean sameVacancies(VacancyEvent other) {
+		return other != null && indexGroupID.equals(other.indexGroupID) && currentNumOfStudents == other.currentNumOfStudents
+				&& maxNumOfStudents == other.maxNumOfStudents && waitlistLength == other.waitlistLength;
+	}
+}
@@ -0,0 +1,438 @@
+/**
+ * Represents the seat counters of every index group, kept apart from the rest of the IndexGroup
+ * in a table of fixed-width rows in vacancies.tbl, which is mapped into memory.
+ * Each row holds an index group ID, its current number of students and its maximum number of students,
+ * so a vacancy is read without reading or decoding the IndexGroup.
+ * A seat is taken or given back with a compare-and-set on its row in the mapped file, which is atomic for every
+ * program mapping the table, so several programs serving the same databases on one machine never oversubscribe
+ * an index group, and taking a seat makes no system call.
+ * The file is the source of truth for the current numbers while any program has it open: a program loading the
+ * databases only adds the rows missing and updates the maximum number of students of those whose capacity changed.
+ * A seat is taken in the file as soon as the session asks for it, before its Transaction commits, so a program that
+ * finds no other program holding the table open, such as after a crash, sets every row again from the IndexGroups read
+ * and the journal replayed, and never keeps a seat taken by a Transaction that did not commit.
+ * If the file cannot be opened, the table is kept in memory only.
+ * @author Lim Boon Leng
+ * @version 1.2
+ * @since 2017-04-18
+ */
+
+package Objects;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class VacancyTable {
+	/**
+	 * The first four bytes of the table file, "VACA".
+	 */
+	private static final int MAGIC = 0x56414341;
+
+	/**
+	 * The size of the header of the table file, holding the magic number and the number of rows.
+	 */
+	private static final int HEADER_SIZE = 16;
+
+	/**
+	 * The position of the number of rows in the header.
+	 */
+	private static final int NUM_OF_ROWS_POSITION = 4;
+
+	/**
+	 * The size of one row, holding the index group ID, the current and the maximum number of students.
+	 */
+	private static final int ROW_SIZE = 16;
+
+	/**
+	 * The position of the current number of students in a row.
+	 */
+	private static final int CURRENT_POSITION = 4;
+
+	/**
+	 * The position of the maximum number of students in a row.
+	 */
+	private static final int MAX_POSITION = 8;
+
+	/**
+	 * The number of rows the table file grows by when it is full.
+	 */
+	private static final int ROWS_PER_EXTENT = 1024;
+
+	/**
+	 * The position of the byte, far past the end of the table file, that every program holding the table open locks,
+	 * shared once loaded and exclusive while it sets every row again.
+	 */
+	private static final long LIVE_POSITION = Long.MAX_VALUE - 1;
+
+	/**
+	 * Reads and writes the numbers of a row atomically, even against other programs mapping the table file.
+	 */
+	private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+	/**
+	 * The path of the table file.
+	 */
+	private final String fileName;
+
+	/**
+	 * The open table file, or null if the table is kept in memory only.
+	 */
+	private FileChannel channel;
+
+	/**
+	 * The rows of the table, mapped from the table file once it is opened.
+	 */
+	private volatile ByteBuffer table = ByteBuffer.allocateDirect(HEADER_SIZE + ROWS_PER_EXTENT * ROW_SIZE);
+
+	/**
+	 * The row of every index group known to this program, keyed by index group ID.
+	 */
+	private final Map<Integer, Integer> rows = new ConcurrentHashMap<Integer, Integer>();
+
+	/**
+	 * The lock this program holds on LIVE_POSITION while the table is open, or null.
+	 */
+	private FileLock liveLock;
+
+	/**
+	 * The lock on the header held while every row is set again, so no other program opens the table
+	 * before the databases are loaded, or null.
+	 */
+	private FileLock loadLock;
+
+	/**
+	 * Whether no other program held the table open when it was opened and the databases are still being loaded.
+	 * Until then, attach() also takes the current number of students from the IndexGroups,
+	 * so the table ends up with the numbers in the journal rather than those left in the file.
+	 */
+	private volatile boolean rebuilding;
+
+	/**
+	 * Creates a new VacancyTable for the given table file. The table must be opened before use.
+	 * @param fileName The path of the table file.
+	 */
+	public VacancyTable(String fileName) {
+		this.fileName = fileName;
+	}
+
+	/**
+	 * Opens the table file, creating it if it does not exist, and maps it into memory.
+	 * If no other program holds the table open, keeps the header locked until markLoaded(),
+	 * so every row can be set again from the databases before another program uses the table.
+	 * Keeps the table in memory only if the file cannot be opened.
+	 * @return open success failure boolean.
+	 */
+	public synchronized boolean open() {
+		close();
+		rows.clear();
+
+		try {
+			channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			FileLock headerLock = channel.lock(0, HEADER_SIZE, false);
+
+			try {
+				if (channel.size() < HEADER_SIZE) {
+					map(ROWS_PER_EXTENT);
+					table.putInt(0, MAGIC);
+					table.putInt(NUM_OF_ROWS_POSITION, 0);
+				} else {
+					map((int) ((channel.size() - HEADER_SIZE) / ROW_SIZE));
+					if (table.getInt(0) != MAGIC) {
+						throw new IOException(fileName + " is not a vacancy table");
+					}
+				}
+				refreshRows();
+
+				liveLock = channel.tryLock(LIVE_POSITION, 1, false);
+				if (liveLock != null) {
+					rebuilding = true;
+					loadLock = headerLock;
+					headerLock = null;
+				} else {
+					liveLock = channel.lock(LIVE_POSITION, 1, true);
+				}
+			} finally {
+				releaseLock(headerLock);
+			}
+			return true;
+		} catch (IOException ex) {
+			ex.printStackTrace();
+			close();
+			table = ByteBuffer.allocateDirect(HEADER_SIZE + ROWS_PER_EXTENT * ROW_SIZE);
+			rebuilding = true;
+			return false;
+		}
+	}
+
+	/**
+	 * Closes the table file, which releases its locks. The mapped rows stay readable until they are no longer used.
+	 */
+	public synchronized void close() {
+		liveLock = null;
+		loadLock = null;
+		rebuilding = false;
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+			channel = null;
+		}
+	}
+
+	/**
+	 * Stops taking the current number of students from attached IndexGroups once the databases are loaded,
+	 * and lets other programs open the table, holding it open as one of them.
+	 */
+	public synchronized void markLoaded() {
+		rebuilding = false;
+
+		try {
+			if (loadLock != null) {
+				liveLock.release();
+				liveLock = channel.lock(LIVE_POSITION, 1, true);
+			}
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		} finally {
+			releaseLock(loadLock);
+			loadLock = null;
+		}
+	}
+
+	/**
+	 * Adds a row for an index group if it has none, with the current and maximum number of students
+	 * of the IndexGroup, or updates the maximum number of students of its row.
+	 * While the databases are loaded by the only program holding the table open, the current number of students
+	 * of an existing row is set from the IndexGroup as well, so the last IndexGroup replayed from the journal decides it.
+	 * Otherwise it is kept, since the row is newer than any IndexGroup committed.
+	 * @param indexGroup The IndexGroup to add or update.
+	 */
+	public void attach(IndexGroup indexGroup) {
+		Integer indexGroupID = indexGroup.getIndexGroupID();
+		if (indexGroupID == null) {
+			return;
+		}
+
+		int row = findRow(indexGroupID);
+		if (row < 0) {
+			addRow(indexGroupID, indexGroup.getStoredNumOfStudents(), indexGroup.getMaxNumOfStudents());
+			return;
+		}
+
+		ByteBuffer mapped = table;
+		int max = indexGroup.getMaxNumOfStudents() == null ? 0 : indexGroup.getMaxNumOfStudents().intValue();
+		if (rebuilding) {
+			INT.setVolatile(mapped, row + CURRENT_POSITION, indexGroup.getStoredNumOfStudents());
+		}
+		if ((int) INT.getVolatile(mapped, row + MAX_POSITION) != max) {
+			INT.setVolatile(mapped, row + MAX_POSITION, max);
+		}
+	}
+
+	/**
+	 * Gets the current number of students of an index group.
+	 * @param indexGroupID The ID of the index group.
+	 * @return the current number of students, or null if the index group has no row.
+	 */
+	public Integer getCurrentNumOfStudents(Integer indexGroupID) {
+		int row = findRow(indexGroupID);
+		return row < 0 ? null : Integer.valueOf((int) INT.getVolatile(table, row + CURRENT_POSITION));
+	}
+
+	/**
+	 * Changes the current number of students of an index group, if it has a row.
+	 * @param indexGroupID The ID of the index group.
+	 * @param current The current number of students.
+	 */
+	public void setCurrentNumOfStudents(Integer indexGroupID, int current) {
+		int row = findRow(indexGroupID);
+		if (row >= 0) {
+			INT.setVolatile(table, row + CURRENT_POSITION, current);
+		}
+	}
+
+	/**
+	 * Takes one seat in an index group if there is a vacancy.
+	 * @param indexGroupID The ID of the index group.
+	 * @return the current number of students after the seat was taken,
+	 * -1 if there is no vacancy, or -2 if the index group has no row.
+	 */
+	public int tryReserveSeat(Integer indexGroupID) {
+		return changeSeats(indexGroupID, 1);
+	}
+
+	/**
+	 * Gives back one seat taken in an index group.
+	 * @param indexGroupID The ID of the index group.
+	 * @return the current number of students after the seat was given back,
+	 * -1 if no student is registered, or -2 if the index group has no row.
+	 */
+	public int releaseSeat(Integer indexGroupID) {
+		return changeSeats(indexGroupID, -1);
+	}
+
+	/**
+	 * Forces the changes made to the table file to disk.
+	 */
+	public void sync() {
+		ByteBuffer mapped = table;
+
+		if (mapped instanceof MappedByteBuffer) {
+			((MappedByteBuffer) mapped).force();
+		}
+	}
+
+	/**
+	 * Adds or removes one student in the row of an index group, with a compare-and-set on the row
+	 * that is tried again if another session or program changed the row in the meantime.
+	 * @param indexGroupID The ID of the index group.
+	 * @param change 1 to take a seat, -1 to give one back.
+	 * @return the current number of students after the change,
+	 * -1 if the change is not possible, or -2 if the index group has no row.
+	 */
+	private int changeSeats(Integer indexGroupID, int change) {
+		int row = findRow(indexGroupID);
+		if (row < 0) {
+			return -2;
+		}
+
+		ByteBuffer mapped = table;
+		while (true) {
+			int current = (int) INT.getVolatile(mapped, row + CURRENT_POSITION);
+			int changed = current + change;
+
+			if (changed < 0 || changed > (int) INT.getVolatile(mapped, row + MAX_POSITION)) {
+				return -1;
+			}
+			if (INT.compareAndSet(mapped, row + CURRENT_POSITION, current, changed)) {
+				return changed;
+			}
+		}
+	}
+
+	/**
+	 * Finds the row of an index group, looking for rows added by other programs if it is not known.
+	 * @param indexGroupID The ID of the index group.
+	 * @return the position of the row in the table, or -1 if there is none.
+	 */
+	private int findRow(Integer indexGroupID) {
+		if (indexGroupID == null) {
+			return -1;
+		}
+
+		Integer row = rows.get(indexGroupID);
+		if (row == null) {
+			synchronized (this) {
+				if (channel != null) {
+					refreshRows();
+				}
+				row = rows.get(indexGroupID);
+			}
+		}
+		return row == null ? -1 : row.intValue();
+	}
+
+	/**
+	 * Adds a row for an index group at the end of the table, growing the table file if it is full.
+	 * Does nothing if another program has added the row in the meantime.
+	 * @param indexGroupID The ID of the index group.
+	 * @param current The current number of students of the index group.
+	 * @param max The maximum number of students of the index group, or null.
+	 */
+	private synchronized void addRow(Integer indexGroupID, int current, Integer max) {
+		FileLock headerLock = null;
+
+		try {
+			if (channel != null && loadLock == null) {
+				headerLock = channel.lock(0, HEADER_SIZE, false);
+			}
+			refreshRows();
+			if (rows.containsKey(indexGroupID)) {
+				return;
+			}
+
+			int numOfRows = table.getInt(NUM_OF_ROWS_POSITION);
+			int row = HEADER_SIZE + numOfRows * ROW_SIZE;
+			if (row + ROW_SIZE > table.capacity()) {
+				map(numOfRows + ROWS_PER_EXTENT);
+			}
+
+			table.putInt(row, indexGroupID.intValue());
+			table.putInt(row + CURRENT_POSITION, current);
+			table.putInt(row + MAX_POSITION, max == null ? 0 : max.intValue());
+			table.putInt(NUM_OF_ROWS_POSITION, numOfRows + 1);
+			rows.put(indexGroupID, row);
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		} finally {
+			releaseLock(headerLock);
+		}
+	}
+
+	/**
+	 * Reads the rows added since the table was last read, by this program or by others.
+	 */
+	private synchronized void refreshRows() {
+		int numOfRows = table.getInt(NUM_OF_ROWS_POSITION);
+
+		try {
+			if (HEADER_SIZE + numOfRows * ROW_SIZE > table.capacity()) {
+				map(numOfRows);
+			}
+		} catch (IOException ex) {
+			ex.printStackTrace();
+			return;
+		}
+
+		for (int i = rows.size(); i < numOfRows; i++) {
+			int row = HEADER_SIZE + i * ROW_SIZE;
+			rows.put(table.getInt(row), row);
+		}
+	}
+
+	/**
+	 * Maps the table file into memory with room for the given number of rows, growing the file if needed.
+	 * Without a table file, the rows are copied to a larger buffer in memory instead.
+	 * @param numOfRows The number of rows to make room for.
+	 * @throws IOException if the table file cannot be mapped.
+	 */
+	private synchronized void map(int numOfRows) throws IOException {
+		int size = HEADER_SIZE + Math.max(numOfRows, 1) * ROW_SIZE;
+
+		if (channel != null) {
+			table = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		} else {
+			ByteBuffer grown = ByteBuffer.allocateDirect(size);
+			ByteBuffer oldRows = table.duplicate();
+			oldRows.clear();
+			grown.put(oldRows);
+			table = grown;
+		}
+	}
+
+	/**
+	 * Releases a lock on the table file, ignoring a null lock.
+	 * @param lock The lock to release.
+	 */
+	private void releaseLock(FileLock lock) {
+		try {
+			if (lock != null) {
+				lock.release();
+			}
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+}
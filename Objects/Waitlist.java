@@ -1,18 +1,20 @@
 /**Represents the list of students that are waiting for a vacancy in an index group
+ * The students are kept in a WaitlistQueue, so a student can be removed from anywhere
+ * in the queue and the position of a student can be found without walking the queue.
  * @author Ang Poh Keong
- * @version 1.0
+ * @version 1.1
  * @since 2017-04-06
  */
 
 package Objects;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 
@@ -24,6 +26,16 @@ public class Waitlist implements Serializable, FileIOInterface {
 	* The ID to serialize data
 	*/
 	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The fields saved in the database file and the journal. studentQueueList is still saved
+	 * as a LinkedList, so files written before the WaitlistQueue can still be read, and the other way round.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("waitListID", Integer.class),
+		new ObjectStreamField("indexGroupNumber", Integer.class),
+		new ObjectStreamField("studentQueueList", Queue.class)
+	};
 	
 	/**
     * Integer containing ID of waitlist
@@ -38,7 +50,7 @@ public class Waitlist implements Serializable, FileIOInterface {
 	/**
     * Queue for a index group waitlist
     */
-	private Queue<String> studentQueueList;
+	private WaitlistQueue studentQueueList;
 	
     /**
 	* Creates a new Waitlist with no attribute values
@@ -55,7 +67,7 @@ public class Waitlist implements Serializable, FileIOInterface {
 	public Waitlist(Integer waitListID, Integer indexGroupNumber, Queue<String> studentQueueList) {
 		this.waitListID = waitListID;
 		this.indexGroupNumber = indexGroupNumber;
-		this.studentQueueList = studentQueueList;
+		setStudentQueueList(studentQueueList);
 	}
 	
     /**
@@ -65,19 +77,9 @@ public class Waitlist implements Serializable, FileIOInterface {
      */
 	public boolean checkWaitListExists(int waitListId) {
 	 	boolean exists = false;
-		List<Waitlist> list = new ArrayList<Waitlist>();
 		
         try {
-			list = retrieveAllWaitListObjects();
-            
-			for (int i = 0; i < list.size(); i++) {
-				Waitlist retrievedList = list.get(i);
-				
-				if (retrievedList.getWaitListID().equals(waitListId)) {
-					exists = true;
-					break;
-				}
-			}
+			exists = Database.waitlists.contains(waitListId);
         } 
         catch (Exception e) {
             e.printStackTrace();
@@ -90,7 +92,6 @@ public class Waitlist implements Serializable, FileIOInterface {
      * @param indexGroupID ID of index group
      * @return Return waitlist object
      */
-	@SuppressWarnings("unchecked")
 	public Waitlist retrieveWaitListObjectByIndexGroup(Integer indexGroupID) {
 
 		List<Waitlist> list = new ArrayList<Waitlist>();
@@ -98,7 +99,7 @@ public class Waitlist implements Serializable, FileIOInterface {
 		Waitlist tempList = null;
 
 		if (g1.checkIndexGroupExists(indexGroupID) == true) {
-			list = readSerializedObject();
+			list = retrieveAllWaitListObjects();
 
 			for (int i = 0; i < list.size(); i++) {
 				Waitlist retrievedList = list.get(i);
@@ -118,21 +119,11 @@ public class Waitlist implements Serializable, FileIOInterface {
      * @param waitListId ID of waitlist
      * @return Waitlist object
      */	
-	@SuppressWarnings("unchecked")
 	public Waitlist retrieveWaitListObject(Integer waitListId) {
-		List<Waitlist> list = new ArrayList<Waitlist>();
 		Waitlist tempList = null;
 
 		if (checkWaitListExists(waitListId) == true) {
-			list = readSerializedObject();
-
-			for (int i = 0; i < list.size(); i++) {
-				Waitlist retrievedList = list.get(i);
-				if (retrievedList.getWaitListID().equals(waitListId)) {
-					tempList = retrievedList;
-					break;
-				}
-			}
+			tempList = Database.waitlists.get(waitListId);
 		} else {
 			System.out.println("IndexGrop Does Not Exist!!");
 		}
@@ -143,22 +134,8 @@ public class Waitlist implements Serializable, FileIOInterface {
      * Retrieve all waitlist objects
      * @return Return List containing all waitlist objects
      */
-	@SuppressWarnings("unchecked")
 	public List<Waitlist> retrieveAllWaitListObjects() {
-		List<Waitlist> listOfWaitlists = new ArrayList<Waitlist>();
-
-		try{
-			listOfWaitlists = readSerializedObject();
-
-			if(listOfWaitlists == null){
-				System.out.println("Unable to read from file!");
-				throw new Exception();
-			}
-		}
-		catch (Exception e) {
-			e.printStackTrace();
-		}
-		return listOfWaitlists;
+		return Database.waitlists.getAll();
 	}
 	
 	 /**
@@ -176,10 +153,9 @@ public class Waitlist implements Serializable, FileIOInterface {
 				Waitlist w1 = list.get(i);
 
 				if (indexGroupNumber.equals(w1.getIndexGroupNumber())) {
-					studentQueueList.add(studentid);
+					studentQueueList.offer(studentid);
 					w1.setStudentQueueList(studentQueueList);
-					list.set(i, w1);
-					writeSerializedObject(list);
+					Database.waitlists.put(w1);
 				}
 			}
 		} catch (Exception e) {
@@ -205,8 +181,7 @@ public class Waitlist implements Serializable, FileIOInterface {
 				if (indexGroupNumber.equals(w1.getIndexGroupNumber())) {
 					studentQueueList.remove(studentid);
 					w1.setStudentQueueList(studentQueueList);
-					list.set(i, w1);
-					writeSerializedObject(list);
+					Database.waitlists.put(w1);
 				}
 			}
 		} catch (Exception e) {
@@ -232,9 +207,8 @@ public class Waitlist implements Serializable, FileIOInterface {
 				Waitlist retrievedList = list.get(i);
 
 				if (retrievedList.getIndexGroupNumber().equals(updatedWaitList.getIndexGroupNumber())) {
-					list.set(i, updatedWaitList);
+					Database.waitlists.put(updatedWaitList);
 					success = true;
-					writeSerializedObject(list);
 					break;
 				}
 			}
@@ -286,49 +260,73 @@ public class Waitlist implements Serializable, FileIOInterface {
  
     /**
      * Set queue for waitlist
-     * @param studQueueList Queue for waitlist
+     * @param studQueueList Queue for waitlist, copied into a WaitlistQueue if it is another kind of queue
      */
     public void setStudentQueueList(Queue<String> studQueueList) {
-        this.studentQueueList = studQueueList;
+        if (studQueueList == null || studQueueList instanceof WaitlistQueue) {
+            this.studentQueueList = (WaitlistQueue) studQueueList;
+        } else {
+            this.studentQueueList = new WaitlistQueue(studQueueList);
+        }
     }
+
+    /**
+     * Get the position of a student in the waitlist
+     * @param studentid ID of student
+     * @return position of the student, counting the head of the waitlist as 1, or 0 if the student is not in the waitlist
+     */
+    public int getPosition(String studentid) {
+        if (studentQueueList == null) {
+            return 0;
+        }
+        return studentQueueList.getPosition(studentid);
+    }
+
+	/**
+	 * Saves this Waitlist, writing studentQueueList as a LinkedList.
+	 * @param out The stream to write to.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("waitListID", waitListID);
+		fields.put("indexGroupNumber", indexGroupNumber);
+		fields.put("studentQueueList", studentQueueList == null ? null : new LinkedList<String>(studentQueueList));
+		out.writeFields();
+	}
+
+	/**
+	 * Loads this Waitlist, copying studentQueueList into a WaitlistQueue.
+	 * @param in The stream to read from.
+	 * @throws IOException if the stream cannot be read.
+	 * @throws ClassNotFoundException if a saved class cannot be found.
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+
+		waitListID = (Integer) fields.get("waitListID", null);
+		indexGroupNumber = (Integer) fields.get("indexGroupNumber", null);
+		setStudentQueueList((Queue<String>) fields.get("studentQueueList", null));
+	}
     /**
 	* Reads the data from the database file
 	* @return list of objects in the database file.
 	*/
 	@SuppressWarnings("rawtypes")
 	public List readSerializedObject() {
-		List pDetails = null;
-		FileInputStream fis = null;
-		ObjectInputStream in = null;
-		try {
-			fis = new FileInputStream(System.getProperty("user.dir") + "\\Databases\\waitlists.dat");
-			in = new ObjectInputStream(fis);
-			pDetails = (ArrayList)in.readObject();
-			in.close();
-		} catch (IOException ex) {
-			ex.printStackTrace();
-		} catch (ClassNotFoundException ex) {
-			ex.printStackTrace();
-		}
-		return pDetails;
+		return RecordFile.read(System.getProperty("user.dir") + "\\Databases\\waitlists.dat", RecordCodec.WAITLIST);
 	}
 
 	/**
-	* Writes data to the database file
+	* Writes data to the database file in the binary format of RecordCodec,
+	* through a temporary file, so a crash leaves either the old or the new database file.
 	* @param list The list of objects to write
+	* @return write success failure boolean.
 	*/
 	@SuppressWarnings("rawtypes")
-	public void writeSerializedObject(List list) {
-		FileOutputStream fos = null;
-		ObjectOutputStream out = null;
-		try {
-			fos = new FileOutputStream(System.getProperty("user.dir") + "\\Databases\\waitlists.dat");
-			out = new ObjectOutputStream(fos);
-			out.writeObject(list);
-			out.close();
-		} catch (IOException ex) {
-			ex.printStackTrace();
-		}
+	public boolean writeSerializedObject(List list) {
+		return RecordFile.write(System.getProperty("user.dir") + "\\Databases\\waitlists.dat", RecordCodec.WAITLIST, list);
 	}
 }
 
@@ -0,0 +1,229 @@
+/**
+ * Represents the queue of students waiting for a vacancy in an index group.
+ * Every student is given a sequence number when queued, and the queue keeps the students
+ * in a linked hash map from student ID to sequence number, so queueing a student, removing
+ * any student and taking the student at the head take constant time.
+ * A Fenwick tree over the sequence numbers counts the students still queued before a student,
+ * so the position of a student takes logarithmic time even on long queues.
+ * A Waitlist saves its WaitlistQueue as a LinkedList, as it was saved before.
+ * @author Ang Poh Keong
+ * @version 1.0
+ * @since 2017-04-18
+ */
+
+package Objects;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class WaitlistQueue extends AbstractQueue<String> {
+	/**
+	 * The smallest number of sequence numbers the Fenwick tree has room for.
+	 */
+	private static final int MIN_CAPACITY = 16;
+
+	/**
+	 * The sequence number of every student in the queue, keyed by student ID, in queue order.
+	 */
+	private LinkedHashMap<String, Integer> sequenceNums;
+
+	/**
+	 * The Fenwick tree counting the students queued under each sequence number.
+	 * Entry i covers the sequence numbers from i - (i & -i) to i - 1.
+	 */
+	private int[] tree;
+
+	/**
+	 * The sequence number the next student queued is given.
+	 */
+	private int nextSequenceNum;
+
+	/**
+	 * Creates a new empty WaitlistQueue.
+	 */
+	public WaitlistQueue() {
+		clear();
+	}
+
+	/**
+	 * Creates a new WaitlistQueue holding the given students, in the same order.
+	 * @param students The student IDs to queue.
+	 */
+	public WaitlistQueue(Collection<String> students) {
+		clear();
+		addAll(students);
+	}
+
+	/**
+	 * Queues a student at the tail of the queue. A student already queued keeps its position.
+	 * @param studentID The ID of the student.
+	 * @return boolean (true if the student was queued / false if the student was already queued)
+	 */
+	public boolean offer(String studentID) {
+		if (studentID == null) {
+			throw new NullPointerException();
+		}
+		if (sequenceNums.containsKey(studentID)) {
+			return false;
+		}
+		if (nextSequenceNum == tree.length) {
+			renumber(sequenceNums.size() + 1);
+		}
+
+		sequenceNums.put(studentID, nextSequenceNum);
+		update(nextSequenceNum, 1);
+		nextSequenceNum++;
+		return true;
+	}
+
+	/**
+	 * Takes the student at the head of the queue.
+	 * @return the ID of the student, or null if the queue is empty.
+	 */
+	public String poll() {
+		String studentID = peek();
+
+		if (studentID != null) {
+			remove(studentID);
+		}
+		return studentID;
+	}
+
+	/**
+	 * Gets the student at the head of the queue without taking it.
+	 * @return the ID of the student, or null if the queue is empty.
+	 */
+	public String peek() {
+		if (sequenceNums.isEmpty()) {
+			return null;
+		}
+		return sequenceNums.keySet().iterator().next();
+	}
+
+	/**
+	 * Removes a student from anywhere in the queue.
+	 * @param studentID The ID of the student.
+	 * @return boolean (true if the student was queued / false otherwise)
+	 */
+	public boolean remove(Object studentID) {
+		Integer sequenceNum = sequenceNums.remove(studentID);
+
+		if (sequenceNum == null) {
+			return false;
+		}
+		update(sequenceNum, -1);
+		return true;
+	}
+
+	/**
+	 * Checks if a student is in the queue.
+	 * @param studentID The ID of the student.
+	 * @return boolean (true / false)
+	 */
+	public boolean contains(Object studentID) {
+		return sequenceNums.containsKey(studentID);
+	}
+
+	/**
+	 * Gets the position of a student in the queue, counting the head as position 1.
+	 * @param studentID The ID of the student.
+	 * @return the position of the student, or 0 if the student is not queued.
+	 */
+	public int getPosition(String studentID) {
+		Integer sequenceNum = sequenceNums.get(studentID);
+
+		if (sequenceNum == null) {
+			return 0;
+		}
+
+		int position = 0;
+		for (int i = sequenceNum + 1; i > 0; i -= i & -i) {
+			position += tree[i - 1];
+		}
+		return position;
+	}
+
+	/**
+	 * Gets the number of students in the queue.
+	 * @return the number of students.
+	 */
+	public int size() {
+		return sequenceNums.size();
+	}
+
+	/**
+	 * Removes every student from the queue.
+	 */
+	public void clear() {
+		sequenceNums = new LinkedHashMap<String, Integer>();
+		tree = new int[MIN_CAPACITY];
+		nextSequenceNum = 0;
+	}
+
+	/**
+	 * Gets the students in the queue, from head to tail.
+	 * Students removed through the iterator are removed from the queue.
+	 * @return iterator over the student IDs.
+	 */
+	public Iterator<String> iterator() {
+		final Iterator<Map.Entry<String, Integer>> it = sequenceNums.entrySet().iterator();
+
+		return new Iterator<String>() {
+			private Map.Entry<String, Integer> last;
+
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			public String next() {
+				last = it.next();
+				return last.getKey();
+			}
+
+			public void remove() {
+				it.remove();
+				update(last.getValue(), -1);
+			}
+		};
+	}
+
+	/**
+	 * Adds one to the count of a sequence number in the Fenwick tree, or removes one.
+	 * @param sequenceNum The sequence number.
+	 * @param change 1 when a student is queued, -1 when a student is removed.
+	 */
+	private void update(int sequenceNum, int change) {
+		for (int i = sequenceNum + 1; i <= tree.length; i += i & -i) {
+			tree[i - 1] += change;
+		}
+	}
+
+	/**
+	 * Gives the students in the queue the sequence numbers 0 onwards, in queue order,
+	 * in a Fenwick tree with room for twice the given number of students.
+	 * Called when the sequence numbers run out, so each student is renumbered a constant
+	 * number of times on average.
+	 * @param numOfStudents The number of students the queue is about to hold.
+	 */
+	private void renumber(int numOfStudents) {
+		tree = new int[Math.max(MIN_CAPACITY, numOfStudents * 2)];
+		nextSequenceNum = 0;
+
+		Iterator<Map.Entry<String, Integer>> it = sequenceNums.entrySet().iterator();
+		while (it.hasNext()) {
+			it.next().setValue(nextSequenceNum);
+			tree[nextSequenceNum] = 1;
+			nextSequenceNum++;
+		}
+
+		for (int i = 1; i <= tree.length; i++) {
+			int parent = i + (i & -i);
+			if (parent <= tree.length) {
+				tree[parent - 1] += tree[i - 1];
+			}
+		}
+	}
+}